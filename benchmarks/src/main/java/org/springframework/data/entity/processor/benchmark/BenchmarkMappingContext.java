@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import org.springframework.data.mapping.Association;
+import org.springframework.data.mapping.PersistentEntity;
+import org.springframework.data.mapping.context.AbstractMappingContext;
+import org.springframework.data.mapping.model.AnnotationBasedPersistentProperty;
+import org.springframework.data.mapping.model.BasicPersistentEntity;
+import org.springframework.data.mapping.model.Property;
+import org.springframework.data.mapping.model.SimpleTypeHolder;
+import org.springframework.data.util.TypeInformation;
+
+/**
+ * Minimal store agnostic {@link AbstractMappingContext} used to obtain property accessors and instantiators.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class BenchmarkMappingContext
+		extends AbstractMappingContext<BasicPersistentEntity<Object, BenchmarkMappingContext.BenchmarkProperty>, BenchmarkMappingContext.BenchmarkProperty> {
+
+	@Override
+	@SuppressWarnings("unchecked")
+	protected <T> BasicPersistentEntity<Object, BenchmarkProperty> createPersistentEntity(TypeInformation<T> typeInformation) {
+		return new BasicPersistentEntity<>((TypeInformation<Object>) typeInformation);
+	}
+
+	@Override
+	protected BenchmarkProperty createPersistentProperty(Property property, BasicPersistentEntity<Object, BenchmarkProperty> owner,
+			SimpleTypeHolder simpleTypeHolder) {
+		return new BenchmarkProperty(property, owner, simpleTypeHolder);
+	}
+
+	static class BenchmarkProperty extends AnnotationBasedPersistentProperty<BenchmarkProperty> {
+
+		BenchmarkProperty(Property property, PersistentEntity<?, BenchmarkProperty> owner, SimpleTypeHolder simpleTypeHolder) {
+			super(property, owner, simpleTypeHolder);
+		}
+
+		@Override
+		protected Association<BenchmarkProperty> createAssociation() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+
+import org.springframework.util.StreamUtils;
+
+/**
+ * {@link URLClassLoader} keeping track of the number of classes it defines and the bytes read to do so.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class CountingClassLoader extends URLClassLoader {
+
+	private int classesLoaded;
+	private long bytesRead;
+
+	CountingClassLoader(URL[] urls, ClassLoader parent) {
+		super(urls, parent);
+	}
+
+	@Override
+	protected Class<?> findClass(String name) throws ClassNotFoundException {
+
+		URL resource = findResource(name.replace('.', '/') + ".class");
+		if (resource == null) {
+			throw new ClassNotFoundException(name);
+		}
+
+		byte[] bytes;
+		try {
+
+			URLConnection connection = resource.openConnection();
+			connection.setUseCaches(false);
+			try (InputStream inputStream = connection.getInputStream()) {
+				bytes = StreamUtils.copyToByteArray(inputStream);
+			}
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+
+		synchronized (this) {
+			classesLoaded++;
+			bytesRead += bytes.length;
+		}
+
+		int packageSeparator = name.lastIndexOf('.');
+		if (packageSeparator != -1) {
+
+			String packageName = name.substring(0, packageSeparator);
+			if (getPackage(packageName) == null) {
+				definePackage(packageName, null, null, null, null, null, null, null);
+			}
+		}
+
+		return defineClass(name, bytes, 0, bytes.length);
+	}
+
+	synchronized int getClassesLoaded() {
+		return classesLoaded;
+	}
+
+	synchronized long getBytesRead() {
+		return bytesRead;
+	}
+}
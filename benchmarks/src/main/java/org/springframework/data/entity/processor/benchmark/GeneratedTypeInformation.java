@@ -0,0 +1,93 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeSignature;
+import org.springframework.data.entity.processor.writer.BytecodeFileWriter;
+import org.springframework.data.mapping.model.ConfigurableTypeInformation;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Runs the generator for a set of domain types and loads the resulting {@link ConfigurableTypeInformation} so
+ * benchmarks can compare it against the reflective {@link org.springframework.data.util.ClassTypeInformation}.
+ * <p>
+ * The classes are generated with the {@link BytecodeFileWriter} which emits the same code as the source backend
+ * without requiring a compiler at benchmark time.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class GeneratedTypeInformation {
+
+	private final ClassLoader classLoader;
+
+	private GeneratedTypeInformation(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	/**
+	 * Generate the type information for the given domain types and everything reachable from them.
+	 *
+	 * @param domainTypes must not be {@literal null}.
+	 * @return new instance of {@link GeneratedTypeInformation}.
+	 */
+	static GeneratedTypeInformation generate(Class<?>... domainTypes) {
+
+		try {
+
+			File directory = Files.createTempDirectory("generated-type-information").toFile();
+
+			DomainTypes model = new DataModelGenerator(Arrays.asList(domainTypes)).getDomainTypes();
+			new BytecodeFileWriter().writeConfigurableTypes(model, directory);
+
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> FileSystemUtils.deleteRecursively(directory)));
+
+			return new GeneratedTypeInformation(
+					new URLClassLoader(new URL[] { directory.toURI().toURL() }, GeneratedTypeInformation.class.getClassLoader()));
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to generate type information", e);
+		}
+	}
+
+	/**
+	 * @return the singleton instance of the generated {@link ConfigurableTypeInformation} for the given domain type.
+	 */
+	@SuppressWarnings("unchecked")
+	<T> ConfigurableTypeInformation<T> typeInformation(Class<T> domainType) {
+
+		Class<?> type = generatedType(domainType);
+		return (ConfigurableTypeInformation<T>) ReflectionUtils.invokeMethod(ClassUtils.getMethod(type, "instance"), null);
+	}
+
+	/**
+	 * @return the generated class holding the {@link TypeInformation} for the given domain type.
+	 */
+	Class<?> generatedType(Class<?> domainType) {
+		return ClassUtils.resolveClassName(TypeSignature.fromClass(domainType).getConfigurableTypeName(), classLoader);
+	}
+}
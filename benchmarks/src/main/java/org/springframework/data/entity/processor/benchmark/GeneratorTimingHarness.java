@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import org.springframework.data.entity.processor.plugin.CodeGeneratorApplication;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Runs {@link CodeGeneratorApplication} end to end against synthetic domains of increasing size, passing the compiled
+ * domain via {@literal --classpath} just like the build plugins do. Reports wall time and peak heap of each run along
+ * with the phase timings and counters the generator records itself ({@literal --stats-json}) as JSON.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@literal --entities=100,1000,10000} the domain sizes to run.</li>
+ * <li>{@literal --repetitions=3} runs per domain size, the first ones including JIT warm up.</li>
+ * <li>{@literal --output=results.json} the file to write the results to, standard out if omitted.</li>
+ * <li>{@literal --properties=8}, {@literal --nesting-depth=1}, {@literal --inheritance-depth=1},
+ * {@literal --generics=false}, {@literal --collections=true}, {@literal --maps=true}, {@literal --cycles=true} and
+ * {@literal --annotation-density=0.2} the shape of the {@link SyntheticDomainGenerator synthetic domain}.</li>
+ * </ul>
+ * Any other {@literal --name=value} option is passed on to the generator as is, eg. {@literal --backend=bytecode} or
+ * {@literal --reflect-config}, and recorded as part of the result. Options unknown to the generator are rejected
+ * upfront.
+ *
+ * <pre class="code">
+ * java -cp target/benchmarks.jar org.springframework.data.entity.processor.benchmark.GeneratorTimingHarness --backend=bytecode
+ * </pre>
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorTimingHarness {
+
+	static final String ENTITIES = "entities";
+	static final String REPETITIONS = "repetitions";
+	static final String OUTPUT = "output";
+
+	static final List<String> DOMAIN_OPTIONS = Arrays.asList("properties", "nesting-depth", "inheritance-depth", "generics",
+			"collections", "maps", "cycles", "annotation-density");
+
+	public static void main(String[] args) throws Exception {
+
+		Map<String, String> options = options(args);
+
+		List<Integer> sizes = Arrays.stream(options.getOrDefault(ENTITIES, "100,1000,10000").split(","))
+				.map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+		int repetitions = Integer.parseInt(options.getOrDefault(REPETITIONS, "3"));
+		String output = options.get(OUTPUT);
+
+		Map<String, String> generatorOptions = new LinkedHashMap<>(options);
+		generatorOptions.keySet().removeAll(Arrays.asList(ENTITIES, REPETITIONS, OUTPUT));
+
+		Map<String, String> domainOptions = new LinkedHashMap<>();
+		for (String name : DOMAIN_OPTIONS) {
+			if (generatorOptions.containsKey(name)) {
+				domainOptions.put(name, generatorOptions.remove(name));
+			}
+		}
+		for (String name : generatorOptions.keySet()) {
+			if (!CodeGeneratorApplication.isOption(name)) {
+				throw new IllegalArgumentException("Unknown option: --" + name);
+			}
+		}
+
+		List<String> results = new ArrayList<>();
+		for (int size : sizes) {
+			for (int repetition = 0; repetition < repetitions; repetition++) {
+				results.add(run(domain(size, domainOptions), repetition, generatorOptions));
+			}
+		}
+
+		String json = results.stream().collect(Collectors.joining(",\n", "{\n  \"domain\": " + toJson(domainOptions)
+				+ ",\n  \"options\": " + toJson(generatorOptions) + ",\n  \"runs\": [\n", "\n  ]\n}\n"));
+
+		if (output == null) {
+			System.out.println(json);
+		} else {
+			Files.write(new File(output).toPath(), json.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	static SyntheticDomainGenerator domain(int entities, Map<String, String> options) {
+
+		return SyntheticDomainGenerator.builder() //
+				.entities(entities) //
+				.properties(Integer.parseInt(options.getOrDefault("properties", "8"))) //
+				.nestingDepth(Integer.parseInt(options.getOrDefault("nesting-depth", "1"))) //
+				.inheritanceDepth(Integer.parseInt(options.getOrDefault("inheritance-depth", "1"))) //
+				.generics(Boolean.parseBoolean(options.getOrDefault("generics", "false"))) //
+				.collections(Boolean.parseBoolean(options.getOrDefault("collections", "true"))) //
+				.maps(Boolean.parseBoolean(options.getOrDefault("maps", "true"))) //
+				.cycles(Boolean.parseBoolean(options.getOrDefault("cycles", "true"))) //
+				.annotationDensity(Double.parseDouble(options.getOrDefault("annotation-density", "0.2"))) //
+				.build();
+	}
+
+	static String run(SyntheticDomainGenerator generator, int repetition, Map<String, String> generatorOptions)
+			throws Exception {
+
+		Path target = Files.createTempDirectory("generator-timing");
+		try {
+
+			SyntheticDomain domain = generator.compile(target.resolve("domain"));
+			Path statistics = target.resolve("stats.json");
+
+			Map<String, String> options = new LinkedHashMap<>(generatorOptions);
+			options.putIfAbsent("classes-directory", Files.createDirectories(target.resolve("classes")).toString());
+			options.putIfAbsent("resources-directory", Files.createDirectories(target.resolve("generated-resources")).toString());
+			options.put("classpath", domain.getClasses().toString());
+			options.put("stats-json", statistics.toString());
+
+			List<String> arguments = new ArrayList<>();
+			arguments.add(domain.getBasePackage());
+			arguments.add(target.resolve("generated-sources").toString());
+			options.forEach((name, value) -> arguments.add("--" + name + "=" + value));
+
+			Phase run = measure(() -> {
+				CodeGeneratorApplication.run(arguments.toArray(new String[0]), line -> {});
+				return null;
+			});
+
+			return String.format("    { \"entities\": %s, \"repetition\": %s, \"run\": %s, \"generator\": %s }",
+					generator.getEntityCount(), repetition, run.toJson(),
+					new String(Files.readAllBytes(statistics), StandardCharsets.UTF_8).trim().replace("\n", "\n    "));
+		} finally {
+			FileSystemUtils.deleteRecursively(target);
+		}
+	}
+
+	private static Phase measure(Callable<?> run) throws Exception {
+
+		List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+				.filter(it -> it.getType() == MemoryType.HEAP).collect(Collectors.toList());
+		heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+		long start = System.nanoTime();
+		run.call();
+		long duration = System.nanoTime() - start;
+
+		long peakHeap = heapPools.stream().mapToLong(it -> it.getPeakUsage().getUsed()).sum();
+		return new Phase(duration, peakHeap);
+	}
+
+	static Map<String, String> options(String[] args) {
+
+		Map<String, String> options = new LinkedHashMap<>();
+		for (String arg : args) {
+
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + arg);
+			}
+
+			int separator = arg.indexOf('=');
+			if (separator == -1) {
+				options.put(arg.substring(2), "true");
+			} else {
+				options.put(arg.substring(2, separator), arg.substring(separator + 1));
+			}
+		}
+		return options;
+	}
+
+	private static String toJson(Map<String, String> values) {
+
+		return values.entrySet().stream()
+				.map(it -> String.format("\"%s\": \"%s\"", it.getKey(), it.getValue().replace("\\", "\\\\").replace("\"", "\\\"")))
+				.collect(Collectors.joining(", ", "{ ", " }"));
+	}
+
+	/**
+	 * Wall time and peak heap usage of a single generator run. Peak heap is the sum of the peak usage of all heap pools which
+	 * overestimates the actual peak if pools peaked at different times.
+	 */
+	static class Phase {
+
+		private final long durationNanos;
+		private final long peakHeapBytes;
+
+		Phase(long durationNanos, long peakHeapBytes) {
+
+			this.durationNanos = durationNanos;
+			this.peakHeapBytes = peakHeapBytes;
+		}
+
+		String toJson() {
+			return String.format(Locale.ROOT, "{ \"wallTimeMillis\": %.3f, \"peakHeapBytes\": %s }", durationNanos / 1_000_000d, peakHeapBytes);
+		}
+	}
+}
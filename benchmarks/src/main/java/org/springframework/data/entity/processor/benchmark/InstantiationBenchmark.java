@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.entity.processor.benchmark.BenchmarkMappingContext.BenchmarkProperty;
+import org.springframework.data.example.repo.Address;
+import org.springframework.data.example.repo.Person;
+import org.springframework.data.mapping.PreferredConstructor.Parameter;
+import org.springframework.data.mapping.model.BasicPersistentEntity;
+import org.springframework.data.mapping.model.EntityInstantiator;
+import org.springframework.data.mapping.model.EntityInstantiators;
+import org.springframework.data.mapping.model.ParameterValueProvider;
+
+/**
+ * Instantiation through the persistence constructor of the generated type information versus Spring Data's default
+ * {@link EntityInstantiator}.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InstantiationBenchmark {
+
+	BasicPersistentEntity<Object, BenchmarkProperty> generatedPerson;
+	BasicPersistentEntity<Object, BenchmarkProperty> reflectivePerson;
+	BasicPersistentEntity<Object, BenchmarkProperty> generatedAddress;
+	BasicPersistentEntity<Object, BenchmarkProperty> reflectiveAddress;
+
+	EntityInstantiator generatedPersonInstantiator;
+	EntityInstantiator reflectivePersonInstantiator;
+	EntityInstantiator generatedAddressInstantiator;
+	EntityInstantiator reflectiveAddressInstantiator;
+
+	ParameterValueProvider<BenchmarkProperty> parameters;
+
+	@Setup
+	public void setUp() {
+
+		GeneratedTypeInformation generated = GeneratedTypeInformation.generate(Person.class);
+
+		BenchmarkMappingContext generatedContext = new BenchmarkMappingContext();
+		BenchmarkMappingContext reflectiveContext = new BenchmarkMappingContext();
+		EntityInstantiators instantiators = new EntityInstantiators();
+
+		generatedPerson = generatedContext.getRequiredPersistentEntity(generated.typeInformation(Person.class));
+		reflectivePerson = reflectiveContext.getRequiredPersistentEntity(Person.class);
+		generatedAddress = generatedContext.getRequiredPersistentEntity(generated.typeInformation(Address.class));
+		reflectiveAddress = reflectiveContext.getRequiredPersistentEntity(Address.class);
+
+		generatedPersonInstantiator = instantiators.getInstantiatorFor(generatedPerson);
+		reflectivePersonInstantiator = instantiators.getInstantiatorFor(reflectivePerson);
+		generatedAddressInstantiator = instantiators.getInstantiatorFor(generatedAddress);
+		reflectiveAddressInstantiator = instantiators.getInstantiatorFor(reflectiveAddress);
+
+		Map<String, Object> values = new HashMap<>();
+		values.put("id", "id-1");
+		values.put("firstname", "Ned");
+		values.put("lastname", "Stark");
+		values.put("address", new Address());
+		parameters = new MapParameterValueProvider(values);
+	}
+
+	@Benchmark
+	public Object persistenceConstructorGenerated() {
+		return generatedPersonInstantiator.createInstance(generatedPerson, parameters);
+	}
+
+	@Benchmark
+	public Object persistenceConstructorReflective() {
+		return reflectivePersonInstantiator.createInstance(reflectivePerson, parameters);
+	}
+
+	@Benchmark
+	public Object noArgsConstructorGenerated() {
+		return generatedAddressInstantiator.createInstance(generatedAddress, parameters);
+	}
+
+	@Benchmark
+	public Object noArgsConstructorReflective() {
+		return reflectiveAddressInstantiator.createInstance(reflectiveAddress, parameters);
+	}
+
+	static class MapParameterValueProvider implements ParameterValueProvider<BenchmarkProperty> {
+
+		private final Map<String, Object> values;
+
+		MapParameterValueProvider(Map<String, Object> values) {
+			this.values = values;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T getParameterValue(Parameter<T, BenchmarkProperty> parameter) {
+			return (T) values.get(parameter.getName());
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.Types;
+import org.springframework.data.entity.processor.benchmark.BenchmarkMappingContext.BenchmarkProperty;
+import org.springframework.data.example.repo.Address;
+import org.springframework.data.example.repo.Person;
+import org.springframework.data.mapping.PersistentPropertyAccessor;
+import org.springframework.data.mapping.model.BasicPersistentEntity;
+
+/**
+ * Property read and write through a {@link PersistentPropertyAccessor} backed by the generated type information versus
+ * the reflective defaults, along with the primitive specialized accessor constants of the generated types.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertyAccessBenchmark {
+
+	Person person;
+	Address address;
+	Types.PrimitiveTypes primitiveTypes;
+
+	BasicPersistentEntity<Object, BenchmarkProperty> generatedPersonEntity;
+	BasicPersistentEntity<Object, BenchmarkProperty> reflectivePersonEntity;
+
+	BenchmarkProperty generatedFirstname;
+	BenchmarkProperty reflectiveFirstname;
+	BenchmarkProperty generatedAddress;
+	BenchmarkProperty reflectiveAddress;
+
+	BasicPersistentEntity<Object, BenchmarkProperty> generatedPrimitiveEntity;
+	BasicPersistentEntity<Object, BenchmarkProperty> reflectivePrimitiveEntity;
+
+	BenchmarkProperty generatedIntValue;
+	BenchmarkProperty reflectiveIntValue;
+
+	ToIntFunction<Types.PrimitiveTypes> intValueGetter;
+	ObjIntConsumer<Types.PrimitiveTypes> intValueSetter;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setUp() throws Exception {
+
+		person = new Person("id-1", "Ned", "Stark", null);
+		address = new Address();
+		primitiveTypes = new Types.PrimitiveTypes();
+
+		GeneratedTypeInformation generated = GeneratedTypeInformation.generate(Person.class, Types.PrimitiveTypes.class);
+
+		BenchmarkMappingContext generatedContext = new BenchmarkMappingContext();
+		BenchmarkMappingContext reflectiveContext = new BenchmarkMappingContext();
+
+		generatedPersonEntity = generatedContext.getRequiredPersistentEntity(generated.typeInformation(Person.class));
+		reflectivePersonEntity = reflectiveContext.getRequiredPersistentEntity(Person.class);
+
+		generatedFirstname = generatedPersonEntity.getRequiredPersistentProperty("firstname");
+		reflectiveFirstname = reflectivePersonEntity.getRequiredPersistentProperty("firstname");
+		generatedAddress = generatedPersonEntity.getRequiredPersistentProperty("address");
+		reflectiveAddress = reflectivePersonEntity.getRequiredPersistentProperty("address");
+
+		generatedPrimitiveEntity = generatedContext.getRequiredPersistentEntity(generated.typeInformation(Types.PrimitiveTypes.class));
+		reflectivePrimitiveEntity = reflectiveContext.getRequiredPersistentEntity(Types.PrimitiveTypes.class);
+
+		generatedIntValue = generatedPrimitiveEntity.getRequiredPersistentProperty("intValue");
+		reflectiveIntValue = reflectivePrimitiveEntity.getRequiredPersistentProperty("intValue");
+
+		Class<?> generatedPrimitiveType = generated.generatedType(Types.PrimitiveTypes.class);
+		intValueGetter = (ToIntFunction<Types.PrimitiveTypes>) generatedPrimitiveType.getField("INT_VALUE_GETTER").get(null);
+		intValueSetter = (ObjIntConsumer<Types.PrimitiveTypes>) generatedPrimitiveType.getField("INT_VALUE_SETTER").get(null);
+	}
+
+	@Benchmark
+	public Object getPropertyGenerated() {
+		return generatedPersonEntity.getPropertyAccessor(person).getProperty(generatedFirstname);
+	}
+
+	@Benchmark
+	public Object getPropertyReflective() {
+		return reflectivePersonEntity.getPropertyAccessor(person).getProperty(reflectiveFirstname);
+	}
+
+	@Benchmark
+	public Object setPropertyGenerated() {
+
+		PersistentPropertyAccessor<Person> accessor = generatedPersonEntity.getPropertyAccessor(person);
+		accessor.setProperty(generatedAddress, address);
+		return accessor.getBean();
+	}
+
+	@Benchmark
+	public Object setPropertyReflective() {
+
+		PersistentPropertyAccessor<Person> accessor = reflectivePersonEntity.getPropertyAccessor(person);
+		accessor.setProperty(reflectiveAddress, address);
+		return accessor.getBean();
+	}
+
+	@Benchmark
+	public Object getPrimitivePropertyGenerated() {
+		return generatedPrimitiveEntity.getPropertyAccessor(primitiveTypes).getProperty(generatedIntValue);
+	}
+
+	@Benchmark
+	public Object getPrimitivePropertyReflective() {
+		return reflectivePrimitiveEntity.getPropertyAccessor(primitiveTypes).getProperty(reflectiveIntValue);
+	}
+
+	@Benchmark
+	public int getPrimitivePropertyAccessorConstant() {
+		return intValueGetter.applyAsInt(primitiveTypes);
+	}
+
+	@Benchmark
+	public Object setPrimitivePropertyAccessorConstant() {
+
+		intValueSetter.accept(primitiveTypes, 42);
+		return primitiveTypes;
+	}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.entity.processor.PersistableEntityScanner;
+import org.springframework.data.entity.processor.synthetic.SyntheticClasspath;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Scan throughput of the {@link PersistableEntityScanner} over a {@link SyntheticClasspath} compiled at setup time.
+ * Every invocation scans through a fresh class loader so class loading is part of the measurement, reporting the
+ * number of classes loaded and the bytes read next to the scan time.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ScannerBenchmark {
+
+	@Param({ "1000", "5000" }) int classCount;
+	@Param({ "0.2" }) double entityRatio;
+	@Param({ "0.05" }) double repositoryRatio;
+	@Param({ "2" }) int directories;
+	@Param({ "4" }) int jars;
+
+	Path target;
+	SyntheticClasspath classpath;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		target = Files.createTempDirectory("synthetic-classpath");
+		classpath = SyntheticClasspath.builder()
+				.classCount(classCount)
+				.entityRatio(entityRatio)
+				.repositoryRatio(repositoryRatio)
+				.directories(directories)
+				.jars(jars)
+				.build(target);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		FileSystemUtils.deleteRecursively(target);
+	}
+
+	@Benchmark
+	public List<Class<?>> scan(ScanMetrics metrics) throws IOException {
+
+		try (CountingClassLoader classLoader = new CountingClassLoader(classpath.getUrls(), getClass().getClassLoader())) {
+
+			ClassLoader original = ClassUtils.overrideThreadContextClassLoader(classLoader);
+			try {
+				return new PersistableEntityScanner().scan(classpath.getBasePackage());
+			} finally {
+
+				ClassUtils.overrideThreadContextClassLoader(original);
+				metrics.classesLoaded += classLoader.getClassesLoaded();
+				metrics.bytesRead += classLoader.getBytesRead();
+			}
+		}
+	}
+
+	/**
+	 * Secondary results reported along with the scan time.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class ScanMetrics {
+
+		public long classesLoaded;
+		public long bytesRead;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+
+			classesLoaded = 0;
+			bytesRead = 0;
+		}
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.Types;
+import org.springframework.data.example.cyclic.Order;
+import org.springframework.data.example.repo.Person;
+import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.TypeInformation;
+
+/**
+ * Resolution of property {@link TypeInformation} through the generated type information versus the reflective
+ * {@link ClassTypeInformation}.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeInformationBenchmark {
+
+	TypeInformation<Person> generatedPerson;
+	TypeInformation<Person> reflectivePerson;
+
+	TypeInformation<Order> generatedOrder;
+	TypeInformation<Order> reflectiveOrder;
+
+	TypeInformation<Types.MapTypes> generatedMapTypes;
+	TypeInformation<Types.MapTypes> reflectiveMapTypes;
+
+	@Setup
+	public void setUp() {
+
+		GeneratedTypeInformation generated = GeneratedTypeInformation.generate(Person.class, Order.class, Types.MapTypes.class);
+
+		generatedPerson = generated.typeInformation(Person.class);
+		reflectivePerson = ClassTypeInformation.from(Person.class);
+
+		generatedOrder = generated.typeInformation(Order.class);
+		reflectiveOrder = ClassTypeInformation.from(Order.class);
+
+		generatedMapTypes = generated.typeInformation(Types.MapTypes.class);
+		reflectiveMapTypes = ClassTypeInformation.from(Types.MapTypes.class);
+	}
+
+	@Benchmark
+	public TypeInformation<?> simplePropertyGenerated() {
+		return generatedPerson.getProperty("firstname");
+	}
+
+	@Benchmark
+	public TypeInformation<?> simplePropertyReflective() {
+		return reflectivePerson.getProperty("firstname");
+	}
+
+	@Benchmark
+	public TypeInformation<?> nestedPropertyPathGenerated() {
+		return generatedPerson.getProperty("address.city");
+	}
+
+	@Benchmark
+	public TypeInformation<?> nestedPropertyPathReflective() {
+		return reflectivePerson.getProperty("address.city");
+	}
+
+	@Benchmark
+	public TypeInformation<?> collectionComponentGenerated() {
+		return generatedPerson.getRequiredProperty("addressList").getRequiredComponentType();
+	}
+
+	@Benchmark
+	public TypeInformation<?> collectionComponentReflective() {
+		return reflectivePerson.getRequiredProperty("addressList").getRequiredComponentType();
+	}
+
+	@Benchmark
+	public TypeInformation<?> mapValueGenerated() {
+		return generatedPerson.getRequiredProperty("emailAddresses").getRequiredMapValueType();
+	}
+
+	@Benchmark
+	public TypeInformation<?> mapValueReflective() {
+		return reflectivePerson.getRequiredProperty("emailAddresses").getRequiredMapValueType();
+	}
+
+	@Benchmark
+	public TypeInformation<?> cyclicPropertyPathGenerated() {
+		return generatedOrder.getProperty("lineItems.order.lineItems");
+	}
+
+	@Benchmark
+	public TypeInformation<?> cyclicPropertyPathReflective() {
+		return reflectiveOrder.getProperty("lineItems.order.lineItems");
+	}
+
+	@Benchmark
+	public TypeInformation<?> nestedMapValueGenerated() {
+		return generatedMapTypes.getRequiredProperty("mapOfMapValueType").getRequiredMapValueType().getRequiredMapValueType();
+	}
+
+	@Benchmark
+	public TypeInformation<?> nestedMapValueReflective() {
+		return reflectiveMapTypes.getRequiredProperty("mapOfMapValueType").getRequiredMapValueType().getRequiredMapValueType();
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.gradle;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+
+/**
+ * Configuration of the {@literal entityProcessor} extension, mirroring the options of the {@literal entity-generator}
+ * Maven goal.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public abstract class EntityProcessorExtension {
+
+	/**
+	 * @return the package to scan for domain types.
+	 */
+	public abstract Property<String> getBasePackage();
+
+	/**
+	 * @return {@literal source} (default) to generate sources or {@literal bytecode} to generate class files directly.
+	 */
+	public abstract Property<String> getBackend();
+
+	/**
+	 * @return whether to generate GraalVM reflection configuration for the domain types.
+	 */
+	public abstract Property<Boolean> getReflectConfig();
+
+	/**
+	 * @return whether to register the generated types for build time initialization with GraalVM.
+	 */
+	public abstract Property<Boolean> getBuildTimeInitialization();
+
+	/**
+	 * @return whether to compile counters for instantiations and property accesses into the generated types, switched on
+	 *         at runtime via {@literal -Dspring.data.entity-processor.instrumentation=true}.
+	 */
+	public abstract Property<Boolean> getInstrumentation();
+
+	/**
+	 * @return whether to record the types resolved reflectively at runtime, into the file given via
+	 *         {@literal -Dspring.data.entity-processor.misses=<file>}.
+	 */
+	public abstract Property<Boolean> getRecordMisses();
+
+	/**
+	 * @return a file of misses recorded at runtime whose types to generate type information for in addition to the
+	 *         scanned ones, ignored if not present.
+	 */
+	public abstract RegularFileProperty getMissesFile();
+
+	/**
+	 * @return whether to generate type information for the domain types compiled by this project only.
+	 */
+	public abstract Property<Boolean> getOwnTypesOnly();
+
+	/**
+	 * @return whether to skip domain types with pre-generated type information on the class path.
+	 */
+	public abstract Property<Boolean> getReuseEntityMetadata();
+}
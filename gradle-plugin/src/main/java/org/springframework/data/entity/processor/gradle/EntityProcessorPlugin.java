@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.gradle;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.file.Directory;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.compile.JavaCompile;
+
+/**
+ * Registers the {@value #GENERATE_TASK_NAME} task generating type information for the domain types of the
+ * {@literal main} source set, along with the {@value #COMPILE_TASK_NAME} task compiling the generated sources. As the
+ * generator inspects the compiled classes, generated sources cannot be part of {@literal compileJava} but are compiled
+ * on their own and added to the output of the source set, as are the generated resources.
+ * <p>
+ * The generator is resolved through the {@value #CONFIGURATION_NAME} configuration, defaulting to the version of this
+ * plugin.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class EntityProcessorPlugin implements Plugin<Project> {
+
+	public static final String EXTENSION_NAME = "entityProcessor";
+	public static final String CONFIGURATION_NAME = "entityProcessor";
+	public static final String GENERATE_TASK_NAME = "generateEntityTypeInformation";
+	public static final String COMPILE_TASK_NAME = "compileEntityTypeInformation";
+
+	private static final String GENERATOR = "org.springframework.data:spring-data-entity-processor-maven-plugin";
+
+	@Override
+	public void apply(Project project) {
+
+		EntityProcessorExtension extension = project.getExtensions().create(EXTENSION_NAME,
+				EntityProcessorExtension.class);
+		extension.getBackend().convention("source");
+		extension.getReflectConfig().convention(false);
+		extension.getBuildTimeInitialization().convention(false);
+		extension.getInstrumentation().convention(false);
+		extension.getRecordMisses().convention(false);
+		extension.getOwnTypesOnly().convention(false);
+		extension.getReuseEntityMetadata().convention(true);
+
+		Configuration generator = project.getConfigurations().create(CONFIGURATION_NAME, configuration -> {
+
+			configuration.setVisible(false);
+			configuration.setCanBeConsumed(false);
+			configuration.setDescription("The entity type information generator.");
+			configuration.defaultDependencies(dependencies -> dependencies
+					.add(project.getDependencies().create(GENERATOR + ":" + getVersion())));
+
+			// Maven plugin infrastructure not needed to run the generator itself
+			for (String group : new String[] { "org.apache.maven", "org.twdata.maven", "org.sonatype.plexus" }) {
+
+				Map<String, String> exclude = new HashMap<>();
+				exclude.put("group", group);
+				configuration.exclude(exclude);
+			}
+		});
+
+		project.getPlugins().withType(JavaPlugin.class, javaPlugin -> configure(project, extension, generator));
+	}
+
+	private void configure(Project project, EntityProcessorExtension extension, Configuration generator) {
+
+		SourceSet main = project.getExtensions().getByType(SourceSetContainer.class)
+				.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+		Provider<Directory> buildDirectory = project.getLayout().getBuildDirectory();
+
+		TaskProvider<GenerateEntityTypeInformation> generate = project.getTasks().register(GENERATE_TASK_NAME,
+				GenerateEntityTypeInformation.class, task -> {
+
+					task.setDescription("Generates type information for the domain types of the main source set.");
+					// not the runtime class path of the source set, which contains the outputs of this very task
+					task.getClasspath().from(main.getOutput().getClassesDirs(), main.getOutput().getResourcesDir(),
+							project.getConfigurations().getByName(main.getRuntimeClasspathConfigurationName()));
+					task.getClassesDirectories().from(main.getOutput().getClassesDirs());
+					task.getGeneratorClasspath().from(generator);
+					task.getBasePackage().set(extension.getBasePackage());
+					task.getBackend().set(extension.getBackend());
+					task.getReflectConfig().set(extension.getReflectConfig());
+					task.getBuildTimeInitialization().set(extension.getBuildTimeInitialization());
+					task.getInstrumentation().set(extension.getInstrumentation());
+					task.getRecordMisses().set(extension.getRecordMisses());
+					task.getMissesFile().set(extension.getMissesFile());
+					task.getOwnTypesOnly().set(extension.getOwnTypesOnly());
+					task.getReuseEntityMetadata().set(extension.getReuseEntityMetadata());
+					task.getNativeImageId().set(project.provider(() -> project.getGroup() + "/" + project.getName()));
+					task.getOutputDirectory().set(buildDirectory.map(it -> it.dir("generated/sources/entities")));
+					task.getResourcesOutputDirectory().set(buildDirectory.map(it -> it.dir("generated/resources/entities")));
+					task.getClassesOutputDirectory().set(buildDirectory.map(it -> it.dir("generated/classes/entities")));
+					task.getSnapshotFile()
+							.set(buildDirectory.map(it -> it.file("entity-generator/entity-metadata.properties")));
+				});
+
+		TaskProvider<JavaCompile> compile = project.getTasks().register(COMPILE_TASK_NAME, JavaCompile.class, task -> {
+
+			JavaCompile compileJava = (JavaCompile) project.getTasks().getByName(main.getCompileJavaTaskName());
+
+			task.setDescription("Compiles the generated type information.");
+			task.source(generate.flatMap(GenerateEntityTypeInformation::getOutputDirectory));
+			task.setClasspath(project.files(main.getOutput().getClassesDirs(), main.getCompileClasspath(),
+					generate.flatMap(GenerateEntityTypeInformation::getClassesOutputDirectory)));
+			task.getDestinationDirectory().set(buildDirectory.map(it -> it.dir("classes/java/entities")));
+			task.setSourceCompatibility(compileJava.getSourceCompatibility());
+			task.setTargetCompatibility(compileJava.getTargetCompatibility());
+			task.getOptions().setEncoding(compileJava.getOptions().getEncoding());
+		});
+
+		main.getOutput().dir(Collections.singletonMap("builtBy", generate),
+				generate.flatMap(GenerateEntityTypeInformation::getClassesOutputDirectory));
+		main.getOutput().dir(Collections.singletonMap("builtBy", generate),
+				generate.flatMap(GenerateEntityTypeInformation::getResourcesOutputDirectory));
+		main.getOutput().dir(Collections.singletonMap("builtBy", compile),
+				compile.flatMap(JavaCompile::getDestinationDirectory));
+	}
+
+	private static String getVersion() {
+
+		String version = EntityProcessorPlugin.class.getPackage().getImplementationVersion();
+		return version != null ? version : "0.0.1-SNAPSHOT";
+	}
+}
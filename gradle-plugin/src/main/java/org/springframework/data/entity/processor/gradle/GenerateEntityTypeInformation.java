@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.gradle;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.workers.WorkerExecutor;
+
+/**
+ * Runs the scan, model and write pipeline of the generator for the compiled classes of a project. The task is
+ * cacheable: its inputs are the class path of the project, the class path of the generator itself and the
+ * configuration, its outputs the generated directories. Outputs are regenerated from scratch, so they only ever
+ * reflect the current inputs.
+ * <p>
+ * The generator runs in a worker with an isolated class loader over the project class path followed by the generator,
+ * just like the Maven plugin does.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@CacheableTask
+public abstract class GenerateEntityTypeInformation extends DefaultTask {
+
+	/**
+	 * @return the compiled classes of the project along with its runtime dependencies.
+	 */
+	@Classpath
+	public abstract ConfigurableFileCollection getClasspath();
+
+	/**
+	 * @return the class directories of the project itself, part of the {@link #getClasspath() class path}.
+	 */
+	@Internal
+	public abstract ConfigurableFileCollection getClassesDirectories();
+
+	/**
+	 * @return the generator and its dependencies.
+	 */
+	@Classpath
+	public abstract ConfigurableFileCollection getGeneratorClasspath();
+
+	@Input
+	public abstract Property<String> getBasePackage();
+
+	@Input
+	public abstract Property<String> getBackend();
+
+	@Input
+	public abstract Property<Boolean> getReflectConfig();
+
+	@Input
+	public abstract Property<Boolean> getBuildTimeInitialization();
+
+	@Input
+	public abstract Property<Boolean> getInstrumentation();
+
+	@Input
+	public abstract Property<Boolean> getRecordMisses();
+
+	/**
+	 * @return the misses recorded at runtime, declared as {@link InputFiles} as the file may not exist (yet).
+	 */
+	@InputFiles
+	@Optional
+	@PathSensitive(PathSensitivity.NONE)
+	public abstract RegularFileProperty getMissesFile();
+
+	@Input
+	public abstract Property<Boolean> getOwnTypesOnly();
+
+	@Input
+	public abstract Property<Boolean> getReuseEntityMetadata();
+
+	/**
+	 * @return the id to place the native image configuration under, eg. {@literal com.acme/domain}.
+	 */
+	@Input
+	@Optional
+	public abstract Property<String> getNativeImageId();
+
+	/**
+	 * @return the directory to write the generated sources to.
+	 */
+	@OutputDirectory
+	public abstract DirectoryProperty getOutputDirectory();
+
+	/**
+	 * @return the directory to write the generated native image configuration to.
+	 */
+	@OutputDirectory
+	public abstract DirectoryProperty getResourcesOutputDirectory();
+
+	/**
+	 * @return the directory to write the generated class files to when using the {@literal bytecode} backend.
+	 */
+	@OutputDirectory
+	public abstract DirectoryProperty getClassesOutputDirectory();
+
+	/**
+	 * @return the snapshot of the types written, to be published along with their type information.
+	 */
+	@OutputFile
+	public abstract RegularFileProperty getSnapshotFile();
+
+	@Inject
+	protected abstract WorkerExecutor getWorkerExecutor();
+
+	@Inject
+	protected abstract FileSystemOperations getFileSystemOperations();
+
+	@TaskAction
+	public void generate() {
+
+		getFileSystemOperations().delete(spec -> spec.delete(getOutputDirectory(), getResourcesOutputDirectory(),
+				getClassesOutputDirectory(), getSnapshotFile()));
+		getOutputDirectory().get().getAsFile().mkdirs();
+		getResourcesOutputDirectory().get().getAsFile().mkdirs();
+		getClassesOutputDirectory().get().getAsFile().mkdirs();
+
+		List<String> arguments = getArguments();
+		getWorkerExecutor().classLoaderIsolation(spec -> {
+			spec.getClasspath().from(getClasspath());
+			spec.getClasspath().from(getGeneratorClasspath());
+		}).submit(GenerateEntityTypeInformationAction.class, parameters -> parameters.getArguments().set(arguments));
+	}
+
+	/**
+	 * @return the arguments of {@literal CodeGeneratorApplication}.
+	 */
+	List<String> getArguments() {
+
+		List<String> arguments = new ArrayList<>();
+		arguments.add(getBasePackage().get());
+		arguments.add(getOutputDirectory().get().getAsFile().getAbsolutePath());
+		if (getReflectConfig().get()) {
+			arguments.add("--reflect-config");
+		}
+		if (getBuildTimeInitialization().get()) {
+			arguments.add("--build-time-initialization");
+		}
+		if (getInstrumentation().get()) {
+			arguments.add("--instrumentation");
+		}
+		if (getRecordMisses().get()) {
+			arguments.add("--record-misses");
+		}
+		if (getMissesFile().isPresent()) {
+			arguments.add("--misses=" + getMissesFile().get().getAsFile().getAbsolutePath());
+		}
+		if ("bytecode".equals(getBackend().get())) {
+			arguments.add("--backend=bytecode");
+			arguments.add("--classes-directory=" + getClassesOutputDirectory().get().getAsFile().getAbsolutePath());
+		}
+		if (getReflectConfig().get() || getBuildTimeInitialization().get()) {
+			arguments.add("--resources-directory=" + getResourcesOutputDirectory().get().getAsFile().getAbsolutePath());
+			if (getNativeImageId().isPresent()) {
+				arguments.add("--native-image-id=" + getNativeImageId().get());
+			}
+		}
+		arguments.add("--snapshot=" + getSnapshotFile().get().getAsFile().getAbsolutePath());
+		if (!getReuseEntityMetadata().get()) {
+			arguments.add("--reuse-entity-metadata=false");
+		}
+		if (getOwnTypesOnly().get()) {
+			arguments.add("--owned-by=" + getClassesDirectories().getFiles().stream().map(File::getAbsolutePath)
+					.collect(Collectors.joining(File.pathSeparator)));
+		}
+		return arguments;
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.gradle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+import org.springframework.data.entity.processor.plugin.CodeGeneratorApplication;
+
+/**
+ * Invokes {@link CodeGeneratorApplication} within the isolated class loader of the worker, which is made the context
+ * class loader for the scan to see the project classes. The summary of the run is logged at info level.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public abstract class GenerateEntityTypeInformationAction
+		implements WorkAction<GenerateEntityTypeInformationAction.Parameters> {
+
+	private static final Logger logger = Logging.getLogger(GenerateEntityTypeInformationAction.class);
+
+	@Override
+	public void execute() {
+
+		Thread thread = Thread.currentThread();
+		ClassLoader original = thread.getContextClassLoader();
+		ClassLoader classLoader = getClass().getClassLoader();
+
+		thread.setContextClassLoader(classLoader);
+		try {
+			CodeGeneratorApplication.run(getParameters().getArguments().get().toArray(new String[0]), logger::info);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			CodeGeneratorApplication.clearCaches(classLoader);
+			thread.setContextClassLoader(original);
+		}
+	}
+
+	public interface Parameters extends WorkParameters {
+
+		ListProperty<String> getArguments();
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.gradle;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.testfixtures.ProjectBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class EntityProcessorPluginUnitTests {
+
+	Project project;
+
+	@BeforeEach
+	void beforeEach() {
+
+		project = ProjectBuilder.builder().build();
+		project.getPlugins().apply(JavaPlugin.class);
+		project.getPlugins().apply(EntityProcessorPlugin.class);
+		project.setGroup("com.acme");
+	}
+
+	@Test
+	void registersTasksWiredToMainSourceSet() {
+
+		GenerateEntityTypeInformation generate = (GenerateEntityTypeInformation) project.getTasks()
+				.getByName(EntityProcessorPlugin.GENERATE_TASK_NAME);
+		SourceSet main = project.getExtensions().getByType(SourceSetContainer.class)
+				.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+
+		assertThat(generate.getClasspath().getFiles()).containsAll(main.getOutput().getClassesDirs().getFiles());
+		assertThat(main.getOutput().getDirs().getFiles()).contains(
+				generate.getResourcesOutputDirectory().get().getAsFile(),
+				generate.getClassesOutputDirectory().get().getAsFile(),
+				project.file("build/classes/java/entities"));
+		Task compile = project.getTasks().getByName(EntityProcessorPlugin.COMPILE_TASK_NAME);
+		assertThat(compile.getTaskDependencies().getDependencies(compile)).contains(generate);
+	}
+
+	@Test
+	void passesConfigurationAsGeneratorArguments() {
+
+		EntityProcessorExtension extension = project.getExtensions().getByType(EntityProcessorExtension.class);
+		extension.getBasePackage().set("com.acme.domain");
+		extension.getBackend().set("bytecode");
+		extension.getReflectConfig().set(true);
+		extension.getInstrumentation().set(true);
+		extension.getRecordMisses().set(true);
+		extension.getMissesFile().set(project.file("misses.txt"));
+		extension.getOwnTypesOnly().set(true);
+
+		GenerateEntityTypeInformation generate = (GenerateEntityTypeInformation) project.getTasks()
+				.getByName(EntityProcessorPlugin.GENERATE_TASK_NAME);
+
+		assertThat(generate.getArguments()).startsWith("com.acme.domain",
+				project.file("build/generated/sources/entities").getAbsolutePath()).contains("--reflect-config",
+						"--instrumentation", "--record-misses", "--misses=" + project.file("misses.txt").getAbsolutePath(),
+						"--backend=bytecode",
+						"--classes-directory=" + project.file("build/generated/classes/entities").getAbsolutePath(),
+						"--native-image-id=com.acme/" + project.getName())
+				.anyMatch(it -> it.startsWith("--owned-by=") && it.contains("classes" + File.separator + "java"))
+				.noneMatch(it -> it.startsWith("--reuse-entity-metadata"));
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
+
+/**
+ * The {@link Event flight recorder events} behind {@link GeneratorEvents}. Only to be loaded if {@literal jdk.jfr} is
+ * present.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+final class FlightRecorderEvents {
+
+	private static final String PREFIX = "org.springframework.data.entity.processor.";
+
+	private FlightRecorderEvents() {}
+
+	static Span scan(String root) {
+
+		ScanEvent event = new ScanEvent();
+		if (!event.isEnabled()) {
+			return Span.NONE;
+		}
+
+		event.root = root;
+		event.begin();
+		return size -> {
+			event.classes = size;
+			event.commit();
+		};
+	}
+
+	static Span model(String typeName) {
+
+		ModelEvent event = new ModelEvent();
+		if (!event.isEnabled()) {
+			return Span.NONE;
+		}
+
+		event.type = typeName;
+		event.begin();
+		return size -> {
+			event.properties = size;
+			event.commit();
+		};
+	}
+
+	static Span render(String typeName) {
+
+		RenderEvent event = new RenderEvent();
+		if (!event.isEnabled()) {
+			return Span.NONE;
+		}
+
+		event.type = typeName;
+		event.begin();
+		return size -> {
+			event.bytes = size;
+			event.commit();
+		};
+	}
+
+	static Span write(String path) {
+
+		WriteEvent event = new WriteEvent();
+		if (!event.isEnabled()) {
+			return Span.NONE;
+		}
+
+		event.path = path;
+		event.begin();
+		return size -> {
+			event.bytes = size;
+			event.commit();
+		};
+	}
+
+	@Name(PREFIX + "Scan")
+	@Label("Scan Class Path Root")
+	@Category({ "Spring Data", "Entity Processor" })
+	@Description("Domain type scan of a single class path root")
+	static class ScanEvent extends Event {
+
+		@Label("Root") String root;
+
+		@Label("Classes") long classes;
+	}
+
+	@Name(PREFIX + "Model")
+	@Label("Model Type")
+	@Category({ "Spring Data", "Entity Processor" })
+	@Description("Computation of the model of a domain type, including the types it refers to")
+	static class ModelEvent extends Event {
+
+		@Label("Type") String type;
+
+		@Label("Properties") long properties;
+	}
+
+	@Name(PREFIX + "Render")
+	@Label("Render Type Information")
+	@Category({ "Spring Data", "Entity Processor" })
+	@Description("Rendering of the generated type information of a domain type")
+	static class RenderEvent extends Event {
+
+		@Label("Type") String type;
+
+		@Label("Size") @DataAmount long bytes;
+	}
+
+	@Name(PREFIX + "Write")
+	@Label("Write Generated File")
+	@Category({ "Spring Data", "Entity Processor" })
+	@Description("Write of a generated file, zero bytes if its content did not change")
+	static class WriteEvent extends Event {
+
+		@Label("Path") String path;
+
+		@Label("Bytes Written") @DataAmount long bytes;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * Java Flight Recorder events for the work done by the generator: scanning a class path root, modeling a type,
+ * rendering the type information of a type and writing a file. Recording a build with JFR, eg. via
+ * {@literal -XX:StartFlightRecording} in {@literal MAVEN_OPTS} or the {@literal jvmArguments} of a forked generator,
+ * shows which jars and entities are expensive alongside GC and allocation data.
+ * <p>
+ * Events are only created if {@literal jdk.jfr} is available and the event is enabled in the active recording, so this
+ * is a no-op on JVMs without flight recorder support.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public final class GeneratorEvents {
+
+	private static final boolean JFR_PRESENT = ClassUtils.isPresent("jdk.jfr.Event",
+			GeneratorEvents.class.getClassLoader());
+
+	private GeneratorEvents() {}
+
+	/**
+	 * @param root the URL of the class path root scanned.
+	 * @return the {@link Span} to {@link Span#end(long) end} with the number of classes found.
+	 */
+	public static Span scan(String root) {
+		return JFR_PRESENT ? FlightRecorderEvents.scan(root) : Span.NONE;
+	}
+
+	/**
+	 * @param typeName the type modeled.
+	 * @return the {@link Span} to {@link Span#end(long) end} with the number of properties.
+	 */
+	public static Span model(String typeName) {
+		return JFR_PRESENT ? FlightRecorderEvents.model(typeName) : Span.NONE;
+	}
+
+	/**
+	 * @param typeName the type whose type information is rendered.
+	 * @return the {@link Span} to {@link Span#end(long) end} with the number of bytes rendered.
+	 */
+	public static Span render(String typeName) {
+		return JFR_PRESENT ? FlightRecorderEvents.render(typeName) : Span.NONE;
+	}
+
+	/**
+	 * @param path the file written.
+	 * @return the {@link Span} to {@link Span#end(long) end} with the number of bytes written, {@literal 0} if the file
+	 *         was left untouched.
+	 */
+	public static Span write(String path) {
+		return JFR_PRESENT ? FlightRecorderEvents.write(path) : Span.NONE;
+	}
+
+	/**
+	 * A unit of work started when obtained and committed to the recording when ended.
+	 */
+	public interface Span {
+
+		Span NONE = size -> {};
+
+		/**
+		 * @param size the size of the work done, eg. classes found or bytes written.
+		 */
+		void end(long size);
+	}
+}
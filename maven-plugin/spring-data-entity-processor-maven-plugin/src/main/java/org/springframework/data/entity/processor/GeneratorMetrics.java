@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Timers and counters collected during a single generator run by the scanner, the model generator and the writers.
+ * Phases and types accumulate wall time in nanoseconds, types the time spent modeling and rendering them, excluding the
+ * time spent on types they refer to. Safe to use from multiple threads.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorMetrics {
+
+	public static final String SCAN = "scan";
+	public static final String MODEL = "model";
+	public static final String WRITE = "write";
+
+	public static final String CLASSES_SCANNED = "classesScanned";
+	public static final String CLASSES_LOADED = "classesLoaded";
+	public static final String TYPES_MODELED = "typesModeled";
+	public static final String PROPERTIES = "properties";
+	public static final String ANNOTATIONS = "annotations";
+	public static final String FILES_RENDERED = "filesRendered";
+	public static final String FILES_WRITTEN = "filesWritten";
+	public static final String FILES_SKIPPED = "filesSkipped";
+	public static final String BYTES_WRITTEN = "bytesWritten";
+
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> phases = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+	private final Map<String, LongAdder> types = new ConcurrentHashMap<>();
+
+	/**
+	 * Record a value describing the run, eg. the backend used.
+	 *
+	 * @param name the attribute name.
+	 * @param value a {@link String}, {@link Number}, {@link Boolean} or {@link Collection} of those.
+	 */
+	public void attribute(String name, Object value) {
+		attributes.put(name, value);
+	}
+
+	public void increment(String counter) {
+		add(counter, 1);
+	}
+
+	public void add(String counter, long delta) {
+		counters.computeIfAbsent(counter, key -> new LongAdder()).add(delta);
+	}
+
+	/**
+	 * @param phase the phase, eg. {@link #SCAN}.
+	 * @param nanos the time spent.
+	 */
+	public void record(String phase, long nanos) {
+		phases.computeIfAbsent(phase, key -> new LongAdder()).add(nanos);
+	}
+
+	/**
+	 * @param typeName the domain type name.
+	 * @param nanos the time spent on the type itself.
+	 */
+	public void recordType(String typeName, long nanos) {
+		types.computeIfAbsent(typeName, key -> new LongAdder()).add(nanos);
+	}
+
+	public long getCount(String counter) {
+
+		LongAdder adder = counters.get(counter);
+		return adder != null ? adder.sum() : 0;
+	}
+
+	public long getNanos(String phase) {
+
+		LongAdder adder = phases.get(phase);
+		return adder != null ? adder.sum() : 0;
+	}
+
+	/**
+	 * @param limit the maximum number of types to return.
+	 * @return type names along with the nanoseconds spent on them, most expensive first.
+	 */
+	public List<Entry<String, Long>> getSlowestTypes(int limit) {
+
+		return types.entrySet().stream() //
+				.map(it -> new SimpleImmutableEntry<>(it.getKey(), it.getValue().sum())) //
+				.sorted(Comparator.<Entry<String, Long>, Long> comparing(Entry::getValue).reversed()
+						.thenComparing(Entry::getKey)) //
+				.limit(limit) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return a human readable summary of phase timings and counters, one line per aspect.
+	 */
+	public String summary() {
+
+		return String.join(System.lineSeparator(),
+				String.format(Locale.ROOT, "Phases: scan %s ms, model %s ms, write %s ms.", millis(getNanos(SCAN)),
+						millis(getNanos(MODEL)), millis(getNanos(WRITE))),
+				String.format(Locale.ROOT, "Scan: %s class(es) scanned, %s loaded.", getCount(CLASSES_SCANNED),
+						getCount(CLASSES_LOADED)),
+				String.format(Locale.ROOT, "Model: %s type(s), %s propert(ies), %s annotation(s).", getCount(TYPES_MODELED),
+						getCount(PROPERTIES), getCount(ANNOTATIONS)),
+				String.format(Locale.ROOT, "Write: %s file(s) rendered, %s written, %s unchanged, %s bytes written.",
+						getCount(FILES_RENDERED), getCount(FILES_WRITTEN), getCount(FILES_SKIPPED), getCount(BYTES_WRITTEN)));
+	}
+
+	/**
+	 * @param slowestTypes the number of most expensive types to include.
+	 * @return the attributes, phase timings, counters and most expensive types as JSON object.
+	 */
+	public String toJson(int slowestTypes) {
+
+		Map<String, String> sections = new LinkedHashMap<>();
+		attributes.entrySet().stream().sorted(Entry.comparingByKey())
+				.forEach(it -> sections.put(it.getKey(), toJson(it.getValue())));
+		sections.put("phases",
+				phases.entrySet().stream().sorted(Entry.comparingByKey())
+						.map(it -> String.format(Locale.ROOT, "\"%sMillis\": %.3f", it.getKey(), it.getValue().sum() / 1_000_000d))
+						.collect(Collectors.joining(", ", "{ ", " }")));
+		sections.put("counters", counters.entrySet().stream().sorted(Entry.comparingByKey())
+				.map(it -> String.format("\"%s\": %s", it.getKey(), it.getValue().sum()))
+				.collect(Collectors.joining(", ", "{ ", " }")));
+		List<Entry<String, Long>> slowest = getSlowestTypes(slowestTypes);
+		sections.put("slowestTypes", slowest.isEmpty() ? "[]" : slowest.stream()
+				.map(it -> String.format(Locale.ROOT, "    { \"type\": \"%s\", \"millis\": %.3f }", it.getKey(),
+						it.getValue() / 1_000_000d))
+				.collect(Collectors.joining(",\n", "[\n", "\n  ]")));
+
+		return sections.entrySet().stream().map(it -> String.format("  \"%s\": %s", it.getKey(), it.getValue()))
+				.collect(Collectors.joining(",\n", "{\n", "\n}\n"));
+	}
+
+	private static String toJson(Object value) {
+
+		if (value instanceof Number || value instanceof Boolean) {
+			return value.toString();
+		}
+		if (value instanceof Collection) {
+			return ((Collection<?>) value).stream().map(GeneratorMetrics::toJson).collect(Collectors.joining(", ", "[", "]"));
+		}
+		return "\"" + value.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+	}
+
+	private static long millis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos);
+	}
+}
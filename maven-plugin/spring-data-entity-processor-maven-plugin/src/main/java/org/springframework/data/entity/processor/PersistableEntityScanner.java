@@ -31,6 +31,7 @@ import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.data.annotation.Persistent;
 import org.springframework.data.domain.Persistable;
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
 import org.springframework.data.geo.GeoResults;
 import org.springframework.data.repository.Repository;
 import org.springframework.data.repository.core.RepositoryMetadata;
@@ -47,6 +48,16 @@ import org.springframework.util.ReflectionUtils;
 public class PersistableEntityScanner {
 
 	private final Set<Class<?>> seen = new HashSet<>();
+	private GeneratorMetrics metrics = new GeneratorMetrics();
+
+	/**
+	 * Set the {@link GeneratorMetrics} to count scanned and loaded classes with.
+	 *
+	 * @param metrics must not be {@literal null}.
+	 */
+	public void setMetrics(GeneratorMetrics metrics) {
+		this.metrics = metrics;
+	}
 
 	public List<Class<?>> scan(String packageName) {
 
@@ -68,12 +79,30 @@ public class PersistableEntityScanner {
 			String packagePath = "/" + packageName.replace(".", "/") + "/";
 			Resource[] resources = resolver.getResources("classpath*:" + packagePath + "**/*.class");
 
+			// resources are resolved root by root, so consecutive ones share the same root
+			String root = null;
+			Span rootSpan = Span.NONE;
+			long rootClasses = 0;
+
 			for (Resource resource : resources) {
 				String path = resource.getURL().toString().replace(".class", "");
 				String name = ClassUtils.convertResourcePathToClassName(path.substring(path.indexOf(packagePath) + 1));
+				metrics.increment(GeneratorMetrics.CLASSES_SCANNED);
+
+				String resourceRoot = path.substring(0, path.indexOf(packagePath));
+				if (!resourceRoot.equals(root)) {
+
+					rootSpan.end(rootClasses);
+					root = resourceRoot;
+					rootSpan = GeneratorEvents.scan(root);
+					rootClasses = 0;
+				}
+				rootClasses++;
+
 				if (ClassUtils.isPresent(name, null)) {
 
 					Class<?> type = ClassUtils.resolveClassName(name, null);
+					metrics.increment(GeneratorMetrics.CLASSES_LOADED);
 
 					if (!seen.contains(type)) {
 						if (AnnotationUtils.findAnnotation(type, Persistent.class) != null || ClassUtils.isAssignable(Persistable.class, type)) {
@@ -84,6 +113,7 @@ public class PersistableEntityScanner {
 					}
 				}
 			}
+			rootSpan.end(rootClasses);
 		} catch (IOException e) {
 			throw new IllegalStateException("Cannot locate resources in package: " + packageName, e);
 		}
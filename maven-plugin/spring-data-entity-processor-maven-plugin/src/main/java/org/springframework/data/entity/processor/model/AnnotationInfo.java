@@ -19,8 +19,10 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -48,8 +50,19 @@ public class AnnotationInfo {
 		return arguments;
 	}
 
+	/**
+	 * Resolve the merged attributes of the given annotation ordered by attribute name, as the order of the attribute
+	 * methods returned by reflection is unspecified.
+	 *
+	 * @param element the annotated element.
+	 * @param annotation the annotation type.
+	 * @return the attributes, {@literal null} if the annotation is not present.
+	 */
+	@Nullable
 	public static Map<String, Object> resolveArguments(AnnotatedElement element, Class<? extends Annotation> annotation) {
-		return AnnotatedElementUtils.getMergedAnnotationAttributes(element, annotation);
+
+		Map<String, Object> attributes = AnnotatedElementUtils.getMergedAnnotationAttributes(element, annotation);
+		return attributes != null ? new TreeMap<>(attributes) : null;
 	}
 
 	public boolean matches(Class<? extends Annotation> type) {
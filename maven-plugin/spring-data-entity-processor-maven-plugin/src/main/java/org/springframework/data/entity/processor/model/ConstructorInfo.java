@@ -15,6 +15,7 @@
  */
 package org.springframework.data.entity.processor.model;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +31,7 @@ import org.springframework.data.mapping.model.PreferredConstructorDiscoverer;
 public class ConstructorInfo {
 
 	Class<?> type;
+	Constructor<?> constructor;
 	List<ParameterInfo> parameterList;
 
 	public ConstructorInfo(Class<?> type) {
@@ -37,6 +39,7 @@ public class ConstructorInfo {
 		this.type = type;
 
 		PreferredConstructor constructor = PreferredConstructorDiscoverer.discover(type);
+		this.constructor = constructor != null ? constructor.getConstructor() : null;
 		this.parameterList = computeParameters(constructor);
 	}
 
@@ -66,6 +69,10 @@ public class ConstructorInfo {
 		return type;
 	}
 
+	public Constructor<?> getConstructor() {
+		return constructor;
+	}
+
 	@Override
 	public String toString() {
 		return "ConstructorModel{" +
@@ -19,13 +19,20 @@ import java.beans.PropertyDescriptor;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.BeanUtils;
+import org.springframework.data.entity.processor.GeneratorEvents;
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
+import org.springframework.data.entity.processor.GeneratorMetrics;
 import org.springframework.data.mapping.model.Property;
 import org.springframework.data.util.ClassTypeInformation;
 import org.springframework.data.util.TypeInformation;
@@ -42,10 +49,26 @@ public class DataModelGenerator {
 
 	private final Set<TypeInfo> typeInfos;
 
+	private final GeneratorMetrics metrics;
+
+	/**
+	 * Time spent on types referenced by the one currently modeled, to be excluded from its own time.
+	 */
+	private long referencedTypesNanos;
+
 	public DataModelGenerator(Collection<Class<?>> domainTypes) {
+		this(domainTypes, new GeneratorMetrics());
+	}
+
+	/**
+	 * @param domainTypes the domain types to compute the model for.
+	 * @param metrics the {@link GeneratorMetrics} to count modeled types, properties and annotations with.
+	 */
+	public DataModelGenerator(Collection<Class<?>> domainTypes, GeneratorMetrics metrics) {
 
 		this.domainTypes = new LinkedHashSet<>(domainTypes);
 		this.typeInfos = new LinkedHashSet<>();
+		this.metrics = metrics;
 		process();
 	}
 
@@ -76,6 +99,11 @@ public class DataModelGenerator {
 			}
 		}
 
+		Span span = GeneratorEvents.model(domainType.getName());
+		long start = System.nanoTime();
+		long outerReferencedTypesNanos = referencedTypesNanos;
+		referencedTypesNanos = 0;
+
 		TypeInfo typeInfo = new TypeInfo(domainType);
 		typeInfos.add(typeInfo);
 
@@ -84,6 +112,12 @@ public class DataModelGenerator {
 		Set<AnnotationInfo> annotations = computeAnnotation(domainType);
 		typeInfo.annotations(annotations);
 
+		long duration = System.nanoTime() - start;
+		metrics.increment(GeneratorMetrics.TYPES_MODELED);
+		metrics.recordType(typeInfo.getTypeName(), duration - referencedTypesNanos);
+		referencedTypesNanos = outerReferencedTypesNanos + duration;
+		span.end(typeInfo.getPropertyCount());
+
 		return typeInfo;
 	}
 
@@ -150,7 +184,8 @@ public class DataModelGenerator {
 		if (property.getSetter().isPresent()) {
 			propertyInfo = propertyInfo.setter(property.getSetter().get());
 		}
-		if (property.getWither().isPresent()) {
+		// generated code references withers directly, so private ones leave the property to be written via its field
+		if (property.getWither().isPresent() && !Modifier.isPrivate(property.getWither().get().getModifiers())) {
 			propertyInfo = propertyInfo.wither(property.getWither().get());
 		}
 
@@ -163,6 +198,7 @@ public class DataModelGenerator {
 		}
 
 		owner.addProperty(propertyInfo);
+		metrics.increment(GeneratorMetrics.PROPERTIES);
 	}
 
 	private Set<AnnotationInfo> computeAnnotation(AnnotatedElement element) {
@@ -171,10 +207,13 @@ public class DataModelGenerator {
 			return Collections.emptySet();
 		}
 
-		Set<AnnotationInfo> annotations = new LinkedHashSet<>();
-		for (Annotation annotation : element.getAnnotations()) {
-			annotations.add(new AnnotationInfo(element, annotation.annotationType()));
-		}
+		// reflection does not guarantee the declaration order of annotations
+		Set<AnnotationInfo> annotations = Arrays.stream(element.getAnnotations()) //
+				.map(Annotation::annotationType) //
+				.sorted(Comparator.comparing(Class::getName)) //
+				.map(it -> new AnnotationInfo(element, it)) //
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+		metrics.add(GeneratorMetrics.ANNOTATIONS, annotations.size());
 		return annotations;
 	}
 
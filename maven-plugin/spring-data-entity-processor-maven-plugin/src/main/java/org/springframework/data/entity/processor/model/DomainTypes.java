@@ -15,14 +15,20 @@
  */
 package org.springframework.data.entity.processor.model;
 
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 
 /**
+ * The domain types to generate type information for, ordered by type name independent of the order the types were
+ * discovered in so that generated files do not depend on class path or reflection order.
+ *
  * @author Christoph Strobl
  * @since 2020/11
  */
@@ -38,15 +44,18 @@ public class DomainTypes implements Iterable<TypeInfo> {
 		this(Collections.emptySet());
 	}
 
-	public DomainTypes(Set<TypeInfo> typeInfos) {
-		this.domainTypes = new LinkedHashSet<>(typeInfos);
+	public DomainTypes(Collection<TypeInfo> typeInfos) {
+
+		this.domainTypes = typeInfos.stream() //
+				.sorted(Comparator.comparing(TypeInfo::getTypeName)) //
+				.collect(Collectors.toCollection(LinkedHashSet::new));
 	}
 
-	boolean containsDomainTypeModelForClass(Class<?> type) {
+	public boolean containsDomainTypeModelForClass(Class<?> type) {
 		return getDomainTypeModelForClass(type).isPresent();
 	}
 
-	Optional<TypeInfo> getDomainTypeModelForClass(Class<?> type) {
+	public Optional<TypeInfo> getDomainTypeModelForClass(Class<?> type) {
 		return domainTypes.stream().filter(it -> it.getType().equals(type)).findFirst();
 	}
 
@@ -75,6 +75,10 @@ public class PropertyInfo {
 		signature = TypeSignature.fromField(field);
 	}
 
+	public Field getField() {
+		return field;
+	}
+
 	public String getOwnerTypeName() {
 		return getOwner().getType().getCanonicalName();
 	}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * The classes the generated type information of each domain type is derived from: the type itself, its super classes,
+ * the types used by its properties (including generics) and the annotations present. A change to any of those classes
+ * requires the type information to be regenerated. The graph also remembers the name of the generated type so that
+ * outputs of types no longer present can be removed.
+ * <p>
+ * Persisted as a properties file in between builds.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class TypeDependencyGraph {
+
+	public static final String FILE_NAME = "type-dependencies.properties";
+
+	private static final String DEPENDENCIES_SUFFIX = ".dependencies";
+	private static final String GENERATED_TYPE_SUFFIX = ".generated";
+	private static final int MAX_GENERICS_DEPTH = 5;
+
+	private final Map<String, Set<String>> dependencies;
+	private final Map<String, String> generatedTypes;
+
+	private TypeDependencyGraph(Map<String, Set<String>> dependencies, Map<String, String> generatedTypes) {
+
+		this.dependencies = dependencies;
+		this.generatedTypes = generatedTypes;
+	}
+
+	public static TypeDependencyGraph empty() {
+		return new TypeDependencyGraph(Collections.emptyMap(), Collections.emptyMap());
+	}
+
+	/**
+	 * Compute the graph for the given {@link DomainTypes}.
+	 *
+	 * @param domainTypes the model.
+	 * @return the {@link TypeDependencyGraph}.
+	 */
+	public static TypeDependencyGraph from(DomainTypes domainTypes) {
+
+		Map<String, Set<String>> dependencies = new TreeMap<>();
+		Map<String, String> generatedTypes = new TreeMap<>();
+
+		for (TypeInfo typeInfo : domainTypes) {
+
+			Set<String> typeDependencies = new TreeSet<>();
+			for (Class<?> type = typeInfo.getType(); type != null && type != Object.class; type = type.getSuperclass()) {
+				add(type, typeDependencies);
+			}
+			typeInfo.getAnnotations().forEach(it -> add(it.getAnnotation(), typeDependencies));
+
+			for (PropertyInfo propertyInfo : typeInfo) {
+
+				add(propertyInfo.getType(), typeDependencies);
+				if (propertyInfo.getField() != null) {
+					add(ResolvableType.forField(propertyInfo.getField(), typeInfo.getType()), typeDependencies, 0);
+				}
+				propertyInfo.getAnnotations().forEach(it -> add(it.getAnnotation(), typeDependencies));
+			}
+
+			dependencies.put(typeInfo.getTypeName(), typeDependencies);
+			generatedTypes.put(typeInfo.getTypeName(), typeInfo.getSignature().getConfigurableTypeName());
+		}
+
+		return new TypeDependencyGraph(dependencies, generatedTypes);
+	}
+
+	/**
+	 * Read a graph previously {@link #write(File) written}.
+	 *
+	 * @param file the file to read.
+	 * @return the {@link TypeDependencyGraph}, {@link #empty()} if the file does not exist.
+	 * @throws IOException on failure to read the file.
+	 */
+	public static TypeDependencyGraph read(File file) throws IOException {
+
+		if (!file.isFile()) {
+			return empty();
+		}
+
+		try (InputStream in = Files.newInputStream(file.toPath())) {
+			return read(in);
+		}
+	}
+
+	/**
+	 * Read a graph previously {@link #write(File) written}, eg. from a class path resource.
+	 *
+	 * @param in the stream to read from, left open.
+	 * @return the {@link TypeDependencyGraph}.
+	 * @throws IOException on failure to read the stream.
+	 */
+	public static TypeDependencyGraph read(InputStream in) throws IOException {
+
+		Properties properties = new Properties();
+		properties.load(in);
+
+		Map<String, Set<String>> dependencies = new TreeMap<>();
+		Map<String, String> generatedTypes = new TreeMap<>();
+		for (String key : properties.stringPropertyNames()) {
+
+			String value = properties.getProperty(key);
+			if (key.endsWith(DEPENDENCIES_SUFFIX)) {
+				dependencies.put(key.substring(0, key.length() - DEPENDENCIES_SUFFIX.length()),
+						new LinkedHashSet<>(Arrays.asList(StringUtils.commaDelimitedListToStringArray(value))));
+			} else if (key.endsWith(GENERATED_TYPE_SUFFIX)) {
+				generatedTypes.put(key.substring(0, key.length() - GENERATED_TYPE_SUFFIX.length()), value);
+			}
+		}
+		return new TypeDependencyGraph(dependencies, generatedTypes);
+	}
+
+	/**
+	 * Write the graph sorted by key and without the timestamp {@link Properties#store} would add, so that the same graph
+	 * always results in the same bytes.
+	 *
+	 * @param file the file to write the graph to.
+	 * @throws IOException on failure to write the file.
+	 */
+	public void write(File file) throws IOException {
+
+		Properties properties = new Properties();
+		dependencies.forEach((type, typeDependencies) -> properties.setProperty(type + DEPENDENCIES_SUFFIX,
+				StringUtils.collectionToCommaDelimitedString(typeDependencies)));
+		generatedTypes.forEach((type, generatedType) -> properties.setProperty(type + GENERATED_TYPE_SUFFIX, generatedType));
+
+		StringWriter writer = new StringWriter();
+		properties.store(writer, null);
+
+		// one escaped entry per line, comments being the timestamp
+		String content = Arrays.stream(writer.toString().split("\\R")) //
+				.filter(it -> !it.isEmpty() && !it.startsWith("#")) //
+				.sorted() //
+				.collect(Collectors.joining("\n", "", "\n"));
+
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	public boolean isEmpty() {
+		return dependencies.isEmpty();
+	}
+
+	public boolean contains(String typeName) {
+		return dependencies.containsKey(typeName);
+	}
+
+	/**
+	 * @return the names of the domain types.
+	 */
+	public Set<String> getTypes() {
+		return Collections.unmodifiableSet(dependencies.keySet());
+	}
+
+	/**
+	 * @param typeName the domain type name.
+	 * @return the fully qualified name of the type information generated for the given type, {@literal null} if unknown.
+	 */
+	public String getGeneratedTypeName(String typeName) {
+		return generatedTypes.get(typeName);
+	}
+
+	/**
+	 * @param changedTypes binary names of the classes that changed.
+	 * @return the names of the domain types depending on any of the given classes.
+	 */
+	public Set<String> affectedBy(Collection<String> changedTypes) {
+
+		return dependencies.entrySet().stream() //
+				.filter(it -> it.getValue().stream().anyMatch(changedTypes::contains)) //
+				.map(Map.Entry::getKey) //
+				.collect(Collectors.toCollection(LinkedHashSet::new));
+	}
+
+	/**
+	 * Collect the resolved type along with its generics. Depth is limited as self referencing type variables, like
+	 * {@code T extends Comparable<T>}, resolve infinitely.
+	 */
+	private static void add(ResolvableType type, Set<String> dependencies, int depth) {
+
+		if (depth > MAX_GENERICS_DEPTH) {
+			return;
+		}
+		if (type.resolve() != null) {
+			add(type.resolve(), dependencies);
+		}
+		for (ResolvableType generic : type.getGenerics()) {
+			add(generic, dependencies, depth + 1);
+		}
+		if (type.isArray()) {
+			add(type.getComponentType(), dependencies, depth + 1);
+		}
+	}
+
+	private static void add(Class<?> type, Set<String> dependencies) {
+
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		if (type.isPrimitive() || ClassUtils.isPrimitiveWrapper(type) || type.getName().startsWith("java.")) {
+			return;
+		}
+		dependencies.add(type.getName());
+	}
+}
@@ -72,6 +72,10 @@ public class TypeInfo implements Iterable<PropertyInfo> {
 		return this;
 	}
 
+	int getPropertyCount() {
+		return properties.size();
+	}
+
 	public Class<?> getType() {
 		return type;
 	}
@@ -18,8 +18,10 @@ package org.springframework.data.entity.processor.model;
 import java.lang.reflect.Field;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.springframework.core.ResolvableType;
 import org.springframework.lang.Nullable;
@@ -56,6 +58,15 @@ public class TypeSignature {
 		return fromField(ReflectionUtils.findField(owner, field));
 	}
 
+	public ResolvableType getResolvableType() {
+		return resolvableType;
+	}
+
+	@Nullable
+	public Field getField() {
+		return field;
+	}
+
 	public String getPackageName() {
 		return resolvableType.resolve().getPackage().getName();
 	}
@@ -80,6 +91,46 @@ public class TypeSignature {
 		return getSimpleName() + TYPE_POSTFIX;
 	}
 
+	/**
+	 * @return the fully qualified name of the generated type, which is always a top level type within
+	 *         {@link #getPackageName()}.
+	 */
+	public String getConfigurableTypeName() {
+		return getPackageName() + "." + getSimpleConfigurableTypeName();
+	}
+
+	/**
+	 * @return all resolvable types making up the signature including array component types and generics.
+	 */
+	public Set<Class<?>> getReferencedTypes() {
+
+		Set<Class<?>> types = new LinkedHashSet<>();
+		collectReferencedTypes(resolvableType, types);
+		return types;
+	}
+
+	private static void collectReferencedTypes(ResolvableType type, Set<Class<?>> types) {
+
+		if (type.isArray()) {
+			collectReferencedTypes(type.getComponentType(), types);
+			return;
+		}
+
+		Class<?> resolved = type.resolve();
+		if (resolved == null) {
+			return;
+		}
+
+		types.add(resolved);
+		if (type.getType() instanceof TypeVariable) {
+			return;
+		}
+
+		for (ResolvableType generic : type.getGenerics()) {
+			collectReferencedTypes(generic, types);
+		}
+	}
+
 	public String getJavaSignatureString() {
 		return getJavaSignature(resolvableType);
 	}
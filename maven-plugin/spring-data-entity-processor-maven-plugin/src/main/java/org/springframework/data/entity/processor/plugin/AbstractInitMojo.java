@@ -19,13 +19,25 @@ import static org.twdata.maven.mojoexecutor.MojoExecutor.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import com.squareup.javapoet.ClassName;
 import org.apache.maven.artifact.Artifact;
@@ -37,11 +49,17 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.toolchain.Toolchain;
+import org.apache.maven.toolchain.ToolchainManager;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.util.Scanner;
+import org.codehaus.plexus.util.cli.CommandLineUtils;
 import org.sonatype.plexus.build.incremental.BuildContext;
 import org.springframework.boot.loader.tools.MainClassFinder;
+import org.springframework.data.entity.processor.model.TypeDependencyGraph;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
 
 /**
  * @author dsyer
@@ -52,6 +70,10 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 
 	private static final String TOOLS_APPLICATION_CLASS_NAME = "org.springframework.data.entity.processor.plugin.CodeGeneratorApplication";
 
+	private static final String GENERATED_TYPE_POSTFIX = "ConfigurableTypeInformation";
+
+	private static final String GENERATED_SUBSTITUTION_NAME = "Target_ClassTypeInformation";
+
 	/**
 	 * The Maven project.
 	 *
@@ -69,6 +91,9 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 	@Component
 	private BuildPluginManager pluginManager;
 
+	@Component
+	private ToolchainManager toolchainManager;
+
 	/**
 	 * Skip the execution.
 	 *
@@ -95,6 +120,180 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 	@Parameter(property = "spring-graalvm.generate.base-package")
 	private String basePackage;
 
+	/**
+	 * Generate a minimal {@literal reflect-config.json} for the domain types, registering only the members not already
+	 * covered by the generated type information.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.reflect-config", defaultValue = "false")
+	private boolean reflectConfig;
+
+	/**
+	 * Generate a {@literal native-image.properties} initializing the generated type information at image build time.
+	 * Types depending on classes with runtime only static state are left to runtime initialization.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.build-time-initialization", defaultValue = "false")
+	private boolean buildTimeInitialization;
+
+	/**
+	 * Compile counters for instantiations, property reads and property writes into the generated type information.
+	 * Counting is switched on at runtime via {@literal -Dspring.data.entity-processor.instrumentation=true} and costs a
+	 * single branch per invocation otherwise. The switch is read when the type information is initialized, hence
+	 * instrumented types are never {@link #buildTimeInitialization initialized at image build time}.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.instrumentation", defaultValue = "false")
+	private boolean instrumentation;
+
+	/**
+	 * Let the generated {@literal ClassTypeInformation} substitution record the types it resolves reflectively, as no
+	 * type information was generated for them, into the file given via
+	 * {@literal -Dspring.data.entity-processor.misses=<file>} at runtime. See {@link #missesFile}.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.record-misses", defaultValue = "false")
+	private boolean recordMisses;
+
+	/**
+	 * A file of misses recorded at runtime, one type name per line. Type information is generated for the types listed
+	 * in addition to the scanned ones, so coverage converges on the types actually used. Ignored if not present.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.misses-file")
+	private File missesFile;
+
+	/**
+	 * The backend used to create the type information. {@literal source} renders Java sources to be compiled along with
+	 * the project, {@literal bytecode} writes class files directly into the classes directory, skipping their
+	 * compilation.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.backend", defaultValue = "source")
+	private String backend;
+
+	/**
+	 * Compile the generated sources in-process right after generation, writing the class files to the classes directory
+	 * instead of adding the generated sources to the compile source roots. Only sources that changed since the previous
+	 * run get compiled.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.compile", defaultValue = "false")
+	private boolean compileGeneratedSources;
+
+	/**
+	 * Only regenerate the type information of domain types affected by classes changed since the previous run, tracked
+	 * via a type dependency graph in the work directory. Files are only written if their content changed and only those
+	 * get refreshed, making the generation safe to run on every incremental IDE build. Incremental IDE builds only run
+	 * the generator with this enabled, and only if sources or non generated class files changed. Full (configuration)
+	 * builds always generate.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.incremental", defaultValue = "false")
+	private boolean incremental;
+
+	/**
+	 * Only generate type information for domain types compiled by this module, leaving the ones of dependencies to the
+	 * modules owning them, eg. a shared domain module generating for its entities on its own. The
+	 * {@literal ClassTypeInformation} substitution still refers to all domain types found, so owning modules are expected
+	 * to run the generator as well.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.own-types-only", defaultValue = "false")
+	private boolean ownTypesOnly;
+
+	/**
+	 * Skip domain types whose type information is pre-generated by the library declaring them, as announced by the model
+	 * snapshot in its {@literal entity-metadata} artifact on the class path, produced by the {@literal entity-metadata-jar}
+	 * goal.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.reuse-entity-metadata", defaultValue = "true")
+	private boolean reuseEntityMetadata;
+
+	/**
+	 * Write a JSON report of phase timings, counters (classes scanned, types modeled, files written,...) and the most
+	 * expensive types to {@literal generator-report.json} in the work directory. A summary is logged either way.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.report", defaultValue = "true")
+	private boolean report;
+
+	/**
+	 * Reuse the class loader over the dependency jars across executions within the same JVM, eg. for all modules of a
+	 * reactor sharing the same dependencies. Loaders are keyed by artifact coordinates and checksums. Only the classes of
+	 * the module itself are loaded per execution.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.cache-class-loader", defaultValue = "true")
+	private boolean cacheClassLoader;
+
+	/**
+	 * Run the generator in a forked JVM instead of the one running Maven, eg. to give it more heap, a different garbage
+	 * collector or a newer JDK via {@link #jdkToolchain}.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.fork", defaultValue = "false")
+	private boolean fork;
+
+	/**
+	 * JVM arguments of the forked generator, eg. {@literal -Xmx2g -XX:+UseParallelGC}. Only applies when forking.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.jvm-arguments")
+	private String jvmArguments;
+
+	/**
+	 * Requirements of the JDK toolchain to fork the generator with, eg. {@literal <version>11</version>}. Defaults to the
+	 * toolchain selected by the {@literal maven-toolchains-plugin}, if any, and the JDK running Maven otherwise. Only
+	 * applies when forking.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter
+	private Map<String, String> jdkToolchain;
+
+	/**
+	 * Run the generator within a long-lived daemon JVM, kept warm across builds. The daemon is started on first use with
+	 * the configured {@link #jvmArguments} and {@link #jdkToolchain} and reuses class loaders over unchanged dependency
+	 * jars. Takes precedence over {@link #fork}.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.daemon", defaultValue = "false")
+	private boolean daemon;
+
+	/**
+	 * The directory daemons publish their connection details and log in.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.daemon-directory",
+			defaultValue = "${user.home}/.spring-data-entity-processor/daemon")
+	private File daemonDirectory;
+
+	/**
+	 * The number of minutes after which an idle daemon exits.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.generate.daemon-idle-timeout", defaultValue = "60")
+	private int daemonIdleTimeout;
+
 	public AbstractInitMojo() {
 		super();
 	}
@@ -106,19 +305,101 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 			return;
 		}
 		preProcess(project);
-		Scanner scanner = buildContext.newScanner(project.getBasedir());
-		scanner.setIncludes(new String[]{"src/main/java/"});
-		scanner.scan();
-		// TODO: better way to tell if we are scanning a jar not src/main/java
-		if (scanner.getIncludedFiles().length > 0 || this.basePackage != null || !new File("src/main/java").exists()) {
+		List<File> sourceRoots = getSourceRoots();
+		if (isGenerationRequired(sourceRoots)) {
+			compileProjectSources(sourceRoots);
+			generate(getStart());
+		}
+		postProcess(project);
+	}
+
+	/**
+	 * @return the existing compile source roots of the project, excluding the directory the generated sources are written
+	 *         to.
+	 */
+	private List<File> getSourceRoots() {
+
+		return project.getCompileSourceRoots().stream() //
+				.map(File::new) //
+				.filter(File::isDirectory) //
+				.filter(it -> !it.getAbsoluteFile().equals(getOutputDirectory().getAbsoluteFile())) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Full builds always generate. Incremental IDE builds only do so with {@link #incremental} enabled, restricting the
+	 * work to the types affected by the change, and only if any of the given source roots or a class file other than the
+	 * generated ones changed. Otherwise every keystroke triggered build would regenerate the whole domain.
+	 *
+	 * @return {@literal true} if the generator is to run.
+	 */
+	private boolean isGenerationRequired(List<File> sourceRoots) {
+
+		if (!buildContext.isIncremental()) {
+			return true;
+		}
+
+		if (!isIncremental()) {
+			getLog().debug("Skipping generation on incremental build, enable incremental generation to update on change.");
+			return false;
+		}
+
+		if (sourceRoots.stream().anyMatch(buildContext::hasDelta)) {
+			return true;
+		}
+
+		File classesDirectory = getMainClassesDirectory();
+		if (!classesDirectory.isDirectory()) {
+			return false;
+		}
+
+		boolean classChanges = getClassDeltas(classesDirectory).stream().anyMatch(it -> !isGeneratedClassFile(it));
+		if (!classChanges) {
+			getLog().debug("No relevant changes, skipping generation.");
+		}
+		return classChanges;
+	}
+
+	/**
+	 * @return {@literal true} if the given class file path points to one written by the generator (or by compiling its
+	 *         sources), whose deltas must not trigger another run.
+	 */
+	private static boolean isGeneratedClassFile(String path) {
+		return path.contains(GENERATED_TYPE_POSTFIX) || path.contains(GENERATED_SUBSTITUTION_NAME);
+	}
+
+	/**
+	 * Run {@literal maven-compiler-plugin:compile} ahead of the generation if any of the sources is newer than its class
+	 * file, changed or got removed since the previous run, so that the scan sees the current state of the project.
+	 * Skipped entirely if the classes are up to date.
+	 */
+	private void compileProjectSources(List<File> sourceRoots) throws MojoExecutionException {
+
+		StaleSourceDetector detector = new StaleSourceDetector(getMainClassesDirectory(), getWorkDirectory());
+		List<File> staleSources;
+		try {
+			staleSources = detector.findStaleSources(sourceRoots);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Cannot detect stale sources in: " + sourceRoots, e);
+		}
+
+		if (staleSources.isEmpty()) {
+			getLog().debug("Classes in " + getMainClassesDirectory() + " are up to date, skipping compilation.");
+		} else {
+
+			getLog().info("Compiling " + staleSources.size() + " stale source(s) ahead of generation.");
 			String compilerVersion = project.getProperties().getProperty("maven-compiler-plugin.version", "3.8.1");
 			executeMojo(
 					plugin(groupId("org.apache.maven.plugins"), artifactId("maven-compiler-plugin"),
 							version(compilerVersion)),
 					goal("compile"), configuration(), executionEnvironment(project, session, pluginManager));
-			generate(getStart());
 		}
-		postProcess(project);
+
+		try {
+			detector.recordSources(sourceRoots);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Cannot record sources of: " + sourceRoots, e);
+		}
 	}
 
 	protected abstract void postProcess(MavenProject project);
@@ -126,31 +407,450 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 	protected abstract void preProcess(MavenProject project);
 
 	private void generate(String start) throws MojoExecutionException {
-		ClassLoader realm = getClass().getClassLoader();
-		ClassLoader parent = realm instanceof ClassRealm ? ((ClassRealm) realm).getParentClassLoader()
-				: realm.getParent();
-		URLClassLoader loader = new URLClassLoader(getClassPathUrls(), parent);
-		ClassLoader original = null;
 		getLog().info("Project: " + project);
 		try {
-			original = ClassUtils.overrideThreadContextClassLoader(loader);
-			Class<?> type = loader.loadClass(TOOLS_APPLICATION_CLASS_NAME);
 			getLog().info("Generating: " + start + " in: " + getOutputDirectory());
-			type.getMethod("main", String[].class).invoke(null,
-					new Object[]{new String[]{start, getOutputDirectory().getAbsolutePath()}});
-			buildContext.refresh(getOutputDirectory());
+			String[] arguments = getArguments(start);
+			if (this.daemon) {
+				runInDaemon(arguments);
+			} else if (this.fork) {
+				runForked(arguments);
+			} else {
+				runInProcess(arguments);
+			}
+			if (this.report && getReportFile().isFile()) {
+				getLog().info("Generator report: " + getReportFile());
+			}
+			if (isIncremental()) {
+				refreshChangedOutputs();
+			} else {
+				buildContext.refresh(getOutputDirectory());
+			}
+			if (isCompileGeneratedSources()) {
+				compileGeneratedSources();
+			}
+			if ((isBytecodeBackend() && !isIncremental()) || isCompileGeneratedSources()) {
+				buildContext.refresh(getMainClassesDirectory());
+			}
+			if ((this.reflectConfig || this.buildTimeInitialization) && !isIncremental()) {
+				buildContext.refresh(getResourcesOutputDirectory());
+			}
+		} catch (MojoExecutionException e) {
+			throw e;
+		} catch (InvocationTargetException e) {
+			throw new MojoExecutionException("Generation failed: " + e.getTargetException().getMessage(),
+					e.getTargetException());
 		} catch (Exception e) {
 			throw new MojoExecutionException("Cannot generate initializer class: " + TOOLS_APPLICATION_CLASS_NAME, e);
+		}
+	}
+
+	private void runInProcess(String[] arguments) throws Exception {
+		ClassLoader realm = getClass().getClassLoader();
+		ClassLoader parent = realm instanceof ClassRealm ? ((ClassRealm) realm).getParentClassLoader()
+				: realm.getParent();
+		URLClassLoader loader = createClassLoader(parent);
+		ClassLoader original = ClassUtils.overrideThreadContextClassLoader(loader);
+		try {
+			Class<?> type = loader.loadClass(TOOLS_APPLICATION_CLASS_NAME);
+			Consumer<String> output = line -> getLog().info(line);
+			type.getMethod("run", String[].class, Consumer.class).invoke(null, arguments, output);
 		} finally {
-			if (original != null) {
-				ClassUtils.overrideThreadContextClassLoader(original);
+			ClassUtils.overrideThreadContextClassLoader(original);
+			release(loader);
+		}
+	}
+
+	/**
+	 * Run the generator in a separate JVM using the configured JVM arguments and toolchain, passing its output on to the
+	 * log.
+	 */
+	private void runForked(String[] arguments) throws Exception {
+
+		GeneratorProcess process = new GeneratorProcess(getJavaExecutable(), getJvmArguments(), getClassPathFiles(),
+				getWorkDirectory());
+		getLog().info("Forking generator using: " + process.getJavaExecutable() + " " + getJvmArguments());
+
+		long start = System.nanoTime();
+		int exitCode = process.run(TOOLS_APPLICATION_CLASS_NAME, Arrays.asList(arguments),
+				line -> getLog().info("[generator] " + line));
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		if (exitCode != 0) {
+			throw new MojoExecutionException("Forked generator failed with exit code " + exitCode + " after " + duration
+					+ " ms. See the [generator] output above for details.");
+		}
+		getLog().info("Forked generator finished in " + duration + " ms.");
+	}
+
+	/**
+	 * Run the generator within a {@link GeneratorDaemon}, started on first use. Daemons are kept apart by a fingerprint of
+	 * their JVM, so that eg. an update of the plugin or a change of the JVM arguments leads to a new daemon while the
+	 * outdated one exits once idle.
+	 */
+	private void runInDaemon(String[] arguments) throws Exception {
+
+		String javaExecutable = getJavaExecutable();
+		List<String> jvmArguments = getJvmArguments();
+		List<File> daemonClassPath = Arrays.asList(
+				new File(GeneratorDaemon.class.getProtectionDomain().getCodeSource().getLocation().toURI()),
+				new File(DigestUtils.class.getProtectionDomain().getCodeSource().getLocation().toURI()));
+
+		StringBuilder fingerprint = new StringBuilder(javaExecutable).append(jvmArguments);
+		for (File file : daemonClassPath) {
+			fingerprint.append('|').append(file).append('@').append(GeneratorClassLoaderCache.checksum(file));
+		}
+		File directory = new File(this.daemonDirectory,
+				DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8)));
+
+		GeneratorDaemonClient client = new GeneratorDaemonClient(directory,
+				new GeneratorProcess(javaExecutable, jvmArguments, daemonClassPath, directory),
+				(int) TimeUnit.MINUTES.toMillis(this.daemonIdleTimeout));
+
+		List<File> moduleClassPath = new ArrayList<>();
+		Map<String, File> jars = getDependencyJars(moduleClassPath);
+
+		long start = System.nanoTime();
+		int exitCode = client.generate(moduleClassPath, jars, Arrays.asList(arguments),
+				line -> getLog().info("[generator] " + line));
+		long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		if (exitCode != 0) {
+			throw new MojoExecutionException("Generator daemon failed with exit code " + exitCode + " after " + duration
+					+ " ms. See the [generator] output above for details.");
+		}
+		getLog().info("Generator daemon finished in " + duration + " ms.");
+	}
+
+	private String getJavaExecutable() throws MojoExecutionException {
+
+		Toolchain toolchain;
+		if (this.jdkToolchain != null && !this.jdkToolchain.isEmpty()) {
+
+			List<Toolchain> toolchains = toolchainManager.getToolchains(session, "jdk", this.jdkToolchain);
+			if (toolchains.isEmpty()) {
+				throw new MojoExecutionException(
+						"No JDK toolchain matching " + this.jdkToolchain + " found. Please check your toolchains.xml.");
+			}
+			toolchain = toolchains.get(0);
+		} else {
+			toolchain = toolchainManager.getToolchainFromBuildContext("jdk", session);
+		}
+
+		String java = toolchain != null ? toolchain.findTool("java") : null;
+		return java != null ? java : new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+	}
+
+	private List<String> getJvmArguments() throws MojoExecutionException {
+
+		if (this.jvmArguments == null || this.jvmArguments.trim().isEmpty()) {
+			return Collections.emptyList();
+		}
+		try {
+			return Arrays.asList(CommandLineUtils.translateCommandline(this.jvmArguments));
+		} catch (Exception e) {
+			throw new MojoExecutionException("Cannot parse JVM arguments: " + this.jvmArguments, e);
+		}
+	}
+
+	/**
+	 * Create the class loader to run the generator in. If caching is enabled, the module classes (and reactor
+	 * dependencies resolved to class directories) are layered on top of a cached loader over the dependency jars.
+	 */
+	private URLClassLoader createClassLoader(ClassLoader parent) throws MojoExecutionException {
+
+		if (!this.cacheClassLoader) {
+			return new URLClassLoader(getClassPathUrls(), parent);
+		}
+
+		try {
+
+			List<File> moduleClassPath = new ArrayList<>();
+			Map<String, File> jars = getDependencyJars(moduleClassPath);
+
+			List<URL> moduleUrls = new ArrayList<>();
+			for (File file : moduleClassPath) {
+				moduleUrls.add(file.toURI().toURL());
+			}
+
+			ClassLoader dependencies = GeneratorClassLoaderCache.getClassLoader(jars, parent);
+			getLog().debug("Classpath: " + moduleUrls + " on top of cached " + jars.keySet());
+			return new URLClassLoader(moduleUrls.toArray(new URL[0]), dependencies);
+		} catch (IOException ex) {
+			throw new MojoExecutionException("Unable to build classpath", ex);
+		}
+	}
+
+	/**
+	 * Split the class path into the dependency jars, along with the generator itself, suitable for caching and the
+	 * module specific part, that is the project classes and reactor dependencies resolved to class directories.
+	 *
+	 * @param moduleClassPath collects the module specific class path.
+	 * @return the jars by their identifying coordinates, in class path order.
+	 */
+	private Map<String, File> getDependencyJars(List<File> moduleClassPath) throws MojoExecutionException {
+
+		moduleClassPath.addAll(getClassesDirectories());
+
+		Map<String, File> jars = new LinkedHashMap<>();
+		List<URL> jarUrls = new ArrayList<>();
+		try {
+			for (Artifact artifact : getArtifacts()) {
+
+				File file = artifact.getFile();
+				if (file == null) {
+					continue;
+				}
+				if (file.isFile()) {
+					jars.put(artifact.getId(), file);
+					jarUrls.add(file.toURI().toURL());
+				} else {
+					moduleClassPath.add(file);
+				}
+			}
+
+			int dependencyCount = jarUrls.size();
+			addTools(jarUrls);
+			for (URL tool : jarUrls.subList(dependencyCount, jarUrls.size())) {
+				jars.put(tool.toString(), new File(tool.toURI()));
+			}
+		} catch (MalformedURLException | URISyntaxException ex) {
+			throw new MojoExecutionException("Unable to build classpath", ex);
+		}
+		return jars;
+	}
+
+	/**
+	 * Close the given class loader and make sure the reused generator does not hold on to the classes loaded through it.
+	 * The cached loader underneath is handed back to the {@link GeneratorClassLoaderCache}.
+	 */
+	private void release(URLClassLoader loader) {
+
+		if (this.cacheClassLoader) {
+			try {
+				loader.loadClass(TOOLS_APPLICATION_CLASS_NAME).getMethod("clearCaches", ClassLoader.class).invoke(null,
+						loader);
+			} catch (ReflectiveOperationException e) {
+				getLog().debug("Cannot clear generator caches", e);
+			}
+		}
+
+		try {
+			loader.close();
+		} catch (IOException e) {
+			getLog().debug("Cannot close generator class loader", e);
+		}
+
+		if (this.cacheClassLoader) {
+			GeneratorClassLoaderCache.release(loader.getParent());
+		}
+	}
+
+	private void refreshChangedOutputs() throws IOException {
+
+		File changedOutputs = new File(getWorkDirectory(), CodeGeneratorApplication.CHANGED_OUTPUTS_FILE_NAME);
+		if (!changedOutputs.isFile()) {
+			return;
+		}
+
+		List<String> files = Files.readAllLines(changedOutputs.toPath());
+		getLog().info("Generation changed " + files.size() + " file(s).");
+		for (String file : files) {
+			buildContext.refresh(new File(file));
+		}
+	}
+
+	/**
+	 * Determine the classes changed since the previous run. Incremental builds use the {@link BuildContext} deltas of
+	 * the classes directory, full builds the class files modified after the type dependency graph got written.
+	 *
+	 * @return the binary names of the changed (or deleted) classes, {@literal null} if there is no previous run to
+	 *         compare against.
+	 */
+	@Nullable
+	private List<String> getChangedClasses() throws IOException {
+
+		File classesDirectory = getMainClassesDirectory();
+		File graph = new File(getWorkDirectory(), TypeDependencyGraph.FILE_NAME);
+		if (!graph.isFile() || !classesDirectory.isDirectory()) {
+			return null;
+		}
+
+		List<String> classFiles = new ArrayList<>();
+		if (buildContext.isIncremental()) {
+			classFiles.addAll(getClassDeltas(classesDirectory));
+		} else {
+
+			long lastRun = graph.lastModified();
+			Path root = classesDirectory.toPath();
+			try (Stream<Path> files = Files.walk(root)) {
+				files.filter(it -> it.toString().endsWith(".class")) //
+						.filter(it -> it.toFile().lastModified() > lastRun) //
+						.forEach(it -> classFiles.add(root.relativize(it).toString()));
+			}
+		}
+
+		return classFiles.stream() //
+				.map(it -> it.substring(0, it.length() - ".class".length()).replace(File.separatorChar, '.')) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the paths of the class files changed (or deleted) within the given directory according to the
+	 *         {@link BuildContext}, relative to it.
+	 */
+	private List<String> getClassDeltas(File classesDirectory) {
+
+		List<String> classFiles = new ArrayList<>();
+		for (Scanner scanner : Arrays.asList(buildContext.newScanner(classesDirectory),
+				buildContext.newDeleteScanner(classesDirectory))) {
+
+			scanner.setIncludes(new String[] { "**/*.class" });
+			scanner.scan();
+			classFiles.addAll(Arrays.asList(scanner.getIncludedFiles()));
+		}
+		return classFiles;
+	}
+
+	protected void compileGeneratedSources() throws MojoExecutionException, IOException {
+		compileGeneratedSources(this.project, getOutputDirectory(), getMainClassesDirectory(), getClassPathFiles());
+	}
+
+	/**
+	 * Compile the generated sources of the given project, honoring its compiler settings.
+	 *
+	 * @param project the project the sources belong to.
+	 * @param sourceDirectory the directory containing the generated sources.
+	 * @param classesDirectory the directory to write the class files to.
+	 * @param classpath the class path to compile against.
+	 */
+	protected void compileGeneratedSources(MavenProject project, File sourceDirectory, File classesDirectory,
+			List<File> classpath) throws IOException {
+
+		List<String> options = new ArrayList<>();
+		options.add("-nowarn");
+		String release = project.getProperties().getProperty("maven.compiler.release");
+		if (release != null) {
+			options.add("--release");
+			options.add(release);
+		} else {
+			options.add("-source");
+			options.add(project.getProperties().getProperty("maven.compiler.source", "1.8"));
+			options.add("-target");
+			options.add(project.getProperties().getProperty("maven.compiler.target", "1.8"));
+		}
+
+		List<String> compiled = new GeneratedSourcesCompiler(sourceDirectory, classesDirectory, classpath, options).compile();
+		getLog().info("Compiled " + compiled.size() + " generated source(s) to: " + classesDirectory);
+	}
+
+	/**
+	 * @return {@literal true} if the generated sources are compiled by the plugin and must not be added to the compile
+	 *         source roots.
+	 */
+	protected boolean isCompileGeneratedSources() {
+		return this.compileGeneratedSources;
+	}
+
+	/**
+	 * @return {@literal true} if only the outputs of types affected by changed classes are to be regenerated.
+	 */
+	protected boolean isIncremental() {
+		return this.incremental;
+	}
+
+	protected MavenProject getProject() {
+		return this.project;
+	}
+
+	@Nullable
+	protected String getBasePackage() {
+		return this.basePackage;
+	}
+
+	private String[] getArguments(String start) throws IOException {
+
+		List<String> arguments = new ArrayList<>();
+		arguments.add(start);
+		arguments.add(getOutputDirectory().getAbsolutePath());
+		if (this.reflectConfig) {
+			arguments.add("--reflect-config");
+		}
+		if (this.buildTimeInitialization) {
+			arguments.add("--build-time-initialization");
+		}
+		if (this.instrumentation) {
+			arguments.add("--" + CodeGeneratorApplication.INSTRUMENTATION);
+		}
+		if (this.recordMisses) {
+			arguments.add("--" + CodeGeneratorApplication.RECORD_MISSES);
+		}
+		if (this.missesFile != null) {
+			arguments.add("--" + CodeGeneratorApplication.MISSES + "=" + this.missesFile.getAbsolutePath());
+		}
+		if (isBytecodeBackend()) {
+			arguments.add("--backend=" + CodeGeneratorApplication.BYTECODE_BACKEND);
+			arguments.add("--classes-directory=" + getMainClassesDirectory().getAbsolutePath());
+		}
+		if (this.reflectConfig || this.buildTimeInitialization) {
+			arguments.add("--resources-directory=" + getResourcesOutputDirectory().getAbsolutePath());
+			arguments.add("--native-image-id=" + project.getGroupId() + "/" + project.getArtifactId());
+		}
+		if (isIncremental()) {
+
+			arguments.add("--work-directory=" + getWorkDirectory().getAbsolutePath());
+			List<String> changedClasses = getChangedClasses();
+			if (changedClasses != null) {
+
+				File changedClassesFile = new File(getWorkDirectory(), "changed-classes.txt");
+				Files.write(changedClassesFile.toPath(), changedClasses);
+				arguments.add("--changed-classes=" + changedClassesFile.getAbsolutePath());
+				getLog().debug("Classes changed since the previous run: " + changedClasses);
 			}
 		}
+		arguments.add("--" + CodeGeneratorApplication.SNAPSHOT + "="
+				+ new File(getWorkDirectory(), CodeGeneratorApplication.SNAPSHOT_FILE_NAME).getAbsolutePath());
+		if (!this.reuseEntityMetadata) {
+			arguments.add("--" + CodeGeneratorApplication.REUSE_ENTITY_METADATA + "=false");
+		}
+		if (this.report) {
+			arguments.add("--" + CodeGeneratorApplication.STATS_JSON + "=" + getReportFile().getAbsolutePath());
+		}
+		if (this.ownTypesOnly) {
+			arguments.add("--" + CodeGeneratorApplication.OWNED_BY + "=" + getClassesDirectories().stream()
+					.map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator)));
+		}
+		addArguments(arguments);
+		return arguments.toArray(new String[0]);
+	}
+
+	private File getReportFile() {
+		return new File(getWorkDirectory(), CodeGeneratorApplication.REPORT_FILE_NAME);
+	}
+
+	/**
+	 * Hook to add further generator arguments.
+	 *
+	 * @param arguments the arguments determined so far.
+	 */
+	protected void addArguments(List<String> arguments) throws IOException {
+
+	}
+
+	private boolean isBytecodeBackend() {
+		return CodeGeneratorApplication.BYTECODE_BACKEND.equals(this.backend);
 	}
 
 	protected abstract File getOutputDirectory();
 
-	private String getStart() throws MojoExecutionException {
+	protected abstract File getResourcesOutputDirectory();
+
+	/**
+	 * @return the directory holding state in between incremental runs.
+	 */
+	protected abstract File getWorkDirectory();
+
+	protected String getStart() throws MojoExecutionException {
 		String mainClass = this.mainClass;
 		if (mainClass == null) {
 			if (this.basePackage == null) {
@@ -185,6 +885,19 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 		}
 	}
 
+	private List<File> getClassPathFiles() throws MojoExecutionException {
+
+		List<File> classpath = new ArrayList<>();
+		for (URL url : getClassPathUrls()) {
+			try {
+				classpath.add(new File(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new MojoExecutionException("Invalid classpath entry: " + url, e);
+			}
+		}
+		return classpath;
+	}
+
 	private void addTools(List<URL> urls) {
 //		if (!findJar(urls, "spring-graalvm-buildtools")) {
 		urls.add(CodeGeneratorApplication.class.getProtectionDomain().getCodeSource().getLocation());
@@ -221,9 +934,15 @@ public abstract class AbstractInitMojo extends AbstractMojo {
 
 	protected abstract List<File> getClassesDirectories();
 
+	/**
+	 * @return the resolved dependencies to put on the class path of the generator.
+	 */
+	protected Collection<Artifact> getArtifacts() {
+		return this.project.getArtifacts();
+	}
+
 	private void addDependencies(List<URL> urls) throws MalformedURLException, MojoExecutionException {
-		Set<Artifact> artifacts = this.project.getArtifacts();
-		for (Artifact artifact : artifacts) {
+		for (Artifact artifact : getArtifacts()) {
 			if (artifact.getFile() != null) {
 				urls.add(artifact.getFile().toURI().toURL());
 			}
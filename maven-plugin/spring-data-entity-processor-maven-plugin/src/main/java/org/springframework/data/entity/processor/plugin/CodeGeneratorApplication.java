@@ -17,42 +17,812 @@ package org.springframework.data.entity.processor.plugin;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.CachedIntrospectionResults;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.data.entity.processor.GeneratorMetrics;
 import org.springframework.data.entity.processor.PersistableEntityScanner;
 import org.springframework.data.entity.processor.model.DataModelGenerator;
 import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeDependencyGraph;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.writer.BytecodeFileWriter;
+import org.springframework.data.entity.processor.writer.GeneratedFiles;
 import org.springframework.data.entity.processor.writer.JavaPoetFileWriter;
+import org.springframework.data.entity.processor.writer.NativeImagePropertiesWriter;
+import org.springframework.data.entity.processor.writer.ReflectionConfigurationWriter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * @author Christoph Strobl
  */
 public class CodeGeneratorApplication {
 
-	public static void main(String[] args) {
+	static final String REFLECT_CONFIG = "reflect-config";
+	static final String BUILD_TIME_INITIALIZATION = "build-time-initialization";
+	static final String RESOURCES_DIRECTORY = "resources-directory";
+	static final String NATIVE_IMAGE_ID = "native-image-id";
+	static final String BACKEND = "backend";
+	static final String CLASSES_DIRECTORY = "classes-directory";
+	static final String WORK_DIRECTORY = "work-directory";
+	static final String CHANGED_CLASSES = "changed-classes";
+	static final String OWNED_BY = "owned-by";
+	static final String VISIBLE_FROM = "visible-from";
+	static final String ADOPT_UNOWNED = "adopt-unowned";
+	static final String SUBSTITUTION = "substitution";
+	static final String MODULES = "modules";
+	static final String OUTPUT_DIRECTORY = "output-directory";
+	static final String SNAPSHOT = "snapshot";
+	static final String REUSE_ENTITY_METADATA = "reuse-entity-metadata";
+	static final String INCLUDE = "include";
+	static final String EXCLUDE = "exclude";
+	static final String CLASSPATH = "classpath";
+	static final String THREADS = "threads";
+	static final String STATS_JSON = "stats-json";
+	static final String SLOWEST_TYPES = "slowest-types";
+	static final String INSTRUMENTATION = "instrumentation";
+	static final String RECORD_MISSES = "record-misses";
+	static final String MISSES = "misses";
+	static final String HELP = "help";
 
-		String packageToScan = args[0];
+	static final String CHANGED_OUTPUTS_FILE_NAME = "changed-outputs.txt";
+	static final String OPTIONS_FILE_NAME = "generator-options.txt";
+	static final String SNAPSHOT_FILE_NAME = "entity-metadata.properties";
+	static final String REPORT_FILE_NAME = "generator-report.json";
+
+	/**
+	 * Location of the model snapshots within {@literal entity-metadata} artifacts.
+	 */
+	static final String ENTITY_METADATA_LOCATION = "META-INF/spring-data/entity-metadata/";
+
+	static final String SOURCE_BACKEND = "source";
+	static final String BYTECODE_BACKEND = "bytecode";
+
+	static final String USAGE = String.join(System.lineSeparator(), //
+			"Usage: CodeGeneratorApplication <packages> <target directory> [options]", //
+			"", //
+			"  <packages>                      comma separated packages to scan for domain types", //
+			"  <target directory>              directory to write the generated sources to", //
+			"", //
+			"  --include=<regex,...>           generate for scanned types whose name matches any of the expressions only", //
+			"  --exclude=<regex,...>           skip scanned types whose name matches any of the expressions", //
+			"  --classpath=<path>              additional class path entries holding the domain types", //
+			"  --threads=<count>               number of threads to render type information with (default 1)", //
+			"  --backend=source|bytecode       generate sources (default) or class files", //
+			"  --classes-directory=<dir>       directory to write class files to (bytecode backend)", //
+			"  --resources-directory=<dir>     directory to write native image configuration to", //
+			"  --native-image-id=<id>          id to place the native image configuration under", //
+			"  --reflect-config[=true|false]   generate GraalVM reflection configuration", //
+			"  --build-time-initialization[=true|false]", //
+			"                                  initialize generated types at image build time", //
+			"  --instrumentation[=true|false]  count instantiations and property accesses in the generated types", //
+			"  --record-misses[=true|false]    record types resolved reflectively at runtime, see --misses", //
+			"  --misses=<file>                 generate for the types recorded in the file in addition", //
+			"  --work-directory=<dir>          cache directory enabling incremental generation", //
+			"  --changed-classes=<file>        classes changed since the previous run, one per line", //
+			"  --snapshot=<file>               write the model snapshot of the generated types", //
+			"  --reuse-entity-metadata=false   regenerate types with type information on the class path", //
+			"  --owned-by=<dir,...>            write files for types whose class files reside in the directories only", //
+			"  --visible-from=<dir,...>        reference types owned by the directories in the substitution only", //
+			"  --adopt-unowned=<dir,...>       consider types residing in none of the directories owned on top", //
+			"  --substitution=false            skip the ClassTypeInformation substitution", //
+			"  --modules=<file>                properties of per module options, eg. 0.output-directory=<dir>", //
+			"  --stats-json=<file>             write timings and counts of the run as JSON", //
+			"  --slowest-types=<count>         number of most expensive types to report (default 10)", //
+			"  --help                          print this message", //
+			"", //
+			"Flags without a value are enabled. Arguments of the form @file are replaced by the lines of the file, one", //
+			"argument per line.");
+
+	/**
+	 * The names of the options listed in the {@link #USAGE}.
+	 */
+	private static final Set<String> OPTIONS = Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(INCLUDE,
+			EXCLUDE, CLASSPATH, THREADS, BACKEND, CLASSES_DIRECTORY, RESOURCES_DIRECTORY, NATIVE_IMAGE_ID, REFLECT_CONFIG,
+			BUILD_TIME_INITIALIZATION, INSTRUMENTATION, RECORD_MISSES, MISSES, WORK_DIRECTORY, CHANGED_CLASSES, SNAPSHOT,
+			REUSE_ENTITY_METADATA, OWNED_BY, VISIBLE_FROM, ADOPT_UNOWNED, SUBSTITUTION, MODULES, STATS_JSON, SLOWEST_TYPES,
+			HELP)));
+
+	/**
+	 * @param args the comma separated packages to scan and the target directory followed by optional
+	 *          {@literal --name=value} options, see {@link #USAGE}. Arguments of the form {@literal @file} are replaced by
+	 *          the lines of the given file, one argument per line.
+	 * @throws IOException on failure to read an argument file.
+	 * @throws IllegalArgumentException on missing or malformed arguments.
+	 * @throws UncheckedIOException on failure to write the generated files.
+	 * @see #run(String[], Consumer)
+	 */
+	public static void main(String[] args) throws IOException {
+		run(args, System.out::println);
+	}
+
+	/**
+	 * Run the generator reporting to the given {@link Consumer} instead of {@link System#out}, eg. the log of the build
+	 * tool when running within its JVM.
+	 *
+	 * @param args the arguments as passed to {@link #main(String[])}.
+	 * @param output receives the usage, the summary of the run and other messages, one line at a time.
+	 * @throws IOException on failure to read an argument file.
+	 * @throws IllegalArgumentException on missing or malformed arguments.
+	 * @throws UncheckedIOException on failure to write the generated files.
+	 */
+	public static void run(String[] args, Consumer<String> output) throws IOException {
+
+		args = expandArgumentFiles(args);
+
+		if (Arrays.asList(args).contains("--" + HELP)) {
+			lines(USAGE).forEach(output);
+			return;
+		}
+		if (args.length < 2 || args[0].startsWith("--") || args[1].startsWith("--")) {
+			throw new IllegalArgumentException("Expected packages and target directory." + System.lineSeparator() + USAGE);
+		}
+
+		List<String> packages = Arrays.asList(StringUtils.commaDelimitedListToStringArray(args[0].replace(" ", "")));
 		String targetDir = args[1];
+		Map<String, String> options = options(args);
 
 		File outputDirectory = new File(targetDir);
 		if (!outputDirectory.exists()) {
-			outputDirectory.mkdir();
+			outputDirectory.mkdirs();
+		}
+
+		URLClassLoader classLoader = classLoader(options.get(CLASSPATH));
+		if (classLoader == null) {
+
+			scanProcessAndWriteFiles(packages, outputDirectory, options, output);
+			return;
 		}
 
-		scanProcessAndWriteFiles(packageToScan, outputDirectory);
+		Thread thread = Thread.currentThread();
+		ClassLoader original = thread.getContextClassLoader();
+		thread.setContextClassLoader(classLoader);
+		try {
+			scanProcessAndWriteFiles(packages, outputDirectory, options, output);
+		} finally {
+
+			clearCaches(classLoader);
+			thread.setContextClassLoader(original);
+			classLoader.close();
+		}
 	}
 
-	private static void scanProcessAndWriteFiles(String packageName, File outputDirectory) {
+	private static void scanProcessAndWriteFiles(List<String> packages, File outputDirectory, Map<String, String> options,
+			Consumer<String> output) {
 
-		DomainTypes domainTypes = new DataModelGenerator(new PersistableEntityScanner().scan(packageName)).getDomainTypes();
+		GeneratorMetrics metrics = new GeneratorMetrics();
+		metrics.attribute("packages", packages);
+		metrics.attribute(BACKEND, options.getOrDefault(BACKEND, SOURCE_BACKEND));
+		metrics.attribute(THREADS, threads(options));
 
-		JavaPoetFileWriter javaPoetFileWriter = new JavaPoetFileWriter();
+		long start = System.nanoTime();
+		List<Class<?>> scannedTypes = scan(packages, metrics);
+		List<Class<?>> types = filter(scannedTypes, options.get(INCLUDE), options.get(EXCLUDE));
+		if (options.containsKey(MISSES)) {
 
-		try {
+			File missesFile = new File(options.get(MISSES));
+			try {
+				Set<Class<?>> selectedTypes = new LinkedHashSet<>(types);
+				selectedTypes.addAll(misses(missesFile, output));
+				metrics.add("typesFromMisses", selectedTypes.size() - types.size());
+				types = new ArrayList<>(selectedTypes);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot read misses from: " + missesFile, e);
+			}
+		}
+		long scanned = System.nanoTime();
+		metrics.record(GeneratorMetrics.SCAN, scanned - start);
+		metrics.add("typesSelected", types.size());
+
+		DomainTypes domainTypes = model(types, metrics);
+		long modeled = System.nanoTime();
+		metrics.record(GeneratorMetrics.MODEL, modeled - scanned);
 
-			javaPoetFileWriter.writeConfigurableTypes(domainTypes, outputDirectory);
-			javaPoetFileWriter.writeGraalVmConfiguration(domainTypes, outputDirectory);
+		try {
+			if (options.containsKey(MODULES)) {
+				for (Map<String, String> moduleOptions : modules(options)) {
+					writeFiles(domainTypes, new File(moduleOptions.get(OUTPUT_DIRECTORY)), moduleOptions, metrics);
+				}
+			} else {
+				writeFiles(domainTypes, outputDirectory, options, metrics);
+			}
 		} catch (IOException e) {
-			e.printStackTrace();
+			throw new UncheckedIOException("Cannot write generated files to: " + outputDirectory, e);
+		}
+		long written = System.nanoTime();
+		metrics.record(GeneratorMetrics.WRITE, written - modeled);
+
+		output.accept(String.format("Generated type information for %s domain type(s) in %s ms.",
+				metrics.getCount(GeneratorMetrics.TYPES_MODELED), millis(start, written)));
+		lines(metrics.summary()).forEach(output);
+
+		if (options.containsKey(STATS_JSON)) {
+
+			String json = metrics.toJson(Integer.parseInt(options.getOrDefault(SLOWEST_TYPES, "10")));
+			try {
+
+				File statistics = new File(options.get(STATS_JSON));
+				if (statistics.getParentFile() != null) {
+					statistics.getParentFile().mkdirs();
+				}
+				Files.write(statistics.toPath(), json.getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Cannot write statistics to: " + options.get(STATS_JSON), e);
+			}
+		}
+	}
+
+	private static long millis(long from, long to) {
+		return TimeUnit.NANOSECONDS.toMillis(to - from);
+	}
+
+	private static List<String> lines(String text) {
+		return Arrays.asList(text.split("\\R"));
+	}
+
+	/**
+	 * Replace {@literal @file} arguments by the lines of the referenced file, skipping blank ones.
+	 */
+	static String[] expandArgumentFiles(String[] args) throws IOException {
+
+		List<String> expanded = new ArrayList<>();
+		for (String arg : args) {
+
+			if (arg.startsWith("@")) {
+				Files.readAllLines(new File(arg.substring(1)).toPath()).stream() //
+						.filter(StringUtils::hasText) //
+						.forEach(expanded::add);
+			} else {
+				expanded.add(arg);
+			}
+		}
+		return expanded.toArray(new String[0]);
+	}
+
+	/**
+	 * Clear the caches of Spring referencing classes of the given class loader. To be called when done with a class
+	 * loader layered on top of the one the generator is loaded from, so that it can be garbage collected while the
+	 * generator is reused.
+	 *
+	 * @param classLoader the class loader no longer used.
+	 */
+	public static void clearCaches(ClassLoader classLoader) {
+
+		ReflectionUtils.clearCache();
+		ResolvableType.clearCache();
+		AnnotationUtils.clearCache();
+		CachedIntrospectionResults.clearClassLoader(classLoader);
+	}
+
+	/**
+	 * Scan the given package for domain types.
+	 *
+	 * @param packageName the base package to scan.
+	 * @return the domain types found.
+	 */
+	public static List<Class<?>> scan(String packageName) {
+		return new PersistableEntityScanner().scan(packageName);
+	}
+
+	/**
+	 * Scan the given packages for domain types, sharing the types seen in between packages.
+	 *
+	 * @param packageNames the base packages to scan.
+	 * @return the domain types found.
+	 */
+	public static List<Class<?>> scan(Collection<String> packageNames) {
+		return scan(packageNames, new GeneratorMetrics());
+	}
+
+	private static List<Class<?>> scan(Collection<String> packageNames, GeneratorMetrics metrics) {
+
+		PersistableEntityScanner scanner = new PersistableEntityScanner();
+		scanner.setMetrics(metrics);
+		Set<Class<?>> types = new LinkedHashSet<>();
+		for (String packageName : packageNames) {
+			types.addAll(scanner.scan(packageName));
+		}
+		return new ArrayList<>(types);
+	}
+
+	/**
+	 * Select the scanned types to generate type information for. Types referenced by selected ones are still part of the
+	 * model as their type information is required by the selected types.
+	 *
+	 * @param types the scanned types.
+	 * @param includes comma separated regular expressions the type name must match any of, {@literal null} to include
+	 *          all types.
+	 * @param excludes comma separated regular expressions the type name must not match any of, may be {@literal null}.
+	 * @return the selected types.
+	 */
+	static List<Class<?>> filter(List<Class<?>> types, @Nullable String includes, @Nullable String excludes) {
+
+		List<Pattern> includePatterns = patterns(includes);
+		List<Pattern> excludePatterns = patterns(excludes);
+
+		return types.stream() //
+				.filter(it -> includePatterns.isEmpty() || matchesAny(it, includePatterns)) //
+				.filter(it -> !matchesAny(it, excludePatterns)) //
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Load the types recorded by a {@literal ClassTypeInformation} substitution generated with
+	 * {@literal record-misses}. Types no longer on the class path are skipped, as are JDK types, interfaces, arrays and
+	 * simple values, which are resolved reflectively by design.
+	 *
+	 * @param file the recorded type names, one per line, may contain duplicates.
+	 * @param output receives a line per recorded type no longer on the class path.
+	 * @return the types to generate type information for in addition to the scanned ones, empty if the file does not
+	 *         exist (yet).
+	 * @throws IOException on failure to read the file.
+	 */
+	static List<Class<?>> misses(File file, Consumer<String> output) throws IOException {
+
+		if (!file.isFile()) {
+			return new ArrayList<>();
+		}
+
+		ClassLoader classLoader = ClassUtils.getDefaultClassLoader();
+		Set<String> typeNames = Files.readAllLines(file.toPath()).stream() //
+				.map(String::trim) //
+				.filter(StringUtils::hasText) //
+				.collect(Collectors.toCollection(TreeSet::new));
+
+		List<Class<?>> types = new ArrayList<>();
+		for (String typeName : typeNames) {
+
+			if (!ClassUtils.isPresent(typeName, classLoader)) {
+				output.accept("Skipping recorded miss not on the class path: " + typeName);
+				continue;
+			}
+
+			Class<?> type = ClassUtils.resolveClassName(typeName, classLoader);
+			if (!type.isInterface() && !type.isArray() && !BeanUtils.isSimpleValueType(type)
+					&& !type.getName().startsWith("java.") && !type.getName().startsWith("javax.")) {
+				types.add(type);
+			}
+		}
+		return types;
+	}
+
+	private static List<Pattern> patterns(@Nullable String expressions) {
+
+		return Arrays.stream(StringUtils.commaDelimitedListToStringArray(expressions)) //
+				.map(String::trim) //
+				.filter(StringUtils::hasText) //
+				.map(Pattern::compile) //
+				.collect(Collectors.toList());
+	}
+
+	private static boolean matchesAny(Class<?> type, List<Pattern> patterns) {
+		return patterns.stream().anyMatch(it -> it.matcher(type.getName()).matches());
+	}
+
+	/**
+	 * Create a class loader for the given class path entries on top of the context class loader.
+	 *
+	 * @param classPath entries separated by {@link File#pathSeparator}, may be {@literal null}.
+	 * @return {@literal null} if there are no entries.
+	 */
+	@Nullable
+	static URLClassLoader classLoader(@Nullable String classPath) {
+
+		if (!StringUtils.hasText(classPath)) {
+			return null;
+		}
+
+		List<URL> urls = new ArrayList<>();
+		for (String entry : StringUtils.delimitedListToStringArray(classPath, File.pathSeparator)) {
+
+			if (!StringUtils.hasText(entry)) {
+				continue;
+			}
+			try {
+				urls.add(new File(entry.trim()).toURI().toURL());
+			} catch (MalformedURLException e) {
+				throw new IllegalArgumentException("Invalid class path entry: " + entry, e);
+			}
+		}
+		return new URLClassLoader(urls.toArray(new URL[0]), ClassUtils.getDefaultClassLoader());
+	}
+
+	static int threads(Map<String, String> options) {
+		return Math.max(1, Integer.parseInt(options.getOrDefault(THREADS, "1")));
+	}
+
+	/**
+	 * Compute the model for the given domain types.
+	 *
+	 * @param types the scanned domain types.
+	 * @return the {@link DomainTypes} model.
+	 */
+	public static DomainTypes model(Collection<Class<?>> types) {
+		return model(types, new GeneratorMetrics());
+	}
+
+	private static DomainTypes model(Collection<Class<?>> types, GeneratorMetrics metrics) {
+		return new DataModelGenerator(types, metrics).getDomainTypes();
+	}
+
+	/**
+	 * Write the generated type information and configuration files, {@link #writeFilesIncrementally incrementally} if a
+	 * {@literal work-directory} is given.
+	 *
+	 * @param domainTypes the model to write.
+	 * @param outputDirectory the directory to write the generated sources to.
+	 * @param options the options as parsed from the {@literal --name=value} arguments.
+	 * @throws IOException on failure to write files.
+	 */
+	public static void writeFiles(DomainTypes domainTypes, File outputDirectory, Map<String, String> options) throws IOException {
+		writeFiles(domainTypes, outputDirectory, options, new GeneratorMetrics());
+	}
+
+	/**
+	 * Write the generated type information and configuration files, recording files rendered and written along with the
+	 * time spent per type in the given {@link GeneratorMetrics}.
+	 *
+	 * @param domainTypes the model to write.
+	 * @param outputDirectory the directory to write the generated sources to.
+	 * @param options the options as parsed from the {@literal --name=value} arguments.
+	 * @param metrics the metrics of the current run.
+	 * @throws IOException on failure to write files.
+	 * @see #writeFiles(DomainTypes, File, Map)
+	 */
+	public static void writeFiles(DomainTypes domainTypes, File outputDirectory, Map<String, String> options,
+			GeneratorMetrics metrics) throws IOException {
+
+		if (options.containsKey(WORK_DIRECTORY)) {
+			writeFilesIncrementally(domainTypes, outputDirectory, options, metrics);
+		} else {
+			writeFiles(domainTypes, typeInfo -> true, outputDirectory, options, new GeneratedFiles(metrics));
+		}
+	}
+
+	/**
+	 * Write the type information for those types affected by the classes listed in the {@literal changed-classes} file
+	 * only, using the {@link TypeDependencyGraph} persisted in the {@literal work-directory} by the previous run. All
+	 * types are written if there is no previous graph, no list of changed classes or the options changed in between.
+	 * Outputs of types no longer present are deleted.
+	 * <p>
+	 * The files actually written or deleted are listed in {@value #CHANGED_OUTPUTS_FILE_NAME} within the work directory.
+	 *
+	 * @param domainTypes the model to write.
+	 * @param outputDirectory the directory to write the generated sources to.
+	 * @param options the options as parsed from the {@literal --name=value} arguments.
+	 * @throws IOException on failure to read or write files.
+	 */
+	static void writeFilesIncrementally(DomainTypes domainTypes, File outputDirectory, Map<String, String> options)
+			throws IOException {
+		writeFilesIncrementally(domainTypes, outputDirectory, options, new GeneratorMetrics());
+	}
+
+	private static void writeFilesIncrementally(DomainTypes domainTypes, File outputDirectory,
+			Map<String, String> options, GeneratorMetrics metrics) throws IOException {
+
+		File workDirectory = new File(options.get(WORK_DIRECTORY));
+		workDirectory.mkdirs();
+
+		File graphFile = new File(workDirectory, TypeDependencyGraph.FILE_NAME);
+		File optionsFile = new File(workDirectory, OPTIONS_FILE_NAME);
+
+		List<String> generatorOptions = options.entrySet().stream() //
+				.filter(it -> !it.getKey().equals(CHANGED_CLASSES)) //
+				.map(it -> it.getKey() + "=" + it.getValue()) //
+				.sorted() //
+				.collect(Collectors.toList());
+		boolean optionsChanged = !optionsFile.isFile() || !Files.readAllLines(optionsFile.toPath()).equals(generatorOptions);
+
+		TypeDependencyGraph previous = TypeDependencyGraph.read(graphFile);
+		TypeDependencyGraph current = TypeDependencyGraph.from(domainTypes);
+		GeneratedFiles generatedFiles = new GeneratedFiles(metrics);
+
+		Predicate<TypeInfo> filter = typeInfo -> true;
+		if (options.containsKey(CHANGED_CLASSES) && !previous.isEmpty() && !optionsChanged) {
+
+			List<String> changedClasses = Files.readAllLines(new File(options.get(CHANGED_CLASSES)).toPath());
+			Set<String> affected = new HashSet<>(current.affectedBy(changedClasses));
+			affected.addAll(previous.affectedBy(changedClasses));
+
+			filter = typeInfo -> affected.contains(typeInfo.getTypeName()) || !previous.contains(typeInfo.getTypeName());
+		}
+
+		for (String type : previous.getTypes()) {
+			if (!current.contains(type)) {
+				deleteGeneratedType(previous.getGeneratedTypeName(type), outputDirectory, options, generatedFiles);
+			}
+		}
+
+		writeFiles(domainTypes, filter, outputDirectory, options, generatedFiles);
+
+		current.write(graphFile);
+		Files.write(optionsFile.toPath(), generatorOptions);
+		Files.write(new File(workDirectory, CHANGED_OUTPUTS_FILE_NAME).toPath(), generatedFiles.getChangedFiles().stream()
+				.map(File::getAbsolutePath).collect(Collectors.toList()));
+	}
+
+	/**
+	 * Write the files for the given types. With {@literal owned-by} set, type information and native image configuration
+	 * is written for the types whose class files reside in the given directories only, as types of other modules are
+	 * expected to come with their own. Same goes for types whose type information is pre-generated in an
+	 * {@literal entity-metadata} artifact on the class path, unless {@literal reuse-entity-metadata=false}. The
+	 * {@literal ClassTypeInformation} substitution references all types, or the ones owned by the
+	 * {@literal visible-from} directories, unless disabled via {@literal substitution=false}. Types whose class files
+	 * reside in none of the {@literal adopt-unowned} directories, like the ones from third party jars, are considered
+	 * owned on top.
+	 * <p>
+	 * The types written are recorded in the {@literal snapshot} file, if given, to be published along with their type
+	 * information.
+	 */
+	private static void writeFiles(DomainTypes domainTypes, Predicate<TypeInfo> filter, File outputDirectory,
+			Map<String, String> options, GeneratedFiles generatedFiles) throws IOException {
+
+		DomainTypes ownedTypes = adoptUnowned(domainTypes, ownedBy(domainTypes, options.get(OWNED_BY)),
+				options.get(ADOPT_UNOWNED));
+		if (isEnabled(options, REUSE_ENTITY_METADATA, true)) {
+
+			Set<String> reusableTypes = reusableTypes(ClassUtils.getDefaultClassLoader());
+			if (!reusableTypes.isEmpty()) {
+				ownedTypes = new DomainTypes(StreamSupport.stream(ownedTypes.spliterator(), false) //
+						.filter(it -> !reusableTypes.contains(it.getTypeName())) //
+						.collect(Collectors.toCollection(LinkedHashSet::new)));
+			}
+		}
+
+		JavaPoetFileWriter javaPoetFileWriter = new JavaPoetFileWriter();
+		javaPoetFileWriter.setGeneratedFiles(generatedFiles);
+		javaPoetFileWriter.setParallelism(threads(options));
+		javaPoetFileWriter.setInstrumentation(isEnabled(options, INSTRUMENTATION, false));
+		javaPoetFileWriter.setRecordMisses(isEnabled(options, RECORD_MISSES, false));
+
+		if (BYTECODE_BACKEND.equals(options.getOrDefault(BACKEND, SOURCE_BACKEND))) {
+
+			BytecodeFileWriter bytecodeFileWriter = new BytecodeFileWriter();
+			bytecodeFileWriter.setGeneratedFiles(generatedFiles);
+			bytecodeFileWriter.setParallelism(threads(options));
+			bytecodeFileWriter.setInstrumentation(isEnabled(options, INSTRUMENTATION, false));
+			bytecodeFileWriter.writeConfigurableTypes(ownedTypes, filter, classesDirectory(options, outputDirectory));
+		} else {
+			javaPoetFileWriter.writeConfigurableTypes(ownedTypes, filter, outputDirectory);
+		}
+		if (isEnabled(options, SUBSTITUTION, true)) {
+			javaPoetFileWriter.writeGraalVmConfiguration(
+					adoptUnowned(domainTypes, ownedBy(domainTypes, options.get(VISIBLE_FROM)), options.get(ADOPT_UNOWNED)),
+					outputDirectory);
+		}
+
+		if (isEnabled(options, REFLECT_CONFIG, false)) {
+
+			ReflectionConfigurationWriter writer = new ReflectionConfigurationWriter(nativeImageConfigurationPath(options));
+			writer.setGeneratedFiles(generatedFiles);
+			writer.writeGraalVmConfiguration(ownedTypes, resourcesDirectory(options, outputDirectory));
+		}
+		if (isEnabled(options, BUILD_TIME_INITIALIZATION, false)) {
+
+			NativeImagePropertiesWriter writer = new NativeImagePropertiesWriter(nativeImageConfigurationPath(options));
+			writer.setGeneratedFiles(generatedFiles);
+			writer.setInstrumentation(isEnabled(options, INSTRUMENTATION, false));
+			writer.writeGraalVmConfiguration(ownedTypes, resourcesDirectory(options, outputDirectory));
+		}
+
+		if (options.containsKey(SNAPSHOT)) {
+			TypeDependencyGraph.from(ownedTypes).write(new File(options.get(SNAPSHOT)));
+		}
+	}
+
+	/**
+	 * Find the model snapshots of {@literal entity-metadata} artifacts on the class path.
+	 *
+	 * @param classLoader the class loader to search.
+	 * @return the names of the domain types whose type information is available on the class path already.
+	 * @throws IOException on failure to read a snapshot.
+	 */
+	static Set<String> reusableTypes(@Nullable ClassLoader classLoader) throws IOException {
+
+		Resource[] snapshots = new PathMatchingResourcePatternResolver(classLoader)
+				.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + ENTITY_METADATA_LOCATION + "*.properties");
+
+		Set<String> reusableTypes = new LinkedHashSet<>();
+		for (Resource snapshot : snapshots) {
+
+			TypeDependencyGraph graph;
+			try (InputStream in = snapshot.getInputStream()) {
+				graph = TypeDependencyGraph.read(in);
+			}
+			for (String type : graph.getTypes()) {
+				if (ClassUtils.isPresent(graph.getGeneratedTypeName(type), classLoader)) {
+					reusableTypes.add(type);
+				}
+			}
+		}
+		return reusableTypes;
+	}
+
+	/**
+	 * @param classesDirectories the {@link File#pathSeparator} separated class directories, {@literal null} for all.
+	 * @return the types whose class files reside in one of the given directories.
+	 */
+	static DomainTypes ownedBy(DomainTypes domainTypes, @Nullable String classesDirectories) {
+
+		if (classesDirectories == null) {
+			return domainTypes;
+		}
+
+		String[] directories = StringUtils.tokenizeToStringArray(classesDirectories, File.pathSeparator);
+		Set<TypeInfo> owned = new LinkedHashSet<>();
+		for (TypeInfo typeInfo : domainTypes) {
+
+			String classFile = ClassUtils.convertClassNameToResourcePath(typeInfo.getType().getName())
+					+ ClassUtils.CLASS_FILE_SUFFIX;
+			for (String directory : directories) {
+				if (new File(directory, classFile).isFile()) {
+					owned.add(typeInfo);
+					break;
+				}
+			}
+		}
+		return new DomainTypes(owned);
+	}
+
+	/**
+	 * @param owned the types owned already.
+	 * @param classesDirectories the {@link File#pathSeparator} separated class directories of all modules,
+	 *          {@literal null} to adopt none.
+	 * @return the owned types along with the types whose class files reside in none of the given directories.
+	 */
+	static DomainTypes adoptUnowned(DomainTypes domainTypes, DomainTypes owned, @Nullable String classesDirectories) {
+
+		if (classesDirectories == null) {
+			return owned;
+		}
+
+		Set<TypeInfo> ownedTypes = StreamSupport.stream(owned.spliterator(), false).collect(Collectors.toSet());
+		Set<TypeInfo> moduleTypes = StreamSupport.stream(ownedBy(domainTypes, classesDirectories).spliterator(), false)
+				.collect(Collectors.toSet());
+
+		Set<TypeInfo> adopted = new LinkedHashSet<>();
+		for (TypeInfo typeInfo : domainTypes) {
+			if (ownedTypes.contains(typeInfo) || !moduleTypes.contains(typeInfo)) {
+				adopted.add(typeInfo);
+			}
+		}
+		return new DomainTypes(adopted);
+	}
+
+	/**
+	 * Read the modules to write files for in one go from the properties file given via {@literal modules}. Options are
+	 * keyed by the index of the module, eg. {@literal 0.output-directory}, and take precedence over the global ones.
+	 *
+	 * @return the options per module, in order of their index.
+	 */
+	static List<Map<String, String>> modules(Map<String, String> options) throws IOException {
+
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(new File(options.get(MODULES)).toPath())) {
+			properties.load(in);
+		}
+
+		Map<Integer, Map<String, String>> modules = new TreeMap<>();
+		for (String key : properties.stringPropertyNames()) {
+
+			int separator = key.indexOf('.');
+			Map<String, String> moduleOptions = modules.computeIfAbsent(Integer.valueOf(key.substring(0, separator)),
+					index -> {
+						Map<String, String> globalOptions = new LinkedHashMap<>(options);
+						globalOptions.remove(MODULES);
+						return globalOptions;
+					});
+			moduleOptions.put(key.substring(separator + 1), properties.getProperty(key));
+		}
+		return new ArrayList<>(modules.values());
+	}
+
+	/**
+	 * Delete the generated source as well as the class files of the given generated type.
+	 */
+	private static void deleteGeneratedType(String generatedTypeName, File outputDirectory, Map<String, String> options,
+			GeneratedFiles generatedFiles) {
+
+		String path = generatedTypeName.replace('.', '/');
+		generatedFiles.delete(new File(outputDirectory, path + ".java"));
+
+		File classFile = new File(classesDirectory(options, outputDirectory), path + ".class");
+		generatedFiles.delete(classFile);
+
+		String nestedPrefix = ClassUtils.getShortName(generatedTypeName) + "$";
+		File[] nestedClassFiles = classFile.getParentFile()
+				.listFiles((directory, name) -> name.startsWith(nestedPrefix) && name.endsWith(".class"));
+		if (nestedClassFiles != null) {
+			for (File nestedClassFile : nestedClassFiles) {
+				generatedFiles.delete(nestedClassFile);
+			}
+		}
+	}
+
+	static String nativeImageConfigurationPath(Map<String, String> options) {
+
+		String nativeImageId = options.get(NATIVE_IMAGE_ID);
+		return nativeImageId != null ? "META-INF/native-image/" + nativeImageId : "META-INF/native-image";
+	}
+
+	static File resourcesDirectory(Map<String, String> options, File outputDirectory) {
+		return options.containsKey(RESOURCES_DIRECTORY) ? new File(options.get(RESOURCES_DIRECTORY)) : outputDirectory;
+	}
+
+	static File classesDirectory(Map<String, String> options, File outputDirectory) {
+		return options.containsKey(CLASSES_DIRECTORY) ? new File(options.get(CLASSES_DIRECTORY)) : outputDirectory;
+	}
+
+	/**
+	 * @param name the option name without the leading {@literal --}.
+	 * @return {@literal true} if the given option is listed in the {@link #USAGE}.
+	 */
+	public static boolean isOption(String name) {
+		return OPTIONS.contains(name);
+	}
+
+	/**
+	 * @return the value of the given flag, {@literal true} if given without a value.
+	 */
+	static boolean isEnabled(Map<String, String> options, String flag, boolean defaultValue) {
+		return Boolean.parseBoolean(options.getOrDefault(flag, Boolean.toString(defaultValue)));
+	}
+
+	/**
+	 * @throws IllegalArgumentException on arguments not being {@literal --name=value} options listed in the
+	 *           {@link #USAGE}.
+	 */
+	static Map<String, String> options(String[] args) {
+
+		Map<String, String> options = new LinkedHashMap<>();
+		for (int i = 2; i < args.length; i++) {
+
+			String arg = args[i];
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument: " + arg);
+			}
+
+			int separator = arg.indexOf('=');
+			String name = separator == -1 ? arg.substring(2) : arg.substring(2, separator);
+			if (!isOption(name)) {
+				throw new IllegalArgumentException("Unknown option: --" + name + System.lineSeparator() + USAGE);
+			}
+			options.put(name, separator == -1 ? "true" : arg.substring(separator + 1));
 		}
+		return options;
 	}
 }
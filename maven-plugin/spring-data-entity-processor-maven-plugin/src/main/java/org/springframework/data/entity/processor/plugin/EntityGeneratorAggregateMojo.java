@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.ArtifactUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Generates the type information for a whole reactor in one go, scanning and modelling the domain types once instead
+ * of once per module. The outputs of each domain type are written to the module owning it, that is, the one whose
+ * classes contain the type, and compiled right into its classes directory. Modules depending on it refer to the
+ * generated type information from there. The {@literal ClassTypeInformation} substitution is written to modules no
+ * other reactor module depends on, covering the types of the module itself and its upstream modules. Those modules
+ * also own the domain types no reactor module contains, like the ones from dependency jars, as nothing upstream would
+ * generate type information for them otherwise.
+ * <p>
+ * Requires the reactor to be compiled and a {@literal basePackage} to scan, eg. {@code mvn compile
+ * entity-generator-aggregate -Dspring-graalvm.generate.base-package=com.acme}.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@Mojo(name = "entity-generator-aggregate", aggregator = true, threadSafe = true, requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+public class EntityGeneratorAggregateMojo extends AbstractInitMojo {
+
+	@Parameter(defaultValue = "${reactorProjects}", readonly = true, required = true)
+	private List<MavenProject> reactorProjects;
+
+	/**
+	 * Directory holding the module definitions passed on to the generator.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/entity-generator-aggregate", required = true)
+	private File workDirectory;
+
+	@Override
+	protected void preProcess(MavenProject project) {
+
+	}
+
+	@Override
+	protected void postProcess(MavenProject project) {
+
+	}
+
+	@Override
+	protected String getStart() throws MojoExecutionException {
+
+		if (getBasePackage() == null) {
+			throw new MojoExecutionException(
+					"Aggregated generation requires the package to scan, please add a 'basePackage' property");
+		}
+		return getBasePackage();
+	}
+
+	/**
+	 * The reactor is compiled already, so the outputs are compiled by the plugin.
+	 */
+	@Override
+	protected boolean isCompileGeneratedSources() {
+		return true;
+	}
+
+	@Override
+	protected boolean isIncremental() {
+		return false;
+	}
+
+	@Override
+	protected void addArguments(List<String> arguments) throws IOException {
+
+		Properties modules = new Properties();
+		List<MavenProject> owners = getModules();
+		String reactorClassesDirectories = owners.stream().map(it -> it.getBuild().getOutputDirectory())
+				.collect(Collectors.joining(File.pathSeparator));
+
+		List<MavenProject> downstream = owners.stream().filter(it -> !isDependedUpon(it, owners)).collect(Collectors.toList());
+		if (downstream.size() > 1) {
+			getLog().warn("Domain types not owned by any reactor module, eg. the ones from dependency jars, get their type "
+					+ "information generated into each of " + downstream.stream().map(MavenProject::getArtifactId)
+							.collect(Collectors.toList()) + ".");
+		}
+
+		for (int i = 0; i < owners.size(); i++) {
+
+			MavenProject module = owners.get(i);
+			String prefix = i + ".";
+			File classesDirectory = new File(module.getBuild().getOutputDirectory());
+
+			modules.setProperty(prefix + CodeGeneratorApplication.OUTPUT_DIRECTORY,
+					getGeneratedSourcesDirectory(module).getAbsolutePath());
+			modules.setProperty(prefix + CodeGeneratorApplication.OWNED_BY, classesDirectory.getAbsolutePath());
+			modules.setProperty(prefix + CodeGeneratorApplication.CLASSES_DIRECTORY, classesDirectory.getAbsolutePath());
+			modules.setProperty(prefix + CodeGeneratorApplication.RESOURCES_DIRECTORY, classesDirectory.getAbsolutePath());
+			modules.setProperty(prefix + CodeGeneratorApplication.NATIVE_IMAGE_ID,
+					module.getGroupId() + "/" + module.getArtifactId());
+			modules.setProperty(prefix + CodeGeneratorApplication.SNAPSHOT,
+					new File(module.getBuild().getDirectory(), "entity-generator/" + CodeGeneratorApplication.SNAPSHOT_FILE_NAME)
+							.getAbsolutePath());
+
+			if (!downstream.contains(module)) {
+				modules.setProperty(prefix + CodeGeneratorApplication.SUBSTITUTION, "false");
+			} else {
+				modules.setProperty(prefix + CodeGeneratorApplication.VISIBLE_FROM,
+						getUpstreamModules(module, owners).stream().map(it -> it.getBuild().getOutputDirectory())
+								.collect(Collectors.joining(File.pathSeparator)));
+				modules.setProperty(prefix + CodeGeneratorApplication.ADOPT_UNOWNED, reactorClassesDirectories);
+			}
+		}
+
+		workDirectory.mkdirs();
+		File modulesFile = new File(workDirectory, "modules.properties");
+		try (OutputStream out = Files.newOutputStream(modulesFile.toPath())) {
+			modules.store(out, "Reactor modules");
+		}
+		arguments.add("--" + CodeGeneratorApplication.MODULES + "=" + modulesFile.getAbsolutePath());
+	}
+
+	@Override
+	protected void compileGeneratedSources() throws MojoExecutionException, IOException {
+
+		for (MavenProject module : getModules()) {
+
+			File sourceDirectory = getGeneratedSourcesDirectory(module);
+			if (!sourceDirectory.isDirectory()) {
+				continue;
+			}
+
+			List<File> classpath = new ArrayList<>();
+			getUpstreamModules(module, getModules())
+					.forEach(it -> classpath.add(new File(it.getBuild().getOutputDirectory())));
+			module.getArtifacts().stream().map(Artifact::getFile).filter(Objects::nonNull).forEach(classpath::add);
+
+			compileGeneratedSources(module, sourceDirectory, new File(module.getBuild().getOutputDirectory()), classpath);
+		}
+	}
+
+	/**
+	 * @return the dependencies of all modules, excluding the reactor modules themselves.
+	 */
+	@Override
+	protected Collection<Artifact> getArtifacts() {
+
+		Set<String> modules = getModules().stream()
+				.map(it -> ArtifactUtils.versionlessKey(it.getGroupId(), it.getArtifactId())).collect(Collectors.toSet());
+
+		Map<String, Artifact> artifacts = new LinkedHashMap<>();
+		for (MavenProject module : getModules()) {
+			for (Artifact artifact : module.getArtifacts()) {
+
+				String key = ArtifactUtils.versionlessKey(artifact);
+				if (!modules.contains(key)) {
+					artifacts.putIfAbsent(key, artifact);
+				}
+			}
+		}
+		return artifacts.values();
+	}
+
+	@Override
+	protected File getOutputDirectory() {
+		return new File(workDirectory, "generated-sources");
+	}
+
+	@Override
+	protected File getResourcesOutputDirectory() {
+		return new File(workDirectory, "generated-resources");
+	}
+
+	@Override
+	protected File getWorkDirectory() {
+		return workDirectory;
+	}
+
+	@Override
+	protected File getMainClassesDirectory() {
+		return new File(getProject().getBuild().getOutputDirectory());
+	}
+
+	@Override
+	protected List<File> getClassesDirectories() {
+		return getModules().stream().map(it -> new File(it.getBuild().getOutputDirectory())).collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the compiled reactor modules.
+	 */
+	private List<MavenProject> getModules() {
+
+		return reactorProjects.stream() //
+				.filter(it -> !"pom".equals(it.getPackaging())) //
+				.filter(it -> new File(it.getBuild().getOutputDirectory()).isDirectory()) //
+				.collect(Collectors.toList());
+	}
+
+	private static File getGeneratedSourcesDirectory(MavenProject module) {
+		return new File(module.getBuild().getDirectory(), "generated-sources/entities");
+	}
+
+	/**
+	 * @return the given module along with the modules it depends on, directly or transitively.
+	 */
+	private static Set<MavenProject> getUpstreamModules(MavenProject module, List<MavenProject> modules) {
+
+		Set<String> dependencies = module.getArtifacts().stream().map(ArtifactUtils::versionlessKey)
+				.collect(Collectors.toSet());
+
+		Set<MavenProject> upstream = new LinkedHashSet<>();
+		upstream.add(module);
+		for (MavenProject candidate : modules) {
+			if (dependencies.contains(ArtifactUtils.versionlessKey(candidate.getGroupId(), candidate.getArtifactId()))) {
+				upstream.add(candidate);
+			}
+		}
+		return upstream;
+	}
+
+	private static boolean isDependedUpon(MavenProject module, List<MavenProject> modules) {
+
+		return modules.stream().filter(it -> it != module)
+				.anyMatch(it -> getUpstreamModules(it, modules).contains(module));
+	}
+}
@@ -20,6 +20,7 @@ import java.io.File;
 import java.util.Arrays;
 import java.util.List;
 
+import org.apache.maven.model.Resource;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -51,6 +52,22 @@ public class EntityGeneratorMojo extends AbstractInitMojo {
 	@Parameter(defaultValue = "${project.build.directory}/generated-sources/entities", required = true)
 	private File outputDirectory;
 
+	/**
+	 * Directory containing the generated resources, eg. GraalVM native image configuration.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/generated-resources/entities", required = true)
+	private File resourcesOutputDirectory;
+
+	/**
+	 * Directory holding state in between incremental runs, eg. the type dependency graph.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/entity-generator", required = true)
+	private File workDirectory;
+
 	@Override
 	protected void postProcess(MavenProject project) {
 
@@ -58,7 +75,13 @@ public class EntityGeneratorMojo extends AbstractInitMojo {
 
 	@Override
 	protected void preProcess(MavenProject project) {
-		project.addCompileSourceRoot(outputDirectory.getAbsolutePath());
+		if (!isCompileGeneratedSources()) {
+			project.addCompileSourceRoot(outputDirectory.getAbsolutePath());
+		}
+
+		Resource resource = new Resource();
+		resource.setDirectory(resourcesOutputDirectory.getAbsolutePath());
+		project.addResource(resource);
 	}
 
 	@Override
@@ -66,6 +89,16 @@ public class EntityGeneratorMojo extends AbstractInitMojo {
 		return outputDirectory;
 	}
 
+	@Override
+	protected File getResourcesOutputDirectory() {
+		return resourcesOutputDirectory;
+	}
+
+	@Override
+	protected File getWorkDirectory() {
+		return workDirectory;
+	}
+
 	@Override
 	protected File getMainClassesDirectory() {
 		return classesDirectory;
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.springframework.data.entity.processor.model.TypeDependencyGraph;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Packages the model snapshot of a domain library so that consumers can reuse its type information instead of
+ * generating their own. The compiled type information itself ships with the main artifact of the library, as both
+ * backends generate into its classes directory, so the jar holds the snapshot only. This keeps the classes from being
+ * on the class path twice, as duplicates or split packages. Entries carry a fixed timestamp to keep the jar
+ * reproducible.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class EntityMetadataJar {
+
+	// 1980-02-01, the earliest timestamp representable in zip files regardless of the time zone
+	private static final long ENTRY_TIME = 315_964_800_000L;
+
+	private final File classesDirectory;
+	private final File snapshot;
+
+	/**
+	 * @param classesDirectory the directory containing the compiled type information.
+	 * @param snapshot the model snapshot written by the generator.
+	 */
+	EntityMetadataJar(File classesDirectory, File snapshot) {
+
+		this.classesDirectory = classesDirectory;
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Write the jar after verifying the type information listed in the snapshot got compiled into the classes directory
+	 * packaged as the main artifact.
+	 *
+	 * @param jar the jar file to write.
+	 * @param snapshotName the name of the snapshot within {@value CodeGeneratorApplication#ENTITY_METADATA_LOCATION},
+	 *          unique per library, eg. {@literal com.acme.domain.properties}.
+	 * @return the number of types covered by the snapshot.
+	 * @throws IOException on failure to read the snapshot, on missing class files or on failure to write the jar.
+	 */
+	int write(File jar, String snapshotName) throws IOException {
+
+		TypeDependencyGraph graph = TypeDependencyGraph.read(snapshot);
+		for (String type : graph.getTypes()) {
+
+			File classFile = new File(classesDirectory,
+					ClassUtils.convertClassNameToResourcePath(graph.getGeneratedTypeName(type)) + ClassUtils.CLASS_FILE_SUFFIX);
+			if (!classFile.isFile()) {
+				throw new IOException("Missing compiled type information " + classFile + " for " + type
+						+ ". Make sure to package after the generated sources got compiled.");
+			}
+		}
+
+		Manifest manifest = new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+		jar.getParentFile().mkdirs();
+		try (OutputStream out = Files.newOutputStream(jar.toPath());
+				JarOutputStream jarOut = new JarOutputStream(out)) {
+
+			JarEntry manifestEntry = new JarEntry("META-INF/MANIFEST.MF");
+			manifestEntry.setTime(ENTRY_TIME);
+			jarOut.putNextEntry(manifestEntry);
+			manifest.write(jarOut);
+			jarOut.closeEntry();
+
+			JarEntry snapshotEntry = new JarEntry(CodeGeneratorApplication.ENTITY_METADATA_LOCATION + snapshotName);
+			snapshotEntry.setTime(ENTRY_TIME);
+			jarOut.putNextEntry(snapshotEntry);
+			Files.copy(snapshot.toPath(), jarOut);
+			jarOut.closeEntry();
+		}
+		return graph.getTypes().size();
+	}
+}
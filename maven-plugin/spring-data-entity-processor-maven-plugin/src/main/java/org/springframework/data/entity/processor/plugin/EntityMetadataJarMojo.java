@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.MavenProjectHelper;
+
+/**
+ * Packages the model snapshot of the type information generated for the domain types of a library into an attached
+ * artifact, by default classified {@literal entity-metadata}. The type information classes stay in the main artifact.
+ * Projects depending on both reuse the type information instead of generating their own for those types, paying the
+ * generation cost once when releasing the library.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+@Mojo(name = "entity-metadata-jar", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true)
+public class EntityMetadataJarMojo extends AbstractMojo {
+
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+	@Component
+	private MavenProjectHelper projectHelper;
+
+	/**
+	 * Skip packaging the type information.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(property = "spring-graalvm.entity-metadata.skip", defaultValue = "false")
+	private boolean skip;
+
+	/**
+	 * Directory containing the compiled type information, packaged as the main artifact.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+	private File classesDirectory;
+
+	/**
+	 * Directory the {@literal entity-generator} goal keeps its state in, containing the model snapshot.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.directory}/entity-generator", required = true)
+	private File workDirectory;
+
+	/**
+	 * Directory to write the artifact to.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "${project.build.directory}", required = true)
+	private File outputDirectory;
+
+	@Parameter(defaultValue = "${project.build.finalName}", readonly = true, required = true)
+	private String finalName;
+
+	/**
+	 * Classifier of the attached artifact.
+	 *
+	 * @since 1.0.0
+	 */
+	@Parameter(defaultValue = "entity-metadata", required = true)
+	private String classifier;
+
+	@Override
+	public void execute() throws MojoExecutionException {
+
+		if (this.skip) {
+			getLog().debug("skipping run as per configuration.");
+			return;
+		}
+
+		File snapshot = new File(workDirectory, CodeGeneratorApplication.SNAPSHOT_FILE_NAME);
+		if (!snapshot.isFile()) {
+			getLog().warn("No model snapshot found at " + snapshot + ". Did the entity-generator goal run?");
+			return;
+		}
+
+		File jar = new File(outputDirectory, finalName + "-" + classifier + ".jar");
+		try {
+
+			int types = new EntityMetadataJar(classesDirectory, snapshot).write(jar,
+					project.getGroupId() + "." + project.getArtifactId() + ".properties");
+			getLog().info("Packaged model snapshot of " + types + " type(s) to: " + jar);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Cannot package type information to: " + jar, e);
+		}
+
+		projectHelper.attachArtifact(project, "jar", classifier, jar);
+	}
+}
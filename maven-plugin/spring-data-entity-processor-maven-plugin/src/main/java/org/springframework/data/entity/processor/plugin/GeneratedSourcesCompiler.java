@@ -0,0 +1,356 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Compiles the generated sources in-process right after generation, writing the class files straight into the classes
+ * directory. Compiled units are fingerprinted by the hash of their source along with the class files of the domain type
+ * they were generated for, so that subsequent runs only compile sources that changed or whose domain type changed. Any
+ * change to the compile classpath, ie. the checksum of a jar or the class files of a directory, recompiles all sources
+ * as a generated source may compile to different bytecode against a changed signature. Class files of removed sources,
+ * as well as previous class files of recompiled ones, are deleted.
+ * <p>
+ * The compiler output is collected in memory and only written once the compilation succeeded, leaving the classes
+ * directory untouched on failure.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class GeneratedSourcesCompiler {
+
+	static final String FINGERPRINTS_FILE_NAME = ".compiled-sources";
+
+	/**
+	 * Key of the classpath fingerprint within the {@link #FINGERPRINTS_FILE_NAME fingerprints}, not a valid source path.
+	 */
+	static final String CLASSPATH_KEY = "<classpath>";
+
+	private static final String TYPE_POSTFIX = "ConfigurableTypeInformation";
+
+	private final File sourceDirectory;
+	private final File classesDirectory;
+	private final List<File> classpath;
+	private final List<String> options;
+
+	/**
+	 * @param sourceDirectory the directory containing the generated sources.
+	 * @param classesDirectory the directory to write the class files to. Also part of the compile classpath.
+	 * @param classpath the classpath to compile against.
+	 * @param options additional compiler options, eg. {@literal -source 8}.
+	 */
+	GeneratedSourcesCompiler(File sourceDirectory, File classesDirectory, List<File> classpath, List<String> options) {
+
+		this.sourceDirectory = sourceDirectory;
+		this.classesDirectory = classesDirectory;
+		this.classpath = classpath;
+		this.options = options;
+	}
+
+	/**
+	 * Compile the sources that changed since the last invocation.
+	 *
+	 * @return the relative paths of the compiled sources.
+	 * @throws IOException on failure to read sources or write class files.
+	 * @throws IllegalStateException if the compilation fails.
+	 */
+	List<String> compile() throws IOException {
+
+		Map<String, String> fingerprints = fingerprints(sources());
+		Properties previous = readFingerprints();
+		String classpathFingerprint = classpathFingerprint();
+		boolean classpathChanged = !classpathFingerprint.equals(previous.getProperty(CLASSPATH_KEY));
+
+		List<String> changed = fingerprints.entrySet().stream()
+				.filter(it -> classpathChanged || !it.getValue().equals(previous.getProperty(it.getKey())))
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toList());
+
+		for (String removed : previous.stringPropertyNames()) {
+			if (!removed.equals(CLASSPATH_KEY) && !fingerprints.containsKey(removed)) {
+				deleteClassFiles(removed);
+			}
+		}
+
+		if (!changed.isEmpty()) {
+
+			Map<String, byte[]> classFiles = compile(changed);
+			for (String source : changed) {
+				deleteClassFiles(source);
+			}
+			writeClassFiles(classFiles);
+		}
+
+		fingerprints.put(CLASSPATH_KEY, classpathFingerprint);
+		writeFingerprints(fingerprints);
+		return changed;
+	}
+
+	private Map<String, byte[]> compile(List<String> sources) throws IOException {
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("No Java compiler available. Make sure to run the build on a JDK.");
+		}
+
+		DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+		try (StandardJavaFileManager standardFileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+
+			List<File> compileClasspath = new ArrayList<>();
+			compileClasspath.add(classesDirectory);
+			compileClasspath.addAll(classpath);
+
+			List<String> compilerOptions = new ArrayList<>(options);
+			compilerOptions.add("-classpath");
+			compilerOptions.add(compileClasspath.stream().map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator)));
+			compilerOptions.add("-proc:none");
+
+			InMemoryFileManager fileManager = new InMemoryFileManager(standardFileManager);
+			Iterable<? extends JavaFileObject> units = standardFileManager.getJavaFileObjectsFromFiles(
+					sources.stream().map(it -> new File(sourceDirectory, it)).collect(Collectors.toList()));
+
+			Boolean success = compiler.getTask(null, fileManager, diagnostics, compilerOptions, null, units).call();
+			if (!Boolean.TRUE.equals(success)) {
+				throw new IllegalStateException(String.format("Failed to compile generated sources:%n%s", errors(diagnostics)));
+			}
+
+			return fileManager.getClassFiles();
+		}
+	}
+
+	private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+
+		return diagnostics.getDiagnostics().stream()
+				.filter(it -> it.getKind() == Diagnostic.Kind.ERROR)
+				.map(Object::toString)
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+
+	private void writeClassFiles(Map<String, byte[]> classFiles) throws IOException {
+
+		for (Map.Entry<String, byte[]> classFile : classFiles.entrySet()) {
+
+			File file = new File(classesDirectory, classFile.getKey().replace('.', File.separatorChar) + Kind.CLASS.extension);
+			file.getParentFile().mkdirs();
+			Files.write(file.toPath(), classFile.getValue());
+		}
+	}
+
+	/**
+	 * Delete the class files of the top level type declared in the given source along with its nested and anonymous
+	 * classes.
+	 */
+	private void deleteClassFiles(String source) throws IOException {
+
+		String typePath = source.substring(0, source.length() - Kind.SOURCE.extension.length());
+		File directory = new File(classesDirectory, typePath).getParentFile();
+		String simpleName = new File(typePath).getName();
+
+		File[] classFiles = directory.listFiles((dir, name) -> name.equals(simpleName + Kind.CLASS.extension)
+				|| (name.startsWith(simpleName + "$") && name.endsWith(Kind.CLASS.extension)));
+		if (classFiles == null) {
+			return;
+		}
+
+		for (File classFile : classFiles) {
+			Files.deleteIfExists(classFile.toPath());
+		}
+	}
+
+	private List<Path> sources() throws IOException {
+
+		if (!sourceDirectory.isDirectory()) {
+			return new ArrayList<>();
+		}
+
+		try (Stream<Path> paths = Files.walk(sourceDirectory.toPath())) {
+			return paths.filter(it -> it.toString().endsWith(Kind.SOURCE.extension)).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private Map<String, String> fingerprints(Collection<Path> sources) throws IOException {
+
+		Map<String, String> fingerprints = new LinkedHashMap<>();
+		for (Path source : sources) {
+			String relativePath = sourceDirectory.toPath().relativize(source).toString().replace(File.separatorChar, '/');
+			fingerprints.put(relativePath,
+					DigestUtils.md5DigestAsHex(Files.readAllBytes(source)) + ":" + domainTypeFingerprint(relativePath));
+		}
+		return fingerprints;
+	}
+
+	/**
+	 * Hash the class files of the domain type the given source was generated for. Generated types are top level types
+	 * within the package of the domain type named after its simple name, so a nested domain type is matched by its binary
+	 * name suffix.
+	 *
+	 * @return the combined hash, empty if the source is not a generated type information.
+	 */
+	private String domainTypeFingerprint(String source) throws IOException {
+
+		String typePath = source.substring(0, source.length() - Kind.SOURCE.extension.length());
+		if (!typePath.endsWith(TYPE_POSTFIX)) {
+			return "";
+		}
+
+		File directory = new File(classesDirectory, typePath).getParentFile();
+		String simpleName = new File(typePath.substring(0, typePath.length() - TYPE_POSTFIX.length())).getName();
+		File[] classFiles = directory.listFiles((dir, name) -> name.equals(simpleName + Kind.CLASS.extension)
+				|| name.endsWith("$" + simpleName + Kind.CLASS.extension));
+		if (classFiles == null || classFiles.length == 0) {
+			return "";
+		}
+
+		StringBuilder hashes = new StringBuilder();
+		for (File classFile : Stream.of(classFiles).sorted().collect(Collectors.toList())) {
+			hashes.append(classFile.getName()).append('=').append(DigestUtils.md5DigestAsHex(Files.readAllBytes(classFile.toPath())));
+		}
+		return DigestUtils.md5DigestAsHex(hashes.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Fingerprint the compile classpath, excluding the classes directory the generated sources are compiled into. Jars
+	 * are identified by their checksum, directories, eg. upstream modules of a reactor, by path, size and modification
+	 * time of their class files.
+	 */
+	private String classpathFingerprint() throws IOException {
+
+		StringBuilder fingerprint = new StringBuilder();
+		for (File entry : classpath) {
+
+			if (entry.getAbsoluteFile().equals(classesDirectory.getAbsoluteFile()) || !entry.exists()) {
+				continue;
+			}
+
+			fingerprint.append(entry.getAbsolutePath()).append('@');
+			if (entry.isFile()) {
+				fingerprint.append(GeneratorClassLoaderCache.checksum(entry));
+			} else {
+				try (Stream<Path> paths = Files.walk(entry.toPath())) {
+					for (Path classFile : paths.filter(it -> it.toString().endsWith(Kind.CLASS.extension)).sorted()
+							.collect(Collectors.toList())) {
+						File file = classFile.toFile();
+						fingerprint.append(entry.toPath().relativize(classFile)).append(':').append(file.length()).append(':')
+								.append(file.lastModified()).append(';');
+					}
+				}
+			}
+			fingerprint.append('|');
+		}
+		return DigestUtils.md5DigestAsHex(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private File fingerprintsFile() {
+		return new File(sourceDirectory, FINGERPRINTS_FILE_NAME);
+	}
+
+	private Properties readFingerprints() throws IOException {
+
+		Properties properties = new Properties();
+
+		// without the class files the fingerprints are meaningless, eg. after mvn clean removing only the classes
+		if (!fingerprintsFile().exists() || !classesDirectory.isDirectory()) {
+			return properties;
+		}
+
+		try (Reader reader = Files.newBufferedReader(fingerprintsFile().toPath(), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+
+	private void writeFingerprints(Map<String, String> fingerprints) throws IOException {
+
+		Properties properties = new Properties();
+		properties.putAll(fingerprints);
+
+		try (Writer writer = Files.newBufferedWriter(fingerprintsFile().toPath(), StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+	}
+
+	/**
+	 * {@link JavaFileManager} keeping the compiled classes in memory.
+	 */
+	static class InMemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+
+		private final Map<String, ByteArrayOutputStream> classFiles = new LinkedHashMap<>();
+
+		InMemoryFileManager(JavaFileManager fileManager) {
+			super(fileManager);
+		}
+
+		@Override
+		public JavaFileObject getJavaFileForOutput(Location location, String className, Kind kind, FileObject sibling) {
+
+			return new SimpleJavaFileObject(URI.create("memory:///" + className.replace('.', '/') + kind.extension), kind) {
+
+				@Override
+				public OutputStream openOutputStream() {
+
+					ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+					classFiles.put(className, outputStream);
+					return outputStream;
+				}
+
+				@Override
+				public InputStream openInputStream() {
+					throw new UnsupportedOperationException("Reading compiler output is not supported");
+				}
+			};
+		}
+
+		Map<String, byte[]> getClassFiles() {
+
+			Map<String, byte[]> result = new LinkedHashMap<>();
+			classFiles.forEach((className, outputStream) -> result.put(className, outputStream.toByteArray()));
+			return result;
+		}
+	}
+}
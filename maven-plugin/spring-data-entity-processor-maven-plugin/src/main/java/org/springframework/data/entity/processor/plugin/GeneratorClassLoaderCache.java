@@ -0,0 +1,204 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Caches class loaders over the dependency jars of a module across mojo executions within the same JVM, so that
+ * modules sharing the same dependencies, as common within a reactor, load and warm up those classes only once. Loaders
+ * are keyed by the artifact coordinates along with the checksum of each jar, so a changed jar results in a new loader.
+ * Module specific classes are expected to be layered on top via a child class loader.
+ * <p>
+ * Checksums are remembered per file, size and modification time to avoid hashing the same jars over and over again.
+ * <p>
+ * Loaders handed out are leased until {@link #release(ClassLoader) released}. Evicted loaders are closed, releasing
+ * their jar files, as soon as no execution holds a lease on them anymore.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+final class GeneratorClassLoaderCache {
+
+	static final int MAX_CACHED_CLASS_LOADERS = 16;
+
+	private static final Map<String, CachedClassLoader> CLASS_LOADERS = new LinkedHashMap<String, CachedClassLoader>(16,
+			0.75f, true) {
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, CachedClassLoader> eldest) {
+
+			if (size() <= MAX_CACHED_CLASS_LOADERS) {
+				return false;
+			}
+
+			eldest.getValue().evict();
+			return true;
+		}
+	};
+
+	private static final Map<ClassLoader, CachedClassLoader> LEASED = new IdentityHashMap<>();
+
+	private static final Map<String, String> CHECKSUMS = new ConcurrentHashMap<>();
+
+	private GeneratorClassLoaderCache() {}
+
+	/**
+	 * Obtain the cached class loader for the given jars or create a new one. The loader is leased to the caller until
+	 * {@link #release(ClassLoader) released}.
+	 *
+	 * @param jars the jars by their identifying coordinates, in class path order.
+	 * @param parent the parent class loader.
+	 * @return the class loader over the given jars.
+	 * @throws IOException on failure to compute a checksum.
+	 */
+	static ClassLoader getClassLoader(Map<String, File> jars, ClassLoader parent) throws IOException {
+
+		String key = key(jars, parent);
+
+		synchronized (CLASS_LOADERS) {
+
+			CachedClassLoader cached = CLASS_LOADERS.get(key);
+			if (cached == null) {
+
+				URL[] urls = new URL[jars.size()];
+				int i = 0;
+				for (File jar : jars.values()) {
+					urls[i++] = jar.toURI().toURL();
+				}
+				cached = new CachedClassLoader(new URLClassLoader(urls, parent));
+				CLASS_LOADERS.put(key, cached);
+			}
+
+			cached.leases++;
+			LEASED.put(cached.classLoader, cached);
+			return cached.classLoader;
+		}
+	}
+
+	/**
+	 * Release a class loader obtained via {@link #getClassLoader(Map, ClassLoader)}, closing it if it has been evicted in
+	 * the meantime and is not leased otherwise. Class loaders not handed out by the cache are ignored.
+	 *
+	 * @param classLoader the class loader to release.
+	 */
+	static void release(ClassLoader classLoader) {
+
+		synchronized (CLASS_LOADERS) {
+
+			CachedClassLoader cached = LEASED.get(classLoader);
+			if (cached == null) {
+				return;
+			}
+
+			if (--cached.leases == 0) {
+
+				LEASED.remove(classLoader);
+				cached.closeIfEvicted();
+			}
+		}
+	}
+
+	static int size() {
+
+		synchronized (CLASS_LOADERS) {
+			return CLASS_LOADERS.size();
+		}
+	}
+
+	/**
+	 * Evict all cached class loaders, closing those not leased right away and the others once released.
+	 */
+	static void clear() {
+
+		synchronized (CLASS_LOADERS) {
+
+			CLASS_LOADERS.values().forEach(CachedClassLoader::evict);
+			CLASS_LOADERS.clear();
+		}
+	}
+
+	private static String key(Map<String, File> jars, ClassLoader parent) throws IOException {
+
+		StringBuilder key = new StringBuilder(Integer.toHexString(System.identityHashCode(parent)));
+		for (Map.Entry<String, File> jar : jars.entrySet()) {
+			key.append('|').append(jar.getKey()).append('@').append(checksum(jar.getValue()));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * @return the MD5 checksum of the given jar, {@literal directory} for exploded class directories.
+	 */
+	static String checksum(File file) throws IOException {
+
+		if (file.isDirectory()) {
+			return "directory";
+		}
+
+		String fileKey = file.getAbsolutePath() + ":" + file.length() + ":" + file.lastModified();
+		String checksum = CHECKSUMS.get(fileKey);
+		if (checksum == null) {
+
+			try (InputStream in = Files.newInputStream(file.toPath())) {
+				checksum = DigestUtils.md5DigestAsHex(in);
+			}
+			CHECKSUMS.put(fileKey, checksum);
+		}
+		return checksum;
+	}
+
+	private static class CachedClassLoader {
+
+		private final URLClassLoader classLoader;
+		private int leases;
+		private boolean evicted;
+
+		CachedClassLoader(URLClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+
+		void evict() {
+
+			this.evicted = true;
+			closeIfEvicted();
+		}
+
+		void closeIfEvicted() {
+
+			if (!evicted || leases > 0) {
+				return;
+			}
+
+			try {
+				classLoader.close();
+			} catch (IOException e) {
+				// nothing we can do about it, the loader is unreachable anyway
+			}
+		}
+	}
+}
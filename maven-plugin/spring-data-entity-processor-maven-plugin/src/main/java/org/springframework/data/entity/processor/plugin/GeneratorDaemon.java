@@ -0,0 +1,369 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Long-lived JVM running the generator on behalf of {@link GeneratorDaemonClient clients}, so that consecutive builds
+ * do not pay for JVM startup, class loading and JIT warm-up over and over again. Dependency jars are loaded through the
+ * {@link GeneratorClassLoaderCache}, which keys its loaders by jar checksums, so changed dependencies are picked up
+ * while unchanged ones stay warm. Project classes are loaded through a fresh class loader per request.
+ * <p>
+ * The daemon listens on the loopback interface and publishes its port along with a random token, required for every
+ * request, in a {@link #STATE_FILE_NAME state file} within its directory, readable by its owner only. It serves one
+ * request at a time, dropping connections that do not send their request in time, and exits after being idle for the
+ * given time or when asked to {@link #STOP}.
+ * <p>
+ * Requests are line based: the token, the command and, for {@link #GENERATE}, the project class directories, the
+ * dependency jars (as pairs of id and path) and the generator arguments, each section preceded by its size. The
+ * response consists of the output lines of the generator followed by its exit code.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorDaemon {
+
+	static final String STATE_FILE_NAME = "daemon.properties";
+	static final String PORT = "port";
+	static final String TOKEN = "token";
+
+	static final String GENERATE = "generate";
+	static final String STOP = "stop";
+
+	static final String OUTPUT_PREFIX = "output:";
+	static final String EXIT_PREFIX = "exit:";
+
+	private static final int DEFAULT_REQUEST_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+	private static final String TOOLS_APPLICATION_CLASS_NAME = "org.springframework.data.entity.processor.plugin.CodeGeneratorApplication";
+
+	/**
+	 * Parent of the generator class loaders, isolating the generator from the classes of the daemon itself.
+	 */
+	private static final ClassLoader PARENT = ClassLoader.getSystemClassLoader().getParent();
+
+	private final File directory;
+	private final int idleTimeout;
+	private final int requestTimeout;
+	private final String token = UUID.randomUUID().toString();
+
+	/**
+	 * @param directory the directory to publish the {@link #STATE_FILE_NAME state file} in.
+	 * @param idleTimeout the time in milliseconds after which an idle daemon exits.
+	 */
+	GeneratorDaemon(File directory, int idleTimeout) {
+		this(directory, idleTimeout, DEFAULT_REQUEST_TIMEOUT);
+	}
+
+	/**
+	 * @param directory the directory to publish the {@link #STATE_FILE_NAME state file} in.
+	 * @param idleTimeout the time in milliseconds after which an idle daemon exits.
+	 * @param requestTimeout the time in milliseconds a client may take to send its request before being dropped.
+	 */
+	GeneratorDaemon(File directory, int idleTimeout, int requestTimeout) {
+
+		this.directory = directory;
+		this.idleTimeout = idleTimeout;
+		this.requestTimeout = requestTimeout;
+	}
+
+	/**
+	 * @param args the daemon directory and the idle timeout in milliseconds, or an {@literal @file} holding those.
+	 * @throws IOException on failure to open the server socket or to publish its state.
+	 */
+	public static void main(String[] args) throws IOException {
+
+		if (args.length == 1 && args[0].startsWith("@")) {
+			args = Files.readAllLines(new File(args[0].substring(1)).toPath()).toArray(new String[0]);
+		}
+
+		new GeneratorDaemon(new File(args[0]), Integer.parseInt(args[1])).run();
+	}
+
+	/**
+	 * Serve requests until being idle for too long or being stopped.
+	 *
+	 * @throws IOException on failure to open the server socket or to publish its state.
+	 */
+	void run() throws IOException {
+
+		try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+
+			server.setSoTimeout(idleTimeout);
+			writeState(server.getLocalPort());
+			System.out.println("Generator daemon listening on port " + server.getLocalPort() + ".");
+
+			boolean running = true;
+			while (running) {
+
+				Socket accepted;
+				try {
+					accepted = server.accept();
+				} catch (SocketTimeoutException e) {
+					System.out.println("Generator daemon idle for " + idleTimeout + " ms, stopping.");
+					break;
+				}
+
+				// the timeout only applies to reading the request, not to the generator run answering it
+				try (Socket socket = accepted) {
+					socket.setSoTimeout(requestTimeout);
+					running = handle(socket);
+				} catch (SocketTimeoutException e) {
+					System.out.println("Dropping connection not sending a request within " + requestTimeout + " ms.");
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		} finally {
+
+			deleteState();
+			GeneratorClassLoaderCache.clear();
+		}
+	}
+
+	/**
+	 * @return {@literal false} to stop the daemon.
+	 */
+	private boolean handle(Socket socket) throws IOException {
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+		if (!token.equals(in.readLine())) {
+			return true;
+		}
+
+		String command = in.readLine();
+		if (STOP.equals(command)) {
+
+			out.println(EXIT_PREFIX + 0);
+			out.flush();
+			return false;
+		}
+		if (!GENERATE.equals(command)) {
+
+			out.println(OUTPUT_PREFIX + "Unknown command: " + command);
+			out.println(EXIT_PREFIX + 1);
+			out.flush();
+			return true;
+		}
+
+		List<File> classesDirectories = new ArrayList<>();
+		for (String path : readSection(in, 1)) {
+			classesDirectories.add(new File(path));
+		}
+		Map<String, File> jars = new LinkedHashMap<>();
+		List<String> jarEntries = readSection(in, 2);
+		for (int i = 0; i < jarEntries.size(); i += 2) {
+			jars.put(jarEntries.get(i), new File(jarEntries.get(i + 1)));
+		}
+		List<String> arguments = readSection(in, 1);
+
+		long start = System.nanoTime();
+		int exitCode = generate(classesDirectories, jars, arguments, line -> out.println(OUTPUT_PREFIX + line));
+		out.println(OUTPUT_PREFIX + "Generator daemon served request in "
+				+ (System.nanoTime() - start) / 1_000_000 + " ms.");
+		out.println(EXIT_PREFIX + exitCode);
+		out.flush();
+		return true;
+	}
+
+	/**
+	 * Run the generator on the given class path, capturing its output.
+	 *
+	 * @return the exit code.
+	 */
+	int generate(List<File> classesDirectories, Map<String, File> jars, List<String> arguments,
+			Consumer<String> output) {
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		PrintStream capture = new PrintStream(buffer, true);
+		PrintStream originalOut = System.out;
+		PrintStream originalErr = System.err;
+		Thread thread = Thread.currentThread();
+		ClassLoader originalClassLoader = thread.getContextClassLoader();
+
+		int exitCode = 0;
+		URLClassLoader loader = null;
+		System.setOut(capture);
+		System.setErr(capture);
+		try {
+
+			URL[] urls = new URL[classesDirectories.size()];
+			for (int i = 0; i < urls.length; i++) {
+				urls[i] = classesDirectories.get(i).toURI().toURL();
+			}
+			loader = new URLClassLoader(urls, GeneratorClassLoaderCache.getClassLoader(jars, PARENT));
+			thread.setContextClassLoader(loader);
+
+			Class<?> application = loader.loadClass(TOOLS_APPLICATION_CLASS_NAME);
+			try {
+				application.getMethod("main", String[].class).invoke(null, (Object) arguments.toArray(new String[0]));
+			} finally {
+				application.getMethod("clearCaches", ClassLoader.class).invoke(null, loader);
+			}
+		} catch (InvocationTargetException e) {
+
+			e.getTargetException().printStackTrace(capture);
+			exitCode = 1;
+		} catch (Exception | LinkageError e) {
+
+			e.printStackTrace(capture);
+			exitCode = 1;
+		} finally {
+
+			thread.setContextClassLoader(originalClassLoader);
+			System.setOut(originalOut);
+			System.setErr(originalErr);
+			close(loader);
+			if (loader != null) {
+				GeneratorClassLoaderCache.release(loader.getParent());
+			}
+		}
+
+		new BufferedReader(new StringReader(new String(buffer.toByteArray()))).lines().forEach(output);
+		return exitCode;
+	}
+
+	private void writeState(int port) throws IOException {
+
+		Properties state = new Properties();
+		state.setProperty(PORT, Integer.toString(port));
+		state.setProperty(TOKEN, token);
+
+		directory.mkdirs();
+		Path temp = createOwnerOnlyFile(new File(directory, STATE_FILE_NAME + "." + token).toPath());
+		try (OutputStream out = Files.newOutputStream(temp)) {
+			state.store(out, "Generator daemon");
+		}
+		Files.move(temp, new File(directory, STATE_FILE_NAME).toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Create an empty file only its owner can read and write, restricting access before any content gets written.
+	 */
+	private static Path createOwnerOnlyFile(Path file) throws IOException {
+
+		Files.deleteIfExists(file);
+		if (Files.getFileStore(file.getParent()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			return Files.createFile(file, PosixFilePermissions
+					.asFileAttribute(EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE)));
+		}
+
+		Files.createFile(file);
+		File created = file.toFile();
+		created.setReadable(false, false);
+		created.setReadable(true, true);
+		return file;
+	}
+
+	/**
+	 * Delete the state file unless another daemon, started concurrently, took over in the meantime.
+	 */
+	private void deleteState() throws IOException {
+
+		File stateFile = new File(directory, STATE_FILE_NAME);
+		Properties state = readState(stateFile);
+		if (state != null && token.equals(state.getProperty(TOKEN))) {
+			stateFile.delete();
+		}
+	}
+
+	/**
+	 * @return the state published by a daemon, {@literal null} if there is none.
+	 */
+	static Properties readState(File stateFile) throws IOException {
+
+		if (!stateFile.isFile()) {
+			return null;
+		}
+
+		Properties state = new Properties();
+		try (InputStream in = Files.newInputStream(stateFile.toPath())) {
+			state.load(in);
+		}
+		return state;
+	}
+
+	/**
+	 * Read a section of the given number of lines per entry, preceded by the number of entries.
+	 */
+	private static List<String> readSection(BufferedReader in, int linesPerEntry) throws IOException {
+
+		String size = in.readLine();
+		if (size == null) {
+			throw new IOException("Unexpected end of request");
+		}
+
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < Integer.parseInt(size) * linesPerEntry; i++) {
+
+			String line = in.readLine();
+			if (line == null) {
+				throw new IOException("Unexpected end of request");
+			}
+			lines.add(line);
+		}
+		return lines;
+	}
+
+	private static void close(URLClassLoader loader) {
+
+		if (loader == null) {
+			return;
+		}
+		try {
+			loader.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
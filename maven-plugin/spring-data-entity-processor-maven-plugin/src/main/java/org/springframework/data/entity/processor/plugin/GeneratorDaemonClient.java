@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Talks to the {@link GeneratorDaemon} published in a given directory, starting a new one if none is running. A daemon
+ * closing the connection without answering, eg. because it stopped on being idle right when the request came in, is
+ * considered gone and the request retried once against a running or newly started one.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class GeneratorDaemonClient {
+
+	private static final long START_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+	private static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(5);
+
+	/**
+	 * Upper bound for a generator run, the daemon only answers once done.
+	 */
+	private static final int RESPONSE_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(30);
+
+	private final File directory;
+	private final GeneratorProcess launcher;
+	private final int idleTimeout;
+
+	/**
+	 * @param directory the directory the daemon publishes its state in.
+	 * @param launcher launches the daemon JVM, with a class path containing the {@link GeneratorDaemon}.
+	 * @param idleTimeout the time in milliseconds after which an idle daemon exits.
+	 */
+	GeneratorDaemonClient(File directory, GeneratorProcess launcher, int idleTimeout) {
+
+		this.directory = directory;
+		this.launcher = launcher;
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Run the generator within the daemon, starting the daemon if necessary.
+	 *
+	 * @param classesDirectories the project classes, loaded through a new class loader.
+	 * @param jars the dependency jars by their identifying coordinates, loaded through a cached class loader.
+	 * @param arguments the generator arguments.
+	 * @param output consumer of the generator output lines.
+	 * @return the exit code of the generator.
+	 * @throws IOException on failure to start or to talk to the daemon.
+	 * @throws InterruptedException if interrupted while waiting for the daemon to start.
+	 */
+	int generate(Collection<File> classesDirectories, Map<String, File> jars, List<String> arguments,
+			Consumer<String> output) throws IOException, InterruptedException {
+
+		for (int attempt = 1;; attempt++) {
+
+			try (Socket socket = connectOrStart()) {
+
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+				out.println(GeneratorDaemon.GENERATE);
+				out.println(classesDirectories.size());
+				classesDirectories.forEach(it -> out.println(it.getAbsolutePath()));
+				out.println(jars.size());
+				jars.forEach((id, jar) -> {
+					out.println(id);
+					out.println(jar.getAbsolutePath());
+				});
+				out.println(arguments.size());
+				arguments.forEach(out::println);
+				out.flush();
+
+				Integer exitCode = readResponse(socket, output);
+				if (exitCode != null) {
+					return exitCode;
+				}
+				if (attempt > 1) {
+					throw new IOException("Generator daemon closed the connection without a response.");
+				}
+				deleteState(socket.getPort());
+			}
+		}
+	}
+
+	/**
+	 * Stop the daemon, if running.
+	 *
+	 * @return {@literal true} if a running daemon got stopped.
+	 * @throws IOException on failure to talk to the daemon.
+	 */
+	boolean stop() throws IOException {
+
+		try (Socket socket = connect()) {
+
+			if (socket == null) {
+				return false;
+			}
+
+			PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+			out.println(GeneratorDaemon.STOP);
+			out.flush();
+			Integer exitCode = readResponse(socket, line -> {});
+			return exitCode != null && exitCode == 0;
+		}
+	}
+
+	/**
+	 * Connect to the running daemon or start a new one. Starting is guarded by a file lock so that concurrent builds do
+	 * not end up with a daemon each.
+	 */
+	private Socket connectOrStart() throws IOException, InterruptedException {
+
+		Socket socket = connect();
+		if (socket != null) {
+			return socket;
+		}
+
+		directory.mkdirs();
+		synchronized (GeneratorDaemonClient.class) {
+			try (RandomAccessFile lockFile = new RandomAccessFile(new File(directory, "daemon.lock"), "rw");
+					FileLock lock = lockFile.getChannel().lock()) {
+
+				socket = connect();
+				if (socket != null) {
+					return socket;
+				}
+
+				Process process = launcher.start(GeneratorDaemon.class.getName(),
+						Arrays.asList(directory.getAbsolutePath(), Integer.toString(idleTimeout)),
+						new File(directory, "daemon.log"));
+
+				long deadline = System.currentTimeMillis() + START_TIMEOUT;
+				while (System.currentTimeMillis() < deadline) {
+
+					socket = connect();
+					if (socket != null) {
+						return socket;
+					}
+					if (!process.isAlive()) {
+						throw new IOException("Generator daemon exited with code " + process.exitValue() + ". See "
+								+ new File(directory, "daemon.log") + " for details.");
+					}
+					Thread.sleep(50);
+				}
+
+				process.destroy();
+				throw new IOException("Generator daemon did not start within " + START_TIMEOUT + " ms.");
+			}
+		}
+	}
+
+	/**
+	 * Connect to the daemon published in the {@link #directory}, cleaning up the state of a daemon no longer running.
+	 *
+	 * @return the authenticated connection, {@literal null} if no daemon is running.
+	 */
+	@Nullable
+	private Socket connect() throws IOException {
+
+		File stateFile = new File(directory, GeneratorDaemon.STATE_FILE_NAME);
+		Properties state = GeneratorDaemon.readState(stateFile);
+		if (state == null) {
+			return null;
+		}
+
+		Socket socket = new Socket();
+		try {
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(),
+					Integer.parseInt(state.getProperty(GeneratorDaemon.PORT))), CONNECT_TIMEOUT);
+		} catch (ConnectException e) {
+
+			socket.close();
+			stateFile.delete();
+			return null;
+		} catch (IOException e) {
+
+			socket.close();
+			throw e;
+		}
+		socket.setSoTimeout(RESPONSE_TIMEOUT);
+
+		PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+		out.println(state.getProperty(GeneratorDaemon.TOKEN));
+		out.flush();
+		return socket;
+	}
+
+	/**
+	 * Delete the state file if it still publishes the daemon listening on the given port.
+	 */
+	private void deleteState(int port) throws IOException {
+
+		File stateFile = new File(directory, GeneratorDaemon.STATE_FILE_NAME);
+		Properties state = GeneratorDaemon.readState(stateFile);
+		if (state != null && Integer.toString(port).equals(state.getProperty(GeneratorDaemon.PORT))) {
+			stateFile.delete();
+		}
+	}
+
+	/**
+	 * @return the exit code, {@literal null} if the daemon closed the connection without answering at all.
+	 */
+	@Nullable
+	private static Integer readResponse(Socket socket, Consumer<String> output) throws IOException {
+
+		BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+		boolean answered = false;
+		String line;
+		try {
+			while ((line = in.readLine()) != null) {
+
+				answered = true;
+				if (line.startsWith(GeneratorDaemon.EXIT_PREFIX)) {
+					return Integer.parseInt(line.substring(GeneratorDaemon.EXIT_PREFIX.length()));
+				}
+				if (line.startsWith(GeneratorDaemon.OUTPUT_PREFIX)) {
+					output.accept(line.substring(GeneratorDaemon.OUTPUT_PREFIX.length()));
+				}
+			}
+		} catch (SocketException e) {
+
+			// a connection reset before any answer is as good as the connection getting closed
+			if (answered) {
+				throw e;
+			}
+			return null;
+		}
+
+		if (!answered) {
+			return null;
+		}
+		throw new IOException("Generator daemon closed the connection unexpectedly.");
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Launches a JVM running a main class. The class path is handed over via the {@literal CLASSPATH} environment variable
+ * and the program arguments via an argument file, keeping the command line short regardless of the number of
+ * dependencies, also on Java 8 which does not support argument files for the {@literal java} launcher itself.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class GeneratorProcess {
+
+	private final String javaExecutable;
+	private final List<String> jvmArguments;
+	private final List<File> classpath;
+	private final File workDirectory;
+
+	/**
+	 * @param javaExecutable the {@literal java} executable to launch.
+	 * @param jvmArguments JVM options, eg. {@literal -Xmx2g}.
+	 * @param classpath the class path of the forked JVM.
+	 * @param workDirectory the directory to write the argument file to.
+	 */
+	GeneratorProcess(String javaExecutable, List<String> jvmArguments, List<File> classpath, File workDirectory) {
+
+		this.javaExecutable = javaExecutable;
+		this.jvmArguments = jvmArguments;
+		this.classpath = classpath;
+		this.workDirectory = workDirectory;
+	}
+
+	/**
+	 * Start the JVM running the given main class.
+	 *
+	 * @param mainClass the main class.
+	 * @param arguments the program arguments, passed on via an argument file.
+	 * @return the started {@link Process} with its error stream redirected to its output.
+	 * @throws IOException on failure to write the argument file or to start the process.
+	 */
+	Process start(String mainClass, List<String> arguments) throws IOException {
+		return processBuilder(mainClass, arguments).redirectErrorStream(true).start();
+	}
+
+	/**
+	 * Start the JVM running the given main class in the background, appending its output to the given file.
+	 *
+	 * @param mainClass the main class.
+	 * @param arguments the program arguments, passed on via an argument file.
+	 * @param output the file to append the output of the process to.
+	 * @return the started {@link Process}.
+	 * @throws IOException on failure to write the argument file or to start the process.
+	 */
+	Process start(String mainClass, List<String> arguments, File output) throws IOException {
+
+		return processBuilder(mainClass, arguments).redirectErrorStream(true)
+				.redirectOutput(ProcessBuilder.Redirect.appendTo(output)).start();
+	}
+
+	private ProcessBuilder processBuilder(String mainClass, List<String> arguments) throws IOException {
+
+		workDirectory.mkdirs();
+		File argumentFile = new File(workDirectory, "generator-arguments.txt");
+		Files.write(argumentFile.toPath(), arguments);
+
+		List<String> command = new ArrayList<>();
+		command.add(javaExecutable);
+		command.addAll(jvmArguments);
+		command.add(mainClass);
+		command.add("@" + argumentFile.getAbsolutePath());
+
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.environment().put("CLASSPATH",
+				classpath.stream().map(File::getAbsolutePath).collect(Collectors.joining(File.pathSeparator)));
+		return processBuilder;
+	}
+
+	/**
+	 * Run the given main class to completion, passing each line of its output to the given consumer.
+	 *
+	 * @param mainClass the main class.
+	 * @param arguments the program arguments.
+	 * @param output consumer of the output lines.
+	 * @return the exit code.
+	 * @throws IOException on failure to start the process or to read its output.
+	 * @throws InterruptedException if interrupted while waiting for the process.
+	 */
+	int run(String mainClass, List<String> arguments, Consumer<String> output) throws IOException, InterruptedException {
+
+		Process process = start(mainClass, arguments);
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(process.getInputStream(), Charset.defaultCharset()))) {
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				output.accept(line);
+			}
+			return process.waitFor();
+		} finally {
+			if (process.isAlive()) {
+				process.destroy();
+				process.waitFor(10, TimeUnit.SECONDS);
+			}
+		}
+	}
+
+	String getJavaExecutable() {
+		return javaExecutable;
+	}
+}
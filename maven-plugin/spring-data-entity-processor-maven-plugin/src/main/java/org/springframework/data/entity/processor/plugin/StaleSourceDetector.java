@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.util.DigestUtils;
+
+/**
+ * Detects Java sources whose class file is missing or older than the source itself, telling whether the project
+ * classes need to be compiled before scanning them.
+ * <p>
+ * Only the top level class named after the source file is considered. {@literal package-info.java} and
+ * {@literal module-info.java} are ignored as they do not necessarily result in a class file.
+ * <p>
+ * Modification times alone miss sources that got deleted, leaving their class files behind, and sources replaced by
+ * content with an older timestamp. The sources found are therefore {@link #recordSources(List) recorded} along with
+ * a content hash after each run, in the same format the {@link GeneratedSourcesCompiler} keeps its fingerprints in.
+ * Recorded sources that are gone or whose content changed count as stale as well.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+class StaleSourceDetector {
+
+	static final String FINGERPRINTS_FILE_NAME = ".project-sources";
+
+	private final File classesDirectory;
+	private final File fingerprintsFile;
+
+	/**
+	 * @param classesDirectory the directory containing the compiled classes.
+	 * @param workDirectory the directory to keep the {@link #FINGERPRINTS_FILE_NAME fingerprints} of the previous run
+	 *          in.
+	 */
+	StaleSourceDetector(File classesDirectory, File workDirectory) {
+
+		this.classesDirectory = classesDirectory;
+		this.fingerprintsFile = new File(workDirectory, FINGERPRINTS_FILE_NAME);
+	}
+
+	/**
+	 * @param sourceRoots the source roots to inspect. Roots that do not exist are skipped.
+	 * @return the stale sources, including the ones removed since the sources got {@link #recordSources(List) recorded},
+	 *         empty if all classes are up to date.
+	 * @throws IOException on failure to traverse the source roots.
+	 */
+	List<File> findStaleSources(List<File> sourceRoots) throws IOException {
+
+		Properties previous = readFingerprints();
+		Map<String, String> fingerprints = previous.isEmpty() ? new LinkedHashMap<>() : fingerprints(sourceRoots);
+
+		List<File> stale = new ArrayList<>();
+		for (File sourceRoot : sourceRoots) {
+
+			if (!sourceRoot.isDirectory()) {
+				continue;
+			}
+
+			Path root = sourceRoot.toPath();
+			for (Path source : sources(root)) {
+
+				String key = key(source);
+				if (isStale(source, classFile(root.relativize(source)))
+						|| (previous.containsKey(key) && !previous.getProperty(key).equals(fingerprints.get(key)))) {
+					stale.add(source.toFile());
+				}
+			}
+		}
+
+		for (String removed : previous.stringPropertyNames()) {
+			if (!fingerprints.containsKey(removed)) {
+				stale.add(new File(removed));
+			}
+		}
+		return stale;
+	}
+
+	/**
+	 * Record the current sources so that the next {@link #findStaleSources(List) detection} can tell removed and
+	 * modified ones. To be called once the classes are up to date.
+	 *
+	 * @param sourceRoots the source roots to record. Roots that do not exist are skipped.
+	 * @throws IOException on failure to read the sources or write the fingerprints.
+	 */
+	void recordSources(List<File> sourceRoots) throws IOException {
+
+		Properties properties = new Properties();
+		properties.putAll(fingerprints(sourceRoots));
+
+		fingerprintsFile.getParentFile().mkdirs();
+		try (Writer writer = Files.newBufferedWriter(fingerprintsFile.toPath(), StandardCharsets.UTF_8)) {
+			properties.store(writer, null);
+		}
+	}
+
+	private Map<String, String> fingerprints(List<File> sourceRoots) throws IOException {
+
+		Map<String, String> fingerprints = new LinkedHashMap<>();
+		for (File sourceRoot : sourceRoots) {
+
+			if (!sourceRoot.isDirectory()) {
+				continue;
+			}
+
+			for (Path source : sources(sourceRoot.toPath())) {
+				fingerprints.put(key(source), DigestUtils.md5DigestAsHex(Files.readAllBytes(source)));
+			}
+		}
+		return fingerprints;
+	}
+
+	private Properties readFingerprints() throws IOException {
+
+		Properties properties = new Properties();
+
+		// without the class files the fingerprints are meaningless, eg. after mvn clean removing only the classes
+		if (!fingerprintsFile.exists() || !classesDirectory.isDirectory()) {
+			return properties;
+		}
+
+		try (Reader reader = Files.newBufferedReader(fingerprintsFile.toPath(), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		return properties;
+	}
+
+	private static String key(Path source) {
+		return source.toAbsolutePath().toString().replace(File.separatorChar, '/');
+	}
+
+	private static List<Path> sources(Path root) throws IOException {
+
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile) //
+					.filter(it -> it.getFileName().toString().endsWith(".java")) //
+					.filter(it -> !it.getFileName().toString().equals("package-info.java")) //
+					.filter(it -> !it.getFileName().toString().equals("module-info.java")) //
+					.collect(Collectors.toList());
+		}
+	}
+
+	private Path classFile(Path relativeSource) {
+
+		String path = relativeSource.toString();
+		return classesDirectory.toPath().resolve(path.substring(0, path.length() - ".java".length()) + ".class");
+	}
+
+	private static boolean isStale(Path source, Path classFile) throws IOException {
+		return !Files.exists(classFile)
+				|| Files.getLastModifiedTime(classFile).compareTo(Files.getLastModifiedTime(source)) < 0;
+	}
+}
@@ -0,0 +1,1347 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import static org.springframework.asm.Opcodes.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.TypeVariable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Handle;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.entity.processor.GeneratorEvents;
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
+import org.springframework.data.entity.processor.GeneratorMetrics;
+import org.springframework.data.entity.processor.model.AnnotationInfo;
+import org.springframework.data.entity.processor.model.ConstructorInfo;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.ParameterInfo;
+import org.springframework.data.entity.processor.model.PropertyInfo;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.model.TypeSignature;
+import org.springframework.data.mapping.model.ConfigurableTypeConstructor;
+import org.springframework.data.mapping.model.ConfigurableTypeInformation;
+import org.springframework.data.mapping.model.Field;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * {@link ConfigurableTypeWriter} emitting {@literal .class} files directly from the {@link DomainTypes} model, so the
+ * generated type information does not need to be compiled. The classes are equivalent to the sources rendered by
+ * {@link JavaPoetFileWriter}, including the split into initializer methods, which remains the backend of choice for
+ * debugging.
+ * <p>
+ * Descriptors of the Spring Data mapping API are resolved from the classes present at generation time.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class BytecodeFileWriter implements ConfigurableTypeWriter {
+
+	private static final Handle LAMBDA_METAFACTORY = new Handle(H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory",
+			"metafactory",
+			"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+			false);
+
+	private static final String MAPPING_MODEL_PACKAGE = "org.springframework.data.mapping.model.";
+	private static final String LONG_ADDER = Type.getInternalName(LongAdder.class);
+
+	private final JavaPoetFileWriter sourceWriter = new JavaPoetFileWriter();
+	private int methodSizeLimit = JavaPoetFileWriter.DEFAULT_METHOD_SIZE_LIMIT;
+	private int parallelism = 1;
+	private boolean instrumentation = false;
+	private GeneratedFiles generatedFiles = new GeneratedFiles();
+
+	/**
+	 * Set the estimated bytecode size at which initialization of the generated types gets split into helper methods.
+	 *
+	 * @param methodSizeLimit the limit in bytes.
+	 * @see JavaPoetFileWriter#setMethodSizeLimit(int)
+	 */
+	public void setMethodSizeLimit(int methodSizeLimit) {
+		this.methodSizeLimit = methodSizeLimit;
+	}
+
+	/**
+	 * Set the number of threads to generate the class files of multiple types with.
+	 *
+	 * @param parallelism the number of threads, {@literal 1} (default) to generate on the calling thread.
+	 * @see JavaPoetFileWriter#setParallelism(int)
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compile counters for instantiations, property reads and property writes into the generated class files.
+	 *
+	 * @param instrumentation {@literal true} to instrument the generated types, {@literal false} (default) otherwise.
+	 * @see JavaPoetFileWriter#setInstrumentation(boolean)
+	 */
+	public void setInstrumentation(boolean instrumentation) {
+
+		this.instrumentation = instrumentation;
+		this.sourceWriter.setInstrumentation(instrumentation);
+	}
+
+	/**
+	 * Set the {@link GeneratedFiles} to write through, collecting the files that actually changed.
+	 *
+	 * @param generatedFiles must not be {@literal null}.
+	 */
+	public void setGeneratedFiles(GeneratedFiles generatedFiles) {
+		this.generatedFiles = generatedFiles;
+	}
+
+	@Override
+	public void writeConfigurableTypes(DomainTypes domainTypes, Predicate<TypeInfo> filter, File targetDirectory)
+			throws IOException {
+
+		Assert.notNull(targetDirectory, "Target directory must not be null!");
+
+		List<TypeInfo> typeInfos = StreamSupport.stream(domainTypes.spliterator(), false).filter(filter)
+				.collect(Collectors.toList());
+		GeneratorMetrics metrics = generatedFiles.getMetrics();
+		List<Map<String, byte[]>> classFiles = ParallelRenderer.render(typeInfos, typeInfo -> {
+
+			Span span = GeneratorEvents.render(typeInfo.getTypeName());
+			long start = System.nanoTime();
+			Map<String, byte[]> typeClassFiles = typeInfoToClassFiles(typeInfo, domainTypes);
+			metrics.recordType(typeInfo.getTypeName(), System.nanoTime() - start);
+			span.end(typeClassFiles.values().stream().mapToLong(it -> it.length).sum());
+			metrics.add(GeneratorMetrics.FILES_RENDERED, typeClassFiles.size());
+			return typeClassFiles;
+		}, parallelism);
+
+		for (Map<String, byte[]> typeClassFiles : classFiles) {
+			for (Entry<String, byte[]> classFile : typeClassFiles.entrySet()) {
+				generatedFiles.write(new File(targetDirectory, classFile.getKey() + ".class"), classFile.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @return the class files (by internal name) making up the generated type information for the given {@link TypeInfo}.
+	 */
+	Map<String, byte[]> typeInfoToClassFiles(TypeInfo typeInfo, DomainTypes domainTypes) {
+		return new ClassFileGenerator(typeInfo, domainTypes).generate();
+	}
+
+	/**
+	 * Generates the class files for a single {@link TypeInfo}.
+	 */
+	private class ClassFileGenerator {
+
+		private final TypeInfo typeInfo;
+		private final DomainTypes domainTypes;
+		private final Type domainType;
+		private final String internalName;
+		private final Map<String, String> constantNames;
+		private final Map<String, byte[]> classFiles = new LinkedHashMap<>();
+
+		private ClassWriter classWriter;
+		private int anonymousClassCount = 0;
+		private int lambdaCount = 0;
+
+		ClassFileGenerator(TypeInfo typeInfo, DomainTypes domainTypes) {
+
+			this.typeInfo = typeInfo;
+			this.domainTypes = domainTypes;
+			this.domainType = Type.getType(typeInfo.getType());
+			this.internalName = internalName(typeInfo.getSignature().getConfigurableTypeName());
+			this.constantNames = JavaPoetFileWriter.constantNames(typeInfo);
+		}
+
+		Map<String, byte[]> generate() {
+
+			classWriter = newClassWriter();
+			classWriter.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, internalName,
+					signatureOf(ConfigurableTypeInformation.class, domainType), Type.getInternalName(ConfigurableTypeInformation.class),
+					null);
+
+			// INSTRUMENTATION
+			if (instrumentation) {
+
+				classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, JavaPoetFileWriter.INSTRUMENTED, "Z", null, null).visitEnd();
+				classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, JavaPoetFileWriter.INSTANTIATIONS, "L" + LONG_ADDER + ";", null, null).visitEnd();
+				classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, JavaPoetFileWriter.READS, "[L" + LONG_ADDER + ";", null, null).visitEnd();
+				classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, JavaPoetFileWriter.WRITES, "[L" + LONG_ADDER + ";", null, null).visitEnd();
+
+				writeInstantiationsMethod();
+				writeCounterMethod("reads", JavaPoetFileWriter.READS);
+				writeCounterMethod("writes", JavaPoetFileWriter.WRITES);
+				writeCountersMethod();
+			}
+
+			// SINGLETON INSTANCE
+			{
+				classWriter.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, "INSTANCE", "L" + internalName + ";", null, null).visitEnd();
+
+				MethodVisitor instance = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "instance", "()L" + internalName + ";", null, null);
+				instance.visitCode();
+				instance.visitFieldInsn(GETSTATIC, internalName, "INSTANCE", "L" + internalName + ";");
+				instance.visitInsn(ARETURN);
+				end(instance);
+			}
+
+			// PROPERTY LOOKUP
+			{
+				classWriter.visitField(ACC_PRIVATE | ACC_FINAL, "properties", "[" + Type.getDescriptor(Field.class),
+						"[L" + Type.getInternalName(Field.class) + "<**>;", null).visitEnd();
+
+				writePropertyIndexMethod();
+				writePropertyAtMethod();
+				writePropertyNamedMethod();
+				writeGetPropertyMethod();
+			}
+
+			// PRIMITIVE ACCESSORS
+			{
+				for (PropertyInfo propertyInfo : typeInfo) {
+
+					String constantName = constantNames.get(propertyInfo.getName());
+					if (JavaPoetFileWriter.hasPrimitiveGetter(propertyInfo)) {
+						Class<?> getterType = JavaPoetFileWriter.PRIMITIVE_GETTER_TYPES.get(propertyInfo.getType());
+						classWriter.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, constantName + "_GETTER", Type.getDescriptor(getterType),
+								signatureOf(getterType, domainType), null).visitEnd();
+					}
+					if (JavaPoetFileWriter.hasPrimitiveSetter(propertyInfo)) {
+						String setterType = primitiveSetterType(propertyInfo);
+						classWriter.visitField(ACC_PUBLIC | ACC_STATIC | ACC_FINAL, constantName + "_SETTER", "L" + setterType + ";",
+								"L" + setterType + "<" + domainType.getDescriptor() + ">;", null).visitEnd();
+					}
+				}
+				if (JavaPoetFileWriter.requiresBooleanSetterType(typeInfo)) {
+					writeBooleanSetterType();
+				}
+			}
+
+			writeConstructor();
+			writeStaticInitializer();
+
+			classWriter.visitEnd();
+
+			Map<String, byte[]> result = new LinkedHashMap<>();
+			result.put(internalName, classWriter.toByteArray());
+			result.putAll(classFiles);
+			return result;
+		}
+
+		// CONSTRUCTOR
+
+		private void writeConstructor() {
+
+			MethodVisitor constructor = classWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+			constructor.visitCode();
+
+			// SUPER CALL
+			{
+				Class<?> superclass = typeInfo.getType().getSuperclass();
+				boolean rootType = superclass == Object.class || superclass == null;
+
+				constructor.visitVarInsn(ALOAD, 0);
+				constructor.visitLdcInsn(domainType);
+				if (!rootType) {
+					String superInformation = internalName(TypeSignature.fromClass(superclass).getConfigurableTypeName());
+					constructor.visitMethodInsn(INVOKESTATIC, superInformation, "instance", "()L" + superInformation + ";", false);
+				}
+				Constructor<?> superConstructor = constructor(ConfigurableTypeInformation.class, rootType ? 1 : 2);
+				constructor.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(ConfigurableTypeInformation.class), "<init>",
+						Type.getConstructorDescriptor(superConstructor), false);
+			}
+
+			// PROPERTY ARRAY
+			{
+				constructor.visitVarInsn(ALOAD, 0);
+				push(constructor, JavaPoetFileWriter.propertyNames(typeInfo).size());
+				constructor.visitTypeInsn(ANEWARRAY, Type.getInternalName(Field.class));
+				constructor.visitFieldInsn(PUTFIELD, internalName, "properties", "[" + Type.getDescriptor(Field.class));
+			}
+
+			List<Consumer<MethodVisitor>> initializers = initializers();
+			List<Integer> chunkSizes = chunkSizes();
+
+			if (chunkSizes.size() == 1) {
+				initializers.forEach(it -> it.accept(constructor));
+			} else {
+
+				// INITIALIZER METHODS
+				int offset = 0;
+				for (int i = 0; i < chunkSizes.size(); i++) {
+
+					String methodName = "initialize" + i;
+					constructor.visitVarInsn(ALOAD, 0);
+					constructor.visitMethodInsn(INVOKESPECIAL, internalName, methodName, "()V", false);
+
+					MethodVisitor initializer = classWriter.visitMethod(ACC_PRIVATE, methodName, "()V", null, null);
+					initializer.visitCode();
+					for (Consumer<MethodVisitor> it : initializers.subList(offset, offset + chunkSizes.get(i))) {
+						it.accept(initializer);
+					}
+					initializer.visitInsn(RETURN);
+					end(initializer);
+
+					offset += chunkSizes.get(i);
+				}
+			}
+
+			constructor.visitInsn(RETURN);
+			end(constructor);
+		}
+
+		/**
+		 * Use the chunks computed for the source representation so both backends split initialization the same way.
+		 */
+		private List<Integer> chunkSizes() {
+
+			List<Integer> sizes = new ArrayList<>();
+			for (List<?> chunk : JavaPoetFileWriter.chunk(sourceWriter.initializerBlocks(typeInfo, domainTypes), methodSizeLimit)) {
+				sizes.add(chunk.size());
+			}
+			return sizes;
+		}
+
+		/**
+		 * @return the initializers in the order of {@link JavaPoetFileWriter#initializerBlocks(TypeInfo, DomainTypes)}.
+		 */
+		private List<Consumer<MethodVisitor>> initializers() {
+
+			List<Consumer<MethodVisitor>> initializers = new ArrayList<>();
+
+			// ANNOTATIONS
+			initializers.add(mv -> {
+				for (AnnotationInfo annotation : typeInfo.getAnnotations()) {
+					mv.visitVarInsn(ALOAD, 0);
+					newAnnotation(mv, annotation);
+					invokeThis(mv, "addAnnotation", 1);
+				}
+			});
+
+			// PERSISTENCE CONSTRUCTOR
+			initializers.add(mv -> {
+				mv.visitVarInsn(ALOAD, 0);
+				newInstance(mv, typeInfo.getConstructor());
+				invokeThis(mv, "setConstructor", 1);
+			});
+
+			// FIELDS
+			initializers.add(mv -> {});
+
+			int index = 0;
+			for (PropertyInfo propertyInfo : typeInfo) {
+
+				int propertyIndex = index++;
+				initializers.add(mv -> field(mv, propertyInfo, propertyIndex));
+			}
+
+			return initializers;
+		}
+
+		private void newInstance(MethodVisitor mv, ConstructorInfo ctorInfo) {
+
+			if (ctorInfo.isNoArgConstructor()) {
+
+				Method noArgsConstructor = method(ConfigurableTypeConstructor.class, "noArgsConstructor", 1);
+				lambda(mv, noArgsConstructor.getParameterTypes()[0], instrumentation ? countingConstructorReference()
+						: new Handle(H_NEWINVOKESPECIAL, domainType.getInternalName(), "<init>", "()V", false),
+						new Type[0], domainType);
+				invoke(mv, ConfigurableTypeConstructor.class, noArgsConstructor);
+				return;
+			}
+
+			Method builder = method(ConfigurableTypeConstructor.class, "builder", 0);
+			invoke(mv, ConfigurableTypeConstructor.class, builder);
+
+			Method args = method(builder.getReturnType(), "args", 1);
+			List<ParameterInfo> parameters = ctorInfo.getParameterList();
+			push(mv, parameters.size());
+			mv.visitTypeInsn(ANEWARRAY, "java/lang/String");
+			for (int i = 0; i < parameters.size(); i++) {
+				mv.visitInsn(DUP);
+				push(mv, i);
+				mv.visitLdcInsn(parameters.get(i).getName());
+				mv.visitInsn(AASTORE);
+			}
+			invoke(mv, builder.getReturnType(), args);
+
+			Method newInstanceFunction = method(args.getReturnType(), "newInstanceFunction", 1);
+			Type argsType = Type.getType(Object[].class);
+			String lambdaName = "lambda$new$" + lambdaCount++;
+			String lambdaDescriptor = Type.getMethodDescriptor(domainType, argsType);
+
+			MethodVisitor lambda = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, lambdaName, lambdaDescriptor, null, null);
+			lambda.visitCode();
+			if (instrumentation) {
+				count(lambda, JavaPoetFileWriter.INSTANTIATIONS, -1);
+			}
+			lambda.visitTypeInsn(NEW, domainType.getInternalName());
+			lambda.visitInsn(DUP);
+			Type[] parameterTypes = new Type[parameters.size()];
+			for (int i = 0; i < parameters.size(); i++) {
+
+				Class<?> parameterType = parameters.get(i).getType();
+				parameterTypes[i] = Type.getType(parameterType);
+				lambda.visitVarInsn(ALOAD, 0);
+				push(lambda, i);
+				lambda.visitInsn(AALOAD);
+				cast(lambda, parameterType);
+			}
+			lambda.visitMethodInsn(INVOKESPECIAL, domainType.getInternalName(), "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, parameterTypes), false);
+			lambda.visitInsn(ARETURN);
+			end(lambda);
+
+			lambda(mv, newInstanceFunction.getParameterTypes()[0], new Handle(H_INVOKESTATIC, internalName, lambdaName, lambdaDescriptor, false),
+					new Type[] { argsType }, domainType);
+			invoke(mv, args.getReturnType(), newInstanceFunction);
+		}
+
+		private void field(MethodVisitor mv, PropertyInfo propertyInfo, int index) {
+
+			Method type = method(Field.class, "type", 2);
+			mv.visitLdcInsn(propertyInfo.getName());
+			typeInformation(mv, propertyInfo.getTypeSignature().getResolvableType(), propertyInfo.getTypeSignature().getField() != null);
+			invoke(mv, Field.class, type);
+			mv.visitVarInsn(ASTORE, 1);
+
+			Class<?> fieldType = type.getReturnType();
+
+			// ACCESSORS
+			if (propertyInfo.hasGetter()) {
+				if (!instrumentation && JavaPoetFileWriter.hasPrimitiveGetter(propertyInfo)) {
+
+					Method sam = functionalMethod(JavaPoetFileWriter.PRIMITIVE_GETTER_TYPES.get(propertyInfo.getType()));
+					primitiveAccessor(mv, fieldType, "getter", constantNames.get(propertyInfo.getName()) + "_GETTER",
+							Type.getInternalName(sam.getDeclaringClass()), sam.getName(), Type.getMethodDescriptor(sam));
+				} else {
+					accessor(mv, fieldType, "getter", propertyInfo.getGetter(), false, JavaPoetFileWriter.READS, index);
+				}
+			}
+			if (propertyInfo.hasSetter()) {
+				if (!instrumentation && JavaPoetFileWriter.hasPrimitiveSetter(propertyInfo)) {
+
+					primitiveAccessor(mv, fieldType, "setter", constantNames.get(propertyInfo.getName()) + "_SETTER",
+							primitiveSetterType(propertyInfo), "accept",
+							Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object.class), Type.getType(propertyInfo.getType())));
+				} else {
+					accessor(mv, fieldType, "setter", propertyInfo.getSetter(), false, JavaPoetFileWriter.WRITES, index);
+				}
+			}
+			if (propertyInfo.hasWither()) {
+				accessor(mv, fieldType, "wither", propertyInfo.getWither(), true, JavaPoetFileWriter.WRITES, index);
+			}
+
+			// ANNOTATIONS
+			Set<AnnotationInfo> annotations = propertyInfo.getAnnotations() != null ? propertyInfo.getAnnotations() : Collections.emptySet();
+			for (AnnotationInfo annotation : annotations) {
+
+				mv.visitVarInsn(ALOAD, 1);
+				if (annotation.matches(Id.class)) {
+					invokeAndDiscard(mv, fieldType, method(fieldType, "annotatedWithAtId", 0));
+				} else {
+					newAnnotation(mv, annotation);
+					invokeAndDiscard(mv, fieldType, method(fieldType, "annotation", 1));
+				}
+			}
+
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			invokeThis(mv, "addField", 1);
+
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, internalName, "properties", "[" + Type.getDescriptor(Field.class));
+			push(mv, index);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitInsn(AASTORE);
+		}
+
+		private void accessor(MethodVisitor mv, Class<?> fieldType, String name, Method target, boolean returnsDomainType,
+				String counter, int index) {
+
+			Method registration = method(fieldType, name, 1);
+			Class<?> functionalInterface = registration.getParameterTypes()[0];
+			Method sam = functionalMethod(functionalInterface);
+
+			Type[] samParameters = Type.getArgumentTypes(sam);
+			Type[] targetParameters = Type.getArgumentTypes(target);
+			if (samParameters.length != targetParameters.length + 1) {
+				throw new IllegalStateException(String.format("Cannot adapt %s to %s", target, functionalInterface));
+			}
+
+			Type[] instantiatedParameters = new Type[samParameters.length];
+			instantiatedParameters[0] = domainType;
+			for (int i = 0; i < targetParameters.length; i++) {
+				instantiatedParameters[i + 1] = adapt(samParameters[i + 1], targetParameters[i]);
+			}
+			Type instantiatedReturnType = adapt(Type.getReturnType(sam), returnsDomainType ? domainType : Type.getReturnType(target));
+
+			Handle implementation = instrumentation ? countingMethodReference(target, counter, index) : methodReference(target);
+
+			mv.visitVarInsn(ALOAD, 1);
+			lambda(mv, functionalInterface, implementation, instantiatedParameters, instantiatedReturnType);
+			invokeAndDiscard(mv, fieldType, registration);
+		}
+
+		/**
+		 * Register the primitive accessor held in the given constant with the {@link Field}, the equivalent of
+		 * {@code field.getter(INT_VALUE_GETTER::applyAsInt)}, so the value is boxed only at the {@link Field} boundary.
+		 */
+		private void primitiveAccessor(MethodVisitor mv, Class<?> fieldType, String name, String constant, String accessorType,
+				String accessorMethod, String accessorDescriptor) {
+
+			Method registration = method(fieldType, name, 1);
+			Class<?> functionalInterface = registration.getParameterTypes()[0];
+			Method sam = functionalMethod(functionalInterface);
+
+			Type[] samParameters = Type.getArgumentTypes(sam);
+			Type[] accessorParameters = Type.getArgumentTypes(accessorDescriptor);
+			if (samParameters.length != accessorParameters.length) {
+				throw new IllegalStateException(String.format("Cannot adapt %s to %s", constant, functionalInterface));
+			}
+
+			Type[] instantiatedParameters = new Type[samParameters.length];
+			instantiatedParameters[0] = domainType;
+			for (int i = 1; i < accessorParameters.length; i++) {
+				instantiatedParameters[i] = adapt(samParameters[i], accessorParameters[i]);
+			}
+			Type instantiatedReturnType = adapt(Type.getReturnType(sam), Type.getReturnType(accessorDescriptor));
+
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitFieldInsn(GETSTATIC, internalName, constant, "L" + accessorType + ";");
+			mv.visitInvokeDynamicInsn(sam.getName(), "(L" + accessorType + ";)" + Type.getDescriptor(functionalInterface),
+					LAMBDA_METAFACTORY, Type.getType(sam), new Handle(H_INVOKEINTERFACE, accessorType, accessorMethod, accessorDescriptor, true),
+					Type.getMethodType(instantiatedReturnType, instantiatedParameters));
+			invokeAndDiscard(mv, fieldType, registration);
+		}
+
+		/**
+		 * Mirrors {@link TypeSignature#getConfigurableTypeSignatureString(DomainTypes)}.
+		 */
+		private void typeInformation(MethodVisitor mv, ResolvableType type, boolean fieldSignature) {
+
+			Class<?> resolved = type.resolve();
+
+			if (!fieldSignature || (resolved != null && domainTypes.containsDomainTypeModelForClass(resolved))) {
+
+				String information = internalName(TypeSignature.fromClass(resolved).getConfigurableTypeName());
+				mv.visitMethodInsn(INVOKESTATIC, information, "instance", "()L" + information + ";", false);
+				return;
+			}
+
+			if (type.isArray()) {
+
+				typeInformation(mv, ResolvableType.forRawClass(resolved.getComponentType()), true);
+				invokeModel(mv, "ArrayTypeInformation", "arrayOf", 1);
+				return;
+			}
+
+			if (resolved == null) {
+				throw new IllegalArgumentException(String.format("Cannot create type information for %s", type));
+			}
+
+			if (resolved == Object.class) {
+				invokeModel(mv, "SimpleConfiguredTypes", "object", 0);
+				return;
+			}
+
+			if (ClassUtils.isAssignable(List.class, resolved)) {
+
+				if (!type.hasGenerics() || type.hasUnresolvableGenerics()) {
+					invokeModel(mv, "ListTypeInformation", "list", 0);
+					return;
+				}
+
+				typeInformation(mv, type.getGeneric(0), true);
+				invokeModel(mv, "ListTypeInformation", "listOf", 1);
+				return;
+			}
+
+			if (ClassUtils.isAssignable(Map.class, resolved)) {
+
+				if (!type.hasGenerics() || type.hasUnresolvableGenerics()) {
+					invokeModel(mv, "MapTypeInformation", "map", 0);
+					return;
+				}
+
+				typeInformation(mv, type.getGeneric(0), true);
+				typeInformation(mv, type.getGeneric(1), true);
+				invokeModel(mv, "MapTypeInformation", "mapOf", 2);
+				return;
+			}
+
+			if (type.getType() instanceof TypeVariable || type.hasGenerics()) {
+				throw new IllegalArgumentException(String.format("Cannot create type information for generic type %s", type));
+			}
+
+			mv.visitLdcInsn(Type.getType(ClassUtils.resolvePrimitiveIfNecessary(resolved)));
+			invokeModel(mv, "SimpleConfiguredTypes", "get", 1);
+		}
+
+		// ANNOTATIONS
+
+		/**
+		 * Creates the equivalent of the anonymous annotation implementation rendered by
+		 * {@link JavaPoetFileWriter#newAnnotationBlock(AnnotationInfo)} and leaves a new instance of it on the stack.
+		 */
+		private void newAnnotation(MethodVisitor mv, AnnotationInfo annotationInfo) {
+			newAnnotation(mv, annotationInfo.getAnnotation(), annotationInfo.getArguments());
+		}
+
+		private void newAnnotation(MethodVisitor mv, Class<? extends Annotation> type, @Nullable Map<String, Object> arguments) {
+
+			String name = internalName + "$" + (++anonymousClassCount);
+			Type annotationType = Type.getType(type);
+
+			ClassWriter annotationWriter = newClassWriter();
+			annotationWriter.visit(V1_8, ACC_FINAL | ACC_SUPER, name, null, "java/lang/Object",
+					new String[] { annotationType.getInternalName() });
+			annotationWriter.visitOuterClass(internalName, null, null);
+			annotationWriter.visitInnerClass(name, null, null, ACC_FINAL);
+			classWriter.visitInnerClass(name, null, null, ACC_FINAL);
+
+			MethodVisitor constructor = annotationWriter.visitMethod(0, "<init>", "()V", null, null);
+			constructor.visitCode();
+			constructor.visitVarInsn(ALOAD, 0);
+			constructor.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+			constructor.visitInsn(RETURN);
+			end(constructor);
+
+			MethodVisitor annotationTypeMethod = annotationWriter.visitMethod(ACC_PUBLIC, "annotationType", "()Ljava/lang/Class;",
+					"()Ljava/lang/Class<+Ljava/lang/annotation/Annotation;>;", null);
+			annotationTypeMethod.visitCode();
+			annotationTypeMethod.visitLdcInsn(annotationType);
+			annotationTypeMethod.visitInsn(ARETURN);
+			end(annotationTypeMethod);
+
+			if (arguments != null) {
+				// nested annotation values come with attributes in reflection order
+				for (Entry<String, Object> entry : new TreeMap<>(arguments).entrySet()) {
+
+					Method method = ReflectionUtils.findMethod(type, entry.getKey());
+					MethodVisitor attribute = annotationWriter.visitMethod(ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method), null, null);
+					attribute.visitCode();
+					constant(attribute, method.getReturnType(), entry.getValue());
+					attribute.visitInsn(Type.getReturnType(method).getOpcode(IRETURN));
+					end(attribute);
+				}
+			}
+
+			annotationWriter.visitEnd();
+			classFiles.put(name, annotationWriter.toByteArray());
+
+			mv.visitTypeInsn(NEW, name);
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+		}
+
+		@SuppressWarnings("unchecked")
+		private void constant(MethodVisitor mv, Class<?> type, Object value) {
+
+			if (type.isArray()) {
+
+				Class<?> componentType = type.getComponentType();
+				int length = Array.getLength(value);
+				push(mv, length);
+				if (componentType.isPrimitive()) {
+					mv.visitIntInsn(NEWARRAY, primitiveArrayType(componentType));
+				} else {
+					mv.visitTypeInsn(ANEWARRAY, Type.getInternalName(componentType));
+				}
+				for (int i = 0; i < length; i++) {
+					mv.visitInsn(DUP);
+					push(mv, i);
+					constant(mv, componentType, Array.get(value, i));
+					mv.visitInsn(Type.getType(componentType).getOpcode(IASTORE));
+				}
+				return;
+			}
+
+			if (type == boolean.class) {
+				push(mv, ((Boolean) value) ? 1 : 0);
+			} else if (type == char.class) {
+				push(mv, (Character) value);
+			} else if (type == int.class || type == short.class || type == byte.class) {
+				push(mv, ((Number) value).intValue());
+			} else if (type == long.class || type == float.class || type == double.class || type == String.class) {
+				mv.visitLdcInsn(value);
+			} else if (type == Class.class) {
+				classConstant(mv, (Class<?>) value);
+			} else if (type.isEnum()) {
+				Enum<?> enumValue = (Enum<?>) value;
+				Type enumType = Type.getType(enumValue.getDeclaringClass());
+				mv.visitFieldInsn(GETSTATIC, enumType.getInternalName(), enumValue.name(), enumType.getDescriptor());
+			} else if (type.isAnnotation() && value instanceof Annotation) {
+				newAnnotation(mv, ((Annotation) value).annotationType(), AnnotationUtils.getAnnotationAttributes((Annotation) value));
+			} else if (type.isAnnotation() && value instanceof Map) {
+				newAnnotation(mv, type.asSubclass(Annotation.class), (Map<String, Object>) value);
+			} else {
+				throw new IllegalArgumentException(String.format("Cannot create annotation value of type %s", type));
+			}
+		}
+
+		// PROPERTY LOOKUP
+
+		/**
+		 * Equivalent of the {@literal switch} on {@link String} javac emits for
+		 * {@link JavaPoetFileWriter#propertyIndexMethod(TypeInfo)}: a {@literal lookupswitch} on the hash code followed by
+		 * {@link String#equals(Object)} for the names in the bucket.
+		 */
+		private void writePropertyIndexMethod() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "propertyIndex", "(Ljava/lang/String;)I", null, null);
+			mv.visitCode();
+
+			List<String> names = JavaPoetFileWriter.propertyNames(typeInfo);
+			Map<Integer, List<Integer>> buckets = new TreeMap<>();
+			for (int i = 0; i < names.size(); i++) {
+				buckets.computeIfAbsent(names.get(i).hashCode(), key -> new ArrayList<>()).add(i);
+			}
+
+			Label notFound = new Label();
+			if (!buckets.isEmpty()) {
+
+				int[] keys = buckets.keySet().stream().mapToInt(Integer::intValue).toArray();
+				Label[] labels = new Label[keys.length];
+				for (int i = 0; i < labels.length; i++) {
+					labels[i] = new Label();
+				}
+
+				mv.visitVarInsn(ALOAD, 0);
+				mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "hashCode", "()I", false);
+				mv.visitLookupSwitchInsn(notFound, keys, labels);
+
+				int bucket = 0;
+				for (List<Integer> indices : buckets.values()) {
+
+					mv.visitLabel(labels[bucket++]);
+					for (Integer index : indices) {
+
+						Label next = new Label();
+						mv.visitVarInsn(ALOAD, 0);
+						mv.visitLdcInsn(names.get(index));
+						mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "equals", "(Ljava/lang/Object;)Z", false);
+						mv.visitJumpInsn(IFEQ, next);
+						push(mv, index);
+						mv.visitInsn(IRETURN);
+						mv.visitLabel(next);
+					}
+					mv.visitJumpInsn(GOTO, notFound);
+				}
+			}
+
+			mv.visitLabel(notFound);
+			mv.visitInsn(ICONST_M1);
+			mv.visitInsn(IRETURN);
+			end(mv);
+		}
+
+		private void writePropertyAtMethod() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "propertyAt", "(I)" + Type.getDescriptor(Field.class),
+					"(I)L" + Type.getInternalName(Field.class) + "<**>;", null);
+			mv.visitCode();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, internalName, "properties", "[" + Type.getDescriptor(Field.class));
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitInsn(AALOAD);
+			mv.visitInsn(ARETURN);
+			end(mv);
+		}
+
+		private void writePropertyNamedMethod() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "propertyNamed", "(Ljava/lang/String;)" + Type.getDescriptor(Field.class),
+					"(Ljava/lang/String;)L" + Type.getInternalName(Field.class) + "<**>;", null);
+			mv.visitAnnotation("Lorg/springframework/lang/Nullable;", true).visitEnd();
+			mv.visitCode();
+
+			Label notFound = new Label();
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKESTATIC, internalName, "propertyIndex", "(Ljava/lang/String;)I", false);
+			mv.visitVarInsn(ISTORE, 2);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitInsn(ICONST_M1);
+			mv.visitJumpInsn(IF_ICMPEQ, notFound);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, internalName, "properties", "[" + Type.getDescriptor(Field.class));
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitInsn(AALOAD);
+			mv.visitInsn(ARETURN);
+			mv.visitLabel(notFound);
+			mv.visitInsn(ACONST_NULL);
+			mv.visitInsn(ARETURN);
+			end(mv);
+		}
+
+		/**
+		 * @see JavaPoetFileWriter#getPropertyMethod()
+		 */
+		private void writeGetPropertyMethod() {
+
+			String typeInformation = "Lorg/springframework/data/util/TypeInformation;";
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC, "getProperty", "(Ljava/lang/String;)" + typeInformation,
+					"(Ljava/lang/String;)Lorg/springframework/data/util/TypeInformation<*>;", null);
+			mv.visitAnnotation("Lorg/springframework/lang/Nullable;", true).visitEnd();
+			mv.visitCode();
+
+			Label notFound = new Label();
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKESTATIC, internalName, "propertyIndex", "(Ljava/lang/String;)I", false);
+			mv.visitVarInsn(ISTORE, 2);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitInsn(ICONST_M1);
+			mv.visitJumpInsn(IF_ICMPEQ, notFound);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitFieldInsn(GETFIELD, internalName, "properties", "[" + Type.getDescriptor(Field.class));
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitInsn(AALOAD);
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(Field.class), "getTypeInformation", "()" + typeInformation, false);
+			mv.visitInsn(ARETURN);
+			mv.visitLabel(notFound);
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitMethodInsn(INVOKESPECIAL, Type.getInternalName(ConfigurableTypeInformation.class), "getProperty",
+					"(Ljava/lang/String;)" + typeInformation, false);
+			mv.visitInsn(ARETURN);
+			end(mv);
+		}
+
+		// PRIMITIVE ACCESSORS
+
+		private String primitiveSetterType(PropertyInfo propertyInfo) {
+
+			return propertyInfo.getType() == boolean.class ? internalName + "$" + JavaPoetFileWriter.BOOLEAN_SETTER_TYPE
+					: Type.getInternalName(JavaPoetFileWriter.PRIMITIVE_SETTER_TYPES.get(propertyInfo.getType()));
+		}
+
+		private void writeBooleanSetterType() {
+
+			String name = internalName + "$" + JavaPoetFileWriter.BOOLEAN_SETTER_TYPE;
+			int access = ACC_PUBLIC | ACC_STATIC | ACC_INTERFACE | ACC_ABSTRACT;
+
+			ClassWriter interfaceWriter = newClassWriter();
+			interfaceWriter.visit(V1_8, ACC_PUBLIC | ACC_INTERFACE | ACC_ABSTRACT, name, "<T:Ljava/lang/Object;>Ljava/lang/Object;",
+					"java/lang/Object", null);
+			interfaceWriter.visitInnerClass(name, internalName, JavaPoetFileWriter.BOOLEAN_SETTER_TYPE, access);
+			interfaceWriter.visitAnnotation(Type.getDescriptor(FunctionalInterface.class), true).visitEnd();
+			interfaceWriter.visitMethod(ACC_PUBLIC | ACC_ABSTRACT, "accept", "(Ljava/lang/Object;Z)V", "(TT;Z)V", null).visitEnd();
+			interfaceWriter.visitEnd();
+
+			classWriter.visitInnerClass(name, internalName, JavaPoetFileWriter.BOOLEAN_SETTER_TYPE, access);
+			classFiles.put(name, interfaceWriter.toByteArray());
+		}
+
+		// INSTRUMENTATION
+
+		private void writeInstantiationsMethod() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "instantiations", "()J", null, null);
+			mv.visitCode();
+			mv.visitFieldInsn(GETSTATIC, internalName, JavaPoetFileWriter.INSTANTIATIONS, "L" + LONG_ADDER + ";");
+			mv.visitMethodInsn(INVOKEVIRTUAL, LONG_ADDER, "sum", "()J", false);
+			mv.visitInsn(LRETURN);
+			end(mv);
+		}
+
+		private void writeCounterMethod(String name, String counter) {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, name, "(Ljava/lang/String;)J", null, null);
+			mv.visitCode();
+
+			Label notFound = new Label();
+			mv.visitVarInsn(ALOAD, 0);
+			mv.visitMethodInsn(INVOKESTATIC, internalName, "propertyIndex", "(Ljava/lang/String;)I", false);
+			mv.visitVarInsn(ISTORE, 1);
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitInsn(ICONST_M1);
+			mv.visitJumpInsn(IF_ICMPEQ, notFound);
+			mv.visitFieldInsn(GETSTATIC, internalName, counter, "[L" + LONG_ADDER + ";");
+			mv.visitVarInsn(ILOAD, 1);
+			mv.visitInsn(AALOAD);
+			mv.visitMethodInsn(INVOKEVIRTUAL, LONG_ADDER, "sum", "()J", false);
+			mv.visitInsn(LRETURN);
+			mv.visitLabel(notFound);
+			mv.visitInsn(LCONST_0);
+			mv.visitInsn(LRETURN);
+			end(mv);
+		}
+
+		private void writeCountersMethod() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC, "counters", "(I)[L" + LONG_ADDER + ";", null, null);
+			mv.visitCode();
+
+			Label loop = new Label();
+			Label done = new Label();
+			mv.visitVarInsn(ILOAD, 0);
+			mv.visitTypeInsn(ANEWARRAY, LONG_ADDER);
+			mv.visitVarInsn(ASTORE, 1);
+			mv.visitInsn(ICONST_0);
+			mv.visitVarInsn(ISTORE, 2);
+			mv.visitLabel(loop);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitVarInsn(ILOAD, 0);
+			mv.visitJumpInsn(IF_ICMPGE, done);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitTypeInsn(NEW, LONG_ADDER);
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, LONG_ADDER, "<init>", "()V", false);
+			mv.visitInsn(AASTORE);
+			mv.visitIincInsn(2, 1);
+			mv.visitJumpInsn(GOTO, loop);
+			mv.visitLabel(done);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitInsn(ARETURN);
+			end(mv);
+		}
+
+		/**
+		 * Increment the given counter, the element at {@code index} of the counter array unless negative, if
+		 * instrumentation is switched on.
+		 */
+		private void count(MethodVisitor mv, String counter, int index) {
+
+			Label skip = new Label();
+			mv.visitFieldInsn(GETSTATIC, internalName, JavaPoetFileWriter.INSTRUMENTED, "Z");
+			mv.visitJumpInsn(IFEQ, skip);
+			if (index < 0) {
+				mv.visitFieldInsn(GETSTATIC, internalName, counter, "L" + LONG_ADDER + ";");
+			} else {
+				mv.visitFieldInsn(GETSTATIC, internalName, counter, "[L" + LONG_ADDER + ";");
+				push(mv, index);
+				mv.visitInsn(AALOAD);
+			}
+			mv.visitMethodInsn(INVOKEVIRTUAL, LONG_ADDER, "increment", "()V", false);
+			mv.visitLabel(skip);
+		}
+
+		/**
+		 * Equivalent of the lambda {@link JavaPoetFileWriter} emits for a no-args persistence constructor.
+		 */
+		private Handle countingConstructorReference() {
+
+			String lambdaName = "lambda$new$" + lambdaCount++;
+			String lambdaDescriptor = Type.getMethodDescriptor(domainType);
+
+			MethodVisitor lambda = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, lambdaName, lambdaDescriptor, null, null);
+			lambda.visitCode();
+			count(lambda, JavaPoetFileWriter.INSTANTIATIONS, -1);
+			lambda.visitTypeInsn(NEW, domainType.getInternalName());
+			lambda.visitInsn(DUP);
+			lambda.visitMethodInsn(INVOKESPECIAL, domainType.getInternalName(), "<init>", "()V", false);
+			lambda.visitInsn(ARETURN);
+			end(lambda);
+
+			return new Handle(H_INVOKESTATIC, internalName, lambdaName, lambdaDescriptor, false);
+		}
+
+		/**
+		 * Equivalent of the lambda {@link JavaPoetFileWriter} emits for an accessor. The synthetic method takes the
+		 * receiver, unless the target is static, followed by the parameters of the target and invokes it the way the
+		 * {@link #methodReference(Method) method reference} would, so it adapts to the functional interface alike.
+		 */
+		private Handle countingMethodReference(Method target, String counter, int index) {
+
+			int receiver = Modifier.isStatic(target.getModifiers()) ? 0 : 1;
+			Type[] targetParameters = Type.getArgumentTypes(target);
+			Type[] parameters = new Type[targetParameters.length + receiver];
+			if (receiver == 1) {
+				parameters[0] = domainType;
+			}
+			System.arraycopy(targetParameters, 0, parameters, receiver, targetParameters.length);
+			Type returnType = Type.getReturnType(target);
+
+			String lambdaName = "lambda$" + target.getName() + "$" + lambdaCount++;
+			String lambdaDescriptor = Type.getMethodDescriptor(returnType, parameters);
+
+			MethodVisitor lambda = classWriter.visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, lambdaName, lambdaDescriptor, null, null);
+			lambda.visitCode();
+			count(lambda, counter, index);
+			int slot = 0;
+			for (Type parameter : parameters) {
+				lambda.visitVarInsn(parameter.getOpcode(ILOAD), slot);
+				slot += parameter.getSize();
+			}
+			Handle reference = methodReference(target);
+			lambda.visitMethodInsn(invokeOpcode(reference), reference.getOwner(), reference.getName(), reference.getDesc(), reference.isInterface());
+			lambda.visitInsn(returnType.getOpcode(IRETURN));
+			end(lambda);
+
+			return new Handle(H_INVOKESTATIC, internalName, lambdaName, lambdaDescriptor, false);
+		}
+
+		// STATIC INITIALIZER
+
+		private void writeStaticInitializer() {
+
+			MethodVisitor mv = classWriter.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+			mv.visitCode();
+
+			if (instrumentation) {
+
+				mv.visitLdcInsn(JavaPoetFileWriter.INSTRUMENTATION_PROPERTY);
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "getBoolean", "(Ljava/lang/String;)Z", false);
+				mv.visitFieldInsn(PUTSTATIC, internalName, JavaPoetFileWriter.INSTRUMENTED, "Z");
+
+				mv.visitTypeInsn(NEW, LONG_ADDER);
+				mv.visitInsn(DUP);
+				mv.visitMethodInsn(INVOKESPECIAL, LONG_ADDER, "<init>", "()V", false);
+				mv.visitFieldInsn(PUTSTATIC, internalName, JavaPoetFileWriter.INSTANTIATIONS, "L" + LONG_ADDER + ";");
+
+				for (String counter : new String[] { JavaPoetFileWriter.READS, JavaPoetFileWriter.WRITES }) {
+
+					push(mv, JavaPoetFileWriter.propertyNames(typeInfo).size());
+					mv.visitMethodInsn(INVOKESTATIC, internalName, "counters", "(I)[L" + LONG_ADDER + ";", false);
+					mv.visitFieldInsn(PUTSTATIC, internalName, counter, "[L" + LONG_ADDER + ";");
+				}
+			}
+
+			// primitive accessors ahead of INSTANCE as its fields are set up via the accessors
+			for (PropertyInfo propertyInfo : typeInfo) {
+
+				String constantName = constantNames.get(propertyInfo.getName());
+				if (JavaPoetFileWriter.hasPrimitiveGetter(propertyInfo)) {
+
+					Class<?> getterType = JavaPoetFileWriter.PRIMITIVE_GETTER_TYPES.get(propertyInfo.getType());
+					Method getter = propertyInfo.getGetter();
+					lambda(mv, getterType, methodReference(getter), new Type[] { domainType }, Type.getReturnType(getter));
+					mv.visitFieldInsn(PUTSTATIC, internalName, constantName + "_GETTER", Type.getDescriptor(getterType));
+				}
+				if (JavaPoetFileWriter.hasPrimitiveSetter(propertyInfo)) {
+
+					String setterType = primitiveSetterType(propertyInfo);
+					Method setter = propertyInfo.getSetter();
+					lambda(mv, "L" + setterType + ";", "accept", Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object.class), Type.getType(propertyInfo.getType())),
+							methodReference(setter), Type.getMethodDescriptor(Type.VOID_TYPE, domainType, Type.getType(propertyInfo.getType())));
+					mv.visitFieldInsn(PUTSTATIC, internalName, constantName + "_SETTER", "L" + setterType + ";");
+				}
+			}
+
+			mv.visitTypeInsn(NEW, internalName);
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, internalName, "<init>", "()V", false);
+			mv.visitFieldInsn(PUTSTATIC, internalName, "INSTANCE", "L" + internalName + ";");
+
+			mv.visitInsn(RETURN);
+			end(mv);
+		}
+
+		// INVOCATIONS
+
+		private void invokeThis(MethodVisitor mv, String name, int parameterCount) {
+
+			Method method = method(ConfigurableTypeInformation.class, name, parameterCount);
+			mv.visitMethodInsn(INVOKEVIRTUAL, internalName, name, Type.getMethodDescriptor(method), false);
+			discard(mv, method);
+		}
+
+		private void invokeModel(MethodVisitor mv, String type, String name, int parameterCount) {
+
+			Class<?> owner = ClassUtils.resolveClassName(MAPPING_MODEL_PACKAGE + type, BytecodeFileWriter.class.getClassLoader());
+			invoke(mv, owner, method(owner, name, parameterCount));
+		}
+
+		/**
+		 * Handle for {@code DomainType::method}. The reference kind follows the method: static methods and methods declared
+		 * by an interface, like default methods, cannot be invoked virtually on the domain type.
+		 */
+		private Handle methodReference(Method method) {
+
+			Class<?> declaringClass = method.getDeclaringClass();
+			String descriptor = Type.getMethodDescriptor(method);
+
+			if (Modifier.isStatic(method.getModifiers())) {
+				return new Handle(H_INVOKESTATIC, Type.getInternalName(declaringClass), method.getName(), descriptor,
+						declaringClass.isInterface());
+			}
+			if (declaringClass.isInterface()) {
+				return new Handle(H_INVOKEINTERFACE, Type.getInternalName(declaringClass), method.getName(), descriptor, true);
+			}
+			return new Handle(H_INVOKEVIRTUAL, domainType.getInternalName(), method.getName(), descriptor, false);
+		}
+
+		private static int invokeOpcode(Handle handle) {
+
+			switch (handle.getTag()) {
+				case H_INVOKESTATIC:
+					return INVOKESTATIC;
+				case H_INVOKEINTERFACE:
+					return INVOKEINTERFACE;
+				default:
+					return INVOKEVIRTUAL;
+			}
+		}
+
+		private void lambda(MethodVisitor mv, Class<?> functionalInterface, Handle implementation, Type[] parameters, Type returnType) {
+
+			Method sam = functionalMethod(functionalInterface);
+			lambda(mv, Type.getDescriptor(functionalInterface), sam.getName(), Type.getMethodDescriptor(sam), implementation,
+					Type.getMethodDescriptor(returnType, parameters));
+		}
+
+		private void lambda(MethodVisitor mv, String functionalInterface, String samName, String samDescriptor, Handle implementation,
+				String instantiatedDescriptor) {
+
+			mv.visitInvokeDynamicInsn(samName, "()" + functionalInterface, LAMBDA_METAFACTORY, Type.getMethodType(samDescriptor),
+					implementation, Type.getMethodType(instantiatedDescriptor));
+		}
+	}
+
+	// HELPERS
+
+	private static ClassWriter newClassWriter() {
+
+		return new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+
+			/*
+			 * Control flow only ever merges values of identical types within generated methods, so there is no need to load
+			 * classes to compute frames.
+			 */
+			@Override
+			protected String getCommonSuperClass(String type1, String type2) {
+				return type1.equals(type2) ? type1 : "java/lang/Object";
+			}
+		};
+	}
+
+	private static void end(MethodVisitor mv) {
+
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private static String internalName(String className) {
+		return className.replace('.', '/');
+	}
+
+	private static String signatureOf(Class<?> type, Type typeArgument) {
+		return "L" + Type.getInternalName(type) + "<" + typeArgument.getDescriptor() + ">;";
+	}
+
+	private static void invoke(MethodVisitor mv, Class<?> receiverType, Method method) {
+
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		Class<?> owner = isStatic ? method.getDeclaringClass() : receiverType;
+		int opcode = isStatic ? INVOKESTATIC : owner.isInterface() ? INVOKEINTERFACE : INVOKEVIRTUAL;
+		mv.visitMethodInsn(opcode, Type.getInternalName(owner), method.getName(), Type.getMethodDescriptor(method), owner.isInterface());
+	}
+
+	private static void invokeAndDiscard(MethodVisitor mv, Class<?> receiverType, Method method) {
+
+		invoke(mv, receiverType, method);
+		discard(mv, method);
+	}
+
+	private static void discard(MethodVisitor mv, Method method) {
+
+		if (method.getReturnType() == void.class) {
+			return;
+		}
+		mv.visitInsn(method.getReturnType() == long.class || method.getReturnType() == double.class ? POP2 : POP);
+	}
+
+	private static void cast(MethodVisitor mv, Class<?> type) {
+
+		if (type == Object.class) {
+			return;
+		}
+
+		if (type.isPrimitive()) {
+
+			Class<?> wrapper = ClassUtils.resolvePrimitiveIfNecessary(type);
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(wrapper));
+			mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(wrapper), type.getName() + "Value",
+					Type.getMethodDescriptor(Type.getType(type)), false);
+			return;
+		}
+
+		mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+	}
+
+	private static void classConstant(MethodVisitor mv, Class<?> type) {
+
+		if (type.isPrimitive()) {
+			mv.visitFieldInsn(GETSTATIC, Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(type)), "TYPE", "Ljava/lang/Class;");
+		} else {
+			mv.visitLdcInsn(Type.getType(type));
+		}
+	}
+
+	private static void push(MethodVisitor mv, int value) {
+
+		if (value >= -1 && value <= 5) {
+			mv.visitInsn(ICONST_0 + value);
+		} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			mv.visitIntInsn(BIPUSH, value);
+		} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			mv.visitIntInsn(SIPUSH, value);
+		} else {
+			mv.visitLdcInsn(value);
+		}
+	}
+
+	private static int primitiveArrayType(Class<?> type) {
+
+		if (type == boolean.class) {
+			return T_BOOLEAN;
+		} else if (type == char.class) {
+			return T_CHAR;
+		} else if (type == byte.class) {
+			return T_BYTE;
+		} else if (type == short.class) {
+			return T_SHORT;
+		} else if (type == int.class) {
+			return T_INT;
+		} else if (type == long.class) {
+			return T_LONG;
+		} else if (type == float.class) {
+			return T_FLOAT;
+		}
+		return T_DOUBLE;
+	}
+
+	/**
+	 * Adapt the type of a method reference to the functional interface: primitives are kept where the interface declares
+	 * a primitive and boxed where it is generic.
+	 */
+	private static Type adapt(Type samType, Type type) {
+
+		if (samType.getSort() == Type.VOID) {
+			return Type.VOID_TYPE;
+		}
+		if (samType.getSort() != Type.OBJECT && samType.getSort() != Type.ARRAY) {
+			return type;
+		}
+		if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) {
+			return type;
+		}
+
+		switch (type.getSort()) {
+			case Type.BOOLEAN:
+				return Type.getType(Boolean.class);
+			case Type.CHAR:
+				return Type.getType(Character.class);
+			case Type.BYTE:
+				return Type.getType(Byte.class);
+			case Type.SHORT:
+				return Type.getType(Short.class);
+			case Type.INT:
+				return Type.getType(Integer.class);
+			case Type.FLOAT:
+				return Type.getType(Float.class);
+			case Type.LONG:
+				return Type.getType(Long.class);
+			case Type.DOUBLE:
+				return Type.getType(Double.class);
+			default:
+				return type;
+		}
+	}
+
+	/**
+	 * @return the single abstract method of the given functional interface.
+	 */
+	static Method functionalMethod(Class<?> functionalInterface) {
+
+		Method result = null;
+		for (Method method : functionalInterface.getMethods()) {
+
+			if (!Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+				continue;
+			}
+			if (result != null && !result.getName().equals(method.getName())) {
+				throw new IllegalStateException(String.format("%s is not a functional interface", functionalInterface));
+			}
+			result = method;
+		}
+
+		if (result == null) {
+			throw new IllegalStateException(String.format("%s is not a functional interface", functionalInterface));
+		}
+		return result;
+	}
+
+	private static boolean isObjectMethod(Method method) {
+
+		try {
+			Object.class.getMethod(method.getName(), method.getParameterTypes());
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Look up a method of the Spring Data mapping API by name and number of parameters.
+	 */
+	static Method method(Class<?> type, String name, int parameterCount) {
+
+		List<Class<?>> candidates = new ArrayList<>();
+		for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+			candidates.add(current);
+		}
+		candidates.addAll(ClassUtils.getAllInterfacesForClassAsSet(type));
+
+		for (Class<?> candidate : candidates) {
+			for (Method method : candidate.getDeclaredMethods()) {
+				if (method.getName().equals(name) && method.getParameterCount() == parameterCount && !method.isBridge()
+						&& !method.isSynthetic()) {
+					return method;
+				}
+			}
+		}
+
+		throw new IllegalStateException(String.format("Cannot find method %s with %s parameter(s) on %s", name, parameterCount, type));
+	}
+
+	static Constructor<?> constructor(Class<?> type, int parameterCount) {
+
+		for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+			if (constructor.getParameterCount() == parameterCount) {
+				return constructor;
+			}
+		}
+
+		throw new IllegalStateException(String.format("Cannot find constructor with %s parameter(s) on %s", parameterCount, type));
+	}
+}
@@ -2,13 +2,30 @@ package org.springframework.data.entity.processor.writer;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.function.Predicate;
 
 import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeInfo;
 
 /**
  * @author Christoph Strobl
  * @since 2020/11
  */
 public interface ConfigurableTypeWriter {
-	void writeConfigurableTypes(DomainTypes domainTypes, File targetDirectory) throws IOException;
+
+	default void writeConfigurableTypes(DomainTypes domainTypes, File targetDirectory) throws IOException {
+		writeConfigurableTypes(domainTypes, typeInfo -> true, targetDirectory);
+	}
+
+	/**
+	 * Write the type information for the {@link TypeInfo types} matching the given filter only. References to other
+	 * types are still resolved against all {@link DomainTypes}.
+	 *
+	 * @param domainTypes the model.
+	 * @param filter selects the types to write.
+	 * @param targetDirectory the directory to write to.
+	 * @throws IOException on failure to write files.
+	 */
+	void writeConfigurableTypes(DomainTypes domainTypes, Predicate<TypeInfo> filter, File targetDirectory)
+			throws IOException;
 }
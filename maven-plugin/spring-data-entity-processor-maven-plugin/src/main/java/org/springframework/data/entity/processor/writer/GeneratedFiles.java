@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.data.entity.processor.GeneratorEvents;
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
+import org.springframework.data.entity.processor.GeneratorMetrics;
+
+/**
+ * Writes generated files only if their content differs from what is already on disk, keeping track of the files
+ * actually written or deleted. Leaving unchanged files untouched keeps their timestamps stable so that IDEs and
+ * subsequent build steps do not pick them up as modified.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratedFiles {
+
+	private final Set<File> changedFiles = new LinkedHashSet<>();
+	private final GeneratorMetrics metrics;
+
+	public GeneratedFiles() {
+		this(new GeneratorMetrics());
+	}
+
+	/**
+	 * @param metrics the {@link GeneratorMetrics} to count files and bytes written with, also used by the writers
+	 *          writing through this instance.
+	 */
+	public GeneratedFiles(GeneratorMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Write the given content unless the file already holds the very same bytes.
+	 *
+	 * @param file the file to write.
+	 * @param content the content.
+	 * @return {@literal true} if the file was written.
+	 * @throws IOException on failure to read or write the file.
+	 */
+	public boolean write(File file, byte[] content) throws IOException {
+
+		Span span = GeneratorEvents.write(file.getPath());
+		if (file.isFile() && file.length() == content.length && Arrays.equals(Files.readAllBytes(file.toPath()), content)) {
+
+			span.end(0);
+			metrics.increment(GeneratorMetrics.FILES_SKIPPED);
+			return false;
+		}
+
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), content);
+		span.end(content.length);
+		changedFiles.add(file);
+		metrics.increment(GeneratorMetrics.FILES_WRITTEN);
+		metrics.add(GeneratorMetrics.BYTES_WRITTEN, content.length);
+		return true;
+	}
+
+	/**
+	 * @param file the file to delete.
+	 * @return {@literal true} if the file existed and got deleted.
+	 */
+	public boolean delete(File file) {
+
+		if (file.delete()) {
+			changedFiles.add(file);
+			return true;
+		}
+		return false;
+	}
+
+	public GeneratorMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return the files written or deleted, in order of their modification.
+	 */
+	public Set<File> getChangedFiles() {
+		return Collections.unmodifiableSet(changedFiles);
+	}
+}
@@ -20,14 +20,38 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import com.squareup.javapoet.*;
 import com.squareup.javapoet.CodeBlock.Builder;
 import org.springframework.beans.BeanUtils;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.entity.processor.GeneratorEvents;
+import org.springframework.data.entity.processor.GeneratorEvents.Span;
+import org.springframework.data.entity.processor.GeneratorMetrics;
 import org.springframework.data.entity.processor.model.AnnotationInfo;
 import org.springframework.data.entity.processor.model.ConstructorInfo;
 import org.springframework.data.entity.processor.model.DomainTypes;
@@ -38,6 +62,7 @@ import org.springframework.data.mapping.model.ConfigurableTypeConstructor;
 import org.springframework.data.mapping.model.ConfigurableTypeInformation;
 import org.springframework.data.mapping.model.Field;
 import org.springframework.data.util.ClassTypeInformation;
+import org.springframework.data.util.TypeInformation;
 import org.springframework.lang.Nullable;
 
 /**
@@ -46,16 +71,132 @@ import org.springframework.lang.Nullable;
  */
 public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfigurationWriter {
 
-	@Override
-	public void writeConfigurableTypes(DomainTypes domainTypes, @Nullable File targetDirectory) throws IOException {
+	static final String BOOLEAN_SETTER_TYPE = "ObjBooleanConsumer";
 
-		for (TypeInfo typeInfo : domainTypes) {
+	/**
+	 * Upper bound of the {@link #estimateBytecodeSize(CodeBlock) estimated} bytecode size per generated initializer
+	 * method. As the estimate never falls below the actual size this keeps 1000 bytes of headroom below HotSpot's
+	 * {@literal HugeMethodLimit} of 8000 bytes for constructs the estimate does not account for.
+	 */
+	static final int DEFAULT_METHOD_SIZE_LIMIT = 7000;
+
+	/**
+	 * System property switching on the counters compiled into {@link #setInstrumentation(boolean) instrumented} type
+	 * information at runtime.
+	 */
+	public static final String INSTRUMENTATION_PROPERTY = "spring.data.entity-processor.instrumentation";
+
+	/**
+	 * System property naming the file {@link #setRecordMisses(boolean) recording} substitutions append the names of types
+	 * resolved via the reflective fallback to.
+	 */
+	public static final String MISSES_PROPERTY = "spring.data.entity-processor.misses";
+
+	static final String MISSES_TYPE_NAME = "ClassTypeInformationMisses";
+
+	static final String INSTRUMENTED = "INSTRUMENTED";
+	static final String INSTANTIATIONS = "INSTANTIATIONS";
+	static final String READS = "READS";
+	static final String WRITES = "WRITES";
+
+	static final Map<Class<?>, Class<?>> PRIMITIVE_GETTER_TYPES = new HashMap<>();
+	static final Map<Class<?>, Class<?>> PRIMITIVE_SETTER_TYPES = new HashMap<>();
+
+	static {
+
+		PRIMITIVE_GETTER_TYPES.put(int.class, ToIntFunction.class);
+		PRIMITIVE_GETTER_TYPES.put(long.class, ToLongFunction.class);
+		PRIMITIVE_GETTER_TYPES.put(double.class, ToDoubleFunction.class);
+		PRIMITIVE_GETTER_TYPES.put(boolean.class, Predicate.class);
+
+		PRIMITIVE_SETTER_TYPES.put(int.class, ObjIntConsumer.class);
+		PRIMITIVE_SETTER_TYPES.put(long.class, ObjLongConsumer.class);
+		PRIMITIVE_SETTER_TYPES.put(double.class, ObjDoubleConsumer.class);
+	}
+
+	private int methodSizeLimit = DEFAULT_METHOD_SIZE_LIMIT;
+	private int parallelism = 1;
+	private boolean instrumentation = false;
+	private boolean recordMisses = false;
+	private GeneratedFiles generatedFiles = new GeneratedFiles();
+
+	/**
+	 * Set the estimated bytecode size at which initialization of the generated types gets split into helper methods.
+	 *
+	 * @param methodSizeLimit the limit in bytes.
+	 */
+	public void setMethodSizeLimit(int methodSizeLimit) {
+		this.methodSizeLimit = methodSizeLimit;
+	}
 
-			JavaFile file = typeInfoToConfigurableTypeInformation(typeInfo, domainTypes);
+	/**
+	 * Set the number of threads to render the type information of multiple types with. Files are still written in
+	 * order of the types.
+	 *
+	 * @param parallelism the number of threads, {@literal 1} (default) to render on the calling thread.
+	 */
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compile counters for instantiations, property reads and property writes into the generated persistence
+	 * constructors and accessors. Counting is switched on at runtime via the {@value #INSTRUMENTATION_PROPERTY} system
+	 * property, otherwise it costs a single branch on a constant per invocation. The counts are exposed via the static
+	 * {@code instantiations()}, {@code reads(String)} and {@code writes(String)} methods of the generated types.
+	 * <p>
+	 * The property is read once when the generated type is initialized. A native image must therefore initialize
+	 * instrumented types at runtime, which {@link NativeImagePropertiesWriter#setInstrumentation(boolean)} takes care of.
+	 *
+	 * @param instrumentation {@literal true} to instrument the generated types, {@literal false} (default) otherwise.
+	 */
+	public void setInstrumentation(boolean instrumentation) {
+		this.instrumentation = instrumentation;
+	}
+
+	/**
+	 * Let the {@literal ClassTypeInformation} substitution record the types it does not have generated type information
+	 * for, and therefore resolves reflectively, into the file named by the {@value #MISSES_PROPERTY} system property, one
+	 * type name per line. Handing that file to the next generator run adds the types recorded to its input.
+	 *
+	 * @param recordMisses {@literal true} to record misses, {@literal false} (default) otherwise.
+	 */
+	public void setRecordMisses(boolean recordMisses) {
+		this.recordMisses = recordMisses;
+	}
+
+	/**
+	 * Set the {@link GeneratedFiles} to write through, collecting the files that actually changed.
+	 *
+	 * @param generatedFiles must not be {@literal null}.
+	 */
+	public void setGeneratedFiles(GeneratedFiles generatedFiles) {
+		this.generatedFiles = generatedFiles;
+	}
+
+	@Override
+	public void writeConfigurableTypes(DomainTypes domainTypes, Predicate<TypeInfo> filter, @Nullable File targetDirectory)
+			throws IOException {
+
+		List<TypeInfo> typeInfos = StreamSupport.stream(domainTypes.spliterator(), false).filter(filter)
+				.collect(Collectors.toList());
+		GeneratorMetrics metrics = generatedFiles.getMetrics();
+		List<RenderedSource> sources = ParallelRenderer.render(typeInfos, typeInfo -> {
+
+			Span span = GeneratorEvents.render(typeInfo.getTypeName());
+			long start = System.nanoTime();
+			RenderedSource source = new RenderedSource(typeInfoToConfigurableTypeInformation(typeInfo, domainTypes));
+			metrics.recordType(typeInfo.getTypeName(), System.nanoTime() - start);
+			metrics.increment(GeneratorMetrics.FILES_RENDERED);
+			span.end(source.content.length);
+			return source;
+		}, parallelism);
+
+		for (RenderedSource source : sources) {
 			if (targetDirectory == null) {
-				System.out.println(file.toString());
+				System.out.println(new String(source.content, StandardCharsets.UTF_8));
 			} else {
-				file.writeTo(targetDirectory);
+				source.writeTo(targetDirectory, generatedFiles);
 			}
 		}
 	}
@@ -84,7 +225,11 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 			fromMethod.endControlFlow();
 		}
 
-		fromMethod.addStatement("return ($T<S>) cache.computeIfAbsent(type, $T::new)", org.springframework.data.util.ClassTypeInformation.class, org.springframework.data.util.ClassTypeInformation.class);
+		if (recordMisses) {
+			fromMethod.addStatement("return ($T<S>) cache.computeIfAbsent(type, $T::record)", org.springframework.data.util.ClassTypeInformation.class, ClassName.get("org.springframework.data.util", MISSES_TYPE_NAME));
+		} else {
+			fromMethod.addStatement("return ($T<S>) cache.computeIfAbsent(type, $T::new)", org.springframework.data.util.ClassTypeInformation.class, org.springframework.data.util.ClassTypeInformation.class);
+		}
 
 		TypeSpec typeSpec = TypeSpec.classBuilder("Target_ClassTypeInformation")
 				.addModifiers(Modifier.PUBLIC, Modifier.FINAL)
@@ -97,14 +242,66 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 				.build();
 
 		JavaFile file = JavaFile.builder("org.springframework.data.util", typeSpec).build();
+		generatedFiles.getMetrics().increment(GeneratorMetrics.FILES_RENDERED);
 
 		if (targetDirectory == null) {
 			System.out.println(file.toString());
 		} else {
-			file.writeTo(targetDirectory);
+			writeTo(file, targetDirectory);
+		}
+
+		if (recordMisses) {
+
+			JavaFile misses = JavaFile.builder("org.springframework.data.util", missesTypeSpec()).build();
+			generatedFiles.getMetrics().increment(GeneratorMetrics.FILES_RENDERED);
+
+			if (targetDirectory == null) {
+				System.out.println(misses.toString());
+			} else {
+				writeTo(misses, targetDirectory);
+			}
 		}
 	}
 
+	/**
+	 * The recorder the {@literal ClassTypeInformation} substitution resolves misses through. Only invoked on a cache miss,
+	 * so each type is recorded once per process.
+	 */
+	TypeSpec missesTypeSpec() {
+
+		ParameterizedTypeName anyClass = ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class));
+
+		MethodSpec recordMethod = MethodSpec.methodBuilder("record")
+				.addJavadoc("Append the name of the given type to the file named by the {@literal $L} system property, if set.\n", MISSES_PROPERTY)
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC, Modifier.SYNCHRONIZED)
+				.returns(ParameterizedTypeName.get(ClassName.get(ClassTypeInformation.class), WildcardTypeName.subtypeOf(Object.class)))
+				.addParameter(anyClass, "type")
+				.addStatement("String file = System.getProperty($S)", MISSES_PROPERTY)
+				.beginControlFlow("if (file != null)")
+				.beginControlFlow("try")
+				.addStatement("$T.write($T.get(file), $T.singletonList(type.getName()), $T.UTF_8, $T.CREATE, $T.APPEND)", Files.class,
+						Paths.class, Collections.class, StandardCharsets.class, StandardOpenOption.class, StandardOpenOption.class)
+				.nextControlFlow("catch ($T e)", IOException.class)
+				.addComment("recording must not break type resolution")
+				.endControlFlow()
+				.endControlFlow()
+				.addStatement("return new $T<>(type)", ClassTypeInformation.class)
+				.build();
+
+		return TypeSpec.classBuilder(MISSES_TYPE_NAME)
+				.addModifiers(Modifier.PUBLIC, Modifier.FINAL)
+				.addMethod(MethodSpec.constructorBuilder().addModifiers(Modifier.PRIVATE).build())
+				.addMethod(recordMethod)
+				.build();
+	}
+
+	/**
+	 * Write the given {@link JavaFile} to its package directory, leaving the file untouched if the source did not change.
+	 */
+	private void writeTo(JavaFile file, File targetDirectory) throws IOException {
+		new RenderedSource(file).writeTo(targetDirectory, generatedFiles);
+	}
+
 	JavaFile typeInfoToConfigurableTypeInformation(TypeInfo typeInfo, DomainTypes domainTypes) {
 
 		TypeSpec typeSpec = computeTypeSpec(typeInfo, domainTypes);
@@ -113,13 +310,28 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 
 	TypeSpec computeTypeSpec(TypeInfo typeInfo, DomainTypes domainTypes) {
 
-		ClassName className = ClassName.get(typeInfo.getSignature().getPackageName(), typeInfo.getSignature().getSimpleConfigurableTypeName());
+		ClassName className = configurableTypeName(typeInfo);
 
 		TypeSpec.Builder typeSpecBuilder = TypeSpec.classBuilder(className)
 				.addModifiers(Modifier.PUBLIC, Modifier.FINAL)
 				.superclass(ParameterizedTypeName.get(ClassName.get(ConfigurableTypeInformation.class),
 						ClassName.get(typeInfo.getType())));
 
+		// INSTRUMENTATION
+		if (instrumentation) {
+
+			typeSpecBuilder.addFields(instrumentationFields(typeInfo));
+			typeSpecBuilder.addMethods(instrumentationMethods());
+		}
+
+		// PRIMITIVE ACCESSORS - ahead of INSTANCE as its fields are set up via the accessors
+		{
+			typeSpecBuilder.addFields(primitiveAccessorFields(typeInfo));
+			if (requiresBooleanSetterType(typeInfo)) {
+				typeSpecBuilder.addType(booleanSetterType());
+			}
+		}
+
 		// SINGLETON INSTANCE
 		{
 			FieldSpec instance = FieldSpec.builder(className, "INSTANCE")
@@ -138,6 +350,15 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 			typeSpecBuilder.addMethod(instanceMethod);
 		}
 
+		// PROPERTY LOOKUP
+		{
+			typeSpecBuilder.addField(propertiesField(typeInfo));
+			typeSpecBuilder.addMethod(propertyIndexMethod(typeInfo));
+			typeSpecBuilder.addMethod(propertyAtMethod());
+			typeSpecBuilder.addMethod(propertyNamedMethod());
+			typeSpecBuilder.addMethod(getPropertyMethod());
+		}
+
 		// CONSTRUCTOR
 		{
 			MethodSpec.Builder constructorMethod = MethodSpec.constructorBuilder()
@@ -149,43 +370,354 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 				constructorMethod.addCode("\n");
 			}
 
-			// ANNOTATIONS
-			{
-				constructorMethod.addComment("ANNOTATIONS");
-				for (AnnotationInfo annotation : typeInfo.getAnnotations()) {
-					constructorMethod.addStatement("addAnnotation($L)", newAnnotationBlock(annotation));
+			List<CodeBlock> initializers = initializerBlocks(typeInfo, domainTypes);
+			List<List<CodeBlock>> chunks = chunk(initializers, methodSizeLimit);
+
+			if (chunks.size() == 1) {
+				initializers.forEach(constructorMethod::addCode);
+			} else {
+
+				// INITIALIZER METHODS
+				for (int i = 0; i < chunks.size(); i++) {
+
+					String methodName = "initialize" + i;
+					constructorMethod.addStatement("$L()", methodName);
+
+					MethodSpec.Builder initializerMethod = MethodSpec.methodBuilder(methodName)
+							.addModifiers(Modifier.PRIVATE);
+					chunks.get(i).forEach(initializerMethod::addCode);
+					typeSpecBuilder.addMethod(initializerMethod.build());
 				}
-				constructorMethod.addCode("\n");
 			}
 
-			// PERSISTENCE CONSTRUCTOR
-			{
-				constructorMethod.addComment("PERSISTENCE CONSTRUCTOR");
-				constructorMethod.addStatement(CodeBlock.builder()
-						.add("setConstructor(")
-						.add(newInstanceBlock(typeInfo.getConstructor()))
-						.add(")")
+			typeSpecBuilder.addMethod(constructorMethod.build());
+		}
+
+		return typeSpecBuilder.build();
+	}
+
+	/**
+	 * Compute the statements initializing annotations, persistence constructor and fields of the generated type in the
+	 * order they are to be executed.
+	 */
+	List<CodeBlock> initializerBlocks(TypeInfo typeInfo, DomainTypes domainTypes) {
+
+		List<CodeBlock> initializers = new ArrayList<>();
+
+		// ANNOTATIONS
+		{
+			Builder annotations = CodeBlock.builder().add("// ANNOTATIONS\n");
+			for (AnnotationInfo annotation : typeInfo.getAnnotations()) {
+				annotations.addStatement("addAnnotation($L)", newAnnotationBlock(annotation));
+			}
+			initializers.add(annotations.add("\n").build());
+		}
+
+		// PERSISTENCE CONSTRUCTOR
+		{
+			initializers.add(CodeBlock.builder()
+					.add("// PERSISTENCE CONSTRUCTOR\n")
+					.addStatement(CodeBlock.builder()
+							.add("setConstructor(")
+							.add(newInstanceBlock(typeInfo.getConstructor()))
+							.add(")")
+							.build())
+					.add("\n")
+					.build());
+		}
+
+		// FIELD INIT
+		{
+			initializers.add(CodeBlock.of("// FIELDS\n\n"));
+
+			int index = 0;
+			for (PropertyInfo propertyInfo : typeInfo) {
+				initializers.add(CodeBlock.builder()
+						.add("// $L $L\n", propertyInfo.getTypeSignature().getJavaSignatureString(), propertyInfo.getName())
+						.add(fieldBlock(propertyInfo, domainTypes, index))
+						.addStatement("addField($L)", propertyInfo.getName())
+						.addStatement("this.properties[$L] = $L", index++, propertyInfo.getName())
+						.add("\n")
 						.build());
-				constructorMethod.addCode("\n");
 			}
+		}
 
-			// FIELD INIT
-			{
-				constructorMethod.addComment("FIELDS");
-				constructorMethod.addCode("\n");
+		return initializers;
+	}
 
-				for (PropertyInfo propertyInfo : typeInfo) {
-					constructorMethod.addComment("$L $L", propertyInfo.getTypeSignature().getJavaSignatureString(), propertyInfo.getName());
-					constructorMethod.addCode(fieldBlock(propertyInfo, domainTypes));
-					constructorMethod.addStatement("addField($L)", propertyInfo.getName());
-					constructorMethod.addCode("\n");
-				}
+	/**
+	 * Split the given blocks into consecutive chunks each staying within the given estimated bytecode size so that no
+	 * generated method exceeds HotSpot's {@literal HugeMethodLimit} (8000 bytes) and becomes ineligible for JIT
+	 * compilation. A block exceeding the limit on its own is put in a chunk by itself.
+	 *
+	 * @return a single chunk containing all blocks if those fit the limit.
+	 */
+	static List<List<CodeBlock>> chunk(List<CodeBlock> blocks, int limit) {
+
+		List<List<CodeBlock>> chunks = new ArrayList<>();
+		List<CodeBlock> current = new ArrayList<>();
+		int currentSize = 0;
+
+		for (CodeBlock block : blocks) {
+
+			int size = estimateBytecodeSize(block);
+			if (!current.isEmpty() && currentSize + size > limit) {
+
+				chunks.add(current);
+				current = new ArrayList<>();
+				currentSize = 0;
 			}
+			current.add(block);
+			currentSize += size;
+		}
 
-			typeSpecBuilder.addMethod(constructorMethod.build());
+		chunks.add(current);
+		return chunks;
+	}
+
+	/**
+	 * Conservative estimate of the bytecode a {@link CodeBlock} compiles to. Each construct javac emits instructions for
+	 * is weighted with the largest encoding it may take:
+	 * <ul>
+	 * <li>{@literal (} - an invocation or instance creation ({@literal invokeinterface}, 5 bytes) plus a {@literal pop}
+	 * of its discarded result.</li>
+	 * <li>{@literal ,} - an additional argument, including a varargs array element ({@literal dup}, {@literal sipush}
+	 * index and {@literal aastore}).</li>
+	 * <li>string literals and {@literal .class} - an {@literal ldc_w}.</li>
+	 * <li>{@literal ::} and {@literal ->} - an {@literal invokedynamic} plus a {@literal getstatic} of a bound
+	 * receiver.</li>
+	 * <li>{@literal new } - {@literal new}, {@literal dup} and loading the enclosing instance.</li>
+	 * <li>{@literal [} - a {@literal getfield} of the array, an {@literal sipush} index and the element access.</li>
+	 * <li>{@literal ;} - a statement storing or loading a local, in its {@literal wide} form once the method has more
+	 * than 255 locals, and {@literal this}.</li>
+	 * </ul>
+	 * Text that compiles to nothing, such as comments or generic arguments, may still contain these tokens which only
+	 * adds to the margin.
+	 */
+	static int estimateBytecodeSize(CodeBlock block) {
+
+		String code = block.toString();
+
+		int size = 0;
+		size += occurrences(code, "(") * 6;
+		size += occurrences(code, ",") * 5;
+		size += occurrences(code, "\"") / 2 * 3;
+		size += occurrences(code, ".class") * 3;
+		size += occurrences(code, "::") * 8;
+		size += occurrences(code, "->") * 8;
+		size += occurrences(code, "new ") * 5;
+		size += occurrences(code, "[") * 7;
+		size += occurrences(code, ";") * 5;
+		return size;
+	}
+
+	private static int occurrences(String source, String token) {
+
+		int count = 0;
+		for (int index = source.indexOf(token); index != -1; index = source.indexOf(token, index + token.length())) {
+			count++;
 		}
+		return count;
+	}
 
-		return typeSpecBuilder.build();
+	FieldSpec propertiesField(TypeInfo typeInfo) {
+
+		return FieldSpec.builder(ArrayTypeName.of(anyField()), "properties", Modifier.PRIVATE, Modifier.FINAL)
+				.initializer("new $T<?, ?>[$L]", Field.class, propertyNames(typeInfo).size())
+				.build();
+	}
+
+	/**
+	 * Name to index lookup via {@literal switch} on the property name. Other than a map lookup this neither allocates
+	 * nor traverses buckets as {@link String#hashCode()} is cached and the compiler turns the switch into a
+	 * {@literal lookupswitch} on the hash followed by a single {@link String#equals(Object)}.
+	 */
+	MethodSpec propertyIndexMethod(TypeInfo typeInfo) {
+
+		MethodSpec.Builder method = MethodSpec.methodBuilder("propertyIndex")
+				.addJavadoc("@return the index of the property with the given name or {@literal -1} if not present.\n")
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+				.returns(int.class)
+				.addParameter(String.class, "name")
+				.beginControlFlow("switch (name)");
+
+		List<String> names = propertyNames(typeInfo);
+		for (int i = 0; i < names.size(); i++) {
+			method.addCode("case $S: return $L;\n", names.get(i), i);
+		}
+
+		return method.addCode("default: return -1;\n")
+				.endControlFlow()
+				.build();
+	}
+
+	MethodSpec propertyAtMethod() {
+
+		return MethodSpec.methodBuilder("propertyAt")
+				.addModifiers(Modifier.PUBLIC)
+				.returns(anyField())
+				.addParameter(int.class, "index")
+				.addStatement("return this.properties[index]")
+				.build();
+	}
+
+	MethodSpec propertyNamedMethod() {
+
+		return MethodSpec.methodBuilder("propertyNamed")
+				.addModifiers(Modifier.PUBLIC)
+				.addAnnotation(Nullable.class)
+				.returns(anyField())
+				.addParameter(String.class, "name")
+				.addStatement("int index = propertyIndex(name)")
+				.addStatement("return index != -1 ? this.properties[index] : null")
+				.build();
+	}
+
+	/**
+	 * Serves {@link TypeInformation#getProperty(String)} for direct properties from the {@link #propertyIndexMethod(TypeInfo)
+	 * index} and leaves nested paths to the base implementation.
+	 */
+	MethodSpec getPropertyMethod() {
+
+		return MethodSpec.methodBuilder("getProperty")
+				.addAnnotation(Override.class)
+				.addAnnotation(Nullable.class)
+				.addModifiers(Modifier.PUBLIC)
+				.returns(ParameterizedTypeName.get(ClassName.get(TypeInformation.class), WildcardTypeName.subtypeOf(Object.class)))
+				.addParameter(String.class, "property")
+				.addStatement("int index = propertyIndex(property)")
+				.addStatement("return index != -1 ? this.properties[index].getTypeInformation() : super.getProperty(property)")
+				.build();
+	}
+
+	/**
+	 * Accessors for {@code int}, {@code long}, {@code double} and {@code boolean} properties typed to the primitive
+	 * specializations of {@link java.util.function} so reading and writing values does not box.
+	 */
+	List<FieldSpec> primitiveAccessorFields(TypeInfo typeInfo) {
+
+		Map<String, String> constantNames = constantNames(typeInfo);
+		List<FieldSpec> fields = new ArrayList<>();
+		for (PropertyInfo propertyInfo : typeInfo) {
+
+			Class<?> type = propertyInfo.getType();
+			if (!PRIMITIVE_GETTER_TYPES.containsKey(type)) {
+				continue;
+			}
+
+			Class<?> owner = propertyInfo.getOwner().getType();
+			ClassName setterType = type == boolean.class ? configurableTypeName(typeInfo).nestedClass(BOOLEAN_SETTER_TYPE)
+					: ClassName.get(PRIMITIVE_SETTER_TYPES.get(type));
+			String constantName = constantNames.get(propertyInfo.getName());
+
+			if (hasPrimitiveGetter(propertyInfo)) {
+				fields.add(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(PRIMITIVE_GETTER_TYPES.get(type)), ClassName.get(owner)),
+						constantName + "_GETTER", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+						.initializer("$T::$L", owner, propertyInfo.getGetter().getName())
+						.build());
+			}
+			if (hasPrimitiveSetter(propertyInfo)) {
+				fields.add(FieldSpec.builder(ParameterizedTypeName.get(setterType, ClassName.get(owner)),
+						constantName + "_SETTER", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL)
+						.initializer("$T::$L", owner, propertyInfo.getSetter().getName())
+						.build());
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * {@link java.util.function} does not offer a {@code boolean} consumer so we add one to the generated type.
+	 */
+	TypeSpec booleanSetterType() {
+
+		TypeVariableName t = TypeVariableName.get("T");
+		return TypeSpec.interfaceBuilder(BOOLEAN_SETTER_TYPE)
+				.addAnnotation(FunctionalInterface.class)
+				.addModifiers(Modifier.PUBLIC)
+				.addTypeVariable(t)
+				.addMethod(MethodSpec.methodBuilder("accept")
+						.addModifiers(Modifier.PUBLIC, Modifier.ABSTRACT)
+						.addParameter(t, "bean")
+						.addParameter(boolean.class, "value")
+						.build())
+				.build();
+	}
+
+	static boolean requiresBooleanSetterType(TypeInfo typeInfo) {
+
+		for (PropertyInfo propertyInfo : typeInfo) {
+			if (propertyInfo.getType() == boolean.class && hasPrimitiveSetter(propertyInfo)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	static boolean hasPrimitiveGetter(PropertyInfo propertyInfo) {
+
+		Class<?> type = propertyInfo.getType();
+		return PRIMITIVE_GETTER_TYPES.containsKey(type) && propertyInfo.hasGetter()
+				&& propertyInfo.getGetter().getReturnType() == type;
+	}
+
+	static boolean hasPrimitiveSetter(PropertyInfo propertyInfo) {
+
+		Class<?> type = propertyInfo.getType();
+		return PRIMITIVE_GETTER_TYPES.containsKey(type) && propertyInfo.hasSetter()
+				&& propertyInfo.getSetter().getParameterTypes()[0] == type;
+	}
+
+	private static ClassName configurableTypeName(TypeInfo typeInfo) {
+		return ClassName.get(typeInfo.getSignature().getPackageName(), typeInfo.getSignature().getSimpleConfigurableTypeName());
+	}
+
+	static String constantName(String propertyName) {
+		return propertyName.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ENGLISH);
+	}
+
+	/**
+	 * Unique {@link #constantName(String) constant names} for the properties of the given type. Names colliding with one
+	 * of a preceding property, like {@code url} and {@code URL} or {@code aB} and {@code a_b}, are suffixed with the
+	 * index of the property.
+	 *
+	 * @return the constant names by property name.
+	 */
+	static Map<String, String> constantNames(TypeInfo typeInfo) {
+
+		Map<String, String> constantNames = new LinkedHashMap<>();
+		Set<String> taken = new HashSet<>();
+
+		int index = 0;
+		for (PropertyInfo propertyInfo : typeInfo) {
+
+			String constantName = constantName(propertyInfo.getName());
+			while (!taken.add(constantName)) {
+				constantName = constantName + "_" + index;
+			}
+			constantNames.put(propertyInfo.getName(), constantName);
+			index++;
+		}
+		return constantNames;
+	}
+
+	static String constantName(PropertyInfo propertyInfo) {
+		return constantNames(propertyInfo.getOwner()).get(propertyInfo.getName());
+	}
+
+	static List<String> propertyNames(TypeInfo typeInfo) {
+
+		List<String> names = new ArrayList<>();
+		for (PropertyInfo propertyInfo : typeInfo) {
+			names.add(propertyInfo.getName());
+		}
+		return names;
+	}
+
+	private static TypeName anyField() {
+
+		TypeName wildcard = WildcardTypeName.subtypeOf(Object.class);
+		return ParameterizedTypeName.get(ClassName.get(Field.class), wildcard, wildcard);
 	}
 
 	CodeBlock superCallBlock(TypeInfo typeInfo) {
@@ -205,7 +737,11 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 		{
 			builder.add("$T.<$T>", ConfigurableTypeConstructor.class, ctorInfo.getType());
 			if (ctorInfo.isNoArgConstructor()) {
-				builder.add("noArgsConstructor($T::new)", ctorInfo.getType());
+				if (instrumentation) {
+					builder.add("noArgsConstructor(() -> $L)", countingBody(INSTANTIATIONS, CodeBlock.of("return new $T()", ctorInfo.getType())));
+				} else {
+					builder.add("noArgsConstructor($T::new)", ctorInfo.getType());
+				}
 			} else {
 
 				builder.add("builder()");
@@ -216,9 +752,9 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 					args.add(")");
 				}
 
-				Builder fkt = CodeBlock.builder();
+				Builder newInstance = CodeBlock.builder();
 				{
-					fkt.add(".newInstanceFunction((args) -> new $T(", ctorInfo.getType());
+					newInstance.add("new $T(", ctorInfo.getType());
 					for (int i = 0; i < ctorInfo.getParameterList().size(); i++) {
 
 						ParameterInfo parameter = ctorInfo.getParameterList().get(i);
@@ -227,24 +763,26 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 						if (i != ctorInfo.getParameterList().size() - 1) {
 							ctorArg.add(", ");
 						}
-						fkt.add(ctorArg.build());
+						newInstance.add(ctorArg.build());
 					}
-					fkt.add("))");
+					newInstance.add(")");
 				}
 				builder.add(args.build());
-				builder.add(fkt.build());
+				builder.add(".newInstanceFunction((args) -> $L)", instrumentation
+						? countingBody(INSTANTIATIONS, CodeBlock.of("return $L", newInstance.build()))
+						: newInstance.build());
 			}
 		}
 		return builder.build();
 	}
 
 
-	CodeBlock fieldBlock(PropertyInfo propertyInfo, DomainTypes domainTypes) {
+	CodeBlock fieldBlock(PropertyInfo propertyInfo, DomainTypes domainTypes, int index) {
 		Builder builder = CodeBlock.builder();
 
 		builder.addStatement(fieldVariableBlock(propertyInfo, domainTypes));
 		if (propertyInfo.hasAccessorMethods()) {
-			builder.add(accessorMethodsBlock(propertyInfo));
+			builder.add(accessorMethodsBlock(propertyInfo, index));
 		}
 		builder.add(fieldAnnotations(propertyInfo));
 		return builder.build();
@@ -259,23 +797,33 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 				.build();
 	}
 
-	CodeBlock accessorMethodsBlock(PropertyInfo propertyInfo) {
+	CodeBlock accessorMethodsBlock(PropertyInfo propertyInfo, int index) {
 
 		Builder accessorMethods = CodeBlock.builder();
 		if (propertyInfo.hasGetter()) {
-			accessorMethods.addStatement(getterMethodBlock(propertyInfo));
+			accessorMethods.addStatement(instrumentation ? countingGetterMethodBlock(propertyInfo, index)
+					: getterMethodBlock(propertyInfo));
 		}
 		if (propertyInfo.hasSetter()) {
-			accessorMethods.addStatement(setterMethodBlock(propertyInfo));
+			accessorMethods.addStatement(instrumentation ? countingSetterMethodBlock(propertyInfo, index)
+					: setterMethodBlock(propertyInfo));
 		}
 		if (propertyInfo.hasWither()) {
-			accessorMethods.addStatement(witherMethodBlock(propertyInfo));
+			accessorMethods.addStatement(instrumentation ? countingWitherMethodBlock(propertyInfo, index)
+					: witherMethodBlock(propertyInfo));
 		}
 		return accessorMethods.build();
 	}
 
 	CodeBlock getterMethodBlock(PropertyInfo propertyInfo) {
 
+		if (hasPrimitiveGetter(propertyInfo)) {
+
+			Class<?> getterType = PRIMITIVE_GETTER_TYPES.get(propertyInfo.getType());
+			return CodeBlock.of("$L.getter($L_GETTER::$L)", propertyInfo.getName(), constantName(propertyInfo),
+					BytecodeFileWriter.functionalMethod(getterType).getName());
+		}
+
 		return CodeBlock.builder()
 				.add("$L.getter($T::$L)", propertyInfo.getName(), propertyInfo.getOwner().getType(), propertyInfo.getGetter().getName())
 				.build();
@@ -283,6 +831,10 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 
 	CodeBlock setterMethodBlock(PropertyInfo propertyInfo) {
 
+		if (hasPrimitiveSetter(propertyInfo)) {
+			return CodeBlock.of("$L.setter($L_SETTER::accept)", propertyInfo.getName(), constantName(propertyInfo));
+		}
+
 		return CodeBlock.builder()
 				.add("$L.setter($T::$L)", propertyInfo.getName(), propertyInfo.getOwner().getType(), propertyInfo.getSetter().getName())
 				.build();
@@ -295,6 +847,90 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 				.build();
 	}
 
+	CodeBlock countingGetterMethodBlock(PropertyInfo propertyInfo, int index) {
+
+		return CodeBlock.of("$L.getter($$bean -> $L)", propertyInfo.getName(), countingBody(READS + "[" + index + "]",
+				CodeBlock.of("return $$bean.$L()", propertyInfo.getGetter().getName())));
+	}
+
+	CodeBlock countingSetterMethodBlock(PropertyInfo propertyInfo, int index) {
+
+		return CodeBlock.of("$L.setter(($$bean, $$value) -> $L)", propertyInfo.getName(), countingBody(
+				WRITES + "[" + index + "]", CodeBlock.of("$$bean.$L($$value)", propertyInfo.getSetter().getName())));
+	}
+
+	CodeBlock countingWitherMethodBlock(PropertyInfo propertyInfo, int index) {
+
+		return CodeBlock.of("$L.wither(($$bean, $$value) -> $L)", propertyInfo.getName(), countingBody(
+				WRITES + "[" + index + "]", CodeBlock.of("return $$bean.$L($$value)", propertyInfo.getWither().getName())));
+	}
+
+	/**
+	 * Lambda body incrementing the given counter, if switched on, ahead of the given statement. Parameters are prefixed
+	 * with {@literal $} to not shadow the local variables declared for the properties.
+	 */
+	private static CodeBlock countingBody(String counter, CodeBlock statement) {
+		return CodeBlock.of("{ if ($L) $L.increment(); $L; }", INSTRUMENTED, counter, statement);
+	}
+
+	/**
+	 * The runtime switch and the counters of {@link #setInstrumentation(boolean) instrumented} types. Declared ahead of
+	 * the singleton instance, so they are initialized before it.
+	 */
+	List<FieldSpec> instrumentationFields(TypeInfo typeInfo) {
+
+		List<FieldSpec> fields = new ArrayList<>();
+		fields.add(FieldSpec.builder(boolean.class, INSTRUMENTED, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+				.initializer("$T.getBoolean($S)", Boolean.class, INSTRUMENTATION_PROPERTY)
+				.build());
+		fields.add(FieldSpec.builder(LongAdder.class, INSTANTIATIONS, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+				.initializer("new $T()", LongAdder.class)
+				.build());
+		for (String counter : new String[] { READS, WRITES }) {
+			fields.add(FieldSpec.builder(LongAdder[].class, counter, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+					.initializer("counters($L)", propertyNames(typeInfo).size())
+					.build());
+		}
+		return fields;
+	}
+
+	List<MethodSpec> instrumentationMethods() {
+
+		List<MethodSpec> methods = new ArrayList<>();
+		methods.add(MethodSpec.methodBuilder("instantiations")
+				.addJavadoc("@return the number of instances created via the persistence constructor.\n")
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+				.returns(long.class)
+				.addStatement("return $L.sum()", INSTANTIATIONS)
+				.build());
+		methods.add(counterMethod("reads", READS, "@return the number of reads of the property with the given name.\n"));
+		methods.add(counterMethod("writes", WRITES,
+				"@return the number of writes, via setter or wither, of the property with the given name.\n"));
+		methods.add(MethodSpec.methodBuilder("counters")
+				.addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+				.returns(LongAdder[].class)
+				.addParameter(int.class, "size")
+				.addStatement("$T[] counters = new $T[size]", LongAdder.class, LongAdder.class)
+				.beginControlFlow("for (int i = 0; i < size; i++)")
+				.addStatement("counters[i] = new $T()", LongAdder.class)
+				.endControlFlow()
+				.addStatement("return counters")
+				.build());
+		return methods;
+	}
+
+	private static MethodSpec counterMethod(String name, String counters, String javadoc) {
+
+		return MethodSpec.methodBuilder(name)
+				.addJavadoc(javadoc)
+				.addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+				.returns(long.class)
+				.addParameter(String.class, "name")
+				.addStatement("int index = propertyIndex(name)")
+				.addStatement("return index != -1 ? $L[index].sum() : 0", counters)
+				.build();
+	}
+
 	CodeBlock fieldAnnotations(PropertyInfo propertyInfo) {
 
 		Builder annotations = CodeBlock.builder();
@@ -353,4 +989,25 @@ public class JavaPoetFileWriter implements ConfigurableTypeWriter, GraalVmConfig
 
 		return annotation.build();
 	}
+
+	/**
+	 * The source of a {@link JavaFile} rendered ahead of writing it, eg. on a different thread.
+	 */
+	private static class RenderedSource {
+
+		private final JavaFile file;
+		private final byte[] content;
+
+		RenderedSource(JavaFile file) {
+
+			this.file = file;
+			this.content = file.toString().getBytes(StandardCharsets.UTF_8);
+		}
+
+		void writeTo(File targetDirectory, GeneratedFiles generatedFiles) throws IOException {
+
+			File packageDirectory = new File(targetDirectory, file.packageName.replace('.', File.separatorChar));
+			generatedFiles.write(new File(packageDirectory, file.typeSpec.name + ".java"), content);
+		}
+	}
 }
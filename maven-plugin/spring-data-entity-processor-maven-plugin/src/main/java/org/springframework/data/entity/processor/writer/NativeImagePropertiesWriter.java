@@ -0,0 +1,415 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.Timer;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.data.entity.processor.GeneratorMetrics;
+import org.springframework.data.entity.processor.model.AnnotationInfo;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.PropertyInfo;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link GraalVmConfigurationWriter} writing a {@literal native-image.properties} that initializes the generated
+ * {@literal ConfigurableTypeInformation} at image build time so the metadata is stored in the image heap.
+ * <p>
+ * Initializing a generated type at build time also initializes everything its static instance touches: the type
+ * information of super types and referenced domain types, enums used as annotation values and annotation types, along
+ * with their super types and whatever their static initializers touch in turn. Domain types themselves are only
+ * referenced via class literals and method handles, which do not initialize them. Types depending on a class holding
+ * runtime only static state (threads, random seeds, open resources, executors,...) are left to runtime initialization
+ * along with every generated type referencing them. Those are logged and counted as
+ * {@value #TYPES_INITIALIZED_AT_RUNTIME} in the {@link GeneratorMetrics} of the {@link GeneratedFiles} in use.
+ * <p>
+ * {@link JavaPoetFileWriter#setInstrumentation(boolean) Instrumented} type information reads the
+ * {@value JavaPoetFileWriter#INSTRUMENTATION_PROPERTY} system property in its static initializer. Initializing it at
+ * build time would freeze the switch to the value present during the image build, so instrumented types are always
+ * left to runtime initialization.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class NativeImagePropertiesWriter implements GraalVmConfigurationWriter {
+
+	static final String FILE_NAME = "native-image.properties";
+	static final String TYPES_INITIALIZED_AT_RUNTIME = "typesInitializedAtRuntime";
+
+	private static final Log logger = LogFactory.getLog(NativeImagePropertiesWriter.class);
+
+	private static final List<Class<?>> RUNTIME_ONLY_STATIC_STATE = Arrays.asList(Thread.class, Random.class,
+			Closeable.class, Executor.class, Timer.class, ClassLoader.class);
+
+	private final String configurationPath;
+	private GeneratedFiles generatedFiles = new GeneratedFiles();
+	private boolean instrumentation = false;
+
+	public NativeImagePropertiesWriter() {
+		this("META-INF/native-image");
+	}
+
+	/**
+	 * @param configurationPath the path relative to the target directory to write the configuration to, eg.
+	 *          {@literal META-INF/native-image/<groupId>/<artifactId>}.
+	 */
+	public NativeImagePropertiesWriter(String configurationPath) {
+		this.configurationPath = configurationPath;
+	}
+
+	/**
+	 * Set the {@link GeneratedFiles} to write through, collecting the files that actually changed.
+	 *
+	 * @param generatedFiles must not be {@literal null}.
+	 */
+	public void setGeneratedFiles(GeneratedFiles generatedFiles) {
+		this.generatedFiles = generatedFiles;
+	}
+
+	/**
+	 * Whether the type information was generated with {@link JavaPoetFileWriter#setInstrumentation(boolean)
+	 * instrumentation}, which rules out build time initialization.
+	 *
+	 * @param instrumentation {@literal true} if the generated types are instrumented, {@literal false} (default) otherwise.
+	 */
+	public void setInstrumentation(boolean instrumentation) {
+		this.instrumentation = instrumentation;
+	}
+
+	@Override
+	public void writeGraalVmConfiguration(DomainTypes domainTypes, @Nullable File targetDirectory) throws IOException {
+
+		Collection<TypeInfo> excluded;
+		if (instrumentation) {
+
+			logger.info(String.format("Initializing instrumented type information at runtime so %s is read at runtime.",
+					JavaPoetFileWriter.INSTRUMENTATION_PROPERTY));
+			excluded = StreamSupport.stream(domainTypes.spliterator(), false).collect(Collectors.toList());
+		} else {
+
+			Map<TypeInfo, Set<Class<?>>> rejected = runtimeOnlyDependencies(domainTypes);
+			List<String> reasons = new ArrayList<>();
+			rejected.forEach((typeInfo, dependencies) -> reasons.add(String.format("%s depends on runtime initialized %s",
+					typeInfo.getSignature().getConfigurableTypeName(), dependencies)));
+			reasons.forEach(it -> logger.info("Initializing at runtime: " + it + "."));
+
+			if (!reasons.isEmpty()) {
+				generatedFiles.getMetrics().attribute(TYPES_INITIALIZED_AT_RUNTIME, reasons);
+			}
+			excluded = rejected.keySet();
+		}
+		generatedFiles.getMetrics().add(TYPES_INITIALIZED_AT_RUNTIME, excluded.size());
+
+		String properties = nativeImageProperties(domainTypes, excluded);
+
+		if (targetDirectory == null) {
+			System.out.println(properties);
+			return;
+		}
+
+		File file = new File(new File(targetDirectory, configurationPath), FILE_NAME);
+		generatedFiles.write(file, properties.getBytes(StandardCharsets.UTF_8));
+	}
+
+	String nativeImageProperties(DomainTypes domainTypes, Collection<TypeInfo> excluded) {
+
+		List<String> typeNames = new ArrayList<>();
+		for (TypeInfo typeInfo : domainTypes) {
+			if (!excluded.contains(typeInfo)) {
+				typeNames.add(typeInfo.getSignature().getConfigurableTypeName());
+			}
+		}
+
+		if (typeNames.isEmpty()) {
+			return "";
+		}
+
+		return typeNames.stream().collect(Collectors.joining(",\\\n  ", "Args = --initialize-at-build-time=", "\n"));
+	}
+
+	/**
+	 * Compute the generated types that must not be initialized at build time along with the offending classes.
+	 *
+	 * @param domainTypes must not be {@literal null}.
+	 * @return never {@literal null}.
+	 */
+	Map<TypeInfo, Set<Class<?>>> runtimeOnlyDependencies(DomainTypes domainTypes) {
+
+		Map<TypeInfo, Set<Class<?>>> rejected = new LinkedHashMap<>();
+		for (TypeInfo typeInfo : domainTypes) {
+
+			Set<Class<?>> offending = staticallyInitializedTypes(typeInfo).stream()
+					.filter(NativeImagePropertiesWriter::hasRuntimeOnlyStaticState)
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+			if (!offending.isEmpty()) {
+				rejected.put(typeInfo, offending);
+			}
+		}
+
+		// anything initializing a rejected generated type has to be initialized at runtime as well
+		boolean changed = !rejected.isEmpty();
+		while (changed) {
+
+			changed = false;
+			for (TypeInfo typeInfo : domainTypes) {
+
+				if (rejected.containsKey(typeInfo)) {
+					continue;
+				}
+
+				for (TypeInfo dependency : generatedTypeDependencies(typeInfo, domainTypes)) {
+					if (rejected.containsKey(dependency)) {
+
+						rejected.put(typeInfo, Collections.singleton(dependency.getType()));
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+
+		return rejected;
+	}
+
+	/**
+	 * @return the generated types initialized by the static instance of the given {@link TypeInfo}.
+	 */
+	static Set<TypeInfo> generatedTypeDependencies(TypeInfo typeInfo, DomainTypes domainTypes) {
+
+		Set<TypeInfo> dependencies = new LinkedHashSet<>();
+
+		Class<?> superclass = typeInfo.getType().getSuperclass();
+		if (superclass != null) {
+			domainTypes.getDomainTypeModelForClass(superclass).ifPresent(dependencies::add);
+		}
+
+		for (PropertyInfo propertyInfo : typeInfo) {
+			for (Class<?> type : propertyInfo.getTypeSignature().getReferencedTypes()) {
+
+				Optional<TypeInfo> dependency = domainTypes.getDomainTypeModelForClass(type);
+				if (dependency.isPresent() && !dependency.get().equals(typeInfo)) {
+					dependencies.add(dependency.get());
+				}
+			}
+		}
+
+		return dependencies;
+	}
+
+	/**
+	 * Compute the non generated classes initialized along with the static instance of the given {@link TypeInfo}. Those
+	 * are the enums used within annotation values and the annotation types, followed transitively by their super
+	 * classes and interfaces, the types of their static fields and the classes referenced by their static initializers,
+	 * including the methods of the same class called from there. JDK classes are not followed.
+	 *
+	 * @return never {@literal null}.
+	 */
+	static Set<Class<?>> staticallyInitializedTypes(TypeInfo typeInfo) {
+
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		collectAnnotationTypes(typeInfo.getAnnotations(), queue);
+		for (PropertyInfo propertyInfo : typeInfo) {
+			collectAnnotationTypes(propertyInfo.getAnnotations(), queue);
+		}
+
+		Set<Class<?>> types = new LinkedHashSet<>();
+		while (!queue.isEmpty()) {
+
+			Class<?> type = queue.poll();
+			while (type.isArray()) {
+				type = type.getComponentType();
+			}
+			if (type.isPrimitive() || isJdkType(type) || !types.add(type)) {
+				continue;
+			}
+
+			if (type.getSuperclass() != null) {
+				queue.add(type.getSuperclass());
+			}
+			queue.addAll(Arrays.asList(type.getInterfaces()));
+			for (Field field : type.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers())) {
+					queue.add(field.getType());
+				}
+			}
+			queue.addAll(classInitializerReferences(type));
+		}
+		return types;
+	}
+
+	private static void collectAnnotationTypes(@Nullable Set<AnnotationInfo> annotations, Deque<Class<?>> types) {
+
+		if (annotations == null) {
+			return;
+		}
+
+		for (AnnotationInfo annotation : annotations) {
+
+			types.add(annotation.getAnnotation());
+			for (Object value : annotation.getArguments().values()) {
+
+				if (value instanceof Enum) {
+					types.add(((Enum<?>) value).getDeclaringClass());
+				} else if (value instanceof Enum[] || value instanceof Annotation[]) {
+					types.add(value.getClass().getComponentType());
+				} else if (value instanceof Annotation) {
+					types.add(((Annotation) value).annotationType());
+				}
+			}
+		}
+	}
+
+	private static boolean isJdkType(Class<?> type) {
+
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("sun.");
+	}
+
+	/**
+	 * Read the static initializer of the given type and the methods of the type it calls, collecting the owners of the
+	 * fields and methods accessed and the types instantiated there. Types that cannot be read or resolved are skipped.
+	 *
+	 * @return never {@literal null}.
+	 */
+	static Set<Class<?>> classInitializerReferences(Class<?> type) {
+
+		ClassLoader classLoader = type.getClassLoader();
+		if (classLoader == null) {
+			return Collections.emptySet();
+		}
+
+		String internalName = type.getName().replace('.', '/');
+		Map<String, Set<String>> references = new HashMap<>();
+		Map<String, Set<String>> calls = new HashMap<>();
+
+		try (InputStream in = classLoader.getResourceAsStream(internalName + ClassUtils.CLASS_FILE_SUFFIX)) {
+
+			if (in == null) {
+				return Collections.emptySet();
+			}
+
+			new ClassReader(in).accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION) {
+
+				@Override
+				public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
+						String[] exceptions) {
+
+					Set<String> owners = references.computeIfAbsent(name + descriptor, key -> new LinkedHashSet<>());
+					Set<String> methods = calls.computeIfAbsent(name + descriptor, key -> new LinkedHashSet<>());
+
+					return new MethodVisitor(SpringAsmInfo.ASM_VERSION) {
+
+						@Override
+						public void visitTypeInsn(int opcode, String type) {
+							owners.add(type);
+						}
+
+						@Override
+						public void visitFieldInsn(int opcode, String owner, String name, String descriptor) {
+							owners.add(owner);
+						}
+
+						@Override
+						public void visitMethodInsn(int opcode, String owner, String name, String descriptor,
+								boolean isInterface) {
+
+							owners.add(owner);
+							if (owner.equals(internalName)) {
+								methods.add(name + descriptor);
+							}
+						}
+					};
+				}
+			}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+		} catch (IOException | RuntimeException e) {
+			return Collections.emptySet();
+		}
+
+		Set<String> visited = new LinkedHashSet<>();
+		Deque<String> queue = new ArrayDeque<>(Collections.singleton("<clinit>()V"));
+		Set<Class<?>> types = new LinkedHashSet<>();
+		while (!queue.isEmpty()) {
+
+			String method = queue.poll();
+			if (!visited.add(method) || !references.containsKey(method)) {
+				continue;
+			}
+
+			queue.addAll(calls.get(method));
+			for (String owner : references.get(method)) {
+
+				if (owner.startsWith("[") || owner.equals(internalName)) {
+					continue;
+				}
+				try {
+					types.add(ClassUtils.forName(owner.replace('/', '.'), classLoader));
+				} catch (ClassNotFoundException | LinkageError e) {
+					// not resolvable from here, so not initialized from here either
+				}
+			}
+		}
+		return types;
+	}
+
+	static boolean hasRuntimeOnlyStaticState(Class<?> type) {
+
+		for (Field field : type.getDeclaredFields()) {
+
+			if (!Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+				continue;
+			}
+
+			for (Class<?> runtimeOnly : RUNTIME_ONLY_STATIC_STATE) {
+				if (ClassUtils.isAssignable(runtimeOnly, field.getType())) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+}
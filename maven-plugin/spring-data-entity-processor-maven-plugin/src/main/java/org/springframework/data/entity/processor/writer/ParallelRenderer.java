@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Renders the generated type information of multiple types on a dedicated {@link ForkJoinPool}. Results are returned
+ * in the order of the given types so that files are still written in a deterministic order. Workers use the context
+ * class loader of the calling thread, which is the one holding the domain types.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+final class ParallelRenderer {
+
+	private ParallelRenderer() {}
+
+	/**
+	 * @param items the items to render.
+	 * @param renderer the function rendering a single item, must be thread safe.
+	 * @param parallelism the number of threads to use, rendering on the calling thread if {@literal 1} or less.
+	 * @return the rendered items in the order of the given ones.
+	 */
+	static <T, R> List<R> render(List<T> items, Function<T, R> renderer, int parallelism) {
+
+		if (parallelism <= 1 || items.size() <= 1) {
+			return items.stream().map(renderer).collect(Collectors.toList());
+		}
+
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		ForkJoinPool pool = new ForkJoinPool(parallelism, it -> {
+
+			ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(it);
+			thread.setContextClassLoader(classLoader);
+			return thread;
+		}, null, false);
+
+		try {
+			return pool.submit(() -> items.parallelStream().map(renderer).collect(Collectors.toList())).get();
+		} catch (InterruptedException e) {
+
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rendering generated types", e);
+		} catch (ExecutionException e) {
+
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException("Cannot render generated types", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.PropertyInfo;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link GraalVmConfigurationWriter} writing a minimal {@literal reflect-config.json} for the given {@link DomainTypes}.
+ * <p>
+ * Members the generated {@literal ConfigurableTypeInformation} already accesses directly (constructors, getters,
+ * setters and withers) are left out. Only fields lacking an accessor are registered for reflection. Private withers are
+ * not modeled as accessors, leaving their properties to be written via the field.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class ReflectionConfigurationWriter implements GraalVmConfigurationWriter {
+
+	static final String FILE_NAME = "reflect-config.json";
+
+	private final String configurationPath;
+	private GeneratedFiles generatedFiles = new GeneratedFiles();
+
+	public ReflectionConfigurationWriter() {
+		this("META-INF/native-image");
+	}
+
+	/**
+	 * @param configurationPath the path relative to the target directory to write the configuration to, eg.
+	 *          {@literal META-INF/native-image/<groupId>/<artifactId>}.
+	 */
+	public ReflectionConfigurationWriter(String configurationPath) {
+		this.configurationPath = configurationPath;
+	}
+
+	/**
+	 * Set the {@link GeneratedFiles} to write through, collecting the files that actually changed.
+	 *
+	 * @param generatedFiles must not be {@literal null}.
+	 */
+	public void setGeneratedFiles(GeneratedFiles generatedFiles) {
+		this.generatedFiles = generatedFiles;
+	}
+
+	@Override
+	public void writeGraalVmConfiguration(DomainTypes domainTypes, @Nullable File targetDirectory) throws IOException {
+
+		String configuration = reflectConfig(domainTypes);
+
+		if (targetDirectory == null) {
+			System.out.println(configuration);
+			return;
+		}
+
+		File file = new File(new File(targetDirectory, configurationPath), FILE_NAME);
+		generatedFiles.write(file, configuration.getBytes(StandardCharsets.UTF_8));
+	}
+
+	String reflectConfig(DomainTypes domainTypes) {
+
+		List<String> entries = new ArrayList<>();
+		for (TypeInfo typeInfo : domainTypes) {
+			entries.add(typeEntry(typeInfo));
+		}
+		return entries.stream().collect(Collectors.joining(",\n", "[\n", "\n]\n"));
+	}
+
+	String typeEntry(TypeInfo typeInfo) {
+
+		List<String> fields = new ArrayList<>();
+		for (PropertyInfo propertyInfo : typeInfo) {
+
+			Field field = propertyInfo.getField();
+
+			boolean readable = propertyInfo.hasGetter();
+			boolean writable = propertyInfo.hasSetter() || propertyInfo.hasWither();
+
+			if (field != null && (!readable || !writable)) {
+				fields.add(fieldEntry(field, !writable));
+			}
+		}
+
+		StringBuilder entry = new StringBuilder();
+		entry.append("  {\n");
+		entry.append("    \"name\": \"").append(typeInfo.getType().getName()).append("\"");
+		if (!fields.isEmpty()) {
+			entry.append(",\n    \"fields\": [\n").append(String.join(",\n", fields)).append("\n    ]");
+		}
+		entry.append("\n  }");
+		return entry.toString();
+	}
+
+	private static String fieldEntry(Field field, boolean allowWrite) {
+
+		if (allowWrite) {
+			return String.format("      { \"name\": \"%s\", \"allowWrite\": true }", field.getName());
+		}
+		return String.format("      { \"name\": \"%s\" }", field.getName());
+	}
+}
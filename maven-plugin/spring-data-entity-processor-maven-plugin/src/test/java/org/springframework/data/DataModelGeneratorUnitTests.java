@@ -15,25 +15,35 @@
  */
 package org.springframework.data;
 
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Repeatable;
 import java.lang.annotation.Target;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.data.annotation.PersistenceConstructor;
 import org.springframework.data.entity.processor.model.DataModelGenerator;
 import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.PropertyInfo;
 import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
 import org.springframework.data.example.repo.Person;
 import org.springframework.data.mapping.model.ConfigurableTypeInformation;
 import org.springframework.data.mapping.model.Field;
 import org.springframework.data.mapping.model.ListTypeInformation;
 import org.springframework.data.mapping.model.MapTypeInformation;
 import org.springframework.data.mapping.model.SimpleConfiguredTypes;
+import org.springframework.util.ClassUtils;
 
 /**
  * @author Christoph Strobl
@@ -49,6 +59,47 @@ public class DataModelGeneratorUnitTests {
 		models.forEach(System.out::println);
 	}
 
+	@Test
+	void modelsSyntheticDomainWithDeepHierarchies(@TempDir Path tempDir) throws IOException {
+
+		SyntheticDomainGenerator generator = SyntheticDomainGenerator.builder().entities(10).properties(30).nestingDepth(4)
+				.inheritanceDepth(5).generics(true).annotationDensity(0.5).build();
+		SyntheticDomain domain = generator.compile(tempDir);
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			DomainTypes domainTypes = new DataModelGenerator(domain.loadEntities(classLoader)).getDomainTypes();
+
+			for (int index = 0; index < generator.getEntityCount(); index++) {
+
+				TypeInfo entity = domainTypes.getDomainTypeModelForClass(
+						ClassUtils.resolveClassName(generator.entityName(index), classLoader)).get();
+
+				// declared properties, one per level of the hierarchy and the identifier
+				assertThat(entity).hasSize(30 + 5 + 1);
+				assertThat(entity).filteredOn(it -> it.getName().equals("id")).extracting(PropertyInfo::getType)
+						.containsExactly(String.class);
+
+				for (int level = 0; level < 4; level++) {
+					assertThat(domainTypes.containsDomainTypeModelForClass(ClassUtils
+							.resolveClassName(generator.entityName(index) + "Value" + level, classLoader))).isTrue();
+				}
+			}
+		}
+	}
+
+	@Test
+	void skipsPrivateWithers() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Types.PrivateWitherType.class);
+
+		assertThat(typeInfo).singleElement().satisfies(it -> {
+			assertThat(it.getName()).isEqualTo("name");
+			assertThat(it.hasGetter()).isTrue();
+			assertThat(it.hasWither()).isFalse();
+		});
+	}
+
 	@Test
 	void detectsSimpleTypes() {
 
@@ -17,9 +17,17 @@ package org.springframework.data;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.data.entity.processor.PersistableEntityScanner;
+import org.springframework.data.entity.processor.synthetic.SyntheticClasspath;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
 import org.springframework.data.example.annotated.AnnotatedPerson;
 import org.springframework.data.example.cyclic.LineItem;
 import org.springframework.data.example.cyclic.Order;
@@ -31,6 +39,7 @@ import org.springframework.data.example.repo.ListValueType;
 import org.springframework.data.example.repo.PageValueType;
 import org.springframework.data.example.repo.Person;
 import org.springframework.data.example.repo.SliceValueType;
+import org.springframework.util.ClassUtils;
 
 /**
  * @author Christoph Strobl
@@ -79,4 +88,40 @@ public class PersistableEntityScannerTests {
 		assertThat(scanner.scan("org.springframework.data.example.cyclic"))
 				.containsExactlyInAnyOrder(Order.class, LineItem.class);
 	}
+
+	@Test
+	void scansSyntheticClasspathAcrossDirectoriesAndJars(@TempDir Path tempDir) throws IOException {
+
+		SyntheticClasspath classpath = SyntheticClasspath.builder().classCount(200).directories(1).jars(2).build(tempDir);
+
+		try (URLClassLoader classLoader = new URLClassLoader(classpath.getUrls(), getClass().getClassLoader())) {
+
+			ClassLoader original = ClassUtils.overrideThreadContextClassLoader(classLoader);
+			try {
+				assertThat(scanner.scan(classpath.getBasePackage())).hasSize(classpath.getEntityCount());
+			} finally {
+				ClassUtils.overrideThreadContextClassLoader(original);
+			}
+		}
+	}
+
+	@Test
+	void scansSyntheticDomainIncludingValueTypes(@TempDir Path tempDir) throws IOException {
+
+		SyntheticDomain domain = SyntheticDomainGenerator.builder().entities(20).properties(10).nestingDepth(2)
+				.inheritanceDepth(2).annotationDensity(0.5).build().compile(tempDir);
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			ClassLoader original = ClassUtils.overrideThreadContextClassLoader(classLoader);
+			try {
+
+				// entities, two levels of value types per entity and the shared enum
+				assertThat(scanner.scan(domain.getBasePackage())).hasSize(20 + 20 * 2 + 1)
+						.containsAll(domain.loadEntities(classLoader));
+			} finally {
+				ClassUtils.overrideThreadContextClassLoader(original);
+			}
+		}
+	}
 }
@@ -23,6 +23,7 @@ import java.lang.annotation.Target;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.springframework.data.annotation.PersistenceConstructor;
 import org.springframework.data.mapping.model.ConfigurableTypeInformation;
@@ -108,6 +109,55 @@ public interface Types {
 		}
 	}
 
+	class PrimitiveTypes {
+
+		int intValue;
+		long longValue;
+		double doubleValue;
+		boolean booleanValue;
+		short shortValue;
+
+		public int getIntValue() {
+			return intValue;
+		}
+
+		public void setIntValue(int intValue) {
+			this.intValue = intValue;
+		}
+
+		public long getLongValue() {
+			return longValue;
+		}
+
+		public void setLongValue(long longValue) {
+			this.longValue = longValue;
+		}
+
+		public double getDoubleValue() {
+			return doubleValue;
+		}
+
+		public void setDoubleValue(double doubleValue) {
+			this.doubleValue = doubleValue;
+		}
+
+		public boolean isBooleanValue() {
+			return booleanValue;
+		}
+
+		public void setBooleanValue(boolean booleanValue) {
+			this.booleanValue = booleanValue;
+		}
+
+		public short getShortValue() {
+			return shortValue;
+		}
+
+		public void setShortValue(short shortValue) {
+			this.shortValue = shortValue;
+		}
+	}
+
 	enum EnumType {
 		E1, E2
 	}
@@ -367,6 +417,35 @@ public interface Types {
 		}
 	}
 
+	class PrivateWitherType {
+
+		final String name;
+
+		public PrivateWitherType(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		private PrivateWitherType withName(String name) {
+			return new PrivateWitherType(name);
+		}
+	}
+
+	interface DefaultAccessors {
+
+		default int getCount() {
+			return 42;
+		}
+	}
+
+	class InterfaceAccessorType implements DefaultAccessors {
+
+		int count;
+	}
+
 	class NoArgsCtor {
 
 	}
@@ -434,6 +513,105 @@ public interface Types {
 
 	}
 
+	class RuntimeInitializedAnnotationValue {
+
+		@EnumAnnotation(RuntimeInitializedEnum.VALUE)
+		String value;
+
+		public String getValue() {
+			return value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+	class ReferencingRuntimeInitializedType {
+
+		RuntimeInitializedAnnotationValue reference;
+
+		public RuntimeInitializedAnnotationValue getReference() {
+			return reference;
+		}
+
+		public void setReference(RuntimeInitializedAnnotationValue reference) {
+			this.reference = reference;
+		}
+	}
+
+	enum RuntimeInitializedEnum {
+
+		VALUE;
+
+		static final Random RANDOM = new Random();
+	}
+
+	@Target({ElementType.TYPE, ElementType.FIELD})
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface EnumAnnotation {
+
+		RuntimeInitializedEnum value();
+	}
+
+	class SideEffectAnnotationValue {
+
+		@SideEffectAnnotation(SideEffectEnum.VALUE)
+		String value;
+
+		public String getValue() {
+			return value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+	enum SideEffectEnum {
+
+		VALUE;
+
+		static {
+			RuntimeStateRegistry.register(VALUE);
+		}
+	}
+
+	class RuntimeStateRegistry {
+
+		static final Random RANDOM = new Random();
+
+		static void register(Object value) {}
+	}
+
+	@Target({ElementType.TYPE, ElementType.FIELD})
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface SideEffectAnnotation {
+
+		SideEffectEnum value();
+	}
+
+	class RuntimeStateAnnotationValue {
+
+		@RuntimeStateAnnotation
+		String value;
+
+		public String getValue() {
+			return value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+	@Target({ElementType.TYPE, ElementType.FIELD})
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface RuntimeStateAnnotation {
+
+		Random SEED = new Random();
+	}
+
 
 	@Target({ElementType.TYPE, ElementType.FIELD})
 	@Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.plugin.CodeGeneratorApplication;
+import org.springframework.data.example.cyclic.LineItem;
+import org.springframework.data.example.cyclic.Order;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorEventsUnitTests {
+
+	@TempDir Path tempDir;
+
+	@Test
+	void recordsModelRenderAndWriteEvents() throws Exception {
+
+		Path recordingFile = tempDir.resolve("generator.jfr");
+		try (Recording recording = new Recording()) {
+
+			recording.start();
+			DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Order.class)).getDomainTypes();
+			CodeGeneratorApplication.writeFiles(domainTypes, tempDir.resolve("generated").toFile(), Collections.emptyMap());
+			recording.stop();
+			recording.dump(recordingFile);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+
+		assertThat(events).filteredOn(it -> it.getEventType().getName().endsWith(".Model"))
+				.extracting(it -> it.getString("type")).contains(Order.class.getName(), LineItem.class.getName());
+		assertThat(events).filteredOn(it -> it.getEventType().getName().endsWith(".Render"))
+				.allMatch(it -> it.getLong("bytes") > 0).extracting(it -> it.getString("type"))
+				.contains(Order.class.getName(), LineItem.class.getName());
+		assertThat(events).filteredOn(it -> it.getEventType().getName().endsWith(".Write"))
+				.anyMatch(it -> it.getString("path").endsWith("OrderConfigurableTypeInformation.java"));
+	}
+
+	@Test
+	void ignoresSpansOutsideOfRecordings() {
+		assertThat(GeneratorEvents.model(Order.class.getName())).isSameAs(GeneratorEvents.Span.NONE);
+	}
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.plugin.CodeGeneratorApplication;
+import org.springframework.data.example.cyclic.LineItem;
+import org.springframework.data.example.cyclic.Order;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorMetricsUnitTests {
+
+	@TempDir Path tempDir;
+
+	@Test
+	void countsModeledTypesAndWrittenFiles() throws IOException {
+
+		GeneratorMetrics metrics = new GeneratorMetrics();
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Order.class), metrics).getDomainTypes();
+
+		CodeGeneratorApplication.writeFiles(domainTypes, tempDir.toFile(), Collections.emptyMap(), metrics);
+		CodeGeneratorApplication.writeFiles(domainTypes, tempDir.toFile(), Collections.emptyMap(), metrics);
+
+		assertThat(metrics.getCount(GeneratorMetrics.TYPES_MODELED)).isEqualTo(2);
+		assertThat(metrics.getCount(GeneratorMetrics.PROPERTIES)).isPositive();
+		// two types plus the substitution per run
+		assertThat(metrics.getCount(GeneratorMetrics.FILES_RENDERED)).isEqualTo(6);
+		assertThat(metrics.getCount(GeneratorMetrics.FILES_WRITTEN)).isEqualTo(3);
+		assertThat(metrics.getCount(GeneratorMetrics.FILES_SKIPPED)).isEqualTo(3);
+		assertThat(metrics.getCount(GeneratorMetrics.BYTES_WRITTEN)).isPositive();
+		assertThat(metrics.getSlowestTypes(10)).extracting(Entry::getKey).containsExactlyInAnyOrder(Order.class.getName(),
+				LineItem.class.getName());
+	}
+
+	@Test
+	void rendersJsonReport() {
+
+		GeneratorMetrics metrics = new GeneratorMetrics();
+		metrics.attribute("packages", Collections.singletonList("com.acme"));
+		metrics.attribute("threads", 2);
+		metrics.record(GeneratorMetrics.SCAN, 1_500_000);
+		metrics.increment(GeneratorMetrics.CLASSES_SCANNED);
+		metrics.recordType("com.acme.Fast", 1_000);
+		metrics.recordType("com.acme.Slow", 2_000_000);
+
+		assertThat(metrics.getSlowestTypes(1)).extracting(Entry::getKey).containsExactly("com.acme.Slow");
+		assertThat(metrics.toJson(1)).contains("\"packages\": [\"com.acme\"]", "\"threads\": 2",
+				"\"phases\": { \"scanMillis\": 1.500 }", "\"counters\": { \"classesScanned\": 1 }",
+				"{ \"type\": \"com.acme.Slow\", \"millis\": 2.000 }").doesNotContain("com.acme.Fast");
+	}
+}
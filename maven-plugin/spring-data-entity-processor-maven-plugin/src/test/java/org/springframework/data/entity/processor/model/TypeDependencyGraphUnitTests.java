@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.model;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.example.cyclic.LineItem;
+import org.springframework.data.example.cyclic.Order;
+import org.springframework.data.example.repo.Address;
+import org.springframework.data.example.repo.Email;
+import org.springframework.data.example.repo.Person;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class TypeDependencyGraphUnitTests {
+
+	@Test
+	void collectsPropertyTypesGenericsAndAnnotations() {
+
+		TypeDependencyGraph graph = TypeDependencyGraph
+				.from(new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes());
+
+		assertThat(graph.affectedBy(Collections.singleton(Email.class.getName()))).contains(Person.class.getName());
+		assertThat(graph.affectedBy(Collections.singleton(Id.class.getName()))).containsExactly(Person.class.getName());
+		assertThat(graph.affectedBy(Collections.singleton(Address.class.getName())))
+				.containsExactlyInAnyOrder(Person.class.getName(), Address.class.getName());
+		assertThat(graph.affectedBy(Collections.singleton(String.class.getName()))).isEmpty();
+	}
+
+	@Test
+	void resolvesTypesAffectedByCyclicReferences() {
+
+		TypeDependencyGraph graph = TypeDependencyGraph
+				.from(new DataModelGenerator(Collections.singleton(Order.class)).getDomainTypes());
+
+		assertThat(graph.affectedBy(Collections.singleton(LineItem.class.getName())))
+				.containsExactlyInAnyOrder(Order.class.getName(), LineItem.class.getName());
+	}
+
+	@Test
+	void readsWrittenGraph(@TempDir Path tempDir) throws IOException {
+
+		File file = tempDir.resolve(TypeDependencyGraph.FILE_NAME).toFile();
+		TypeDependencyGraph graph = TypeDependencyGraph
+				.from(new DataModelGenerator(Collections.singleton(Order.class)).getDomainTypes());
+		graph.write(file);
+
+		TypeDependencyGraph read = TypeDependencyGraph.read(file);
+
+		assertThat(read.getTypes()).isEqualTo(graph.getTypes());
+		assertThat(read.getGeneratedTypeName(Order.class.getName()))
+				.isEqualTo("org.springframework.data.example.cyclic.OrderConfigurableTypeInformation");
+		assertThat(read.affectedBy(Collections.singleton(LineItem.class.getName())))
+				.isEqualTo(graph.affectedBy(Collections.singleton(LineItem.class.getName())));
+	}
+
+	@Test
+	void readsMissingFileAsEmptyGraph(@TempDir Path tempDir) throws IOException {
+		assertThat(TypeDependencyGraph.read(tempDir.resolve("missing").toFile()).isEmpty()).isTrue();
+	}
+}
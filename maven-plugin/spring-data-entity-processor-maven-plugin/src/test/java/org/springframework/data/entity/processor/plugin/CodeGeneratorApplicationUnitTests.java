@@ -0,0 +1,376 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
+import org.springframework.data.example.annotated.AnnotatedPerson;
+import org.springframework.data.example.cyclic.LineItem;
+import org.springframework.data.example.cyclic.Order;
+import org.springframework.data.example.persistable.PersistablePerson;
+import org.springframework.data.example.repo.Person;
+import org.springframework.util.ClassUtils;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class CodeGeneratorApplicationUnitTests {
+
+	@TempDir Path tempDir;
+
+	File outputDirectory;
+	File workDirectory;
+	Map<String, String> options;
+
+	@BeforeEach
+	void beforeEach() {
+
+		outputDirectory = tempDir.resolve("generated-sources").toFile();
+		workDirectory = tempDir.resolve("entity-generator").toFile();
+
+		options = new LinkedHashMap<>();
+		options.put(CodeGeneratorApplication.WORK_DIRECTORY, workDirectory.getAbsolutePath());
+	}
+
+	@Test
+	void writesAllTypesOnFirstIncrementalRun() throws IOException {
+
+		CodeGeneratorApplication.writeFilesIncrementally(model(Order.class), outputDirectory, options);
+
+		assertThat(changedOutputs()).anyMatch(it -> it.endsWith("OrderConfigurableTypeInformation.java"))
+				.anyMatch(it -> it.endsWith("LineItemConfigurableTypeInformation.java"));
+	}
+
+	@Test
+	void leavesUnchangedOutputsUntouched() throws IOException {
+
+		CodeGeneratorApplication.writeFilesIncrementally(model(Order.class), outputDirectory, options);
+		changedClasses(LineItem.class.getName());
+
+		CodeGeneratorApplication.writeFilesIncrementally(model(Order.class), outputDirectory, options);
+
+		assertThat(changedOutputs()).isEmpty();
+	}
+
+	@Test
+	void deletesOutputsOfRemovedTypes() throws IOException {
+
+		CodeGeneratorApplication.writeFilesIncrementally(model(Order.class), outputDirectory, options);
+		File orderSource = new File(outputDirectory,
+				"org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.java");
+		assertThat(orderSource).exists();
+
+		changedClasses(Order.class.getName());
+		CodeGeneratorApplication.writeFilesIncrementally(model(Person.class), outputDirectory, options);
+
+		assertThat(orderSource).doesNotExist();
+		assertThat(changedOutputs()).contains(orderSource.getAbsolutePath())
+				.anyMatch(it -> it.endsWith("PersonConfigurableTypeInformation.java"));
+	}
+
+	@Test
+	void expandsArgumentFiles() throws IOException {
+
+		File argumentFile = tempDir.resolve("arguments.txt").toFile();
+		Files.write(argumentFile.toPath(), Arrays.asList("com.example", "", "/tmp/generated sources", "--backend=bytecode"));
+
+		assertThat(CodeGeneratorApplication.expandArgumentFiles(new String[] { "@" + argumentFile, "--reflect-config" }))
+				.containsExactly("com.example", "/tmp/generated sources", "--backend=bytecode", "--reflect-config");
+	}
+
+	@Test
+	void scansMultiplePackagesFromCommandLine() throws IOException {
+
+		File statistics = tempDir.resolve("stats.json").toFile();
+
+		CodeGeneratorApplication.main(new String[] {
+				"org.springframework.data.example.cyclic,org.springframework.data.example.persistable",
+				outputDirectory.getAbsolutePath(), "--exclude=.*\\.persistable\\..*", "--threads=2",
+				"--stats-json=" + statistics.getAbsolutePath() });
+
+		assertThat(new File(outputDirectory, "org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.java"))
+				.exists();
+		assertThat(new File(outputDirectory,
+				"org/springframework/data/example/persistable/PersistablePersonConfigurableTypeInformation.java"))
+						.doesNotExist();
+		assertThat(new String(Files.readAllBytes(statistics.toPath()), StandardCharsets.UTF_8))
+				.contains("\"packages\": [\"org.springframework.data.example.cyclic\", \"org.springframework.data.example.persistable\"]")
+				.contains("\"threads\": 2");
+	}
+
+	@Test
+	void reportsToGivenOutput() throws IOException {
+
+		List<String> output = new ArrayList<>();
+		CodeGeneratorApplication.run(
+				new String[] { "org.springframework.data.example.cyclic", outputDirectory.getAbsolutePath() }, output::add);
+
+		assertThat(output).anyMatch(it -> it.startsWith("Generated type information for"))
+				.anyMatch(it -> it.startsWith("Phases: scan")).anyMatch(it -> it.startsWith("Write: "));
+	}
+
+	@Test
+	void filtersScannedTypes() {
+
+		List<Class<?>> types = Arrays.asList(Order.class, LineItem.class, Person.class);
+
+		assertThat(CodeGeneratorApplication.filter(types, ".*\\.cyclic\\..*", null)).containsExactly(Order.class,
+				LineItem.class);
+		assertThat(CodeGeneratorApplication.filter(types, null, ".*LineItem, .*Person")).containsExactly(Order.class);
+		assertThat(CodeGeneratorApplication.filter(types, "", "")).containsExactlyElementsOf(types);
+	}
+
+	@Test
+	void generatesTypesRecordedAsMisses() throws IOException {
+
+		File misses = tempDir.resolve("misses.txt").toFile();
+		Files.write(misses.toPath(), Arrays.asList(PersistablePerson.class.getName(), "java.util.ArrayList",
+				"java.util.List", "com.acme.NoLongerPresent", PersistablePerson.class.getName(), ""));
+
+		List<String> output = new ArrayList<>();
+		assertThat(CodeGeneratorApplication.misses(misses, output::add)).containsExactly(PersistablePerson.class);
+		assertThat(output).containsExactly("Skipping recorded miss not on the class path: com.acme.NoLongerPresent");
+		assertThat(CodeGeneratorApplication.misses(tempDir.resolve("not-recorded-yet.txt").toFile(), output::add))
+				.isEmpty();
+
+		CodeGeneratorApplication.main(new String[] { "org.springframework.data.example.cyclic",
+				outputDirectory.getAbsolutePath(), "--record-misses", "--misses=" + misses.getAbsolutePath() });
+
+		assertThat(new File(outputDirectory,
+				"org/springframework/data/example/persistable/PersistablePersonConfigurableTypeInformation.java")).exists();
+		assertThat(new File(outputDirectory, "org/springframework/data/util/ClassTypeInformationMisses.java")).exists();
+		assertThat(new String(Files.readAllBytes(outputDirectory.toPath().resolve(
+				"org/springframework/data/util/Target_ClassTypeInformation.java")), StandardCharsets.UTF_8))
+						.contains("cache.computeIfAbsent(type, ClassTypeInformationMisses::record)");
+	}
+
+	@Test
+	void rejectsMissingPositionalArguments() {
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> CodeGeneratorApplication.main(new String[] { "com.example", "--threads=2" }))
+				.withMessageContaining("Usage");
+	}
+
+	@Test
+	void rejectsUnknownOptions() {
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> CodeGeneratorApplication.options(new String[] { "com.example", "target", "--thread=4" }))
+				.withMessageContaining("--thread").withMessageContaining("Usage");
+	}
+
+	@Test
+	void parsesFlagValues() {
+
+		Map<String, String> options = CodeGeneratorApplication.options(new String[] { "com.example", "target",
+				"--reflect-config", "--instrumentation=false", "--substitution=false" });
+
+		assertThat(CodeGeneratorApplication.isEnabled(options, CodeGeneratorApplication.REFLECT_CONFIG, false)).isTrue();
+		assertThat(CodeGeneratorApplication.isEnabled(options, CodeGeneratorApplication.INSTRUMENTATION, false)).isFalse();
+		assertThat(CodeGeneratorApplication.isEnabled(options, CodeGeneratorApplication.RECORD_MISSES, false)).isFalse();
+		assertThat(CodeGeneratorApplication.isEnabled(options, CodeGeneratorApplication.SUBSTITUTION, true)).isFalse();
+		assertThat(CodeGeneratorApplication.isEnabled(options, CodeGeneratorApplication.REUSE_ENTITY_METADATA, true))
+				.isTrue();
+	}
+
+	@Test
+	void writesOwnedTypesOnly() throws Exception {
+
+		File testClasses = new File(Order.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		options.clear();
+		options.put(CodeGeneratorApplication.OWNED_BY, tempDir.toString());
+
+		CodeGeneratorApplication.writeFiles(model(Order.class), outputDirectory, options);
+
+		assertThat(new File(outputDirectory, "org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.java"))
+				.doesNotExist();
+		assertThat(CodeGeneratorApplication.ownedBy(model(Order.class), testClasses.getAbsolutePath()))
+				.extracting(TypeInfo::getType).contains(Order.class, LineItem.class);
+	}
+
+	@Test
+	void writesTypesOwnedByNoModuleToAdoptingModule() throws Exception {
+
+		File testClasses = new File(Order.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+		options.clear();
+		options.put(CodeGeneratorApplication.OWNED_BY, tempDir.toString());
+		options.put(CodeGeneratorApplication.ADOPT_UNOWNED, tempDir.toString());
+
+		CodeGeneratorApplication.writeFiles(model(Order.class), outputDirectory, options);
+
+		assertThat(new File(outputDirectory, "org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.java"))
+				.exists();
+		assertThat(CodeGeneratorApplication.adoptUnowned(model(Order.class),
+				CodeGeneratorApplication.ownedBy(model(Order.class), tempDir.toString()), testClasses.getAbsolutePath())).isEmpty();
+	}
+
+	@Test
+	void readsModuleOptions() throws IOException {
+
+		File modulesFile = tempDir.resolve("modules.properties").toFile();
+		Files.write(modulesFile.toPath(), Arrays.asList("0.output-directory=/shared", "0.substitution=false",
+				"1.output-directory=/service", "1.backend=bytecode"));
+		options.put(CodeGeneratorApplication.BACKEND, CodeGeneratorApplication.SOURCE_BACKEND);
+		options.put(CodeGeneratorApplication.MODULES, modulesFile.getAbsolutePath());
+
+		List<Map<String, String>> modules = CodeGeneratorApplication.modules(options);
+
+		assertThat(modules).hasSize(2);
+		assertThat(modules.get(0)).containsEntry(CodeGeneratorApplication.OUTPUT_DIRECTORY, "/shared")
+				.containsEntry(CodeGeneratorApplication.SUBSTITUTION, "false")
+				.containsEntry(CodeGeneratorApplication.BACKEND, CodeGeneratorApplication.SOURCE_BACKEND)
+				.doesNotContainKey(CodeGeneratorApplication.MODULES);
+		assertThat(modules.get(1)).containsEntry(CodeGeneratorApplication.OUTPUT_DIRECTORY, "/service")
+				.containsEntry(CodeGeneratorApplication.BACKEND, CodeGeneratorApplication.BYTECODE_BACKEND);
+	}
+
+	@Test
+	void writesSameBytesForShuffledInput() throws IOException {
+
+		List<Class<?>> types = new ArrayList<>(Arrays.asList(Person.class, Order.class, AnnotatedPerson.class,
+				PersistablePerson.class, LineItem.class));
+		options.clear();
+		options.put(CodeGeneratorApplication.REFLECT_CONFIG, "true");
+		options.put(CodeGeneratorApplication.BUILD_TIME_INITIALIZATION, "true");
+
+		Map<String, byte[]> first = generate(types, tempDir.resolve("first"), CodeGeneratorApplication.SOURCE_BACKEND);
+		Collections.shuffle(types, new Random(42));
+		Map<String, byte[]> second = generate(types, tempDir.resolve("second"), CodeGeneratorApplication.SOURCE_BACKEND);
+
+		assertThat(first).isNotEmpty().containsOnlyKeys(second.keySet());
+		first.forEach((path, content) -> assertThat(second.get(path)).describedAs(path).isEqualTo(content));
+
+		Map<String, byte[]> bytecode = generate(types, tempDir.resolve("third"), CodeGeneratorApplication.BYTECODE_BACKEND);
+		Collections.reverse(types);
+		Map<String, byte[]> reversed = generate(types, tempDir.resolve("fourth"), CodeGeneratorApplication.BYTECODE_BACKEND);
+
+		assertThat(bytecode).containsOnlyKeys(reversed.keySet());
+		bytecode.forEach((path, content) -> assertThat(reversed.get(path)).describedAs(path).isEqualTo(content));
+	}
+
+	@Test
+	void writesSameBytesForPermutedReflectionOrder() throws IOException {
+
+		options.clear();
+		options.put(CodeGeneratorApplication.REFLECT_CONFIG, "true");
+		options.put(CodeGeneratorApplication.BUILD_TIME_INITIALIZATION, "true");
+
+		SyntheticDomainGenerator.Builder builder = SyntheticDomainGenerator.builder().entities(5).properties(12)
+				.annotationDensity(0.5);
+		SyntheticDomain declared = builder.build().compile(tempDir.resolve("declared"));
+		SyntheticDomain shuffled = builder.shuffleMembers(true).build().compile(tempDir.resolve("shuffled"));
+
+		assertThat(declaredFieldNames(shuffled)).isNotEqualTo(declaredFieldNames(declared))
+				.containsExactlyInAnyOrderElementsOf(declaredFieldNames(declared));
+
+		for (String backend : Arrays.asList(CodeGeneratorApplication.SOURCE_BACKEND,
+				CodeGeneratorApplication.BYTECODE_BACKEND)) {
+
+			Map<String, byte[]> first = generate(declared, tempDir.resolve(backend + "-declared"), backend);
+			Map<String, byte[]> second = generate(shuffled, tempDir.resolve(backend + "-shuffled"), backend);
+
+			assertThat(first).isNotEmpty().containsOnlyKeys(second.keySet());
+			first.forEach((path, content) -> assertThat(second.get(path)).describedAs(path).isEqualTo(content));
+		}
+	}
+
+	private void changedClasses(String... classNames) throws IOException {
+
+		File changedClasses = new File(workDirectory, "changed-classes.txt");
+		Files.write(changedClasses.toPath(), Arrays.asList(classNames));
+		options.put(CodeGeneratorApplication.CHANGED_CLASSES, changedClasses.getAbsolutePath());
+	}
+
+	private List<String> changedOutputs() throws IOException {
+		return Files.readAllLines(new File(workDirectory, CodeGeneratorApplication.CHANGED_OUTPUTS_FILE_NAME).toPath());
+	}
+
+	private static List<String> declaredFieldNames(SyntheticDomain domain) throws IOException {
+
+		try (URLClassLoader classLoader = domain.newClassLoader(CodeGeneratorApplicationUnitTests.class.getClassLoader())) {
+			return Arrays.stream(domain.loadEntities(classLoader).get(0).getDeclaredFields()).map(Field::getName)
+					.collect(Collectors.toList());
+		}
+	}
+
+	/**
+	 * Scan and generate the given domain within its own class loader.
+	 */
+	private Map<String, byte[]> generate(SyntheticDomain domain, Path directory, String backend) throws IOException {
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			ClassLoader original = ClassUtils.overrideThreadContextClassLoader(classLoader);
+			try {
+				return generate(CodeGeneratorApplication.scan(domain.getBasePackage()), directory, backend);
+			} finally {
+
+				ClassUtils.overrideThreadContextClassLoader(original);
+				CodeGeneratorApplication.clearCaches(classLoader);
+			}
+		}
+	}
+
+	private Map<String, byte[]> generate(List<Class<?>> types, Path directory, String backend) throws IOException {
+
+		Map<String, String> options = new LinkedHashMap<>(this.options);
+		options.put(CodeGeneratorApplication.BACKEND, backend);
+		options.put(CodeGeneratorApplication.CLASSES_DIRECTORY, directory.resolve("classes").toString());
+		options.put(CodeGeneratorApplication.SNAPSHOT, directory.resolve("entity-metadata.properties").toString());
+
+		CodeGeneratorApplication.writeFiles(CodeGeneratorApplication.model(types), directory.toFile(), options);
+
+		Map<String, byte[]> files = new TreeMap<>();
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				files.put(directory.relativize(path).toString(), Files.readAllBytes(path));
+			}
+		}
+		return files;
+	}
+
+	private static DomainTypes model(Class<?> type) {
+		return new DataModelGenerator(Collections.singleton(type)).getDomainTypes();
+	}
+}
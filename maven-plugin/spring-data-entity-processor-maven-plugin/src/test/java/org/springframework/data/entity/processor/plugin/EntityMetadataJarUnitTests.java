@@ -0,0 +1,110 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.TypeDependencyGraph;
+import org.springframework.data.example.cyclic.LineItem;
+import org.springframework.data.example.cyclic.Order;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class EntityMetadataJarUnitTests {
+
+	@TempDir Path tempDir;
+
+	File classes;
+	File snapshot;
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+
+		classes = tempDir.resolve("classes").toFile();
+		snapshot = tempDir.resolve(CodeGeneratorApplication.SNAPSHOT_FILE_NAME).toFile();
+		TypeDependencyGraph.from(new DataModelGenerator(Collections.singleton(Order.class)).getDomainTypes())
+				.write(snapshot);
+	}
+
+	@Test
+	void packagesSnapshotOnly() throws IOException {
+
+		classFile("org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.class");
+		classFile("org/springframework/data/example/cyclic/OrderConfigurableTypeInformation$1.class");
+		classFile("org/springframework/data/example/cyclic/LineItemConfigurableTypeInformation.class");
+		classFile("org/springframework/data/example/cyclic/Order.class");
+
+		File jar = tempDir.resolve("domain-entity-metadata.jar").toFile();
+		int typeCount = new EntityMetadataJar(classes, snapshot).write(jar, "com.acme.domain.properties");
+
+		// the type information ships with the main artifact
+		assertThat(typeCount).isEqualTo(2);
+		try (JarFile jarFile = new JarFile(jar)) {
+			assertThat(jarFile.stream().map(it -> it.getName()).collect(Collectors.toList())).containsExactly(
+					"META-INF/MANIFEST.MF", //
+					"META-INF/spring-data/entity-metadata/com.acme.domain.properties");
+		}
+	}
+
+	@Test
+	void rejectsMissingTypeInformation() {
+
+		assertThatIOException().isThrownBy(() -> new EntityMetadataJar(classes, snapshot)
+				.write(tempDir.resolve("domain-entity-metadata.jar").toFile(), "com.acme.domain.properties"));
+	}
+
+	@Test
+	void detectsReusableTypesOnClassPath() throws IOException {
+
+		File metadata = tempDir.resolve("metadata").toFile();
+		File snapshotResource = new File(metadata, CodeGeneratorApplication.ENTITY_METADATA_LOCATION + "com.acme.properties");
+		snapshotResource.getParentFile().mkdirs();
+		Files.write(snapshotResource.toPath(), String.join("\n", //
+				Order.class.getName() + ".generated=" + Order.class.getName(), //
+				Order.class.getName() + ".dependencies=" + Order.class.getName(), //
+				LineItem.class.getName() + ".generated=com.acme.Missing", //
+				LineItem.class.getName() + ".dependencies=" + LineItem.class.getName()).getBytes());
+
+		try (URLClassLoader classLoader = new URLClassLoader(new URL[] { metadata.toURI().toURL() },
+				getClass().getClassLoader())) {
+
+			assertThat(CodeGeneratorApplication.reusableTypes(classLoader)).containsExactly(Order.class.getName());
+		}
+	}
+
+	private void classFile(String path) throws IOException {
+
+		File file = new File(classes, path);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), new byte[] { (byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE });
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratedSourcesCompilerUnitTests {
+
+	@TempDir Path tempDir;
+
+	File sources;
+	File classes;
+	GeneratedSourcesCompiler compiler;
+
+	@BeforeEach
+	void beforeEach() {
+
+		sources = tempDir.resolve("generated-sources").toFile();
+		classes = tempDir.resolve("classes").toFile();
+		classes.mkdirs();
+		compiler = new GeneratedSourcesCompiler(sources, classes, Collections.emptyList(), Arrays.asList("-source", "1.8", "-target", "1.8"));
+	}
+
+	@Test
+	void compilesIntoClassesDirectory() throws IOException {
+
+		source("com/example/A.java", "package com.example; public class A { B b; }");
+		source("com/example/B.java", "package com.example; public class B { Runnable r = new Runnable() { public void run() {} }; }");
+
+		assertThat(compiler.compile()).containsExactly("com/example/A.java", "com/example/B.java");
+		assertThat(new File(classes, "com/example/A.class")).exists();
+		assertThat(new File(classes, "com/example/B.class")).exists();
+		assertThat(new File(classes, "com/example/B$1.class")).exists();
+	}
+
+	@Test
+	void compilesChangedSourcesOnly() throws IOException {
+
+		source("com/example/A.java", "package com.example; public class A { B b; }");
+		source("com/example/B.java", "package com.example; public class B { }");
+		compiler.compile();
+
+		assertThat(compiler.compile()).isEmpty();
+
+		source("com/example/A.java", "package com.example; public class A { B b; String value; }");
+
+		assertThat(compiler.compile()).containsExactly("com/example/A.java");
+	}
+
+	@Test
+	void recompilesSourceOfChangedDomainType() throws IOException {
+
+		classFile("com/example/A.class", "version 1");
+		source("com/example/AConfigurableTypeInformation.java", "package com.example; public class AConfigurableTypeInformation { }");
+		source("com/example/B.java", "package com.example; public class B { }");
+		compiler.compile();
+
+		classFile("com/example/A.class", "version 2");
+
+		assertThat(compiler.compile()).containsExactly("com/example/AConfigurableTypeInformation.java");
+		assertThat(compiler.compile()).isEmpty();
+	}
+
+	@Test
+	void recompilesAllSourcesOnClasspathChange() throws IOException {
+
+		File jar = tempDir.resolve("dependency.jar").toFile();
+		jar(jar, "first");
+		compiler = new GeneratedSourcesCompiler(sources, classes, Collections.singletonList(jar),
+				Arrays.asList("-source", "1.8", "-target", "1.8"));
+
+		source("com/example/A.java", "package com.example; public class A { }");
+		source("com/example/B.java", "package com.example; public class B { }");
+		compiler.compile();
+		assertThat(compiler.compile()).isEmpty();
+
+		jar(jar, "second and longer");
+
+		assertThat(compiler.compile()).containsExactly("com/example/A.java", "com/example/B.java");
+	}
+
+	@Test
+	void removesClassFilesOfDeletedSources() throws IOException {
+
+		source("com/example/A.java", "package com.example; public class A { class Nested {} }");
+		compiler.compile();
+
+		Files.delete(sources.toPath().resolve("com/example/A.java"));
+		compiler.compile();
+
+		assertThat(new File(classes, "com/example/A.class")).doesNotExist();
+		assertThat(new File(classes, "com/example/A$Nested.class")).doesNotExist();
+	}
+
+	@Test
+	void reportsCompilationErrors() throws IOException {
+
+		source("com/example/A.java", "package com.example; public class A { Unknown unknown; }");
+
+		assertThatIllegalStateException().isThrownBy(compiler::compile).withMessageContaining("Unknown");
+		assertThat(new File(classes, "com/example/A.class")).doesNotExist();
+	}
+
+	private void classFile(String path, String content) throws IOException {
+
+		Path file = classes.toPath().resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void jar(File jar, String content) throws IOException {
+
+		try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+			out.putNextEntry(new ZipEntry("content.txt"));
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+	}
+
+	private void source(String path, String content) throws IOException {
+
+		Path file = sources.toPath().resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+}
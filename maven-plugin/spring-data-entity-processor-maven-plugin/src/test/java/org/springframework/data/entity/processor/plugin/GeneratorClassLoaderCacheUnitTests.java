@@ -0,0 +1,145 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorClassLoaderCacheUnitTests {
+
+	@TempDir Path tempDir;
+
+	File domainJar;
+	File toolsJar;
+	ClassLoader parent = getClass().getClassLoader();
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+
+		GeneratorClassLoaderCache.clear();
+		domainJar = jar("domain.jar", "v1");
+		toolsJar = jar("tools.jar", "tools");
+	}
+
+	@AfterEach
+	void afterEach() {
+		GeneratorClassLoaderCache.clear();
+	}
+
+	@Test
+	void reusesClassLoaderForSameJars() throws IOException {
+
+		ClassLoader first = GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.0"), parent);
+
+		assertThat(GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.0"), parent)).isSameAs(first);
+		assertThat(GeneratorClassLoaderCache.size()).isOne();
+	}
+
+	@Test
+	void createsNewClassLoaderIfCoordinatesDiffer() throws IOException {
+
+		ClassLoader first = GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.0"), parent);
+
+		assertThat(GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.1"), parent)).isNotSameAs(first);
+	}
+
+	@Test
+	void createsNewClassLoaderIfJarContentChanged() throws IOException {
+
+		ClassLoader first = GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.0-SNAPSHOT"), parent);
+
+		Files.write(domainJar.toPath(), "v2".getBytes());
+		Files.setLastModifiedTime(domainJar.toPath(), FileTime.fromMillis(domainJar.lastModified() + 1000));
+
+		assertThat(GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:1.0-SNAPSHOT"), parent))
+				.isNotSameAs(first);
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedClassLoaders() throws IOException {
+
+		for (int i = 0; i <= GeneratorClassLoaderCache.MAX_CACHED_CLASS_LOADERS; i++) {
+			GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:" + i), parent);
+		}
+
+		assertThat(GeneratorClassLoaderCache.size()).isEqualTo(GeneratorClassLoaderCache.MAX_CACHED_CLASS_LOADERS);
+	}
+
+	@Test
+	void closesEvictedClassLoaders() throws IOException {
+
+		ClassLoader first = GeneratorClassLoaderCache.getClassLoader(resources("com.example:domain:jar:0"), parent);
+		GeneratorClassLoaderCache.release(first);
+		assertThat(first.getResource("marker.txt")).isNotNull();
+
+		for (int i = 1; i <= GeneratorClassLoaderCache.MAX_CACHED_CLASS_LOADERS; i++) {
+			GeneratorClassLoaderCache.release(GeneratorClassLoaderCache.getClassLoader(jars("com.example:domain:jar:" + i), parent));
+		}
+
+		assertThat(first.getResource("marker.txt")).isNull();
+	}
+
+	@Test
+	void closesEvictedClassLoadersOnceReleased() throws IOException {
+
+		ClassLoader first = GeneratorClassLoaderCache.getClassLoader(resources("com.example:domain:jar:0"), parent);
+		GeneratorClassLoaderCache.clear();
+
+		assertThat(first.getResource("marker.txt")).isNotNull();
+
+		GeneratorClassLoaderCache.release(first);
+
+		assertThat(first.getResource("marker.txt")).isNull();
+	}
+
+	private Map<String, File> jars(String domainCoordinates) {
+
+		Map<String, File> jars = new LinkedHashMap<>();
+		jars.put(domainCoordinates, domainJar);
+		jars.put("tools", toolsJar);
+		return jars;
+	}
+
+	private Map<String, File> resources(String domainCoordinates) throws IOException {
+
+		Path resources = Files.createDirectories(tempDir.resolve("resources"));
+		Files.write(resources.resolve("marker.txt"), "marker".getBytes());
+
+		Map<String, File> jars = jars(domainCoordinates);
+		jars.put("resources", resources.toFile());
+		return jars;
+	}
+
+	private File jar(String name, String content) throws IOException {
+		return Files.write(tempDir.resolve(name), content.getBytes()).toFile();
+	}
+}
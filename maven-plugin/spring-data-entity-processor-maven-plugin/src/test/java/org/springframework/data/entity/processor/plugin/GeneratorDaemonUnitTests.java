@@ -0,0 +1,194 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratorDaemonUnitTests {
+
+	@TempDir Path tempDir;
+
+	File directory;
+	Thread daemon;
+	GeneratorDaemonClient client;
+
+	@BeforeEach
+	void beforeEach() throws InterruptedException {
+
+		directory = tempDir.resolve("daemon").toFile();
+		daemon = new Thread(() -> {
+			try {
+				new GeneratorDaemon(directory, 60_000, 500).run();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+		daemon.start();
+
+		File stateFile = new File(directory, GeneratorDaemon.STATE_FILE_NAME);
+		for (int i = 0; i < 100 && !stateFile.isFile(); i++) {
+			Thread.sleep(50);
+		}
+
+		// the daemon is already running so there is nothing to launch
+		client = new GeneratorDaemonClient(directory, null, 60_000);
+	}
+
+	@AfterEach
+	void afterEach() throws IOException, InterruptedException {
+
+		client.stop();
+		daemon.join(5_000);
+	}
+
+	@Test
+	void runsGeneratorRepeatedly() throws Exception {
+
+		for (String run : Arrays.asList("first", "second")) {
+
+			File outputDirectory = tempDir.resolve(run).toFile();
+			List<String> output = new ArrayList<>();
+
+			int exitCode = client.generate(Collections.emptyList(), testClassPath(),
+					Arrays.asList("org.springframework.data.example.cyclic", outputDirectory.getAbsolutePath()), output::add);
+
+			assertThat(exitCode).isZero();
+			assertThat(output).anyMatch(it -> it.startsWith("Generated type information for"));
+			assertThat(new File(outputDirectory,
+					"org/springframework/data/example/cyclic/OrderConfigurableTypeInformation.java")).exists();
+		}
+	}
+
+	@Test
+	void reportsGeneratorFailure() throws Exception {
+
+		List<String> output = new ArrayList<>();
+
+		int exitCode = client.generate(Collections.emptyList(), Collections.emptyMap(),
+				Arrays.asList("org.springframework.data.example.cyclic", tempDir.toString()), output::add);
+
+		assertThat(exitCode).isEqualTo(1);
+		assertThat(output).anyMatch(it -> it.contains("ClassNotFoundException"));
+	}
+
+	@Test
+	void stopsAndRemovesState() throws Exception {
+
+		assertThat(client.stop()).isTrue();
+		daemon.join(5_000);
+
+		assertThat(daemon.isAlive()).isFalse();
+		assertThat(new File(directory, GeneratorDaemon.STATE_FILE_NAME)).doesNotExist();
+		assertThat(client.stop()).isFalse();
+	}
+
+	@Test
+	void dropsConnectionsNotSendingARequest() throws Exception {
+
+		Properties state = GeneratorDaemon.readState(new File(directory, GeneratorDaemon.STATE_FILE_NAME));
+		try (Socket silent = new Socket(InetAddress.getLoopbackAddress(),
+				Integer.parseInt(state.getProperty(GeneratorDaemon.PORT)))) {
+
+			List<String> output = new ArrayList<>();
+			int exitCode = client.generate(Collections.emptyList(), Collections.emptyMap(),
+					Arrays.asList("org.springframework.data.example.cyclic", tempDir.toString()), output::add);
+
+			assertThat(exitCode).isEqualTo(1);
+			assertThat(silent.getInputStream().read()).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	void retriesDaemonClosingConnectionWithoutResponse() throws Exception {
+
+		Path stateFile = new File(directory, GeneratorDaemon.STATE_FILE_NAME).toPath();
+		byte[] runningState = Files.readAllBytes(stateFile);
+
+		try (ServerSocket stopping = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+
+			Properties state = GeneratorDaemon.readState(stateFile.toFile());
+			state.setProperty(GeneratorDaemon.PORT, Integer.toString(stopping.getLocalPort()));
+			try (OutputStream out = Files.newOutputStream(stateFile)) {
+				state.store(out, null);
+			}
+
+			// accepts a single connection and closes it, having handed over to the running daemon
+			Thread stoppingDaemon = new Thread(() -> {
+				try (Socket socket = stopping.accept()) {
+					Files.write(stateFile, runningState);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			stoppingDaemon.start();
+
+			List<String> output = new ArrayList<>();
+			int exitCode = client.generate(Collections.emptyList(), Collections.emptyMap(),
+					Arrays.asList("org.springframework.data.example.cyclic", tempDir.toString()), output::add);
+			stoppingDaemon.join(5_000);
+
+			assertThat(exitCode).isEqualTo(1);
+			assertThat(output).anyMatch(it -> it.contains("ClassNotFoundException"));
+		}
+	}
+
+	@Test
+	void publishesStateReadableByOwnerOnly() throws IOException {
+
+		Path stateFile = new File(directory, GeneratorDaemon.STATE_FILE_NAME).toPath();
+		if (Files.getFileStore(stateFile).supportsFileAttributeView(PosixFileAttributeView.class)) {
+			assertThat(Files.getPosixFilePermissions(stateFile)).containsOnly(PosixFilePermission.OWNER_READ,
+					PosixFilePermission.OWNER_WRITE);
+		}
+	}
+
+	private static Map<String, File> testClassPath() {
+
+		Map<String, File> jars = new LinkedHashMap<>();
+		for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+			jars.put(entry, new File(entry));
+		}
+		return jars;
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.plugin;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class StaleSourceDetectorUnitTests {
+
+	@TempDir Path tempDir;
+
+	Path sources;
+	Path classes;
+	StaleSourceDetector detector;
+
+	@BeforeEach
+	void beforeEach() throws IOException {
+
+		sources = Files.createDirectories(tempDir.resolve("src/main/java"));
+		classes = Files.createDirectories(tempDir.resolve("classes"));
+		detector = new StaleSourceDetector(classes.toFile(), tempDir.resolve("work").toFile());
+	}
+
+	@Test
+	void reportsSourcesWithoutClassFile() throws IOException {
+
+		File source = file(sources, "com/example/A.java", 1000);
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile()))).containsExactly(source);
+	}
+
+	@Test
+	void reportsSourcesNewerThanTheirClassFile() throws IOException {
+
+		File source = file(sources, "com/example/A.java", 2000);
+		file(classes, "com/example/A.class", 1000);
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile()))).containsExactly(source);
+	}
+
+	@Test
+	void considersUpToDateClassesCurrent() throws IOException {
+
+		file(sources, "com/example/A.java", 1000);
+		file(classes, "com/example/A.class", 2000);
+		file(sources, "com/example/package-info.java", 3000);
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile()))).isEmpty();
+	}
+
+	@Test
+	void skipsMissingSourceRoots() throws IOException {
+
+		File source = file(sources, "com/example/A.java", 1000);
+
+		assertThat(detector.findStaleSources(Arrays.asList(tempDir.resolve("missing").toFile(), sources.toFile())))
+				.containsExactly(source);
+	}
+
+	@Test
+	void reportsSourcesRemovedSinceRecorded() throws IOException {
+
+		file(sources, "com/example/A.java", 1000);
+		File removed = file(sources, "com/example/B.java", 1000);
+		file(classes, "com/example/A.class", 2000);
+		file(classes, "com/example/B.class", 2000);
+		detector.recordSources(Collections.singletonList(sources.toFile()));
+
+		Files.delete(removed.toPath());
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile())))
+				.containsExactly(removed.getAbsoluteFile());
+
+		detector.recordSources(Collections.singletonList(sources.toFile()));
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile()))).isEmpty();
+	}
+
+	@Test
+	void reportsSourcesModifiedSinceRecordedDespiteOlderTimestamp() throws IOException {
+
+		File source = file(sources, "com/example/A.java", 1000);
+		file(classes, "com/example/A.class", 2000);
+		detector.recordSources(Collections.singletonList(sources.toFile()));
+
+		Files.write(source.toPath(), "class A {}".getBytes());
+		Files.setLastModifiedTime(source.toPath(), FileTime.fromMillis(1000));
+
+		assertThat(detector.findStaleSources(Collections.singletonList(sources.toFile()))).containsExactly(source);
+	}
+
+	private static File file(Path root, String path, long lastModified) throws IOException {
+
+		Path file = root.resolve(path);
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[0]);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified));
+		return file.toFile();
+	}
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.synthetic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.springframework.data.annotation.Persistent;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Compiles a synthetic classpath consisting of entities, repositories and unrelated classes spread across directories
+ * and jars below a common base package. Intended to exercise the scanner against classpaths of realistic size without
+ * requiring network access.
+ *
+ * <pre class="code">
+ * SyntheticClasspath classpath = SyntheticClasspath.builder().classCount(5000).entityRatio(0.2).repositoryRatio(0.05)
+ * 		.directories(2).jars(4).build(target);
+ * </pre>
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class SyntheticClasspath {
+
+	private final String basePackage;
+	private final List<Path> roots;
+	private final int entityCount;
+	private final int repositoryCount;
+	private final int noiseCount;
+
+	private SyntheticClasspath(String basePackage, List<Path> roots, int entityCount, int repositoryCount, int noiseCount) {
+
+		this.basePackage = basePackage;
+		this.roots = roots;
+		this.entityCount = entityCount;
+		this.repositoryCount = repositoryCount;
+		this.noiseCount = noiseCount;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * @return the package containing all generated classes.
+	 */
+	public String getBasePackage() {
+		return basePackage;
+	}
+
+	/**
+	 * @return the directories and jars making up the classpath.
+	 */
+	public List<Path> getRoots() {
+		return Collections.unmodifiableList(roots);
+	}
+
+	public URL[] getUrls() {
+
+		return roots.stream().map(it -> {
+			try {
+				return it.toUri().toURL();
+			} catch (MalformedURLException e) {
+				throw new IllegalStateException(e);
+			}
+		}).toArray(URL[]::new);
+	}
+
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	public int getRepositoryCount() {
+		return repositoryCount;
+	}
+
+	public int getNoiseCount() {
+		return noiseCount;
+	}
+
+	public int getClassCount() {
+		return entityCount + repositoryCount + noiseCount;
+	}
+
+	public static class Builder {
+
+		private String basePackage = "com.example.synthetic";
+		private int classCount = 1000;
+		private double entityRatio = 0.2;
+		private double repositoryRatio = 0.05;
+		private int directories = 1;
+		private int jars = 1;
+
+		private Builder() {}
+
+		public Builder basePackage(String basePackage) {
+			this.basePackage = basePackage;
+			return this;
+		}
+
+		/**
+		 * @param classCount total number of top level classes.
+		 */
+		public Builder classCount(int classCount) {
+			this.classCount = classCount;
+			return this;
+		}
+
+		/**
+		 * @param entityRatio share of {@link Persistent} entities.
+		 */
+		public Builder entityRatio(double entityRatio) {
+			this.entityRatio = entityRatio;
+			return this;
+		}
+
+		/**
+		 * @param repositoryRatio share of {@link Repository} interfaces. Everything not being an entity or repository is
+		 *          noise the scanner has to skip.
+		 */
+		public Builder repositoryRatio(double repositoryRatio) {
+			this.repositoryRatio = repositoryRatio;
+			return this;
+		}
+
+		/**
+		 * @param directories number of class directories to spread the classes across.
+		 */
+		public Builder directories(int directories) {
+			this.directories = directories;
+			return this;
+		}
+
+		/**
+		 * @param jars number of jar files to spread the classes across.
+		 */
+		public Builder jars(int jars) {
+			this.jars = jars;
+			return this;
+		}
+
+		/**
+		 * Generate, compile and package the classes.
+		 *
+		 * @param target the directory to create the classpath in.
+		 * @return the {@link SyntheticClasspath}.
+		 * @throws IOException on failure to write sources or class files.
+		 */
+		public SyntheticClasspath build(Path target) throws IOException {
+
+			Assert.isTrue(entityRatio + repositoryRatio <= 1, "Ratio of entities and repositories must not exceed 1!");
+			Assert.isTrue(directories + jars > 0, "At least one directory or jar is required!");
+
+			int entityCount = (int) (classCount * entityRatio);
+			int repositoryCount = Math.min((int) (classCount * repositoryRatio), entityCount);
+			int noiseCount = classCount - entityCount - repositoryCount;
+
+			int rootCount = directories + jars;
+			Path sources = Files.createDirectories(target.resolve("sources"));
+			List<Path> rootClasses = new ArrayList<>();
+			for (int i = 0; i < rootCount; i++) {
+				rootClasses.add(Files.createDirectories(target.resolve("classes-" + i)));
+			}
+
+			SyntheticDomainGenerator domain = domainGenerator(Math.max(entityCount, 1), rootCount);
+
+			List<Path> sourceFiles = new ArrayList<>();
+			if (entityCount > 0) {
+				for (Map.Entry<String, String> source : domain.generateSources().entrySet()) {
+					sourceFiles.add(write(sources, ClassUtils.getPackageName(source.getKey()),
+							ClassUtils.getShortName(source.getKey()), source.getValue()));
+				}
+			}
+			for (int i = 0; i < repositoryCount; i++) {
+				sourceFiles.add(write(sources, packageName(i, rootCount), "Repository" + i, repositorySource(domain, i, rootCount)));
+			}
+			for (int i = 0; i < noiseCount; i++) {
+				sourceFiles.add(write(sources, packageName(i, rootCount), "Noise" + i, noiseSource(i, rootCount)));
+			}
+
+			Path compiled = Files.createDirectories(target.resolve("compiled"));
+			compile(sourceFiles, compiled);
+
+			// move each package to its root
+			for (int i = 0; i < rootCount; i++) {
+
+				String packagePath = packageName(i, rootCount).replace('.', '/');
+				Path packageDirectory = compiled.resolve(packagePath);
+				if (Files.isDirectory(packageDirectory)) {
+					Path destination = rootClasses.get(i).resolve(packagePath);
+					Files.createDirectories(destination.getParent());
+					Files.move(packageDirectory, destination);
+				}
+			}
+
+			List<Path> roots = new ArrayList<>();
+			for (int i = 0; i < rootCount; i++) {
+
+				if (i < directories) {
+					roots.add(rootClasses.get(i));
+				} else {
+					roots.add(jar(rootClasses.get(i), target.resolve("synthetic-" + i + ".jar")));
+				}
+			}
+
+			return new SyntheticClasspath(basePackage, roots, entityCount, repositoryCount, noiseCount);
+		}
+
+		private String packageName(int index, int rootCount) {
+			return basePackage + ".p" + (index % rootCount);
+		}
+
+		/**
+		 * Plain entities holding a few simple properties and a reference to another entity. References form a tree to keep
+		 * the reference depth logarithmic.
+		 */
+		private SyntheticDomainGenerator domainGenerator(int entityCount, int rootCount) {
+
+			return SyntheticDomainGenerator.builder() //
+					.basePackage(basePackage) //
+					.packages(rootCount) //
+					.entities(entityCount) //
+					.properties(4) //
+					.nestingDepth(0) //
+					.inheritanceDepth(0) //
+					.collections(false) //
+					.maps(false) //
+					.enums(false) //
+					.cycles(false) //
+					.annotationDensity(0) //
+					.build();
+		}
+
+		private String repositorySource(SyntheticDomainGenerator domain, int index, int rootCount) {
+
+			String entity = domain.entityName(index);
+
+			StringBuilder source = new StringBuilder();
+			source.append("package ").append(packageName(index, rootCount)).append(";\n\n");
+			source.append("public interface Repository").append(index).append(" extends ").append(Repository.class.getName())
+					.append("<").append(entity).append(", String> {\n");
+			source.append("\tjava.util.List<").append(entity).append("> findByProperty0(String property0);\n");
+			source.append("}\n");
+			return source.toString();
+		}
+
+		private String noiseSource(int index, int rootCount) {
+
+			StringBuilder source = new StringBuilder();
+			source.append("package ").append(packageName(index, rootCount)).append(";\n\n");
+			source.append("public class Noise").append(index).append(" {\n");
+			source.append("\tprivate final java.util.Map<String, Object> values = new java.util.HashMap<>();\n");
+			source.append("\tpublic Object get(String key) { return values.get(key); }\n");
+			source.append("\tpublic Runnable task() { return () -> values.clear(); }\n");
+			source.append("}\n");
+			return source.toString();
+		}
+	}
+
+	static Path write(Path sources, String packageName, String simpleName, String content) throws IOException {
+
+		Path file = sources.resolve(packageName.replace('.', '/')).resolve(simpleName + ".java");
+		Files.createDirectories(file.getParent());
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	/**
+	 * Compile the given sources against Spring Data Commons.
+	 */
+	static void compile(List<Path> sourceFiles, Path target) throws IOException {
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		Assert.state(compiler != null, "No Java compiler available. Make sure to run on a JDK.");
+
+		Path argumentFile = Files.createTempFile("synthetic-sources", ".txt");
+		try {
+
+			// passing thousands of files on the command line exceeds its limits on some platforms
+			Files.write(argumentFile, sourceFiles.stream().map(it -> "\"" + it.toAbsolutePath().toString().replace("\\", "\\\\") + "\"")
+					.collect(Collectors.toList()), StandardCharsets.UTF_8);
+
+			String classpath = Stream.of(Persistent.class, Repository.class).map(SyntheticClasspath::location).distinct()
+					.collect(Collectors.joining(File.pathSeparator));
+
+			int result = compiler.run(null, null, System.err, "-nowarn", "-proc:none", "-encoding", "UTF-8", "-d",
+					target.toString(), "-classpath", classpath, "@" + argumentFile);
+			Assert.state(result == 0, "Failed to compile synthetic sources");
+		} finally {
+			Files.deleteIfExists(argumentFile);
+		}
+	}
+
+	private static String location(Class<?> type) {
+
+		try {
+			return Paths.get(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	static Path jar(Path classes, Path jar) throws IOException {
+
+		try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out);
+				Stream<Path> files = Files.walk(classes)) {
+
+			for (Path file : (Iterable<Path>) files.sorted()::iterator) {
+
+				String name = classes.relativize(file).toString().replace(File.separatorChar, '/');
+				if (name.isEmpty()) {
+					continue;
+				}
+
+				if (Files.isDirectory(file)) {
+					zip.putNextEntry(new ZipEntry(name + "/"));
+				} else {
+					zip.putNextEntry(new ZipEntry(name));
+					Files.copy(file, zip);
+				}
+				zip.closeEntry();
+			}
+		}
+		return jar;
+	}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.synthetic;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.ClassUtils;
+
+/**
+ * A domain model compiled by the {@link SyntheticDomainGenerator}.
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class SyntheticDomain {
+
+	private final String basePackage;
+	private final Path classes;
+	private final List<String> entityNames;
+
+	SyntheticDomain(String basePackage, Path classes, List<String> entityNames) {
+
+		this.basePackage = basePackage;
+		this.classes = classes;
+		this.entityNames = entityNames;
+	}
+
+	/**
+	 * @return the package containing all types of the domain.
+	 */
+	public String getBasePackage() {
+		return basePackage;
+	}
+
+	/**
+	 * @return the directory containing the compiled classes.
+	 */
+	public Path getClasses() {
+		return classes;
+	}
+
+	public List<String> getEntityNames() {
+		return Collections.unmodifiableList(entityNames);
+	}
+
+	public URL getUrl() {
+
+		try {
+			return classes.toUri().toURL();
+		} catch (MalformedURLException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param parent the parent providing Spring Data, typically the loader of the calling test.
+	 * @return a new {@link URLClassLoader} for the domain. Callers are responsible for closing it.
+	 */
+	public URLClassLoader newClassLoader(ClassLoader parent) {
+		return new URLClassLoader(new URL[] { getUrl() }, parent);
+	}
+
+	/**
+	 * @param classLoader the loader obtained via {@link #newClassLoader(ClassLoader)}.
+	 * @return the entity types.
+	 */
+	public List<Class<?>> loadEntities(ClassLoader classLoader) {
+
+		List<Class<?>> entities = new ArrayList<>(entityNames.size());
+		for (String entityName : entityNames) {
+			entities.add(ClassUtils.resolveClassName(entityName, classLoader));
+		}
+		return entities;
+	}
+}
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.synthetic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Persistent;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Generates and compiles large synthetic domain models to stress the scanner, the model and the writers. Shape and
+ * size of the model are configurable:
+ * <ul>
+ * <li>number of entities and properties per entity,</li>
+ * <li>nesting depth of value types held by each entity,</li>
+ * <li>inheritance depth of the shared abstract entity hierarchy, optionally generic in its identifier type,</li>
+ * <li>collection, map and enum properties,</li>
+ * <li>whether entity references form cycles or a tree,</li>
+ * <li>the share of properties carrying an annotation with attributes,</li>
+ * <li>whether fields and accessors are declared in a shuffled order, which is the order reflection reports them in.</li>
+ * </ul>
+ * Generation is deterministic for a given configuration.
+ *
+ * <pre class="code">
+ * SyntheticDomain domain = SyntheticDomainGenerator.builder().entities(1000).properties(10).nestingDepth(2)
+ * 		.inheritanceDepth(1).build().compile(target);
+ *
+ * try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+ * 	List&lt;Class&lt;?&gt;&gt; entities = domain.loadEntities(classLoader);
+ * }
+ * </pre>
+ *
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class SyntheticDomainGenerator {
+
+	static final String ANNOTATION_NAME = "SyntheticAnnotation";
+	static final String ENUM_NAME = "SyntheticKind";
+
+	private final String basePackage;
+	private final int entities;
+	private final int properties;
+	private final int nestingDepth;
+	private final int inheritanceDepth;
+	private final boolean generics;
+	private final boolean collections;
+	private final boolean maps;
+	private final boolean enums;
+	private final boolean cycles;
+	private final double annotationDensity;
+	private final int packages;
+	private final boolean shuffleMembers;
+	private final long seed;
+
+	private SyntheticDomainGenerator(Builder builder) {
+
+		this.basePackage = builder.basePackage;
+		this.entities = builder.entities;
+		this.properties = builder.properties;
+		this.nestingDepth = builder.nestingDepth;
+		this.inheritanceDepth = builder.inheritanceDepth;
+		this.generics = builder.generics;
+		this.collections = builder.collections;
+		this.maps = builder.maps;
+		this.enums = builder.enums;
+		this.cycles = builder.cycles;
+		this.annotationDensity = builder.annotationDensity;
+		this.packages = builder.packages;
+		this.shuffleMembers = builder.shuffleMembers;
+		this.seed = builder.seed;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public String getBasePackage() {
+		return basePackage;
+	}
+
+	public int getEntityCount() {
+		return entities;
+	}
+
+	/**
+	 * @param index the entity index.
+	 * @return the fully qualified name of the entity with the given index.
+	 */
+	public String entityName(int index) {
+		return packageName(index) + ".Entity" + index;
+	}
+
+	/**
+	 * @return the package the entity with the given index, and its value types, reside in.
+	 */
+	public String packageName(int index) {
+		return basePackage + ".p" + (index % packages);
+	}
+
+	/**
+	 * Generate the sources of the domain model.
+	 *
+	 * @return the sources by fully qualified type name.
+	 */
+	public Map<String, String> generateSources() {
+
+		Map<String, String> sources = new LinkedHashMap<>();
+		String sharedPackage = packageName(0);
+
+		if (annotationDensity > 0) {
+			sources.put(sharedPackage + "." + ANNOTATION_NAME, annotationSource(sharedPackage));
+		}
+		if (enums || annotationDensity > 0) {
+			sources.put(sharedPackage + "." + ENUM_NAME, enumSource(sharedPackage));
+		}
+		for (int level = 0; level < inheritanceDepth; level++) {
+			sources.put(abstractEntityName(level), abstractEntitySource(level));
+		}
+
+		for (int index = 0; index < entities; index++) {
+
+			sources.put(entityName(index), entitySource(index));
+			for (int level = 0; level < nestingDepth; level++) {
+				sources.put(valueTypeName(index, level), valueTypeSource(index, level));
+			}
+		}
+
+		return sources;
+	}
+
+	/**
+	 * Generate and compile the domain model.
+	 *
+	 * @param target the directory to write sources and classes to.
+	 * @return the compiled {@link SyntheticDomain}.
+	 * @throws IOException on failure to write sources or class files.
+	 */
+	public SyntheticDomain compile(Path target) throws IOException {
+
+		Path sources = Files.createDirectories(target.resolve("sources"));
+		Path classes = Files.createDirectories(target.resolve("classes"));
+
+		List<Path> sourceFiles = new ArrayList<>();
+		for (Map.Entry<String, String> source : generateSources().entrySet()) {
+			sourceFiles.add(SyntheticClasspath.write(sources, ClassUtils.getPackageName(source.getKey()),
+					ClassUtils.getShortName(source.getKey()), source.getValue()));
+		}
+		SyntheticClasspath.compile(sourceFiles, classes);
+
+		List<String> entityNames = new ArrayList<>();
+		for (int index = 0; index < entities; index++) {
+			entityNames.add(entityName(index));
+		}
+		return new SyntheticDomain(basePackage, classes, entityNames);
+	}
+
+	// SOURCES
+
+	private String annotationSource(String packageName) {
+
+		return "package " + packageName + ";\n\n" //
+				+ "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n" //
+				+ "@java.lang.annotation.Target({ java.lang.annotation.ElementType.FIELD, java.lang.annotation.ElementType.TYPE })\n" //
+				+ "public @interface " + ANNOTATION_NAME + " {\n" //
+				+ "\tString value() default \"\";\n" //
+				+ "\tint order() default 0;\n" //
+				+ "\t" + ENUM_NAME + " kind() default " + ENUM_NAME + ".ALPHA;\n" //
+				+ "\tString[] tags() default {};\n" //
+				+ "}\n";
+	}
+
+	private String enumSource(String packageName) {
+		return "package " + packageName + ";\n\npublic enum " + ENUM_NAME + " { ALPHA, BETA, GAMMA }\n";
+	}
+
+	private String abstractEntityName(int level) {
+		return packageName(0) + ".AbstractEntity" + level;
+	}
+
+	private String abstractEntitySource(int level) {
+
+		String typeParameter = generics ? "<ID>" : "";
+		String idType = generics ? "ID" : "String";
+
+		SourceBuilder source = sourceBuilder(packageName(0));
+		source.line("public abstract class AbstractEntity%s%s%s {", level, typeParameter,
+				level == 0 ? "" : " extends AbstractEntity" + (level - 1) + typeParameter);
+
+		if (level == 0) {
+			source.property("@" + Id.class.getName(), idType, "id");
+		}
+		source.property(null, "String", "level" + level);
+		return source.end();
+	}
+
+	private String valueTypeName(int index, int level) {
+		return packageName(index) + ".Entity" + index + "Value" + level;
+	}
+
+	private String valueTypeSource(int index, int level) {
+
+		SourceBuilder source = sourceBuilder(packageName(index));
+		source.line("public class Entity%sValue%s {", index, level);
+		source.property(null, "String", "label");
+		source.property(null, "long", "amount");
+
+		if (level + 1 < nestingDepth) {
+			source.property(null, valueTypeName(index, level + 1), "next");
+		} else if (cycles) {
+			source.property(null, entityName(index), "owner");
+		}
+		return source.end();
+	}
+
+	private String entitySource(int index) {
+
+		Random random = new Random(seed + index);
+		SourceBuilder source = sourceBuilder(packageName(index));
+
+		source.line("@%s", Persistent.class.getName());
+		if (inheritanceDepth > 0) {
+			source.line("public class Entity%s extends %s%s {", index, abstractEntityName(inheritanceDepth - 1),
+					generics ? "<String>" : "");
+		} else {
+			source.line("public class Entity%s {", index);
+			source.property("@" + Id.class.getName(), "String", "id");
+		}
+
+		List<String> kinds = propertyKinds();
+		for (int property = 0; property < properties; property++) {
+
+			String annotation = random.nextDouble() < annotationDensity ? annotation(property, random) : null;
+			source.property(annotation, propertyType(index, kinds.get(property % kinds.size())), "property" + property);
+		}
+
+		return source.end();
+	}
+
+	private List<String> propertyKinds() {
+
+		List<String> kinds = new ArrayList<>();
+		kinds.add("string");
+		kinds.add("long");
+		kinds.add("date");
+		if (entities > 1 || cycles) {
+			kinds.add("reference");
+		}
+		if (nestingDepth > 0) {
+			kinds.add("value");
+		}
+		if (collections) {
+			kinds.add("list");
+		}
+		if (maps) {
+			kinds.add("map");
+		}
+		if (enums) {
+			kinds.add("enum");
+		}
+		return kinds;
+	}
+
+	private String propertyType(int index, String kind) {
+
+		switch (kind) {
+			case "long":
+				return "long";
+			case "date":
+				return "java.util.Date";
+			case "reference":
+				return entityName(referencedEntity(index));
+			case "value":
+				return valueTypeName(index, 0);
+			case "list":
+				return "java.util.List<" + entityName(referencedEntity(index)) + ">";
+			case "map":
+				return "java.util.Map<String, " + entityName(referencedEntity(index)) + ">";
+			case "enum":
+				return packageName(0) + "." + ENUM_NAME;
+			default:
+				return "String";
+		}
+	}
+
+	/**
+	 * Entities reference their successor when cycles are enabled, forming a ring. Otherwise references form a tree
+	 * pointing to lower indexes, keeping the reference depth logarithmic.
+	 */
+	private int referencedEntity(int index) {
+
+		if (cycles) {
+			return (index + 1) % entities;
+		}
+		return index == 0 ? 0 : (index - 1) / 2;
+	}
+
+	private String annotation(int property, Random random) {
+
+		String kind = packageName(0) + "." + ENUM_NAME + "." + new String[] { "ALPHA", "BETA", "GAMMA" }[random.nextInt(3)];
+		return String.format("@%s.%s(value = \"property-%s\", order = %s, kind = %s, tags = { \"t%s\", \"t%s\" })",
+				packageName(0), ANNOTATION_NAME, property, property, kind, random.nextInt(10), random.nextInt(10));
+	}
+
+	private SourceBuilder sourceBuilder(String packageName) {
+		return new SourceBuilder(packageName, shuffleMembers ? new Random(seed) : null);
+	}
+
+	/**
+	 * Renders a class with fields along with their accessors, in declaration order or shuffled.
+	 */
+	private static class SourceBuilder {
+
+		private final StringBuilder declaration = new StringBuilder();
+		private final List<String> fields = new ArrayList<>();
+		private final List<String> accessors = new ArrayList<>();
+		private final Random order;
+
+		/**
+		 * @param order the {@link Random} to shuffle fields and accessors with, {@literal null} to keep declaration order.
+		 */
+		SourceBuilder(String packageName, Random order) {
+
+			this.order = order;
+			declaration.append("package ").append(packageName).append(";\n\n");
+		}
+
+		SourceBuilder line(String format, Object... args) {
+
+			declaration.append(String.format(format, args)).append("\n");
+			return this;
+		}
+
+		SourceBuilder property(String annotation, String type, String name) {
+
+			StringBuilder field = new StringBuilder();
+			if (annotation != null) {
+				field.append("\t").append(annotation).append("\n");
+			}
+			fields.add(field.append("\tprivate ").append(type).append(" ").append(name).append(";\n").toString());
+
+			String capitalized = StringUtils.capitalize(name);
+			accessors.add("\tpublic " + type + " get" + capitalized + "() { return this." + name + "; }\n");
+			accessors.add("\tpublic void set" + capitalized + "(" + type + " " + name + ") { this." + name + " = " + name
+					+ "; }\n");
+			return this;
+		}
+
+		String end() {
+
+			if (order != null) {
+				Collections.shuffle(fields, order);
+				Collections.shuffle(accessors, order);
+			}
+			fields.forEach(declaration::append);
+			declaration.append("\n");
+			accessors.forEach(declaration::append);
+			return declaration.append("}\n").toString();
+		}
+	}
+
+	public static class Builder {
+
+		private String basePackage = "com.example.synthetic.domain";
+		private int entities = 100;
+		private int properties = 8;
+		private int nestingDepth = 1;
+		private int inheritanceDepth = 1;
+		private boolean generics = false;
+		private boolean collections = true;
+		private boolean maps = true;
+		private boolean enums = true;
+		private boolean cycles = true;
+		private double annotationDensity = 0.2;
+		private int packages = 1;
+		private boolean shuffleMembers = false;
+		private long seed = 42;
+
+		private Builder() {}
+
+		public Builder basePackage(String basePackage) {
+			this.basePackage = basePackage;
+			return this;
+		}
+
+		public Builder entities(int entities) {
+			this.entities = entities;
+			return this;
+		}
+
+		/**
+		 * @param properties number of properties declared by each entity in addition to the identifier.
+		 */
+		public Builder properties(int properties) {
+			this.properties = properties;
+			return this;
+		}
+
+		/**
+		 * @param nestingDepth levels of value types below each entity. {@literal 0} to not generate value types.
+		 */
+		public Builder nestingDepth(int nestingDepth) {
+			this.nestingDepth = nestingDepth;
+			return this;
+		}
+
+		/**
+		 * @param inheritanceDepth levels of abstract super classes shared by all entities. {@literal 0} for no hierarchy.
+		 */
+		public Builder inheritanceDepth(int inheritanceDepth) {
+			this.inheritanceDepth = inheritanceDepth;
+			return this;
+		}
+
+		/**
+		 * @param generics whether to declare the identifier of the abstract super classes via a type variable.
+		 */
+		public Builder generics(boolean generics) {
+			this.generics = generics;
+			return this;
+		}
+
+		public Builder collections(boolean collections) {
+			this.collections = collections;
+			return this;
+		}
+
+		public Builder maps(boolean maps) {
+			this.maps = maps;
+			return this;
+		}
+
+		public Builder enums(boolean enums) {
+			this.enums = enums;
+			return this;
+		}
+
+		/**
+		 * @param cycles whether entity references form cycles. If {@literal false} references form a tree.
+		 */
+		public Builder cycles(boolean cycles) {
+			this.cycles = cycles;
+			return this;
+		}
+
+		/**
+		 * @param annotationDensity share of properties annotated with a synthetic annotation carrying attributes.
+		 */
+		public Builder annotationDensity(double annotationDensity) {
+			this.annotationDensity = annotationDensity;
+			return this;
+		}
+
+		/**
+		 * @param packages number of packages to spread the entities across.
+		 */
+		public Builder packages(int packages) {
+			this.packages = packages;
+			return this;
+		}
+
+		/**
+		 * @param shuffleMembers whether to declare fields and accessors in a shuffled order rather than the one of the
+		 *          properties, to vary the order reflection reports members in while keeping the model identical.
+		 */
+		public Builder shuffleMembers(boolean shuffleMembers) {
+			this.shuffleMembers = shuffleMembers;
+			return this;
+		}
+
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		public SyntheticDomainGenerator build() {
+
+			Assert.isTrue(entities > 0, "At least one entity is required!");
+			Assert.isTrue(packages > 0, "At least one package is required!");
+			Assert.isTrue(annotationDensity >= 0 && annotationDensity <= 1, "Annotation density must be between 0 and 1!");
+			return new SyntheticDomainGenerator(this);
+		}
+	}
+}
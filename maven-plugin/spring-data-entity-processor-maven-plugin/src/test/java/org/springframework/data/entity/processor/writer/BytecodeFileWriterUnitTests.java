@@ -0,0 +1,354 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+import com.squareup.javapoet.CodeBlock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.Types;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
+import org.springframework.data.example.repo.Address;
+import org.springframework.data.example.repo.Person;
+import org.springframework.data.mapping.model.ConfigurableTypeInformation;
+import org.springframework.data.mapping.model.Field;
+import org.springframework.data.util.TypeInformation;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class BytecodeFileWriterUnitTests {
+
+	BytecodeFileWriter writer;
+
+	@BeforeEach
+	void beforeEach() {
+		writer = new BytecodeFileWriter();
+	}
+
+	@Test
+	void generatesLoadableTypeInformation() throws Exception {
+
+		Class<?> type = defineTypeInformation(Address.class);
+
+		assertThat(invoke(type, "instance")).isInstanceOf(ConfigurableTypeInformation.class);
+		assertThat(invoke(type, "propertyIndex", "street")).isEqualTo(JavaPoetFileWriter.propertyNames(typeInfo(Address.class)).indexOf("street"));
+		assertThat(invoke(type, "propertyIndex", "unknown")).isEqualTo(-1);
+	}
+
+	@Test
+	void populatesPropertyArray() throws Exception {
+
+		Class<?> type = defineTypeInformation(Address.class);
+		Object instance = invoke(type, "instance");
+
+		assertThat(invoke(instance, "propertyNamed", "city")).isNotNull();
+		assertThat(invoke(instance, "propertyNamed", "unknown")).isNull();
+		assertThat(invoke(instance, "propertyAt", 0)).isSameAs(invoke(instance, "propertyNamed",
+				JavaPoetFileWriter.propertyNames(typeInfo(Address.class)).get(0)));
+	}
+
+	@Test
+	void resolvesPropertiesViaIndex() throws Exception {
+
+		Class<?> type = defineTypeInformation(Address.class);
+		TypeInformation<?> instance = (TypeInformation<?>) invoke(type, "instance");
+
+		assertThat(instance.getProperty("street")).isSameAs(((Field<?, ?>) invoke(instance, "propertyNamed", "street")).getTypeInformation());
+		assertThat(instance.getProperty("street").getType()).isEqualTo(String.class);
+		assertThat(instance.getProperty("unknown")).isNull();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void primitiveAccessors() throws Exception {
+
+		Class<?> type = defineTypeInformation(Types.PrimitiveTypes.class);
+		assertThat(invoke(type, "instance")).isNotNull();
+
+		Types.PrimitiveTypes domainObject = new Types.PrimitiveTypes();
+		((ObjIntConsumer<Types.PrimitiveTypes>) type.getField("INT_VALUE_SETTER").get(null)).accept(domainObject, 42);
+		domainObject.setBooleanValue(true);
+
+		assertThat(((ToIntFunction<Types.PrimitiveTypes>) type.getField("INT_VALUE_GETTER").get(null)).applyAsInt(domainObject)).isEqualTo(42);
+		assertThat(((Predicate<Types.PrimitiveTypes>) type.getField("BOOLEAN_VALUE_GETTER").get(null)).test(domainObject)).isTrue();
+		assertThat(type.getField("BOOLEAN_VALUE_SETTER").getType().getName())
+				.isEqualTo("org.springframework.data.PrimitiveTypesConfigurableTypeInformation$ObjBooleanConsumer");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void referencesInterfaceDeclaredAccessors() throws Exception {
+
+		Class<?> type = defineTypeInformation(Types.InterfaceAccessorType.class);
+
+		assertThat(invoke(type, "instance")).isNotNull();
+		assertThat(((ToIntFunction<Types.InterfaceAccessorType>) type.getField("COUNT_GETTER").get(null))
+				.applyAsInt(new Types.InterfaceAccessorType())).isEqualTo(42);
+	}
+
+	@Test
+	void generatesAnnotationImplementations() throws Exception {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.FieldAnnotation.class)).getDomainTypes();
+		Map<String, byte[]> classFiles = writer.typeInfoToClassFiles(domainTypes.iterator().next(), domainTypes);
+
+		assertThat(classFiles.keySet()).contains("org/springframework/data/FieldAnnotationConfigurableTypeInformation",
+				"org/springframework/data/FieldAnnotationConfigurableTypeInformation$1");
+		assertThat(invoke(define(domainTypes).loadClass("org.springframework.data.FieldAnnotationConfigurableTypeInformation"), "instance"))
+				.isNotNull();
+	}
+
+	@Test
+	void splitsInitializationExceedingMethodSizeLimit() throws Exception {
+
+		writer.setMethodSizeLimit(1);
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+		Class<?> type = define(domainTypes).loadClass("org.springframework.data.example.repo.PersonConfigurableTypeInformation");
+
+		assertThat(Arrays.stream(type.getDeclaredMethods()).map(it -> it.getName())).contains("initialize0", "initialize1");
+		assertThat(invoke(type, "instance")).isInstanceOf(ConfigurableTypeInformation.class);
+	}
+
+	@Test
+	void keepsInitializerMethodsBelowHugeMethodLimit(@TempDir Path tempDir) throws IOException {
+
+		SyntheticDomain domain = SyntheticDomainGenerator.builder().entities(1).properties(400).annotationDensity(0.5)
+				.build().compile(tempDir);
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			Class<?> entity = domain.loadEntities(classLoader).get(0);
+			DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(entity)).getDomainTypes();
+			TypeInfo typeInfo = domainTypes.getDomainTypeModelForClass(entity).get();
+
+			Map<String, Integer> codeLengths = codeLengths(
+					writer.typeInfoToClassFiles(typeInfo, domainTypes).get(typeInfo.getSignature().getConfigurableTypeName().replace('.', '/')));
+			List<List<CodeBlock>> chunks = JavaPoetFileWriter.chunk(new JavaPoetFileWriter().initializerBlocks(typeInfo, domainTypes),
+					JavaPoetFileWriter.DEFAULT_METHOD_SIZE_LIMIT);
+
+			assertThat(chunks).hasSizeGreaterThan(1);
+			for (int i = 0; i < chunks.size(); i++) {
+
+				// the estimate is an upper bound of the actual size
+				assertThat(codeLengths.get("initialize" + i))
+						.isLessThanOrEqualTo(chunks.get(i).stream().mapToInt(JavaPoetFileWriter::estimateBytecodeSize).sum());
+			}
+			assertThat(codeLengths.values()).allMatch(it -> it < 8000);
+		}
+	}
+
+	@Test
+	void definesSyntheticDomainWithDeepHierarchies(@TempDir Path tempDir) throws Exception {
+
+		SyntheticDomain domain = SyntheticDomainGenerator.builder().entities(20).properties(200).nestingDepth(3)
+				.inheritanceDepth(4).generics(true).annotationDensity(0.5).build().compile(tempDir);
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			DomainTypes domainTypes = new DataModelGenerator(domain.loadEntities(classLoader)).getDomainTypes();
+			ClassLoader generated = define(domainTypes, classLoader);
+
+			for (TypeInfo typeInfo : domainTypes) {
+
+				Class<?> type = generated.loadClass(typeInfo.getSignature().getConfigurableTypeName());
+				TypeInformation<?> instance = (TypeInformation<?>) invoke(type, "instance");
+
+				assertThat(instance.getType()).isEqualTo(typeInfo.getType());
+				if (domain.getEntityNames().contains(typeInfo.getTypeName())) {
+
+					assertThat(Arrays.stream(type.getDeclaredMethods()).map(it -> it.getName())).contains("initialize1");
+					assertThat(instance.getProperty("level0").getType()).isEqualTo(String.class);
+					assertThat(instance.getProperty("property199")).isNotNull();
+				}
+			}
+		}
+	}
+
+	@Test
+	void generatesInstrumentedTypeInformation() throws Exception {
+
+		writer.setInstrumentation(true);
+
+		Class<?> type = defineTypeInformation(Address.class);
+
+		assertThat(invoke(type, "instance")).isInstanceOf(ConfigurableTypeInformation.class);
+		assertThat(invoke(type, "instantiations")).isEqualTo(0L);
+		assertThat(invoke(type, "reads", "street")).isEqualTo(0L);
+		assertThat(invoke(type, "writes", "unknown")).isEqualTo(0L);
+	}
+
+	@Test
+	void instrumentsInterfaceDeclaredAccessors() throws Exception {
+
+		writer.setInstrumentation(true);
+
+		Class<?> type = defineTypeInformation(Types.InterfaceAccessorType.class);
+
+		assertThat(invoke(type, "instance")).isInstanceOf(ConfigurableTypeInformation.class);
+		assertThat(invoke(type, "reads", "count")).isEqualTo(0L);
+	}
+
+	private static TypeInfo typeInfo(Class<?> type) {
+		return new DataModelGenerator().computeTypeModel(type);
+	}
+
+	private Class<?> defineTypeInformation(Class<?> type) throws ClassNotFoundException {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(type)).getDomainTypes();
+		return define(domainTypes).loadClass(typeInfo(type).getSignature().getConfigurableTypeName());
+	}
+
+	private ClassLoader define(DomainTypes domainTypes) {
+		return define(domainTypes, getClass().getClassLoader());
+	}
+
+	private ClassLoader define(DomainTypes domainTypes, ClassLoader parent) {
+
+		Map<String, byte[]> classFiles = new HashMap<>();
+		for (TypeInfo typeInfo : domainTypes) {
+			writer.typeInfoToClassFiles(typeInfo, domainTypes).forEach((name, bytes) -> classFiles.put(name.replace('/', '.'), bytes));
+		}
+
+		return new ClassLoader(parent) {
+
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException {
+
+				byte[] bytes = classFiles.get(name);
+				if (bytes == null) {
+					throw new ClassNotFoundException(name);
+				}
+				return defineClass(name, bytes, 0, bytes.length);
+			}
+		};
+	}
+
+	/**
+	 * @return the length of the {@literal Code} attribute by method name.
+	 */
+	private static Map<String, Integer> codeLengths(byte[] classFile) throws IOException {
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+		in.skipBytes(8); // magic and version
+
+		int constantPoolCount = in.readUnsignedShort();
+		String[] utf8 = new String[constantPoolCount];
+		for (int i = 1; i < constantPoolCount; i++) {
+
+			int tag = in.readUnsignedByte();
+			switch (tag) {
+				case 1: // Utf8
+					utf8[i] = in.readUTF();
+					break;
+				case 5: // Long
+				case 6: // Double
+					in.skipBytes(8);
+					i++;
+					break;
+				case 7: // Class
+				case 8: // String
+				case 16: // MethodType
+				case 19: // Module
+				case 20: // Package
+					in.skipBytes(2);
+					break;
+				case 15: // MethodHandle
+					in.skipBytes(3);
+					break;
+				default: // Integer, Float, references, NameAndType and (Invoke)Dynamic
+					in.skipBytes(4);
+			}
+		}
+
+		in.skipBytes(6); // access flags, this and super class
+		in.skipBytes(in.readUnsignedShort() * 2); // interfaces
+
+		int fieldCount = in.readUnsignedShort();
+		for (int i = 0; i < fieldCount; i++) {
+
+			in.skipBytes(6);
+			skipAttributes(in);
+		}
+
+		Map<String, Integer> codeLengths = new LinkedHashMap<>();
+		int methodCount = in.readUnsignedShort();
+		for (int i = 0; i < methodCount; i++) {
+
+			in.skipBytes(2);
+			String name = utf8[in.readUnsignedShort()];
+			in.skipBytes(2);
+
+			int attributeCount = in.readUnsignedShort();
+			for (int j = 0; j < attributeCount; j++) {
+
+				String attribute = utf8[in.readUnsignedShort()];
+				int length = in.readInt();
+				if (attribute.equals("Code")) {
+
+					in.skipBytes(4); // max stack and locals
+					codeLengths.put(name, in.readInt());
+					in.skipBytes(length - 8);
+				} else {
+					in.skipBytes(length);
+				}
+			}
+		}
+		return codeLengths;
+	}
+
+	private static void skipAttributes(DataInputStream in) throws IOException {
+
+		int attributeCount = in.readUnsignedShort();
+		for (int i = 0; i < attributeCount; i++) {
+
+			in.skipBytes(2);
+			in.skipBytes(in.readInt());
+		}
+	}
+
+	private static Object invoke(Object target, String name, Object... args) {
+
+		Class<?> type = target instanceof Class ? (Class<?>) target : target.getClass();
+		return Arrays.stream(type.getMethods()).filter(it -> it.getName().equals(name) && it.getParameterCount() == args.length)
+				.findFirst().map(it -> ReflectionUtils.invokeMethod(it, target instanceof Class ? null : target, args))
+				.orElseThrow(() -> new IllegalArgumentException(name));
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class GeneratedFilesUnitTests {
+
+	@TempDir Path tempDir;
+
+	@Test
+	void writesChangedContentOnly() throws IOException {
+
+		File file = tempDir.resolve("com/example/A.java").toFile();
+
+		assertThat(new GeneratedFiles().write(file, "class A {}".getBytes(StandardCharsets.UTF_8))).isTrue();
+
+		GeneratedFiles generatedFiles = new GeneratedFiles();
+		assertThat(generatedFiles.write(file, "class A {}".getBytes(StandardCharsets.UTF_8))).isFalse();
+		assertThat(generatedFiles.getChangedFiles()).isEmpty();
+
+		assertThat(generatedFiles.write(file, "class A { }".getBytes(StandardCharsets.UTF_8))).isTrue();
+		assertThat(generatedFiles.getChangedFiles()).containsExactly(file);
+	}
+
+	@Test
+	void tracksDeletedFiles() throws IOException {
+
+		File file = tempDir.resolve("A.class").toFile();
+		GeneratedFiles generatedFiles = new GeneratedFiles();
+		generatedFiles.write(file, new byte[] { 1 });
+
+		assertThat(generatedFiles.delete(file)).isTrue();
+		assertThat(generatedFiles.delete(file)).isFalse();
+		assertThat(file).doesNotExist();
+	}
+}
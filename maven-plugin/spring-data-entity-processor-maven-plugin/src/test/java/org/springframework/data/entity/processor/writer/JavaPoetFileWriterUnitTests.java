@@ -17,12 +17,24 @@ package org.springframework.data.entity.processor.writer;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.stream.StreamSupport;
 
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.JavaFile;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.data.Types;
 import org.springframework.data.Types.AccessorMethodsType;
 import org.springframework.data.Types.AnnotationType;
@@ -32,6 +44,9 @@ import org.springframework.data.entity.processor.model.DataModelGenerator;
 import org.springframework.data.entity.processor.model.DomainTypes;
 import org.springframework.data.entity.processor.model.PropertyInfo;
 import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomain;
+import org.springframework.data.entity.processor.synthetic.SyntheticDomainGenerator;
+import org.springframework.data.example.repo.Address;
 import org.springframework.data.example.repo.Person;
 import org.springframework.util.ReflectionUtils;
 
@@ -131,6 +146,187 @@ public class JavaPoetFileWriterUnitTests {
 		assertThat(codeBlock).isEqualTo(CodeBlock.of("getterAndWither.wither(org.springframework.data.Types.AccessorMethodsType::withGetterAndWither)"));
 	}
 
+	// INSTRUMENTATION
+
+	@Test
+	void countingNewInstanceBlock() {
+
+		writer.setInstrumentation(true);
+
+		CodeBlock codeBlock = writer.newInstanceBlock(new ConstructorInfo(Types.NoArgsCtor.class));
+
+		assertThat(codeBlock).isEqualTo(CodeBlock.of("org.springframework.data.mapping.model.ConfigurableTypeConstructor.<org.springframework.data.Types.NoArgsCtor>noArgsConstructor(() -> { if (INSTRUMENTED) INSTANTIATIONS.increment(); return new org.springframework.data.Types.NoArgsCtor(); })"));
+	}
+
+	@Test
+	void countingFieldAccessorGetter() {
+
+		TypeInfo typeInfo = new TypeInfo(Types.AccessorMethodsType.class);
+		PropertyInfo propertyInfo = new PropertyInfo(typeInfo, "justGetter", String.class);
+		propertyInfo.getter(ReflectionUtils.findMethod(Types.AccessorMethodsType.class, "getJustGetter"));
+
+		CodeBlock codeBlock = writer.countingGetterMethodBlock(propertyInfo, 2);
+
+		assertThat(codeBlock).isEqualTo(CodeBlock.of("justGetter.getter($$bean -> { if (INSTRUMENTED) READS[2].increment(); return $$bean.getJustGetter(); })"));
+	}
+
+	@Test
+	void instrumentsTypeOnlyIfEnabled() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+		TypeInfo typeInfo = domainTypes.iterator().next();
+
+		assertThat(writer.computeTypeSpec(typeInfo, domainTypes).toString()).doesNotContain("INSTRUMENTED");
+
+		writer.setInstrumentation(true);
+		TypeSpec typeSpec = writer.computeTypeSpec(typeInfo, domainTypes);
+
+		assertThat(typeSpec.fieldSpecs).extracting(it -> it.name).startsWith("INSTRUMENTED", "INSTANTIATIONS", "READS",
+				"WRITES", "INSTANCE");
+		assertThat(typeSpec.methodSpecs).extracting(it -> it.name).contains("instantiations", "reads", "writes");
+		assertThat(typeSpec.toString()).contains("Boolean.getBoolean(\"" + JavaPoetFileWriter.INSTRUMENTATION_PROPERTY + "\")",
+				"INSTANTIATIONS.increment()", "WRITES[");
+	}
+
+	// PROPERTY LOOKUP
+
+	@Test
+	void propertyIndexLookup() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Address.class);
+
+		assertThat(writer.propertyIndexMethod(typeInfo).toString())
+				.contains("public static int propertyIndex(java.lang.String name) {")
+				.contains("case \"city\": return 0;")
+				.contains("case \"street\": return 1;")
+				.contains("default: return -1;");
+	}
+
+	@Test
+	void densePropertyArray() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Address.class);
+
+		assertThat(writer.propertiesField(typeInfo).toString()).contains("properties = new org.springframework.data.mapping.model.Field<?, ?>[2];");
+	}
+
+	@Test
+	void overridesPropertyLookupWithIndex() {
+
+		assertThat(writer.getPropertyMethod().toString())
+				.contains("public org.springframework.data.util.TypeInformation<?> getProperty(java.lang.String property) {")
+				.contains("int index = propertyIndex(property);")
+				.contains("this.properties[index].getTypeInformation() : super.getProperty(property);");
+	}
+
+	// PRIMITIVE ACCESSORS
+
+	@Test
+	void primitiveAccessors() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Types.PrimitiveTypes.class);
+
+		assertThat(writer.primitiveAccessorFields(typeInfo)).extracting(FieldSpec::toString).containsExactly(
+				"public static final java.util.function.Predicate<org.springframework.data.Types.PrimitiveTypes> BOOLEAN_VALUE_GETTER = org.springframework.data.Types.PrimitiveTypes::isBooleanValue;\n",
+				"public static final org.springframework.data.PrimitiveTypesConfigurableTypeInformation.ObjBooleanConsumer<org.springframework.data.Types.PrimitiveTypes> BOOLEAN_VALUE_SETTER = org.springframework.data.Types.PrimitiveTypes::setBooleanValue;\n",
+				"public static final java.util.function.ToDoubleFunction<org.springframework.data.Types.PrimitiveTypes> DOUBLE_VALUE_GETTER = org.springframework.data.Types.PrimitiveTypes::getDoubleValue;\n",
+				"public static final java.util.function.ObjDoubleConsumer<org.springframework.data.Types.PrimitiveTypes> DOUBLE_VALUE_SETTER = org.springframework.data.Types.PrimitiveTypes::setDoubleValue;\n",
+				"public static final java.util.function.ToIntFunction<org.springframework.data.Types.PrimitiveTypes> INT_VALUE_GETTER = org.springframework.data.Types.PrimitiveTypes::getIntValue;\n",
+				"public static final java.util.function.ObjIntConsumer<org.springframework.data.Types.PrimitiveTypes> INT_VALUE_SETTER = org.springframework.data.Types.PrimitiveTypes::setIntValue;\n",
+				"public static final java.util.function.ToLongFunction<org.springframework.data.Types.PrimitiveTypes> LONG_VALUE_GETTER = org.springframework.data.Types.PrimitiveTypes::getLongValue;\n",
+				"public static final java.util.function.ObjLongConsumer<org.springframework.data.Types.PrimitiveTypes> LONG_VALUE_SETTER = org.springframework.data.Types.PrimitiveTypes::setLongValue;\n");
+	}
+
+	@Test
+	void registersPrimitiveAccessorsWithField() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Types.PrimitiveTypes.class);
+		PropertyInfo intValue = StreamSupport.stream(typeInfo.spliterator(), false)
+				.filter(it -> it.getName().equals("intValue")).findFirst().get();
+
+		assertThat(writer.getterMethodBlock(intValue)).isEqualTo(CodeBlock.of("intValue.getter(INT_VALUE_GETTER::applyAsInt)"));
+		assertThat(writer.setterMethodBlock(intValue)).isEqualTo(CodeBlock.of("intValue.setter(INT_VALUE_SETTER::accept)"));
+	}
+
+	@Test
+	void disambiguatesCollidingConstantNames() {
+
+		TypeInfo typeInfo = new TypeInfo(Types.PrimitiveTypes.class);
+		for (String name : Arrays.asList("url", "URL", "aB", "a_b")) {
+			typeInfo.addProperty(new PropertyInfo(typeInfo, name, int.class));
+		}
+
+		assertThat(JavaPoetFileWriter.constantNames(typeInfo)).containsExactly(entry("URL", "URL"), entry("aB", "A_B"),
+				entry("a_b", "A_B_2"), entry("url", "URL_3"));
+	}
+
+	// METHOD SIZE
+
+	@Test
+	void keepsInitializationInConstructorWhenSmall() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+
+		TypeSpec typeSpec = writer.computeTypeSpec(domainTypes.iterator().next(), domainTypes);
+
+		assertThat(typeSpec.methodSpecs).extracting(it -> it.name).doesNotContain("initialize0");
+	}
+
+	@Test
+	void splitsInitializationExceedingMethodSizeLimit() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+		TypeInfo typeInfo = domainTypes.iterator().next();
+		writer.setMethodSizeLimit(100);
+
+		TypeSpec typeSpec = writer.computeTypeSpec(typeInfo, domainTypes);
+
+		assertThat(typeSpec.methodSpecs).extracting(it -> it.name).contains("initialize0", "initialize1");
+		assertThat(typeSpec.methodSpecs.stream().filter(MethodSpec::isConstructor).findFirst().get().code.toString())
+				.contains("initialize0();")
+				.doesNotContain("addField(");
+		assertThat(writer.computeTypeSpec(typeInfo, domainTypes).toString()).isEqualTo(typeSpec.toString());
+	}
+
+	@Test
+	void writesSyntheticDomainWithDeepHierarchies(@TempDir Path tempDir) throws IOException {
+
+		SyntheticDomain domain = SyntheticDomainGenerator.builder().entities(20).properties(200).nestingDepth(3)
+				.inheritanceDepth(4).generics(true).annotationDensity(0.5).build().compile(tempDir.resolve("domain"));
+		File targetDirectory = tempDir.resolve("generated").toFile();
+
+		try (URLClassLoader classLoader = domain.newClassLoader(getClass().getClassLoader())) {
+
+			DomainTypes domainTypes = new DataModelGenerator(domain.loadEntities(classLoader)).getDomainTypes();
+			writer.writeConfigurableTypes(domainTypes, it -> true, targetDirectory);
+
+			assertThat(domainTypes).hasSize(20 + 20 * 3);
+			for (TypeInfo typeInfo : domainTypes) {
+
+				File file = new File(targetDirectory,
+						typeInfo.getSignature().getConfigurableTypeName().replace('.', File.separatorChar) + ".java");
+				String source = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+				if (domain.getEntityNames().contains(typeInfo.getTypeName())) {
+					assertThat(source).contains("private void initialize0()", "private void initialize1()");
+				} else {
+					assertThat(source).doesNotContain("initialize0");
+				}
+			}
+		}
+	}
+
+	@Test
+	void chunksBlocksByEstimatedSize() {
+
+		CodeBlock block = CodeBlock.of("addField(value);\n");
+		int size = JavaPoetFileWriter.estimateBytecodeSize(block);
+
+		assertThat(JavaPoetFileWriter.chunk(Arrays.asList(block, block, block), size * 2)).hasSize(2);
+		assertThat(JavaPoetFileWriter.chunk(Arrays.asList(block, block, block), size * 3)).hasSize(1);
+		assertThat(JavaPoetFileWriter.chunk(Arrays.asList(block, block, block), 1)).hasSize(3);
+	}
+
 	// ANNOTATIONS
 
 	@Test
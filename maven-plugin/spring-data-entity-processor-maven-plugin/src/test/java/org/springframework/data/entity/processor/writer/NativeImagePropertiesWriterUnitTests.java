@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.Types;
+import org.springframework.data.entity.processor.GeneratorMetrics;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.entity.processor.model.TypeInfo;
+import org.springframework.data.example.annotations.FieldTypeEnum;
+import org.springframework.data.example.repo.Person;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class NativeImagePropertiesWriterUnitTests {
+
+	NativeImagePropertiesWriter writer;
+
+	@BeforeEach
+	void beforeEach() {
+		writer = new NativeImagePropertiesWriter();
+	}
+
+	@Test
+	void initializesGeneratedTypesAtBuildTime() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+
+		assertThat(writer.runtimeOnlyDependencies(domainTypes)).isEmpty();
+		assertThat(writer.nativeImageProperties(domainTypes, Collections.emptySet()))
+				.startsWith("Args = --initialize-at-build-time=org.springframework.data.example.repo.PersonConfigurableTypeInformation,\\\n")
+				.contains("  org.springframework.data.example.repo.AddressConfigurableTypeInformation");
+	}
+
+	@Test
+	void considersEnumsUsedInAnnotations() {
+
+		TypeInfo typeInfo = new DataModelGenerator().computeTypeModel(Person.class);
+
+		assertThat(NativeImagePropertiesWriter.staticallyInitializedTypes(typeInfo)).contains(FieldTypeEnum.class);
+	}
+
+	@Test
+	void rejectsTypesDependingOnRuntimeOnlyStaticState() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.ReferencingRuntimeInitializedType.class)).getDomainTypes();
+
+		assertThat(writer.runtimeOnlyDependencies(domainTypes).keySet()).extracting(TypeInfo::getType)
+				.containsExactlyInAnyOrder(Types.RuntimeInitializedAnnotationValue.class, Types.ReferencingRuntimeInitializedType.class);
+		assertThat(writer.nativeImageProperties(domainTypes, writer.runtimeOnlyDependencies(domainTypes).keySet())).isEmpty();
+	}
+
+	@Test
+	void followsStaticInitializerSideEffects() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.SideEffectAnnotationValue.class)).getDomainTypes();
+
+		assertThat(NativeImagePropertiesWriter.staticallyInitializedTypes(domainTypes.iterator().next()))
+				.contains(Types.SideEffectAnnotation.class, Types.SideEffectEnum.class, Types.RuntimeStateRegistry.class);
+		assertThat(writer.runtimeOnlyDependencies(domainTypes).keySet()).extracting(TypeInfo::getType)
+				.containsExactly(Types.SideEffectAnnotationValue.class);
+	}
+
+	@Test
+	void rejectsAnnotationTypesHoldingRuntimeOnlyState() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.RuntimeStateAnnotationValue.class)).getDomainTypes();
+
+		assertThat(writer.runtimeOnlyDependencies(domainTypes).get(domainTypes.iterator().next()))
+				.containsExactly(Types.RuntimeStateAnnotation.class);
+	}
+
+	@Test
+	void recordsTypesInitializedAtRuntime(@TempDir File targetDirectory) throws IOException {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.ReferencingRuntimeInitializedType.class)).getDomainTypes();
+		GeneratorMetrics metrics = new GeneratorMetrics();
+
+		writer.setGeneratedFiles(new GeneratedFiles(metrics));
+		writer.writeGraalVmConfiguration(domainTypes, targetDirectory);
+
+		assertThat(metrics.getCount(NativeImagePropertiesWriter.TYPES_INITIALIZED_AT_RUNTIME)).isEqualTo(2);
+		assertThat(metrics.toJson(0)).contains("ReferencingRuntimeInitializedTypeConfigurableTypeInformation depends on");
+	}
+
+	@Test
+	void initializesInstrumentedTypesAtRuntime(@TempDir File targetDirectory) throws IOException {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Person.class)).getDomainTypes();
+
+		writer.setInstrumentation(true);
+		writer.writeGraalVmConfiguration(domainTypes, targetDirectory);
+
+		File properties = new File(targetDirectory, "META-INF/native-image/" + NativeImagePropertiesWriter.FILE_NAME);
+		assertThat(new String(Files.readAllBytes(properties.toPath()))).doesNotContain("--initialize-at-build-time");
+	}
+}
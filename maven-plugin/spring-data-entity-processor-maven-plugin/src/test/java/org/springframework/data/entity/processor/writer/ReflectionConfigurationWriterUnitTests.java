@@ -0,0 +1,77 @@
+/*
+ * Copyright 2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.data.entity.processor.writer;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.Types;
+import org.springframework.data.entity.processor.model.DataModelGenerator;
+import org.springframework.data.entity.processor.model.DomainTypes;
+import org.springframework.data.example.repo.Address;
+
+/**
+ * @author Christoph Strobl
+ * @since 2020/11
+ */
+public class ReflectionConfigurationWriterUnitTests {
+
+	ReflectionConfigurationWriter writer;
+
+	@BeforeEach
+	void beforeEach() {
+		writer = new ReflectionConfigurationWriter();
+	}
+
+	@Test
+	void omitsMembersCoveredByAccessors() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Address.class)).getDomainTypes();
+
+		assertThat(writer.reflectConfig(domainTypes)).isEqualTo("[\n" +
+				"  {\n" +
+				"    \"name\": \"org.springframework.data.example.repo.Address\"\n" +
+				"  }\n" +
+				"]\n");
+	}
+
+	@Test
+	void registersFieldsWithoutAccessor() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.AccessorMethodsType.class)).getDomainTypes();
+
+		String config = writer.typeEntry(domainTypes.iterator().next());
+
+		assertThat(config).contains("\"name\": \"org.springframework.data.Types$AccessorMethodsType\"")
+				.contains("{ \"name\": \"justGetter\", \"allowWrite\": true }")
+				.contains("{ \"name\": \"justSetter\" }")
+				.doesNotContain("getterAndWither")
+				.doesNotContain("\"methods\"");
+	}
+
+	@Test
+	void registersFieldsWrittenByPrivateWither() {
+
+		DomainTypes domainTypes = new DataModelGenerator(Collections.singleton(Types.PrivateWitherType.class))
+				.getDomainTypes();
+
+		assertThat(writer.typeEntry(domainTypes.iterator().next()))
+				.contains("{ \"name\": \"name\", \"allowWrite\": true }").doesNotContain("withName");
+	}
+}